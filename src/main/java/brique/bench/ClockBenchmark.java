@@ -0,0 +1,202 @@
+package brique.bench;
+
+import brique.core.GameClock;
+import brique.core.Stone;
+import brique.core.TimeControl;
+import brique.server.TimerWheel;
+
+import java.util.Random;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// Game clocks on a hashed TimerWheel, driven the way a server shard drives them: one thread
+// waits for the next tick, plays the moves that came in since (each presses a clock and
+// re-arms its flag) and advances the wheel. Each turn every player to move answers with the
+// same small probability, so think times are exponential and some players run out of time;
+// a game whose flag fell starts again on full time, keeping every clock armed. Reports the cost of a tick and of re-arming a flag, and how late the
+// flags fell (never early). For comparison, the same number of flags as tasks on a
+// ScheduledThreadPoolExecutor, re-armed by cancel and schedule.
+// Usage: ClockBenchmark [clocks=100000] [seconds=20] [timeControl=5+1] [thinkMillis=2000] [tickMillis=10] [slots=1024]
+public final class ClockBenchmark {
+
+    // Lateness histogram: 0.1 ms buckets up to 10 seconds
+    private static final double BUCKET_MILLIS = 0.1;
+    private static final int BUCKETS = 100_000;
+
+    private ClockBenchmark() { }
+
+    public static void main(String[] args) throws Exception {
+        int clocks          = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int seconds         = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        TimeControl control = TimeControl.parse(args.length > 2 ? args[2] : "5+1");
+        long thinkMillis    = args.length > 3 ? Long.parseLong(args[3]) : 2_000;
+        long tickMillis     = args.length > 4 ? Long.parseLong(args[4]) : 10;
+        int slots           = args.length > 5 ? Integer.parseInt(args[5]) : 1024;
+
+        wheel(clocks, seconds, control, thinkMillis, tickMillis, slots);
+        executor(clocks, seconds, control);
+    }
+
+    private static void wheel(int clocks, int seconds, TimeControl control, long thinkMillis,
+                              long tickMillis, int slots) {
+        Random random = new Random(1);
+        long start = millis();
+        TimerWheel<Game> wheel = new TimerWheel<>(tickMillis, slots, start);
+        Game[] games = new Game[clocks];
+        for (int i = 0; i < clocks; i++) {
+            games[i] = new Game(control);
+            games[i].begin(wheel, start);
+        }
+        long[] late = new long[BUCKETS];
+        long[] flags = {0};
+        // Each player moves once per thinkMillis on average
+        double movesPerMilli = clocks / (double) thinkMillis;
+        double owed = 0;
+        long moves = 0;
+        long armNanos = 0;
+        long ticks = 0;
+        long tickNanos = 0;
+        long maxTickNanos = 0;
+        long last = start;
+        long end = start + seconds * 1_000L;
+        while (true) {
+            long wake = wheel.nextTick();
+            long wait = wake - millis();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait * 1_000_000);
+            }
+            long now = millis();
+            if (now >= end) {
+                break;
+            }
+            owed += (now - last) * movesPerMilli;
+            last = now;
+            long armStart = System.nanoTime();
+            for (; owed >= 1; owed--) {
+                Game game = games[random.nextInt(clocks)];
+                if (game.clock.flagged(now)) {
+                    continue;
+                }
+                game.move(wheel, now);
+                moves++;
+            }
+            armNanos += System.nanoTime() - armStart;
+
+            long tickStart = System.nanoTime();
+            wheel.advance(now, game -> {
+                double lateness = System.nanoTime() / 1e6 - game.clock.deadline();
+                late[(int) Math.min(BUCKETS - 1, Math.max(0, lateness / BUCKET_MILLIS))]++;
+                flags[0]++;
+                game.begin(wheel, now);
+            });
+            long tick = System.nanoTime() - tickStart;
+            tickNanos += tick;
+            maxTickNanos = Math.max(maxTickNanos, tick);
+            ticks++;
+        }
+        // Flags that should have fallen by the last tick but did not
+        long missed = 0;
+        for (Game game : games) {
+            if (game.clock.deadline() <= last - tickMillis) {
+                missed++;
+            }
+        }
+        System.out.printf("Timer wheel, %,d clocks under %s, %d ms ticks over %,d slots: %,d ticks, %.1f us per tick"
+                        + " (max %.1f ms), %,d moves at %.0f ns per press and re-arm%n",
+            clocks, describe(control), tickMillis, slots, ticks, tickNanos / 1e3 / ticks,
+            maxTickNanos / 1e6, moves, armNanos / (double) Math.max(1, moves));
+        System.out.printf("  %,d flags fell, late by p50 %.1f ms, p99 %.1f ms, max %.1f ms; %s%n",
+            flags[0], percentile(late, 0.50), percentile(late, 0.99), percentile(late, 1.0),
+            missed == 0 ? "no flag missed" : missed + " flags missed");
+    }
+
+    private static void executor(int clocks, int seconds, TimeControl control) throws InterruptedException {
+        Random random = new Random(1);
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1);
+        executor.setRemoveOnCancelPolicy(true);
+        long[] late = new long[BUCKETS];
+        long[] flags = {0};
+        ScheduledFuture<?>[] tasks = new ScheduledFuture<?>[clocks];
+        long horizon = Math.max(1, seconds * 1_000L / 2);
+        long armStart = System.nanoTime();
+        for (int i = 0; i < clocks; i++) {
+            tasks[i] = schedule(executor, late, flags, 1 + random.nextLong(Math.min(horizon, control.mainMillis() + 1)));
+        }
+        long armNanos = System.nanoTime() - armStart;
+        long rearmStart = System.nanoTime();
+        for (int i = 0; i < clocks; i++) {
+            int game = random.nextInt(clocks);
+            if (tasks[game].cancel(false)) {
+                tasks[game] = schedule(executor, late, flags, horizon + random.nextLong(horizon));
+            }
+        }
+        long rearmNanos = System.nanoTime() - rearmStart;
+        Thread.sleep(seconds * 1_000L);
+        executor.shutdownNow();
+        executor.awaitTermination(1, TimeUnit.SECONDS);
+        System.out.printf("ScheduledThreadPoolExecutor, %,d tasks: %.0f ns per schedule, %.0f ns per cancel and schedule;"
+                        + " %,d fired, late by p50 %.1f ms, p99 %.1f ms, max %.1f ms%n",
+            clocks, armNanos / (double) clocks, rearmNanos / (double) clocks, flags[0],
+            percentile(late, 0.50), percentile(late, 0.99), percentile(late, 1.0));
+    }
+
+    private static ScheduledFuture<?> schedule(ScheduledThreadPoolExecutor executor, long[] late, long[] flags, long delay) {
+        double deadline = System.nanoTime() / 1e6 + delay;
+        return executor.schedule(() -> {
+            double lateness = System.nanoTime() / 1e6 - deadline;
+            late[(int) Math.min(BUCKETS - 1, Math.max(0, lateness / BUCKET_MILLIS))]++;
+            flags[0]++;
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private static String describe(TimeControl control) {
+        return control.periods() > 0
+            ? String.format("%.0f/%.0fx%d", control.mainMillis() / 1e3, control.periodMillis() / 1e3, control.periods())
+            : String.format("%.0f+%.0f", control.mainMillis() / 1e3, control.incrementMillis() / 1e3);
+    }
+
+    private static double percentile(long[] histogram, double fraction) {
+        long total = 0;
+        for (long count : histogram) {
+            total += count;
+        }
+        long target = (long) Math.ceil(total * fraction);
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += histogram[bucket];
+            if (seen >= target && seen > 0) {
+                return (bucket + 1) * BUCKET_MILLIS;
+            }
+        }
+        return Double.NaN;
+    }
+
+    private static long millis() {
+        return System.nanoTime() / 1_000_000;
+    }
+
+    // One game's clock and flag, as a server shard keeps them
+    private static final class Game {
+
+        private final TimeControl control;
+        private final TimerWheel.Timer<Game> flag = new TimerWheel.Timer<>(this);
+        GameClock clock;
+
+        Game(TimeControl control) {
+            this.control = control;
+        }
+
+        void begin(TimerWheel<Game> wheel, long now) {
+            clock = new GameClock(control);
+            clock.start(Stone.BLACK, now);
+            wheel.arm(flag, clock.deadline());
+        }
+
+        void move(TimerWheel<Game> wheel, long now) {
+            clock.press(clock.running().opposite(), now);
+            wheel.arm(flag, clock.deadline());
+        }
+    }
+}
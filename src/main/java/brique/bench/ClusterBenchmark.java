@@ -0,0 +1,348 @@
+package brique.bench;
+
+import brique.core.GameEnd;
+import brique.core.Stone;
+import brique.server.ClusterRouter;
+import brique.server.Protocol;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+// Moves per second through a ClusterRouter, and how long games pause when they move between
+// nodes. Each node is a RunServer in its own JVM on a free loopback port. For 1..nodes nodes
+// a router in this JVM fronts them and a few client connections keep that many games going
+// (as in ServerBenchmark: one move in flight per game, random empty cells, a new game for
+// every one that ends); reports moves per second and the round trip from MOVE to the DELTA
+// with it. Then, under the same load on all nodes but one, that node joins and one of the
+// others leaves: reports how many games moved, how long each join or leave took and the
+// pauses of the moved games (from the HANDOFF to the new node's answer), and the worst round
+// trips meanwhile, which include the pauses. Nodes on one machine share its cores, so the
+// scaling shown is only as real as the cores are many.
+// Usage: ClusterBenchmark [nodes=3] [games=2000] [seconds=10] [boardSize=9] [connections=8] [shardsPerNode=1]
+public final class ClusterBenchmark {
+
+    private static final long KEY = 0xB41C3C1A55E7L;
+    private static final long WARM_UP_MILLIS = 2_000;
+
+    private ClusterBenchmark() { }
+
+    public static void main(String[] args) throws Exception {
+        int nodeCount   = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        int games       = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        int seconds     = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int size        = args.length > 3 ? Integer.parseInt(args[3]) : 9;
+        int connections = args.length > 4 ? Integer.parseInt(args[4]) : 8;
+        int shards      = args.length > 5 ? Integer.parseInt(args[5]) : 1;
+        if (connections < 2) {
+            // The server never pairs a connection with itself
+            throw new IllegalArgumentException("At least 2 connections are needed");
+        }
+
+        List<Process> processes = new ArrayList<>();
+        List<InetSocketAddress> nodes = new ArrayList<>();
+        try {
+            for (int i = 0; i < nodeCount; i++) {
+                int port = freePort();
+                Process process = new ProcessBuilder(Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                        "-cp", System.getProperty("java.class.path"), "brique.tools.RunServer", Integer.toString(port), "3600",
+                        Integer.toString(shards), "none", "0", "none", Long.toHexString(KEY))
+                    .redirectErrorStream(true).start();
+                processes.add(process);
+                // The first line says it is listening
+                new BufferedReader(new InputStreamReader(process.getInputStream())).readLine();
+                nodes.add(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+            }
+
+            for (int count = 1; count <= nodeCount; count++) {
+                try (ClusterRouter router = new ClusterRouter(0, KEY); Load load = new Load()) {
+                    router.start();
+                    for (InetSocketAddress node : nodes.subList(0, count)) {
+                        router.addNode(node);
+                    }
+                    load.start(router.getPort(), games, size, connections);
+                    Thread.sleep(WARM_UP_MILLIS);
+                    load.measure(true);
+                    long start = System.nanoTime();
+                    Thread.sleep(seconds * 1_000L);
+                    double elapsed = (System.nanoTime() - start) / 1e9;
+                    long[] latencies = load.measure(false);
+                    System.out.printf("%d nodes, %,d games, %d connections: %,.0f moves/s, round trip p50 %.2f ms, p99 %.2f ms%n",
+                        count, games, connections, latencies.length / elapsed, percentile(latencies, 0.50), percentile(latencies, 0.99));
+                }
+            }
+
+            if (nodeCount > 1) {
+                try (ClusterRouter router = new ClusterRouter(0, KEY); Load load = new Load()) {
+                    router.start();
+                    for (InetSocketAddress node : nodes.subList(0, nodeCount - 1)) {
+                        router.addNode(node);
+                    }
+                    load.start(router.getPort(), games, size, connections);
+                    Thread.sleep(WARM_UP_MILLIS);
+                    load.measure(true);
+                    long start = System.nanoTime();
+                    router.addNode(nodes.get(nodeCount - 1));
+                    double join = (System.nanoTime() - start) / 1e6;
+                    long moved = router.getMigrations();
+                    Thread.sleep(WARM_UP_MILLIS);
+                    start = System.nanoTime();
+                    router.removeNode(nodes.get(0));
+                    double leave = (System.nanoTime() - start) / 1e6;
+                    Thread.sleep(WARM_UP_MILLIS);
+                    long[] latencies = load.measure(false);
+                    long[] pauses = router.getMigrationPauses();
+                    Arrays.sort(pauses);
+                    System.out.printf("Join: %,d of %,d games moved in %.0f ms; leave: %,d moved in %.0f ms; %d given up (mostly games that ended first)%n",
+                        moved, games, join, router.getMigrations() - moved, leave, router.getFailedMigrations());
+                    System.out.printf("  Pauses p50 %.2f ms, p99 %.2f ms, max %.2f ms; round trips meanwhile p99 %.2f ms, max %.2f ms%n",
+                        percentile(pauses, 0.50), percentile(pauses, 0.99), percentile(pauses, 1.0),
+                        percentile(latencies, 0.99), percentile(latencies, 1.0));
+                }
+            }
+        } finally {
+            for (Process process : processes) {
+                process.destroy();
+            }
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        return sorted.length == 0 ? Double.NaN : sorted[(int) Math.min(sorted.length - 1, sorted.length * fraction)] / 1e6;
+    }
+
+    // The client connections of one run
+    private static final class Load implements AutoCloseable {
+
+        private final List<Client> clients = new ArrayList<>();
+
+        void start(int port, int games, int size, int connections) throws IOException {
+            for (int i = 0; i < connections; i++) {
+                clients.add(new Client(port, size, i));
+            }
+            // Two requests make a game
+            for (int g = 0; g < 2 * games; g++) {
+                clients.get(g % connections).requests++;
+            }
+            for (Client client : clients) {
+                client.thread.start();
+            }
+        }
+
+        // Starts measuring, or stops and returns the sorted round trips
+        long[] measure(boolean on) {
+            for (Client client : clients) {
+                client.measuring = on;
+            }
+            if (on) {
+                return null;
+            }
+            List<long[]> all = new ArrayList<>();
+            int count = 0;
+            for (Client client : clients) {
+                long[] samples;
+                synchronized (client) {
+                    samples = Arrays.copyOf(client.latencies, client.samples);
+                    client.samples = 0;
+                }
+                all.add(samples);
+                count += samples.length;
+            }
+            long[] latencies = new long[count];
+            int at = 0;
+            for (long[] samples : all) {
+                System.arraycopy(samples, 0, latencies, at, samples.length);
+                at += samples.length;
+            }
+            Arrays.sort(latencies);
+            return latencies;
+        }
+
+        @Override
+        public void close() throws IOException {
+            for (Client client : clients) {
+                client.stop();
+            }
+        }
+    }
+
+    // One connection: asks for its share of games and answers every update that gives it the move
+    private static final class Client implements Runnable {
+
+        private final int size;
+        private final Socket socket;
+        private final InputStream in;
+        private final OutputStream out;
+        private final ByteBuffer frame = ByteBuffer.allocate(Protocol.MAX_FRAME_BYTES);
+        private final Random random;
+        private final Thread thread;
+        private final Map<Long, ClientGame> games = new HashMap<>();
+        int requests;
+        volatile boolean measuring;
+        private volatile boolean stopped;
+        // Guarded by this
+        long[] latencies = new long[1 << 16];
+        int samples;
+
+        Client(int port, int size, int index) throws IOException {
+            this.size = size;
+            this.socket = new Socket(InetAddress.getLoopbackAddress(), port);
+            socket.setTcpNoDelay(true);
+            this.in = new BufferedInputStream(socket.getInputStream(), 1 << 16);
+            this.out = new BufferedOutputStream(socket.getOutputStream(), 1 << 16);
+            this.random = new Random(index);
+            this.thread = new Thread(this, "benchmark-client-" + index);
+            thread.setDaemon(true);
+        }
+
+        void stop() throws IOException {
+            stopped = true;
+            socket.close();
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                for (int i = 0; i < requests; i++) {
+                    Protocol.writePlay(frame.clear(), size);
+                    send();
+                }
+                out.flush();
+                while (true) {
+                    handle(Protocol.read(in));
+                    if (in.available() == 0) {
+                        out.flush();
+                    }
+                }
+            } catch (IOException e) {
+                if (!stopped) {
+                    throw new IllegalStateException("Benchmark client failed", e);
+                }
+            }
+        }
+
+        private void handle(Protocol.Message message) throws IOException {
+            if (message instanceof Protocol.Start start) {
+                ClientGame game = games.computeIfAbsent(start.game(), id -> new ClientGame(size));
+                game.seats[start.colour() == Stone.BLACK ? 0 : 1] = true;
+                return;
+            }
+            long id;
+            Stone toMove;
+            GameEnd status;
+            if (message instanceof Protocol.Snapshot snapshot) {
+                id = snapshot.game();
+                toMove = snapshot.toMove();
+                status = snapshot.status();
+                ClientGame game = games.get(id);
+                // Seated again on the node the game moved to, with a move still on its way there
+                if (game.sentAt != 0 && snapshot.actions() == game.actions) {
+                    return;
+                }
+                game.actions = snapshot.actions();
+                for (int cell = 0; cell < game.cells.length; cell++) {
+                    game.cells[cell] = snapshot.cells()[cell] != Stone.EMPTY;
+                }
+            } else if (message instanceof Protocol.Delta delta) {
+                id = delta.game();
+                toMove = delta.toMove();
+                status = delta.status();
+                ClientGame game = games.get(id);
+                game.actions = delta.actions();
+                if (delta.change() == Protocol.Change.MOVE) {
+                    game.cells[delta.placed()] = true;
+                    for (int cell : delta.filled()) {
+                        game.cells[cell] = true;
+                    }
+                }
+            } else if (message instanceof Protocol.Error error && !games.containsKey(error.game())) {
+                // Paired with a player who left before the game began: another one
+                Protocol.writePlay(frame.clear(), size);
+                send();
+                return;
+            } else {
+                throw new IllegalStateException("Cluster refused a move: " + message);
+            }
+
+            ClientGame game = games.get(id);
+            if (game.sentAt != 0) {
+                if (measuring) {
+                    record(System.nanoTime() - game.sentAt);
+                }
+                game.sentAt = 0;
+            }
+            if (status != GameEnd.IN_PROGRESS) {
+                // Keep the number of games constant: every seat asks for a new one
+                games.remove(id);
+                for (boolean seat : game.seats) {
+                    if (seat) {
+                        Protocol.writePlay(frame.clear(), size);
+                        send();
+                    }
+                }
+                return;
+            }
+            if (!game.seats[toMove == Stone.BLACK ? 0 : 1]) {
+                return;
+            }
+            int cell;
+            do {
+                cell = random.nextInt(game.cells.length);
+            } while (game.cells[cell]);
+            game.sentAt = System.nanoTime();
+            Protocol.writeMove(frame.clear(), id, cell);
+            send();
+        }
+
+        private synchronized void record(long nanos) {
+            if (samples == latencies.length) {
+                latencies = Arrays.copyOf(latencies, samples * 2);
+            }
+            latencies[samples++] = nanos;
+        }
+
+        private void send() throws IOException {
+            frame.flip();
+            out.write(frame.array(), 0, frame.limit());
+        }
+    }
+
+    private static final class ClientGame {
+
+        final boolean[] cells;
+        final boolean[] seats = new boolean[2];
+        int actions;
+        long sentAt;
+
+        ClientGame(int size) {
+            this.cells = new boolean[size * size];
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package brique.bench;
+
+import brique.bot.AlphaBetaBot;
+import brique.bot.SearchLimits;
+import brique.bot.SearchResult;
+import brique.core.GameState;
+import brique.core.MoveExecutor;
+import brique.core.Position;
+import brique.rules.GameRules;
+import brique.rules.RuleType;
+import brique.rules.RulesFactory;
+
+// Time-to-depth and nodes/sec of the Lazy SMP alpha-beta search on 1, 2, 4, 8 and 16 threads.
+// Usage: LazySmpBenchmark [boardSize=9] [depth=5] [tableMb=64] [runs=3]
+public final class LazySmpBenchmark {
+
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16};
+
+    private LazySmpBenchmark() { }
+
+    public static void main(String[] args) {
+        int size    = args.length > 0 ? Integer.parseInt(args[0]) : 9;
+        int depth   = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int tableMb = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+        int runs    = args.length > 3 ? Integer.parseInt(args[3]) : 3;
+
+        GameState position = openingPosition(size);
+        System.out.printf("Lazy SMP: %dx%d board, depth %d, %d MB table, best of %d runs, %d cores%n",
+            size, size, depth, tableMb, runs, Runtime.getRuntime().availableProcessors());
+        System.out.printf("%8s %14s %14s %14s %10s%n", "threads", "time-to-depth", "nodes", "nodes/sec", "speedup");
+
+        // Let the JIT compile the search before anything is timed
+        new AlphaBetaBot(1, tableMb, SearchLimits.depth(depth)).search(position.copy());
+
+        double baseline = 0;
+        for (int threads : THREAD_COUNTS) {
+            SearchResult best = null;
+            for (int run = 0; run < runs; run++) {
+                // A fresh table per run: time-to-depth must not benefit from a warm cache
+                AlphaBetaBot bot = new AlphaBetaBot(threads, tableMb, SearchLimits.depth(depth));
+                SearchResult result = bot.search(position.copy());
+                if (best == null || result.elapsedNanos() < best.elapsedNanos()) {
+                    best = result;
+                }
+            }
+
+            double millis = best.elapsedNanos() / 1e6;
+            if (threads == 1) {
+                baseline = millis;
+            }
+            System.out.printf("%8d %11.1f ms %14d %14d %9.2fx%n",
+                threads, millis, best.nodes(), best.nodesPerSecond(), baseline / millis);
+        }
+    }
+
+    // A few central stones so the search does not start from a symmetric empty board.
+    static GameState openingPosition(int size) {
+        GameState state = new GameState(size);
+        GameRules rules = RulesFactory.createRules(RuleType.STANDARD);
+        int mid = size / 2;
+        MoveExecutor.play(state, rules, Position.of(mid, mid));
+        MoveExecutor.play(state, rules, Position.of(mid - 1, mid + 1));
+        MoveExecutor.play(state, rules, Position.of(mid + 1, mid - 1));
+        MoveExecutor.play(state, rules, Position.of(mid, mid + 1));
+        return state;
+    }
+}
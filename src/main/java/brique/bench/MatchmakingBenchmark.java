@@ -0,0 +1,102 @@
+package brique.bench;
+
+import brique.server.Matchmaker;
+import brique.server.Protocol;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+// A burst of join requests on the Matchmaker: producer threads join all the players as fast
+// as they can, with board sizes picked evenly from the list and normally distributed
+// ratings, and the matcher threads pair them. Reports the burst's wall time per join,
+// pairings per second from the first join until 99.9% of the players are paired (the last
+// ones are outliers waiting for their windows to widen), and the queue latency of each
+// player from its join to its pairing. The last player of an odd count never pairs.
+// Usage: MatchmakingBenchmark [joins=100000] [producers=4] [matchers=cores] [sizes=9,13,19] [ratingSpread=300]
+public final class MatchmakingBenchmark {
+
+    private static final long WAIT_MILLIS = 120_000;
+
+    private MatchmakingBenchmark() { }
+
+    private record Request(int id, long joined) { }
+
+    public static void main(String[] args) throws Exception {
+        int joins        = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int producers    = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int matchers     = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        int[] sizes      = Arrays.stream((args.length > 3 ? args[3] : "9,13,19").split(",")).mapToInt(Integer::parseInt).toArray();
+        int ratingSpread = args.length > 4 ? Integer.parseInt(args[4]) : 300;
+
+        // Written by the matcher threads, read after their pairing count says they are done
+        long[] latencies = new long[joins];
+        long[] pairedAt = new long[joins];
+        try (Matchmaker<Request> matchmaker = new Matchmaker<>(25, Protocol.MAX_RATING, matchers, request -> false,
+                (black, white, size) -> {
+                    long now = System.nanoTime();
+                    latencies[black.id()] = now - black.joined();
+                    latencies[white.id()] = now - white.joined();
+                    pairedAt[black.id()] = now;
+                    pairedAt[white.id()] = now;
+                })) {
+            CountDownLatch go = new CountDownLatch(1);
+            List<Thread> threads = new ArrayList<>();
+            for (int p = 0; p < producers; p++) {
+                int producer = p;
+                threads.add(Thread.ofPlatform().name("producer-" + p).start(() -> {
+                    Random random = new Random(producer);
+                    try {
+                        go.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int id = producer; id < joins; id += producers) {
+                        int rating = (int) Math.round(Protocol.DEFAULT_RATING + random.nextGaussian() * ratingSpread);
+                        matchmaker.join(new Request(id, System.nanoTime()), sizes[id % sizes.length],
+                                        Math.max(0, Math.min(Protocol.MAX_RATING, rating)));
+                    }
+                }));
+            }
+            long start = System.nanoTime();
+            go.countDown();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            long burstNanos = System.nanoTime() - start;
+
+            // Every size has at most one player left over
+            long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+            while ((matchmaker.getPairings() * 2 + matchmaker.getWaiting() < joins || matchmaker.getWaiting() > sizes.length)
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            long pairings = matchmaker.getPairings();
+            long[] paired = Arrays.stream(latencies).filter(latency -> latency > 0).sorted().toArray();
+            long[] times = Arrays.stream(pairedAt).filter(at -> at > 0).sorted().toArray();
+            // The rating outliers pair only once their windows have widened to each other
+            int most = (int) Math.ceil(times.length * 0.999) - 1;
+            double seconds = (times[most] - start) / 1e9;
+            System.out.printf("%,d joins from %d threads in %.0f ms (%.0f ns per join), %d matchers, sizes %s, ratings 1500 +- %d%n",
+                joins, producers, burstNanos / 1e6, burstNanos / (double) joins, matchers,
+                Arrays.toString(sizes), ratingSpread);
+            System.out.printf("  %,d pairings: 99.9%% of the players paired after %.2f s (%,.0f pairings/s), the last after %.2f s,"
+                            + " in %,d passes; %,d players left waiting%n",
+                pairings, seconds, (most + 1) / 2 / seconds, (times[times.length - 1] - start) / 1e9,
+                matchmaker.getPasses(), matchmaker.getWaiting());
+            System.out.printf("  Queue latency p50 %.1f ms, p99 %.1f ms, p999 %.1f ms, max %.0f ms%n",
+                percentile(paired, 0.50), percentile(paired, 0.99), percentile(paired, 0.999), percentile(paired, 1.0));
+        }
+    }
+
+    // In milliseconds
+    private static double percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return Double.NaN;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.max(0, Math.ceil(sorted.length * fraction) - 1));
+        return sorted[index] / 1e6;
+    }
+}
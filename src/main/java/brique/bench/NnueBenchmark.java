@@ -0,0 +1,162 @@
+package brique.bench;
+
+import brique.bot.AlphaBetaBot;
+import brique.bot.Evaluator;
+import brique.bot.NnueEvaluator;
+import brique.bot.NnueNetwork;
+import brique.bot.NnueTrainer;
+import brique.bot.ResistanceEvaluator;
+import brique.bot.SearchLimits;
+import brique.bot.SearchResult;
+import brique.bot.ShortestPathEvaluator;
+import brique.core.GameState;
+import brique.core.Move;
+import brique.core.MoveExecutor;
+import brique.core.Position;
+import brique.core.Stone;
+import brique.rules.GameRules;
+import brique.rules.RuleType;
+import brique.rules.RulesFactory;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+// Evaluations per second of the NNUE evaluator along random games, with the accumulators
+// updated from each move versus rebuilt from the board (both net of the time spent
+// replaying the moves), next to the other evaluators, and the search speed of the
+// alpha-beta bot with each of them.
+// Usage: NnueBenchmark [boardSize=11] [games=50] [searchDepth=3] [networkFile]
+// Without a network file a small one is trained first (the speed does not depend on it).
+public final class NnueBenchmark {
+
+    private static final int ROUNDS = 20;
+
+    private NnueBenchmark() { }
+
+    public static void main(String[] args) throws Exception {
+        int size  = args.length > 0 ? Integer.parseInt(args[0]) : 11;
+        int games = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        int depth = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+
+        NnueNetwork network;
+        if (args.length > 3) {
+            network = NnueNetwork.load(Path.of(args[3]));
+        } else {
+            NnueTrainer trainer = new NnueTrainer(size);
+            trainer.setGames(2_000);
+            trainer.setEpochs(2);
+            long start = System.nanoTime();
+            network = trainer.train();
+            System.out.printf("Trained a %dx%d network in %.1f s (loss %.3f)%n",
+                size, size, (System.nanoTime() - start) / 1e9, trainer.getLastLoss());
+        }
+
+        List<List<Move>> histories = randomGames(size, games, new Random(7));
+        List<GameState> positions = ResistanceBenchmark.randomGamePositions(size, games, new Random(7));
+        System.out.printf("%dx%d board, %d positions from %d random games%n", size, size, positions.size(), games);
+
+        // Twice: the first round of each is the warm-up
+        for (int round = 0; round < 2; round++) {
+            boolean print = round == 1;
+            long replay = replay(network, histories, size, Mode.REPLAY_ONLY);
+            report(print, "NNUE, incremental", replay(network, histories, size, Mode.INCREMENTAL) - replay, positions.size());
+            report(print, "NNUE, refreshed", replay(network, histories, size, Mode.REFRESHED) - replay, positions.size());
+            report(print, "shortest path", full(ShortestPathEvaluator::new, positions), positions.size());
+            report(print, "resistance", full(ResistanceEvaluator::new, positions), positions.size());
+        }
+
+        GameState root = positions.get(Math.min(6, positions.size() - 1));
+        search("shortest path", () -> new AlphaBetaBot(1, 64, SearchLimits.depth(depth), ShortestPathEvaluator::new), root);
+        search("NNUE", () -> new AlphaBetaBot(1, 64, SearchLimits.depth(depth), () -> new NnueEvaluator(network)), root);
+    }
+
+    private enum Mode { REPLAY_ONLY, INCREMENTAL, REFRESHED }
+
+    // Plays every game forward and evaluates after each move: either reporting the move
+    // to the evaluator, or letting it rebuild its accumulators from the board
+    private static long replay(NnueNetwork network, List<List<Move>> histories, int size, Mode mode) {
+        GameRules rules = RulesFactory.createRules(RuleType.STANDARD);
+        NnueEvaluator evaluator = new NnueEvaluator(network);
+        long checksum = 0;
+        long start = System.nanoTime();
+        for (int round = 0; round < ROUNDS; round++) {
+            for (List<Move> history : histories) {
+                GameState state = new GameState(size);
+                if (mode == Mode.INCREMENTAL) {
+                    evaluator.reset(state);
+                }
+                for (Move recorded : history) {
+                    Move move = MoveExecutor.play(state, rules, recorded.getPosition());
+                    if (mode == Mode.INCREMENTAL) {
+                        evaluator.moveMade(move);
+                    }
+                    if (mode != Mode.REPLAY_ONLY && state.isInProgress()) {
+                        checksum += evaluator.evaluate(state);
+                    }
+                }
+            }
+        }
+        return finish(start, checksum);
+    }
+
+    private static long full(Supplier<Evaluator> evaluators, List<GameState> positions) {
+        Evaluator evaluator = evaluators.get();
+        long checksum = 0;
+        long start = System.nanoTime();
+        for (int round = 0; round < ROUNDS; round++) {
+            for (GameState position : positions) {
+                checksum += evaluator.evaluate(position);
+            }
+        }
+        return finish(start, checksum);
+    }
+
+    private static long finish(long start, long checksum) {
+        long elapsed = System.nanoTime() - start;
+        if (checksum == Long.MIN_VALUE) {
+            System.out.println(); // keeps the loop from being optimised away
+        }
+        return elapsed;
+    }
+
+    private static void report(boolean print, String label, long elapsed, int count) {
+        if (print) {
+            System.out.printf("  %-20s %,12.0f evals/sec%n", label, (double) count * ROUNDS / (elapsed / 1e9));
+        }
+    }
+
+    private static void search(String label, Supplier<AlphaBetaBot> bots, GameState root) {
+        bots.get().search(root.copy()); // warm-up, on its own table
+        SearchResult result = bots.get().search(root.copy());
+        System.out.printf("  search with %-14s depth %d in %8.1f ms, %10d nodes/sec%n",
+            label, result.depth(), result.elapsedNanos() / 1e6, result.nodesPerSecond());
+    }
+
+    // The same random games as ResistanceBenchmark.randomGamePositions, as move lists
+    private static List<List<Move>> randomGames(int size, int games, Random random) {
+        GameRules rules = RulesFactory.createRules(RuleType.STANDARD);
+        List<List<Move>> histories = new ArrayList<>();
+        for (int g = 0; g < games; g++) {
+            GameState state = new GameState(size);
+            while (state.isInProgress()) {
+                List<Position> empty = new ArrayList<>();
+                for (int r = 0; r < size; r++) {
+                    for (int c = 0; c < size; c++) {
+                        if (state.getBoard().getStone(Position.of(r, c)) == Stone.EMPTY) {
+                            empty.add(Position.of(r, c));
+                        }
+                    }
+                }
+                if (empty.isEmpty()) {
+                    break;
+                }
+                MoveExecutor.play(state, rules, empty.get(random.nextInt(empty.size())));
+            }
+            histories.add(new ArrayList<>(state.getMoveHistory()));
+        }
+        return histories;
+    }
+}
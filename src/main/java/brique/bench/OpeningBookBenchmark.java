@@ -0,0 +1,93 @@
+package brique.bench;
+
+import brique.bot.Bot;
+import brique.bot.BotAction;
+import brique.bot.OpeningBook;
+import brique.bot.OpeningBookBuilder;
+import brique.core.Position;
+import brique.core.Stone;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+// Size and lookup speed of an opening book built from random self-play games, and the
+// heap allocated by lookups (expected: none).
+// Usage: OpeningBookBenchmark [boardSize=13] [maxPly=8] [games=20000] [lookups=5000000]
+public final class OpeningBookBenchmark {
+
+    private OpeningBookBenchmark() { }
+
+    public static void main(String[] args) throws Exception {
+        int size    = args.length > 0 ? Integer.parseInt(args[0]) : 13;
+        int maxPly  = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int games   = args.length > 2 ? Integer.parseInt(args[2]) : 20_000;
+        int lookups = args.length > 3 ? Integer.parseInt(args[3]) : 5_000_000;
+
+        Path file = Files.createTempFile("brique-book", ".bin");
+        file.toFile().deleteOnExit();
+        OpeningBookBuilder builder = new OpeningBookBuilder(size, maxPly, () -> randomBot(new Random()));
+        builder.setMinGames(1);
+
+        long start = System.nanoTime();
+        int entries = builder.build(games, file);
+        System.out.printf("Built %dx%d book to ply %d from %d random games in %.1f s: %,d positions, %,d bytes (%.1f bytes/position)%n",
+            size, size, maxPly, games, (System.nanoTime() - start) / 1e9, entries, Files.size(file),
+            (double) Files.size(file) / Math.max(1, entries));
+
+        OpeningBook book = OpeningBook.open(file);
+        long[] keys = sampleKeys(file, entries, lookups);
+
+        // Warm-up, then the timed run; half of the probes miss
+        long hits = probeAll(book, keys);
+        com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        start = System.nanoTime();
+        hits = probeAll(book, keys);
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+
+        System.out.printf("%,d lookups (%,d hits): %.1f ns/lookup, %,d bytes allocated%n",
+            keys.length, hits, (double) elapsed / keys.length, allocated);
+    }
+
+    private static long probeAll(OpeningBook book, long[] keys) {
+        long hits = 0;
+        for (long key : keys) {
+            if (book.probe(key) != OpeningBook.NOT_FOUND) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+
+    // Alternates stored keys (read back from the file) with random keys.
+    private static long[] sampleKeys(Path file, int entries, int count) throws Exception {
+        byte[] bytes = Files.readAllBytes(file);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        Random random = new Random(3);
+        long[] keys = new long[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = i % 2 == 0 && entries > 0
+                    ? buffer.getLong(OpeningBook.HEADER_BYTES + random.nextInt(entries) * OpeningBook.ENTRY_BYTES)
+                    : random.nextLong();
+        }
+        return keys;
+    }
+
+    private static Bot randomBot(Random random) {
+        return state -> {
+            int size = state.getBoard().getSize();
+            while (true) {
+                Position pos = Position.of(random.nextInt(size), random.nextInt(size));
+                if (state.getBoard().getStone(pos) == Stone.EMPTY) {
+                    return BotAction.place(pos);
+                }
+            }
+        };
+    }
+}
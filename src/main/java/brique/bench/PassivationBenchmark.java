@@ -0,0 +1,221 @@
+package brique.bench;
+
+import brique.core.Stone;
+import brique.server.GameServer;
+import brique.server.Protocol;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+// Idle-game passivation of the GameServer, in this process: two connections play many games
+// against each other, a few moves in each, then the games are left alone until the
+// server has moved them all to disk. The heap in use is measured (after full collections)
+// with the games active and with them idle, and the latency of a move is measured on warm
+// active games and on idle games, where it includes reading the game back.
+// Usage: PassivationBenchmark [games=20000] [boardSize=25] [moves=20] [idleMillis=2000] [shards=cores]
+public final class PassivationBenchmark {
+
+    private static final long WAIT_MILLIS = 120_000;
+    // Games opened before their replies are read
+    private static final int OPEN_BATCH = 256;
+
+    private PassivationBenchmark() { }
+
+    public static void main(String[] args) throws Exception {
+        int games       = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int size        = args.length > 1 ? Integer.parseInt(args[1]) : 25;
+        int moves       = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        long idleMillis = args.length > 3 ? Long.parseLong(args[3]) : 2_000;
+        int shards      = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+
+        Path directory = Files.createTempDirectory("brique-idle");
+        GameServer server = new GameServer(0);
+        server.setShards(shards);
+        server.setRebalanceInterval(0);
+        server.setPassivation(directory, idleMillis);
+        server.start();
+        try (Player player = new Player(server.getPort(), size, games)) {
+            player.open();
+            for (int move = 0; move < moves - 1; move++) {
+                for (int game = 0; game < games; game++) {
+                    player.play(game);
+                }
+            }
+            // The last round is timed, on games the server has just touched
+            long[] active = new long[games];
+            for (int game = 0; game < games; game++) {
+                active[game] = player.play(game);
+            }
+            long activeHeap = usedHeap();
+            if (server.getIdleGames() > 0) {
+                System.out.println("Games went idle while they were played: raise idleMillis");
+            }
+
+            long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+            while (server.getIdleGames() < games) {
+                if (System.currentTimeMillis() > deadline) {
+                    throw new IllegalStateException("Timed out waiting for the games to go idle: " + server.getIdleGames());
+                }
+                Thread.sleep(10);
+            }
+            long idleHeap = usedHeap();
+            long storeBytes = storeBytes(directory);
+
+            long[] idle = new long[games];
+            for (int game = 0; game < games; game++) {
+                idle[game] = player.play(game);
+            }
+            Arrays.sort(active);
+            Arrays.sort(idle);
+            System.out.printf("%,d games of %dx%d after %d moves, %d shards: heap %,.1f MB active, %,.1f MB idle"
+                            + " (%,d bytes per game freed), store %,.1f MB (%,d bytes per game)%n",
+                games, size, size, moves, shards, activeHeap / 1e6, idleHeap / 1e6, (activeHeap - idleHeap) / games,
+                storeBytes / 1e6, storeBytes / games);
+            System.out.printf("  move latency: active p50 %.1f us, p99 %.1f us; idle p50 %.1f us, p99 %.1f us; %,d reactivations%n",
+                active[games / 2] / 1e3, active[games * 99 / 100] / 1e3, idle[games / 2] / 1e3, idle[games * 99 / 100] / 1e3,
+                server.getReactivations());
+        } finally {
+            server.close();
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : files.toList()) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(directory);
+        }
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long storeBytes(Path directory) throws IOException {
+        long bytes = 0;
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                bytes += Files.size(file);
+            }
+        }
+        return bytes;
+    }
+
+    // Two blocking connections that play every game against each other, with a copy of the boards
+    private static final class Player implements AutoCloseable {
+
+        private final Socket[] sockets = new Socket[2];
+        private final InputStream[] ins = new InputStream[2];
+        private final OutputStream[] outs = new OutputStream[2];
+        private final ByteBuffer frame = ByteBuffer.allocate(Protocol.MAX_FRAME_BYTES);
+        private final Random random = new Random(1);
+        private final int size;
+        private final long[] ids;
+        private final Map<Long, Integer> games = new HashMap<>();
+        private final boolean[][] taken;
+        // The connection to move in each game
+        private final int[] toMove;
+        private final int[] black;
+
+        Player(int port, int size, int games) throws IOException {
+            for (int seat = 0; seat < 2; seat++) {
+                sockets[seat] = new Socket(InetAddress.getLoopbackAddress(), port);
+                sockets[seat].setTcpNoDelay(true);
+                ins[seat] = new BufferedInputStream(sockets[seat].getInputStream());
+                outs[seat] = new BufferedOutputStream(sockets[seat].getOutputStream());
+            }
+            this.size = size;
+            this.ids = new long[games];
+            this.taken = new boolean[games][size * size];
+            this.toMove = new int[games];
+            this.black = new int[games];
+        }
+
+        void open() throws IOException {
+            for (int opened = 0; opened < ids.length; ) {
+                int batch = Math.min(OPEN_BATCH, ids.length - opened);
+                for (OutputStream out : outs) {
+                    for (int i = 0; i < batch; i++) {
+                        Protocol.writePlay(frame.clear(), size);
+                        out.write(frame.array(), 0, frame.position());
+                    }
+                    out.flush();
+                }
+                // A Start and a Snapshot per game on each connection
+                for (int seat = 0; seat < 2; seat++) {
+                    for (int read = 0; read < 2 * batch; read++) {
+                        if (Protocol.read(ins[seat]) instanceof Protocol.Start start) {
+                            Integer game = games.get(start.game());
+                            if (game == null) {
+                                game = games.size();
+                                games.put(start.game(), game);
+                                ids[game] = start.game();
+                            }
+                            if (start.colour() == Stone.BLACK) {
+                                black[game] = seat;
+                                toMove[game] = seat;
+                            }
+                        }
+                    }
+                }
+                opened += batch;
+            }
+        }
+
+        // Plays a random empty cell and returns the nanoseconds until the server's delta
+        long play(int game) throws IOException {
+            boolean[] cells = taken[game];
+            int cell;
+            do {
+                cell = random.nextInt(cells.length);
+            } while (cells[cell]);
+            int chosen = cell;
+            int seat = toMove[game];
+            long start = System.nanoTime();
+            send(seat, o -> Protocol.writeMove(o, ids[game], chosen));
+            Protocol.Message reply = Protocol.read(ins[seat]);
+            long elapsed = System.nanoTime() - start;
+            if (!(reply instanceof Protocol.Delta delta)) {
+                throw new IllegalStateException("Server refused a move: " + reply);
+            }
+            // The opponent's copy
+            Protocol.read(ins[1 - seat]);
+            cells[delta.placed()] = true;
+            for (int filled : delta.filled()) {
+                cells[filled] = true;
+            }
+            toMove[game] = delta.toMove() == Stone.BLACK ? black[game] : 1 - black[game];
+            return elapsed;
+        }
+
+        private void send(int seat, Consumer<ByteBuffer> writer) throws IOException {
+            writer.accept(frame.clear());
+            outs[seat].write(frame.array(), 0, frame.position());
+            outs[seat].flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            for (Socket socket : sockets) {
+                socket.close();
+            }
+        }
+    }
+}
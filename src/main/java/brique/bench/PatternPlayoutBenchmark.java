@@ -0,0 +1,111 @@
+package brique.bench;
+
+import brique.bot.Bot;
+import brique.bot.BotAction;
+import brique.bot.MonteCarloBot;
+import brique.bot.PatternTable;
+import brique.bot.PatternTrainer;
+import brique.bot.Playout;
+import brique.bot.SearchLimits;
+import brique.core.GameState;
+import brique.core.MoveExecutor;
+import brique.core.Position;
+import brique.core.Stone;
+import brique.rules.GameRules;
+import brique.rules.RuleType;
+import brique.rules.RulesFactory;
+
+import java.nio.file.Path;
+import java.util.Random;
+
+// Cost and benefit of pattern-weighted playouts: playouts per second with uniform and with
+// trained weights, then a match between two flat Monte Carlo bots with the same thinking
+// time per move, one with each kind of playout (colours alternate every game).
+// Usage: PatternPlayoutBenchmark [boardSize=9] [moveMillis=200] [matchGames=40] [patternFile]
+// Without a pattern file a table is trained first (4 generations of 20000 games).
+public final class PatternPlayoutBenchmark {
+
+    private static final long PLAYOUT_MILLIS = 3_000;
+
+    private PatternPlayoutBenchmark() { }
+
+    public static void main(String[] args) throws Exception {
+        int size       = args.length > 0 ? Integer.parseInt(args[0]) : 9;
+        long moveTime  = args.length > 1 ? Long.parseLong(args[1]) : 200;
+        int matchGames = args.length > 2 ? Integer.parseInt(args[2]) : 40;
+
+        PatternTable patterns;
+        if (args.length > 3) {
+            patterns = PatternTable.load(Path.of(args[3]));
+        } else {
+            long start = System.nanoTime();
+            patterns = new PatternTrainer(size).train();
+            System.out.printf("Trained %dx%d patterns in %.1f s%n", size, size, (System.nanoTime() - start) / 1e9);
+        }
+
+        double uniform = playoutsPerSecond(new Playout(size, null), size);
+        double weighted = playoutsPerSecond(new Playout(size, patterns), size);
+        System.out.printf("Uniform playouts: %,.0f/s, pattern playouts: %,.0f/s (%.2fx the cost)%n",
+            uniform, weighted, uniform / weighted);
+
+        double score = 0;
+        for (int game = 0; game < matchGames; game++) {
+            Bot withPatterns = new MonteCarloBot(SearchLimits.time(moveTime), patterns, new Random(game));
+            Bot uniformBot = new MonteCarloBot(SearchLimits.time(moveTime), null, new Random(game + 1_000));
+            boolean patternsBlack = game % 2 == 0;
+            Stone winner = play(size, patternsBlack ? withPatterns : uniformBot, patternsBlack ? uniformBot : withPatterns);
+            Stone patternSide = patternsBlack ? Stone.BLACK : Stone.WHITE;
+            score += winner == patternSide ? 1 : winner == null ? 0.5 : 0;
+        }
+        double rate = score / matchGames;
+        double elo = rate <= 0 || rate >= 1 ? Double.NaN : -400 * Math.log10(1 / rate - 1);
+        System.out.printf("Pattern playouts vs uniform at %d ms/move on %dx%d: %.1f/%d (%.0f%%, %+.0f Elo)%n",
+            moveTime, size, size, score, matchGames, 100 * rate, elo);
+    }
+
+    private static double playoutsPerSecond(Playout playout, int size) {
+        GameState empty = new GameState(size);
+        Random random = new Random(5);
+        // Warm-up, then the timed run
+        for (int i = 0; i < 2_000; i++) {
+            playout.run(empty, random);
+        }
+        long count = 0;
+        long start = System.nanoTime();
+        long end = start + PLAYOUT_MILLIS * 1_000_000;
+        long now;
+        do {
+            for (int i = 0; i < 100; i++) {
+                playout.run(empty, random);
+            }
+            count += 100;
+            now = System.nanoTime();
+        } while (now < end);
+        return count / ((now - start) / 1e9);
+    }
+
+    // Winner of one game, or null when the board fills up without a connection
+    private static Stone play(int size, Bot black, Bot white) {
+        GameRules rules = RulesFactory.createRules(RuleType.STANDARD);
+        GameState state = new GameState(size);
+        while (state.isInProgress() && hasEmptyCell(state)) {
+            BotAction action = (state.getCurrentPlayer() == Stone.BLACK ? black : white).chooseAction(state);
+            if (action.isSwap()) {
+                state.applyPieRule();
+            } else {
+                MoveExecutor.play(state, rules, action.position());
+            }
+        }
+        return state.getWinner();
+    }
+
+    private static boolean hasEmptyCell(GameState state) {
+        int size = state.getBoard().getSize();
+        for (int cell = 0; cell < size * size; cell++) {
+            if (state.getBoard().getStone(Position.of(cell / size, cell % size)) == Stone.EMPTY) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
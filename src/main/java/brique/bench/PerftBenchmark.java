@@ -0,0 +1,38 @@
+package brique.bench;
+
+import brique.core.GameState;
+import brique.solver.Perft;
+
+// Perft from the empty board three ways: one thread, fork-join on every core, and fork-join
+// with the transposition table. The counts must agree; prints time and moves made per second.
+// Usage: PerftBenchmark [boardSize=5] [depth=5] [tableMb=64]
+public final class PerftBenchmark {
+
+    private PerftBenchmark() { }
+
+    public static void main(String[] args) {
+        int size    = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        int depth   = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int tableMb = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+        int cores   = Runtime.getRuntime().availableProcessors();
+
+        GameState start = new GameState(size);
+        // Warm-up, so the first configuration is not charged for compilation
+        new Perft().perft(start, Math.min(depth, 4));
+
+        run("1 thread", size, depth, start, 1, 0);
+        run(cores + " threads", size, depth, start, cores, 0);
+        run(cores + " threads + table", size, depth, start, cores, tableMb);
+    }
+
+    private static void run(String label, int size, int depth, GameState start, int threads, int tableMb) {
+        Perft perft = new Perft();
+        perft.setThreads(threads);
+        perft.setTableSizeMb(tableMb);
+        long begin = System.nanoTime();
+        long count = perft.perft(start, depth);
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        System.out.printf("%-20s perft(%d) on %dx%d = %,d in %.2f s: %,d moves made, %,.0f moves/s%n",
+            label, depth, size, size, count, seconds, perft.getNodes(), perft.getNodes() / seconds);
+    }
+}
@@ -0,0 +1,147 @@
+package brique.bench;
+
+import brique.core.GameEnd;
+import brique.core.GameState;
+import brique.core.Move;
+import brique.core.MoveExecutor;
+import brique.core.Position;
+import brique.core.Stone;
+import brique.core.ZobristHash;
+import brique.rules.GameRules;
+import brique.rules.RuleType;
+import brique.rules.RulesFactory;
+import brique.server.Protocol;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Encode and decode cost of the wire protocol, per frame, over the updates of random games:
+// the DELTA the server sends after each move, the SNAPSHOT it sends on a resync, and the
+// client's MOVE. Also prints the average frame size next to the whole-board text line
+// (STATE game actions row,col colour status cells) the server sent before.
+// Usage: ProtocolBenchmark [boardSizes=9,25] [games=200] [seconds=2]
+public final class ProtocolBenchmark {
+
+    private ProtocolBenchmark() { }
+
+    public static void main(String[] args) {
+        String sizes = args.length > 0 ? args[0] : "9,25";
+        int games    = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int seconds  = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+
+        for (String size : sizes.split(",")) {
+            run(Integer.parseInt(size.trim()), games, seconds);
+        }
+    }
+
+    private static void run(int size, int games, int seconds) {
+        GameRules rules = RulesFactory.createRules(RuleType.STANDARD);
+        Random random = new Random(size);
+        List<GameState> states = new ArrayList<>();
+        List<Move> moves = new ArrayList<>();
+        long textBytes = 0;
+        for (int g = 0; g < games; g++) {
+            GameState state = new GameState(size);
+            while (state.isInProgress()) {
+                Position position = Position.of(random.nextInt(size), random.nextInt(size));
+                if (state.getBoard().getStone(position) != Stone.EMPTY) {
+                    if (isFull(state)) {
+                        break;
+                    }
+                    continue;
+                }
+                Move move = MoveExecutor.play(state, rules, position);
+                if (move != null) {
+                    states.add(state.copy());
+                    moves.add(move);
+                    textBytes += textLineBytes(g + 1, state.getMoveHistory().size(), position, state.getStatus(), size);
+                }
+            }
+        }
+        int count = moves.size();
+        long[] hashes = new long[count];
+        for (int i = 0; i < count; i++) {
+            hashes[i] = ZobristHash.of(states.get(i));
+        }
+
+        ByteBuffer deltas = ByteBuffer.allocate(count * 64 + Protocol.MAX_FRAME_BYTES);
+        ByteBuffer snapshots = ByteBuffer.allocate(count * (size * size / 4 + 32));
+        ByteBuffer movesOut = ByteBuffer.allocate(count * 16);
+        for (int i = 0; i < count; i++) {
+            Protocol.writeDelta(deltas, i, i + 1, states.get(i), Protocol.Change.MOVE, moves.get(i), hashes[i]);
+            Protocol.writeSnapshot(snapshots, i, i + 1, states.get(i), hashes[i]);
+            Protocol.writeMove(movesOut, i, Protocol.cell(moves.get(i).getPosition(), size));
+        }
+        System.out.printf("%dx%d, %,d updates: delta %.1f bytes, snapshot %.1f bytes, move %.1f bytes, text state line %.1f bytes%n",
+            size, size, count, deltas.position() / (double) count, snapshots.position() / (double) count,
+            movesOut.position() / (double) count, textBytes / (double) count);
+
+        long deadline = seconds * 1_000_000_000L;
+        report("  encode delta", count, deadline, () -> {
+            deltas.clear();
+            for (int i = 0; i < count; i++) {
+                Protocol.writeDelta(deltas, i, i + 1, states.get(i), Protocol.Change.MOVE, moves.get(i), hashes[i]);
+            }
+            return deltas.position();
+        });
+        deltas.flip();
+        report("  decode delta", count, deadline, () -> decodeAll(deltas));
+        report("  encode snapshot", count, deadline, () -> {
+            snapshots.clear();
+            for (int i = 0; i < count; i++) {
+                Protocol.writeSnapshot(snapshots, i, i + 1, states.get(i), hashes[i]);
+            }
+            return snapshots.position();
+        });
+        snapshots.flip();
+        report("  decode snapshot", count, deadline, () -> decodeAll(snapshots));
+        movesOut.flip();
+        report("  decode move", count, deadline, () -> decodeAll(movesOut));
+    }
+
+    private static long decodeAll(ByteBuffer frames) {
+        ByteBuffer in = frames.duplicate();
+        long sink = 0;
+        Protocol.Message message;
+        while ((message = Protocol.read(in)) != null) {
+            sink += message instanceof Protocol.Delta delta ? delta.hash()
+                  : message instanceof Protocol.Snapshot snapshot ? snapshot.hash() : 1;
+        }
+        return sink;
+    }
+
+    private interface Pass {
+        long run();
+    }
+
+    private static void report(String label, int frames, long budgetNanos, Pass pass) {
+        // Warm-up
+        long sink = pass.run() + pass.run();
+        long passes = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            sink += pass.run();
+            passes++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < budgetNanos);
+        System.out.printf("%-18s %7.1f ns per frame%s%n", label, elapsed / (double) (passes * frames), sink == 42 ? " " : "");
+    }
+
+    private static boolean isFull(GameState state) {
+        int n = state.getBoard().getSize();
+        for (int cell = 0; cell < n * n; cell++) {
+            if (state.getBoard().getStone(Position.of(cell / n, cell % n)) == Stone.EMPTY) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int textLineBytes(long game, int actions, Position last, GameEnd status, int size) {
+        String header = "STATE " + game + " " + actions + " " + last.row() + "," + last.col() + " B " + status + " ";
+        return header.length() + size * size + 1;
+    }
+}
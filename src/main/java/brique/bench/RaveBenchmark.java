@@ -0,0 +1,89 @@
+package brique.bench;
+
+import brique.bot.Bot;
+import brique.bot.BotAction;
+import brique.bot.MctsBot;
+import brique.bot.SearchLimits;
+import brique.core.GameState;
+import brique.core.MoveExecutor;
+import brique.core.Position;
+import brique.core.Stone;
+import brique.rules.GameRules;
+import brique.rules.RuleType;
+import brique.rules.RulesFactory;
+
+import java.util.Random;
+
+// What RAVE saves: MCTS with RAVE at a fixed number of playouts per move plays matches
+// against plain UCT (RAVE off) given 4x, 8x and 16x as many playouts. The ratio at
+// which UCT catches up is the share of playouts RAVE makes unnecessary. Colours
+// alternate every game; both bots use uniform playouts.
+// Usage: RaveBenchmark [boardSize=9] [ravePlayouts=1000] [matchGames=40] [raveEquivalence=1000] [uctExploration=0.4]
+public final class RaveBenchmark {
+
+    private static final int[] UCT_FACTORS = {4, 8, 16};
+
+    private RaveBenchmark() { }
+
+    public static void main(String[] args) {
+        int size         = args.length > 0 ? Integer.parseInt(args[0]) : 9;
+        long playouts    = args.length > 1 ? Long.parseLong(args[1]) : 1_000;
+        int matchGames   = args.length > 2 ? Integer.parseInt(args[2]) : 40;
+        double k         = args.length > 3 ? Double.parseDouble(args[3]) : MctsBot.DEFAULT_RAVE_EQUIVALENCE;
+        // Without AMAF values to guide it, UCT needs more exploration than the RAVE default
+        double uctC      = args.length > 4 ? Double.parseDouble(args[4]) : 0.4;
+
+        for (int factor : UCT_FACTORS) {
+            double score = 0;
+            long raveNanos = 0;
+            long uctNanos = 0;
+            for (int game = 0; game < matchGames; game++) {
+                MctsBot rave = new MctsBot(new SearchLimits(0, 0, playouts), null, new Random(game));
+                rave.setRaveEquivalence(k);
+                MctsBot uct = new MctsBot(new SearchLimits(0, 0, playouts * factor), null, new Random(game + 1_000));
+                uct.setRaveEquivalence(0);
+                uct.setExploration(uctC);
+                boolean raveBlack = game % 2 == 0;
+                long[] nanos = new long[2];
+                Stone winner = play(size, raveBlack ? rave : uct, raveBlack ? uct : rave, nanos);
+                raveNanos += raveBlack ? nanos[0] : nanos[1];
+                uctNanos += raveBlack ? nanos[1] : nanos[0];
+                Stone raveSide = raveBlack ? Stone.BLACK : Stone.WHITE;
+                score += winner == raveSide ? 1 : winner == null ? 0.5 : 0;
+            }
+            double rate = score / matchGames;
+            double elo = rate <= 0 || rate >= 1 ? Double.NaN : -400 * Math.log10(1 / rate - 1);
+            System.out.printf("RAVE %,d playouts vs UCT %,d on %dx%d: %.1f/%d (%.0f%%, %+.0f Elo), thinking time %.1f s vs %.1f s%n",
+                playouts, playouts * factor, size, size, score, matchGames, 100 * rate, elo, raveNanos / 1e9, uctNanos / 1e9);
+        }
+    }
+
+    // Winner of one game, or null when the board fills up without a connection;
+    // nanos receives each side's thinking time
+    private static Stone play(int size, Bot black, Bot white, long[] nanos) {
+        GameRules rules = RulesFactory.createRules(RuleType.STANDARD);
+        GameState state = new GameState(size);
+        while (state.isInProgress() && hasEmptyCell(state)) {
+            boolean blackToMove = state.getCurrentPlayer() == Stone.BLACK;
+            long start = System.nanoTime();
+            BotAction action = (blackToMove ? black : white).chooseAction(state);
+            nanos[blackToMove ? 0 : 1] += System.nanoTime() - start;
+            if (action.isSwap()) {
+                state.applyPieRule();
+            } else {
+                MoveExecutor.play(state, rules, action.position());
+            }
+        }
+        return state.getWinner();
+    }
+
+    private static boolean hasEmptyCell(GameState state) {
+        int size = state.getBoard().getSize();
+        for (int cell = 0; cell < size * size; cell++) {
+            if (state.getBoard().getStone(Position.of(cell / size, cell % size)) == Stone.EMPTY) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,110 @@
+package brique.bench;
+
+import brique.bot.AlphaBetaBot;
+import brique.bot.ResistanceEvaluator;
+import brique.bot.SearchLimits;
+import brique.bot.SearchResult;
+import brique.bot.ShortestPathEvaluator;
+import brique.core.GameState;
+import brique.core.MoveExecutor;
+import brique.core.Position;
+import brique.core.Stone;
+import brique.rules.GameRules;
+import brique.rules.RuleType;
+import brique.rules.RulesFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+// Cost of the resistance evaluator along random games: solving every position from
+// scratch versus warm-starting from the previous move's voltages, plus the search
+// speed of the alpha-beta bot with each evaluator.
+// Usage: ResistanceBenchmark [boardSize=11] [games=20] [searchDepth=3]
+public final class ResistanceBenchmark {
+
+    private ResistanceBenchmark() { }
+
+    public static void main(String[] args) {
+        int size  = args.length > 0 ? Integer.parseInt(args[0]) : 11;
+        int games = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int depth = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+
+        List<GameState> positions = randomGamePositions(size, games, new Random(7));
+        System.out.printf("Resistance evaluator: %dx%d board, %d positions from %d random games%n",
+            size, size, positions.size(), games);
+
+        // Warm-up so both modes run JIT-compiled code
+        measure(positions, true);
+        measure(positions, false);
+
+        report("cold (from scratch)", measure(positions, false), positions.size());
+        report("warm-started", measure(positions, true), positions.size());
+
+        GameState root = positions.get(Math.min(6, positions.size() - 1));
+        search("shortest path", () -> new AlphaBetaBot(1, 64, SearchLimits.depth(depth), ShortestPathEvaluator::new), root);
+        search("resistance", () -> new AlphaBetaBot(1, 64, SearchLimits.depth(depth), ResistanceEvaluator::new), root);
+    }
+
+    // Returns {elapsedNanos, totalIterations}.
+    private static long[] measure(List<GameState> positions, boolean warm) {
+        ResistanceEvaluator evaluator = new ResistanceEvaluator();
+        long iterations = 0;
+        long checksum = 0;
+        long start = System.nanoTime();
+        for (GameState position : positions) {
+            if (!warm) {
+                evaluator.reset();
+            }
+            checksum += evaluator.evaluate(position);
+            iterations += evaluator.lastIterations();
+        }
+        long elapsed = System.nanoTime() - start;
+        if (checksum == Long.MIN_VALUE) {
+            System.out.println(); // keeps the loop from being optimised away
+        }
+        return new long[] {elapsed, iterations};
+    }
+
+    private static void report(String label, long[] measured, int count) {
+        double seconds = measured[0] / 1e9;
+        System.out.printf("  %-22s %10.0f evals/sec %8.1f CG iterations/eval%n",
+            label, count / seconds, (double) measured[1] / count);
+    }
+
+    private static void search(String label, Supplier<AlphaBetaBot> bots, GameState root) {
+        bots.get().search(root.copy()); // warm-up, on its own table
+        SearchResult result = bots.get().search(root.copy());
+        System.out.printf("  search with %-14s depth %d in %8.1f ms, %10d nodes/sec%n",
+            label, result.depth(), result.elapsedNanos() / 1e6, result.nodesPerSecond());
+    }
+
+    // Every position of several random games, in playing order so consecutive
+    // positions differ by one move, as they do for a bot during a game.
+    static List<GameState> randomGamePositions(int size, int games, Random random) {
+        GameRules rules = RulesFactory.createRules(RuleType.STANDARD);
+        List<GameState> positions = new ArrayList<>();
+        for (int g = 0; g < games; g++) {
+            GameState state = new GameState(size);
+            while (state.isInProgress()) {
+                List<Position> empty = new ArrayList<>();
+                for (int r = 0; r < size; r++) {
+                    for (int c = 0; c < size; c++) {
+                        if (state.getBoard().getStone(Position.of(r, c)) == Stone.EMPTY) {
+                            empty.add(Position.of(r, c));
+                        }
+                    }
+                }
+                if (empty.isEmpty()) {
+                    break;
+                }
+                MoveExecutor.play(state, rules, empty.get(random.nextInt(empty.size())));
+                if (state.isInProgress()) {
+                    positions.add(state.copy());
+                }
+            }
+        }
+        return positions;
+    }
+}
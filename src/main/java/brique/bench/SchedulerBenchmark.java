@@ -0,0 +1,152 @@
+package brique.bench;
+
+import brique.bot.BotAction;
+import brique.bot.BotScheduler;
+import brique.bot.SearchLimits;
+import brique.bot.SearchResult;
+import brique.core.GameState;
+import brique.core.MoveExecutor;
+import brique.core.Position;
+import brique.core.Stone;
+import brique.rules.GameRules;
+import brique.rules.RuleType;
+import brique.rules.RulesFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Many games against a bot sharing one BotScheduler: every fourth game is blitz (urgent,
+// blitzMs per move), the others are normal games with normalMs per move. After each bot
+// move the opponent thinks for a random time (thinkMs on average) before the bot is asked
+// again, so the load grows with the number of games until the threads are oversubscribed.
+// Prints throughput, thread utilisation and the response-time percentiles of each class,
+// for several numbers of concurrent games.
+// Usage: SchedulerBenchmark [boardSize=9] [seconds=10] [threads=cores] [blitzMs=20] [normalMs=100] [thinkMs=200]
+public final class SchedulerBenchmark {
+
+    private static final int[] GAME_COUNTS = {8, 32, 128};
+
+    private SchedulerBenchmark() { }
+
+    public static void main(String[] args) throws Exception {
+        int size      = args.length > 0 ? Integer.parseInt(args[0]) : 9;
+        int seconds   = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int threads   = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        long blitzMs  = args.length > 3 ? Long.parseLong(args[3]) : 20;
+        long normalMs = args.length > 4 ? Long.parseLong(args[4]) : 100;
+        long thinkMs  = args.length > 5 ? Long.parseLong(args[5]) : 200;
+
+        System.out.printf("%dx%d, %d threads, blitz %d ms and normal %d ms per move, opponents think %d ms, %d s per run%n",
+            size, size, threads, blitzMs, normalMs, thinkMs, seconds);
+        ScheduledExecutorService opponents = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "brique-opponents");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int games : GAME_COUNTS) {
+            try (BotScheduler scheduler = new BotScheduler(threads, 64)) {
+                List<Long> blitz = Collections.synchronizedList(new ArrayList<>());
+                List<Long> normal = Collections.synchronizedList(new ArrayList<>());
+                for (int g = 0; g < games; g++) {
+                    boolean isBlitz = g % 4 == 0;
+                    new Game(scheduler, opponents, thinkMs, size,
+                             SearchLimits.time(isBlitz ? blitzMs : normalMs),
+                             isBlitz ? BotScheduler.Priority.URGENT : BotScheduler.Priority.NORMAL,
+                             isBlitz ? blitz : normal).next();
+                }
+                Thread.sleep(seconds * 1000L);
+
+                System.out.printf("%4d games: %6.1f moves/s  %s%n", games,
+                    scheduler.metrics().completed() / (double) seconds, scheduler.metrics());
+                report("blitz", blitz, blitzMs);
+                report("normal", normal, normalMs);
+            }
+        }
+    }
+
+    private static void report(String label, List<Long> latencies, long budgetMs) {
+        List<Long> sorted;
+        synchronized (latencies) {
+            sorted = new ArrayList<>(latencies);
+        }
+        if (sorted.isEmpty()) {
+            System.out.printf("      %-7s no moves answered%n", label);
+            return;
+        }
+        Collections.sort(sorted);
+        System.out.printf("      %-7s %6d moves, p50 %6.1f ms, p99 %6.1f ms, max %6.1f ms (budget %d ms)%n",
+            label, sorted.size(), percentile(sorted, 0.50), percentile(sorted, 0.99),
+            sorted.get(sorted.size() - 1) / 1e6, budgetMs);
+    }
+
+    private static double percentile(List<Long> sorted, double fraction) {
+        int index = (int) Math.ceil(fraction * sorted.size()) - 1;
+        return sorted.get(Math.max(0, index)) / 1e6;
+    }
+
+    // One game: asks the scheduler for a move, plays it, lets the opponent think and asks
+    // again, starting a new game when the board is decided or full. The opponent only
+    // thinks; the bot plays both sides.
+    private static final class Game {
+
+        private final BotScheduler scheduler;
+        private final ScheduledExecutorService opponents;
+        private final long thinkMs;
+        private final int size;
+        private final SearchLimits budget;
+        private final BotScheduler.Priority priority;
+        private final List<Long> latencies;
+        private final GameRules rules = RulesFactory.createRules(RuleType.STANDARD);
+        private GameState state;
+
+        Game(BotScheduler scheduler, ScheduledExecutorService opponents, long thinkMs, int size, SearchLimits budget, BotScheduler.Priority priority,
+             List<Long> latencies) {
+            this.scheduler = scheduler;
+            this.opponents = opponents;
+            this.thinkMs = thinkMs;
+            this.size = size;
+            this.budget = budget;
+            this.priority = priority;
+            this.latencies = latencies;
+            this.state = new GameState(size);
+        }
+
+        void next() {
+            if (!state.isInProgress() || !hasEmptyCell(state)) {
+                state = new GameState(size);
+            }
+            try {
+                scheduler.submit(state, budget, priority).thenAccept(this::play);
+            } catch (IllegalStateException closed) {
+                // The run is over
+            }
+        }
+
+        private void play(SearchResult result) {
+            latencies.add(result.elapsedNanos());
+            BotAction action = result.action();
+            if (action.isSwap()) {
+                state.applyPieRule();
+            } else {
+                MoveExecutor.play(state, rules, action.position());
+            }
+            long think = ThreadLocalRandom.current().nextLong(2 * thinkMs + 1);
+            opponents.schedule(this::next, think, TimeUnit.MILLISECONDS);
+        }
+
+        private static boolean hasEmptyCell(GameState state) {
+            int size = state.getBoard().getSize();
+            for (int cell = 0; cell < size * size; cell++) {
+                if (state.getBoard().getStone(Position.of(cell / size, cell % size)) == Stone.EMPTY) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
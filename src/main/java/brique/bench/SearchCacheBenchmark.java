@@ -0,0 +1,62 @@
+package brique.bench;
+
+import brique.bot.AlphaBetaBot;
+import brique.bot.SearchCache;
+import brique.bot.SearchLimits;
+import brique.bot.SearchResult;
+import brique.bot.ShortestPathEvaluator;
+import brique.core.GameState;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+// What the persistent search cache saves: the same positions searched to a fixed depth
+// in three "sessions", each with a new bot and an empty transposition table: without the
+// cache, with an empty cache, and with the cache the previous session left on disk.
+// Usage: SearchCacheBenchmark [boardSize=9] [depth=4] [positions=20] [cacheMb=256]
+public final class SearchCacheBenchmark {
+
+    // The sessions' bots score with the default evaluator
+    private static final long FINGERPRINT = new ShortestPathEvaluator().fingerprint();
+
+    private SearchCacheBenchmark() { }
+
+    public static void main(String[] args) throws Exception {
+        int size      = args.length > 0 ? Integer.parseInt(args[0]) : 9;
+        int depth     = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int count     = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        int cacheMb   = args.length > 3 ? Integer.parseInt(args[3]) : 256;
+
+        List<GameState> all = ResistanceBenchmark.randomGamePositions(size, count, new Random(11));
+        List<GameState> positions = all.subList(0, Math.min(count, all.size()));
+        Path file = Files.createTempFile("brique-cache", ".bin");
+        file.toFile().deleteOnExit();
+        Files.delete(file);
+
+        session("no cache", null, positions, depth);
+        session("empty cache", SearchCache.open(file, cacheMb, FINGERPRINT), positions, depth);
+
+        long start = System.nanoTime();
+        SearchCache reopened = SearchCache.open(file, cacheMb, FINGERPRINT);
+        long openNanos = System.nanoTime() - start;
+        System.out.printf("Reopened a %,d-entry cache in %.2f ms (%,d entries stored)%n",
+            reopened.capacity(), openNanos / 1e6, reopened.occupied());
+        session("warm cache", reopened, positions, depth);
+    }
+
+    private static void session(String label, SearchCache cache, List<GameState> positions, int depth) {
+        AlphaBetaBot bot = new AlphaBetaBot(1, 64, SearchLimits.depth(depth));
+        bot.setCache(cache);
+        long nodes = 0;
+        long start = System.nanoTime();
+        for (GameState position : positions) {
+            bot.getTable().clear();
+            SearchResult result = bot.search(position.copy());
+            nodes += result.nodes();
+        }
+        System.out.printf("  %-12s %d positions at depth %d: %8.1f ms, %,12d nodes%n",
+            label, positions.size(), depth, (System.nanoTime() - start) / 1e6, nodes);
+    }
+}
@@ -0,0 +1,298 @@
+package brique.bench;
+
+import brique.core.GameEnd;
+import brique.core.Stone;
+import brique.server.GameServer;
+import brique.server.Protocol;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+// Moves per second and move round-trip latency of the GameServer with many games at once.
+// For each level a server starts on a free loopback port and a few client connections
+// open that many games between them (each connection plays its games' moves, so every
+// game always has one move in flight) and keep that many going by starting a new game
+// whenever one ends. Moves are random empty cells. The round trip runs from sending MOVE
+// to reading the STATE that contains it. With every game waiting on the server, the
+// latency at high counts is mostly queueing: about games / moves per second. Each level
+// runs once per shard count, to show how the server scales with event-loop threads, and
+// once without and once with a move log (in a fresh directory under java.io.tmpdir, which
+// must be on a real disk for the syncs to cost what they do in production).
+// Usage: ServerBenchmark [games=1000,10000,50000] [seconds=10] [boardSize=9] [connections=8] [shards=1,cores] [log=off,on]
+public final class ServerBenchmark {
+
+    private static final long WARM_UP_MILLIS = 2_000;
+
+    private ServerBenchmark() { }
+
+    public static void main(String[] args) throws Exception {
+        String levels   = args.length > 0 ? args[0] : "1000,10000,50000";
+        int seconds     = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int size        = args.length > 2 ? Integer.parseInt(args[2]) : 9;
+        int connections = args.length > 3 ? Integer.parseInt(args[3]) : 8;
+        String shards   = args.length > 4 ? args[4] : "1," + Runtime.getRuntime().availableProcessors();
+        String logs     = args.length > 5 ? args[5] : "off,on";
+        if (connections < 2) {
+            // The server never pairs a connection with itself
+            throw new IllegalArgumentException("At least 2 connections are needed");
+        }
+
+        for (String level : levels.split(",")) {
+            for (String count : shards.split(",")) {
+                for (String log : logs.split(",")) {
+                    run(Integer.parseInt(level.trim()), seconds, size, connections, Integer.parseInt(count.trim()),
+                        log.trim().equals("on"));
+                }
+            }
+        }
+    }
+
+    private static void run(int games, int seconds, int size, int connections, int shards, boolean logged) throws Exception {
+        Path logDirectory = logged ? Files.createTempDirectory("brique-log") : null;
+        try (GameServer server = new GameServer(0)) {
+            server.setShards(shards);
+            server.setMoveLog(logDirectory);
+            server.start();
+            Client[] clients = new Client[connections];
+            for (int i = 0; i < connections; i++) {
+                clients[i] = new Client(server.getPort(), size, i);
+            }
+            // Two requests make a game
+            for (int g = 0; g < 2 * games; g++) {
+                clients[g % connections].requests++;
+            }
+            for (Client client : clients) {
+                client.thread.start();
+            }
+
+            Thread.sleep(WARM_UP_MILLIS);
+            long startActions = server.getActionsPlayed();
+            long startSyncs = server.getLogSyncs();
+            long start = System.nanoTime();
+            for (Client client : clients) {
+                client.measuring = true;
+            }
+            Thread.sleep(seconds * 1_000L);
+            long actions = server.getActionsPlayed() - startActions;
+            long syncs = server.getLogSyncs() - startSyncs;
+            double elapsed = (System.nanoTime() - start) / 1e9;
+            int hosted = server.getActiveGames();
+            for (Client client : clients) {
+                client.measuring = false;
+                client.stop();
+            }
+
+            int count = 0;
+            long updates = 0;
+            long updateBytes = 0;
+            for (Client client : clients) {
+                count += client.samples;
+                updates += client.updates;
+                updateBytes += client.updateBytes;
+            }
+            long[] latencies = new long[count];
+            int at = 0;
+            for (Client client : clients) {
+                System.arraycopy(client.latencies, 0, latencies, at, client.samples);
+                at += client.samples;
+            }
+            Arrays.sort(latencies);
+            System.out.printf("%,7d games (%,d hosted at the end), %d connections, %d shards, log %s: %,.0f moves/s, round trip p50 %.2f ms, p99 %.2f ms, %.1f bytes per update, %d migrations%s%n",
+                games, hosted, connections, shards, logged ? "on" : "off", actions / elapsed, percentile(latencies, 0.50),
+                percentile(latencies, 0.99), updates == 0 ? 0.0 : updateBytes / (double) updates, server.getMigrations(),
+                logged ? String.format(", %,.0f syncs/s, %.1f moves per sync", syncs / elapsed, syncs == 0 ? 0.0 : actions / (double) syncs) : "");
+        } finally {
+            if (logDirectory != null) {
+                try (var files = Files.walk(logDirectory)) {
+                    for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                        Files.delete(file);
+                    }
+                }
+            }
+        }
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        return sorted.length == 0 ? Double.NaN : sorted[(int) Math.min(sorted.length - 1, sorted.length * fraction)] / 1e6;
+    }
+
+    // One connection: asks for its share of games and answers every update that gives it the move
+    private static final class Client implements Runnable {
+
+        private final int size;
+        private final Socket socket;
+        private final InputStream in;
+        private final OutputStream out;
+        private final ByteBuffer frame = ByteBuffer.allocate(Protocol.MAX_FRAME_BYTES);
+        private final Random random;
+        private final Thread thread;
+        private final Map<Long, ClientGame> games = new HashMap<>();
+        int requests;
+        volatile boolean measuring;
+        private volatile boolean stopped;
+        long[] latencies = new long[1 << 16];
+        int samples;
+        long updates;
+        long updateBytes;
+
+        Client(int port, int size, int index) throws IOException {
+            this.size = size;
+            this.socket = new Socket(InetAddress.getLoopbackAddress(), port);
+            socket.setTcpNoDelay(true);
+            this.in = new BufferedInputStream(socket.getInputStream(), 1 << 16);
+            this.out = new BufferedOutputStream(socket.getOutputStream(), 1 << 16);
+            this.random = new Random(index);
+            this.thread = new Thread(this, "benchmark-client-" + index);
+            thread.setDaemon(true);
+        }
+
+        void stop() throws Exception {
+            stopped = true;
+            socket.close();
+            thread.join();
+        }
+
+        @Override
+        public void run() {
+            try {
+                for (int i = 0; i < requests; i++) {
+                    Protocol.writePlay(frame.clear(), size);
+                    send();
+                }
+                out.flush();
+                while (true) {
+                    handle(Protocol.read(in));
+                    if (in.available() == 0) {
+                        out.flush();
+                    }
+                }
+            } catch (IOException e) {
+                if (!stopped) {
+                    throw new IllegalStateException("Benchmark client failed", e);
+                }
+            }
+        }
+
+        private void handle(Protocol.Message message) throws IOException {
+            if (message instanceof Protocol.Start start) {
+                ClientGame game = games.computeIfAbsent(start.game(), id -> new ClientGame(size));
+                game.seats[start.colour() == Stone.BLACK ? 0 : 1] = true;
+                return;
+            }
+            long id;
+            Stone toMove;
+            GameEnd status;
+            if (message instanceof Protocol.Snapshot snapshot) {
+                id = snapshot.game();
+                toMove = snapshot.toMove();
+                status = snapshot.status();
+                ClientGame game = games.get(id);
+                for (int cell = 0; cell < game.cells.length; cell++) {
+                    game.cells[cell] = snapshot.cells()[cell] != Stone.EMPTY;
+                }
+            } else if (message instanceof Protocol.Delta delta) {
+                id = delta.game();
+                toMove = delta.toMove();
+                status = delta.status();
+                ClientGame game = games.get(id);
+                if (delta.change() == Protocol.Change.MOVE) {
+                    game.cells[delta.placed()] = true;
+                    for (int cell : delta.filled()) {
+                        game.cells[cell] = true;
+                    }
+                }
+                if (measuring) {
+                    updates++;
+                    updateBytes += deltaBytes(delta);
+                }
+            } else {
+                throw new IllegalStateException("Server refused a move: " + message);
+            }
+
+            ClientGame game = games.get(id);
+            if (game.sentAt != 0) {
+                if (measuring) {
+                    record(System.nanoTime() - game.sentAt);
+                }
+                game.sentAt = 0;
+            }
+            if (status != GameEnd.IN_PROGRESS) {
+                // Keep the number of games constant: every seat asks for a new one
+                games.remove(id);
+                for (boolean seat : game.seats) {
+                    if (seat) {
+                        Protocol.writePlay(frame.clear(), size);
+                        send();
+                    }
+                }
+                return;
+            }
+            if (!game.seats[toMove == Stone.BLACK ? 0 : 1]) {
+                return;
+            }
+            int cell;
+            do {
+                cell = random.nextInt(game.cells.length);
+            } while (game.cells[cell]);
+            game.sentAt = System.nanoTime();
+            Protocol.writeMove(frame.clear(), id, cell);
+            send();
+        }
+
+        // Size on the wire of a delta, without re-encoding it
+        private static int deltaBytes(Protocol.Delta delta) {
+            int bytes = 1 + 1 + 9 + varintBytes(delta.game()) + varintBytes(delta.actions());
+            if (delta.change() == Protocol.Change.MOVE) {
+                bytes += varintBytes(delta.placed()) + varintBytes(delta.filled().length) + varintBytes(delta.captured().length);
+                for (int cell : delta.filled()) {
+                    bytes += varintBytes(cell);
+                }
+                for (int cell : delta.captured()) {
+                    bytes += varintBytes(cell);
+                }
+            }
+            return bytes;
+        }
+
+        private static int varintBytes(long value) {
+            return value < 1 << 7 ? 1 : value < 1 << 14 ? 2 : value < 1 << 21 ? 3 : 4;
+        }
+
+        private void send() throws IOException {
+            frame.flip();
+            out.write(frame.array(), 0, frame.limit());
+        }
+
+        private void record(long nanos) {
+            if (samples == latencies.length) {
+                latencies = Arrays.copyOf(latencies, samples * 2);
+            }
+            latencies[samples++] = nanos;
+        }
+    }
+
+    // A game as one client connection sees it: its seats and which cells are taken
+    private static final class ClientGame {
+
+        final boolean[] seats = new boolean[2];
+        final boolean[] cells;
+        long sentAt;
+
+        ClientGame(int size) {
+            this.cells = new boolean[size * size];
+        }
+    }
+}
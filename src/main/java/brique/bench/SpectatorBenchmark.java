@@ -0,0 +1,435 @@
+package brique.bench;
+
+import brique.core.GameEnd;
+import brique.core.Stone;
+import brique.server.GameServer;
+import brique.server.Protocol;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Spectator fan-out of the GameServer: many connections watch one game while two player
+// connections play random empty cells against each other as fast as the server answers.
+// The spectators are driven by one selector thread (the load generator). A share of them
+// are stalled: with a small receive buffer, they stop reading after the game's snapshot
+// until its last move has been played, so the server has to replace their deltas with a
+// catch-up frame. Each spectator keeps its own board from the frames it gets, and at the
+// end of each game every board is compared with the players'. Update latency, over the
+// spectators that keep reading, runs from sending a MOVE to reading the frame with it.
+// The server runs in this process unless host:port is given; 10,000 spectators in one
+// process need about 20,000 file descriptors, so start RunServer separately for those.
+// Usage: SpectatorBenchmark [spectators=10000] [games=2] [boardSize=25] [stalledPercent=5] [shards=cores] [server=host:port]
+public final class SpectatorBenchmark {
+
+    private static final int STALLED_RECEIVE_BUFFER = 1024;
+    private static final long WAIT_MILLIS = 120_000;
+    // Latency histogram: 10 microsecond buckets up to 10 seconds
+    private static final long BUCKET_NANOS = 10_000;
+    private static final int BUCKETS = 1_000_000;
+
+    private SpectatorBenchmark() { }
+
+    public static void main(String[] args) throws Exception {
+        int spectators = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int games      = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        int size       = args.length > 2 ? Integer.parseInt(args[2]) : 25;
+        int stalled    = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+        int shards     = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+
+        GameServer server = null;
+        InetSocketAddress address;
+        if (args.length > 5) {
+            String[] hostPort = args[5].split(":");
+            address = new InetSocketAddress(hostPort[0], Integer.parseInt(hostPort[1]));
+        } else {
+            server = new GameServer(0);
+            server.setShards(shards);
+            server.start();
+            address = new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort());
+        }
+        try (Crowd crowd = new Crowd(address, spectators, stalled * spectators / 100, size);
+             Player player = new Player(address, size)) {
+            crowd.thread.start();
+            long actions = 0;
+            double seconds = 0;
+            int mismatches = 0;
+            for (int game = 0; game < games; game++) {
+                long id = player.open();
+                crowd.watch(id);
+                await(crowd.ready, spectators, "spectators to get the game");
+                crowd.sentAt = new AtomicLongArray(2 * size * size + 2);
+                long start = System.nanoTime();
+                int played = player.playToEnd(crowd.sentAt);
+                seconds += (System.nanoTime() - start) / 1e9;
+                actions += played;
+                crowd.release();
+                await(crowd.done, spectators, "spectators to see the end");
+                mismatches += crowd.mismatches(player.board.cells);
+            }
+
+            long frames = crowd.deltas + crowd.patches + crowd.snapshots;
+            long missed = spectators * actions - crowd.deltas;
+            System.out.printf("%,d spectators (%,d stalled), %d games of %dx%d%s: %,.0f moves/s, %,.0f spectator updates/s at %.1f bytes,"
+                            + " update latency p50 %.2f ms, p99 %.2f ms; %,d of %,d deltas replaced by %,d patches and %,d snapshots; %s%n",
+                spectators, crowd.stalled, games, size, size, server == null ? "" : ", " + shards + " shards",
+                actions / seconds, frames / seconds, crowd.bytes / (double) Math.max(1, frames),
+                crowd.percentile(0.50), crowd.percentile(0.99), missed, spectators * actions, crowd.patches, crowd.snapshots,
+                mismatches == 0 ? "every board matched" : mismatches + " boards differed");
+            if (server != null) {
+                System.out.printf("  server: %,d catch-up patches, %,d catch-up snapshots%n",
+                    server.getCatchUpPatches(), server.getCatchUpSnapshots());
+            }
+        } finally {
+            if (server != null) {
+                server.close();
+            }
+        }
+    }
+
+    private static void await(AtomicInteger counter, int target, String what) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+        while (counter.get() < target) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new IllegalStateException("Timed out waiting for " + what + ": " + counter.get() + " of " + target);
+            }
+            Thread.sleep(1);
+        }
+    }
+
+    // A board rebuilt from the frames of one game, as any client would keep it
+    private static final class Board {
+
+        final Stone[] cells;
+        Stone toMove = Stone.BLACK;
+        int first = -1;
+
+        Board(int size) {
+            this.cells = new Stone[size * size];
+            Arrays.fill(cells, Stone.EMPTY);
+        }
+
+        void reset() {
+            Arrays.fill(cells, Stone.EMPTY);
+            toMove = Stone.BLACK;
+            first = -1;
+        }
+
+        // The status after the frame
+        GameEnd apply(Protocol.Message message) {
+            if (message instanceof Protocol.Snapshot snapshot) {
+                System.arraycopy(snapshot.cells(), 0, cells, 0, cells.length);
+                toMove = snapshot.toMove();
+                return snapshot.status();
+            }
+            if (message instanceof Protocol.Patch patch) {
+                for (int cell : patch.black()) {
+                    cells[cell] = Stone.BLACK;
+                }
+                for (int cell : patch.white()) {
+                    cells[cell] = Stone.WHITE;
+                }
+                toMove = patch.toMove();
+                return patch.status();
+            }
+            Protocol.Delta delta = (Protocol.Delta) message;
+            if (delta.change() == Protocol.Change.MOVE) {
+                cells[delta.placed()] = toMove;
+                for (int cell : delta.filled()) {
+                    cells[cell] = toMove;
+                }
+                first = first < 0 ? delta.placed() : first;
+            } else if (delta.change() == Protocol.Change.SWAP) {
+                cells[first] = Stone.WHITE;
+            }
+            toMove = delta.toMove();
+            return delta.status();
+        }
+    }
+
+    // Two blocking connections that play each game against each other
+    private static final class Player implements AutoCloseable {
+
+        private final Socket[] sockets = new Socket[2];
+        private final InputStream[] ins = new InputStream[2];
+        private final OutputStream[] outs = new OutputStream[2];
+        private final ByteBuffer frame = ByteBuffer.allocate(Protocol.MAX_FRAME_BYTES);
+        private final Random random = new Random(1);
+        private final int size;
+        final Board board;
+        private long game;
+        private int black;
+
+        Player(InetSocketAddress address, int size) throws IOException {
+            for (int seat = 0; seat < 2; seat++) {
+                sockets[seat] = new Socket(address.getAddress(), address.getPort());
+                sockets[seat].setTcpNoDelay(true);
+                ins[seat] = new BufferedInputStream(sockets[seat].getInputStream());
+                outs[seat] = new BufferedOutputStream(sockets[seat].getOutputStream());
+            }
+            this.size = size;
+            this.board = new Board(size);
+        }
+
+        long open() throws IOException {
+            send(0, o -> Protocol.writePlay(o, size));
+            send(1, o -> Protocol.writePlay(o, size));
+            for (int seat = 0; seat < 2; seat++) {
+                Protocol.Start start = (Protocol.Start) Protocol.read(ins[seat]);
+                game = start.game();
+                black = start.colour() == Stone.BLACK ? seat : black;
+                board.reset();
+                board.apply(Protocol.read(ins[seat]));
+            }
+            return game;
+        }
+
+        // Actions played
+        int playToEnd(AtomicLongArray sentAt) throws IOException {
+            int actions = 0;
+            GameEnd status = GameEnd.IN_PROGRESS;
+            while (status == GameEnd.IN_PROGRESS) {
+                int cell;
+                do {
+                    cell = random.nextInt(board.cells.length);
+                } while (board.cells[cell] != Stone.EMPTY);
+                int chosen = cell;
+                int seat = board.toMove == Stone.BLACK ? black : 1 - black;
+                sentAt.set(actions + 1, System.nanoTime());
+                send(seat, o -> Protocol.writeMove(o, game, chosen));
+                Protocol.Message reply = Protocol.read(ins[seat]);
+                if (!(reply instanceof Protocol.Delta)) {
+                    throw new IllegalStateException("Server refused a move: " + reply);
+                }
+                // The opponent's copy
+                Protocol.read(ins[1 - seat]);
+                status = board.apply(reply);
+                actions++;
+            }
+            return actions;
+        }
+
+        private void send(int seat, java.util.function.Consumer<ByteBuffer> writer) throws IOException {
+            writer.accept(frame.clear());
+            outs[seat].write(frame.array(), 0, frame.position());
+            outs[seat].flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            for (Socket socket : sockets) {
+                socket.close();
+            }
+        }
+    }
+
+    // One spectator connection of the crowd
+    private static final class Watcher {
+
+        final SocketChannel channel;
+        final boolean stalls;
+        final ByteBuffer in = ByteBuffer.allocate(16 * 1024);
+        final Board board;
+        SelectionKey key;
+        boolean ready;
+        boolean done;
+
+        Watcher(SocketChannel channel, boolean stalls, int size) {
+            this.channel = channel;
+            this.stalls = stalls;
+            this.board = new Board(size);
+        }
+    }
+
+    // The load generator: every spectator on one selector thread
+    private static final class Crowd implements Runnable, AutoCloseable {
+
+        private final Selector selector;
+        private final Watcher[] watchers;
+        private final ByteBuffer frame = ByteBuffer.allocate(Protocol.MAX_FRAME_BYTES);
+        final Thread thread = new Thread(this, "spectator-crowd");
+        final int stalled;
+        final AtomicInteger ready = new AtomicInteger();
+        final AtomicInteger done = new AtomicInteger();
+        volatile AtomicLongArray sentAt;
+        private volatile long requested;
+        private volatile boolean released;
+        private boolean resumed;
+        private volatile boolean stopped;
+        private long watching;
+        private final long[] latencies = new long[BUCKETS];
+        // Read by the main thread once done says every spectator saw the end
+        long deltas;
+        long patches;
+        long snapshots;
+        long bytes;
+
+        Crowd(InetSocketAddress address, int spectators, int stalled, int size) throws IOException {
+            this.selector = Selector.open();
+            this.watchers = new Watcher[spectators];
+            this.stalled = stalled;
+            for (int i = 0; i < spectators; i++) {
+                SocketChannel channel = SocketChannel.open();
+                boolean stalls = i < stalled;
+                if (stalls) {
+                    channel.setOption(StandardSocketOptions.SO_RCVBUF, STALLED_RECEIVE_BUFFER);
+                }
+                channel.connect(address);
+                channel.configureBlocking(false);
+                watchers[i] = new Watcher(channel, stalls, size);
+                watchers[i].key = channel.register(selector, SelectionKey.OP_READ, watchers[i]);
+            }
+            thread.setDaemon(true);
+        }
+
+        void watch(long game) {
+            ready.set(0);
+            done.set(0);
+            released = false;
+            requested = game;
+        }
+
+        // The game has been played: stalled spectators read again
+        void release() {
+            released = true;
+            selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!stopped) {
+                    if (requested != watching) {
+                        watching = requested;
+                        resumed = false;
+                        for (Watcher watcher : watchers) {
+                            watcher.ready = false;
+                            watcher.done = false;
+                            watcher.board.reset();
+                            Protocol.writeWatch(frame.clear(), watching);
+                            watcher.channel.write(frame.flip());
+                        }
+                    }
+                    selector.select(5);
+                    for (SelectionKey key : selector.selectedKeys()) {
+                        read((Watcher) key.attachment());
+                    }
+                    selector.selectedKeys().clear();
+                    if (released && !resumed) {
+                        resumed = true;
+                        for (Watcher watcher : watchers) {
+                            watcher.key.interestOps(SelectionKey.OP_READ);
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                if (!stopped) {
+                    throw new IllegalStateException("Spectator connection failed", e);
+                }
+            }
+        }
+
+        private void read(Watcher watcher) throws IOException {
+            int read = watcher.channel.read(watcher.in);
+            if (read < 0) {
+                throw new IOException("The server closed a spectator");
+            }
+            bytes += read;
+            watcher.in.flip();
+            Protocol.Message message;
+            while ((message = Protocol.read(watcher.in)) != null) {
+                handle(watcher, message);
+            }
+            watcher.in.compact();
+            if (watcher.stalls && watcher.ready && !resumed) {
+                watcher.key.interestOps(0);
+            }
+        }
+
+        private void handle(Watcher watcher, Protocol.Message message) {
+            int actions;
+            if (message instanceof Protocol.Snapshot snapshot) {
+                actions = snapshot.actions();
+                if (watcher.ready) {
+                    snapshots++;
+                } else {
+                    watcher.ready = true;
+                    ready.incrementAndGet();
+                }
+            } else if (message instanceof Protocol.Patch patch) {
+                actions = patch.actions();
+                patches++;
+            } else if (message instanceof Protocol.Delta delta) {
+                actions = delta.actions();
+                deltas++;
+            } else {
+                throw new IllegalStateException("Spectator refused: " + message);
+            }
+            GameEnd status = watcher.board.apply(message);
+            AtomicLongArray sent = sentAt;
+            if (!watcher.stalls && actions > 0 && sent != null && sent.get(actions) != 0) {
+                long bucket = (System.nanoTime() - sent.get(actions)) / BUCKET_NANOS;
+                latencies[(int) Math.min(BUCKETS - 1, bucket)]++;
+            }
+            if (status != GameEnd.IN_PROGRESS && !watcher.done) {
+                watcher.done = true;
+                done.incrementAndGet();
+            }
+        }
+
+        int mismatches(Stone[] expected) {
+            int differ = 0;
+            for (Watcher watcher : watchers) {
+                if (!Arrays.equals(watcher.board.cells, expected)) {
+                    differ++;
+                }
+            }
+            return differ;
+        }
+
+        double percentile(double fraction) {
+            long total = 0;
+            for (long count : latencies) {
+                total += count;
+            }
+            long target = (long) Math.ceil(total * fraction);
+            long seen = 0;
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                seen += latencies[bucket];
+                if (seen >= target && seen > 0) {
+                    return (bucket + 1) * BUCKET_NANOS / 1e6;
+                }
+            }
+            return Double.NaN;
+        }
+
+        @Override
+        public void close() throws IOException {
+            stopped = true;
+            selector.wakeup();
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            for (Watcher watcher : watchers) {
+                watcher.channel.close();
+            }
+            selector.close();
+        }
+    }
+}
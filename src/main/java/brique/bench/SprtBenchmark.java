@@ -0,0 +1,59 @@
+package brique.bench;
+
+import brique.bot.BotConfig;
+import brique.bot.SearchLimits;
+import brique.tournament.Entrant;
+import brique.tournament.MatchResult;
+import brique.tournament.Sprt;
+import brique.tournament.Tournament;
+import brique.tournament.TournamentReport;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// What SPRT early stopping saves: a gauntlet of MCTS at N playouts per move against MCTS at
+// N, N/2, N/4 and N/8, played once to a fixed length and once with an SPRT of 0 against
+// elo1 Elo (5% errors) capped at the same length. Prints games and result per match.
+// Usage: SprtBenchmark [boardSize=7] [playouts=400] [maxPairs=100] [elo1=30]
+public final class SprtBenchmark {
+
+    private static final int[] DIVISORS = {1, 2, 4, 8};
+
+    private SprtBenchmark() { }
+
+    public static void main(String[] args) throws Exception {
+        int size      = args.length > 0 ? Integer.parseInt(args[0]) : 7;
+        long playouts = args.length > 1 ? Long.parseLong(args[1]) : 400;
+        int maxPairs  = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+        double elo1   = args.length > 3 ? Double.parseDouble(args[3]) : 30;
+
+        BotConfig mcts = new BotConfig();
+        mcts.set(BotConfig.BOT, BotConfig.MCTS);
+        List<Entrant> entrants = new ArrayList<>();
+        entrants.add(new Entrant("mcts-" + playouts, mcts, new SearchLimits(0, 0, playouts)));
+        for (int divisor : DIVISORS) {
+            long limit = playouts / divisor;
+            entrants.add(new Entrant("mcts-" + limit + "-" + divisor, mcts, new SearchLimits(0, 0, limit)));
+        }
+
+        Tournament fixed = new Tournament(size, entrants, Tournament.Format.GAUNTLET);
+        fixed.setMaxPairs(maxPairs);
+        TournamentReport full = fixed.run();
+
+        Tournament sequential = new Tournament(size, entrants, Tournament.Format.GAUNTLET);
+        sequential.setMaxPairs(maxPairs);
+        sequential.setSprt(new Sprt(0, elo1, 0.05, 0.05));
+        TournamentReport early = sequential.run();
+
+        System.out.printf("%dx%d gauntlet, up to %d game pairs per match, SPRT(0, %.0f):%n", size, size, maxPairs, elo1);
+        for (int i = 0; i < full.matches().size(); i++) {
+            MatchResult a = full.matches().get(i);
+            MatchResult b = early.matches().get(i);
+            System.out.printf("  %s vs %s: fixed %4d games %+6.0f +/- %-4.0f Elo | SPRT %4d games %+6.0f Elo, %s%n",
+                a.first(), a.second(), a.games(), a.elo(), a.eloError(), b.games(), b.elo(), b.decision());
+        }
+        System.out.printf("  total: fixed %d games in %.1f s, SPRT %d games in %.1f s (%.0f%% saved)%n",
+            full.games(), full.elapsedNanos() / 1e9, early.games(), early.elapsedNanos() / 1e9,
+            100.0 * (full.games() - early.games()) / full.games());
+    }
+}
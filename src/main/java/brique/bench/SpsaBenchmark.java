@@ -0,0 +1,47 @@
+package brique.bench;
+
+import brique.bot.BotConfig;
+import brique.bot.MctsBot;
+import brique.bot.SearchLimits;
+import brique.bot.SpsaTuner;
+import brique.bot.TunableParameter;
+
+import java.util.List;
+
+// SPSA tuning throughput against threads: the same number of iterations (pairs of MCTS
+// games) with 1, 2, 4, ... threads up to the core count, as games per hour and speed-up
+// over one thread. The threads only share the parameter update, so it should grow with
+// the cores.
+// Usage: SpsaBenchmark [boardSize=7] [iterationsPerThread=20] [playoutsPerMove=300]
+public final class SpsaBenchmark {
+
+    private SpsaBenchmark() { }
+
+    public static void main(String[] args) throws Exception {
+        int size      = args.length > 0 ? Integer.parseInt(args[0]) : 7;
+        int perThread = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        long playouts = args.length > 2 ? Long.parseLong(args[2]) : 300;
+
+        BotConfig base = new BotConfig();
+        base.set(BotConfig.BOT, BotConfig.MCTS);
+        List<TunableParameter> parameters = List.of(
+            new TunableParameter(BotConfig.MCTS_EXPLORATION, MctsBot.DEFAULT_EXPLORATION, 0, 2, 0.05),
+            new TunableParameter(BotConfig.MCTS_RAVE_EQUIVALENCE, MctsBot.DEFAULT_RAVE_EQUIVALENCE, 0, 20_000, 300));
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        double single = 0;
+        for (int threads = 1; threads <= cores; threads = threads < cores ? Math.min(cores, threads * 2) : cores + 1) {
+            SpsaTuner tuner = new SpsaTuner(size, base, parameters, new SearchLimits(0, 0, playouts));
+            tuner.setThreads(threads);
+            tuner.setIterations(perThread * threads);
+            long start = System.nanoTime();
+            tuner.tune();
+            double gamesPerHour = 2.0 * perThread * threads / ((System.nanoTime() - start) / 3.6e12);
+            if (threads == 1) {
+                single = gamesPerHour;
+            }
+            System.out.printf("%2d thread(s) on %dx%d, %d playouts per move: %,.0f games/hour (%.2fx)%n",
+                threads, size, size, playouts, gamesPerHour, gamesPerHour / single);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package brique.bench;
+
+import brique.bot.AlphaBetaBot;
+import brique.bot.SearchLimits;
+import brique.bot.SearchResult;
+import brique.core.GameState;
+import brique.solver.SolverResult;
+import brique.solver.ThreatSpaceSolver;
+
+import java.util.List;
+import java.util.Random;
+
+// The threat-space solver against alpha-beta at the same depth. Every position of some
+// random games is given to the solver; where it proves a win with t threats, alpha-beta
+// (without its own threat check) searches the same position to depth 2t+1, which is
+// enough to see that win. Prints both costs per threat count.
+// Usage: ThreatSpaceBenchmark [boardSize=9] [games=20] [maxThreats=2]
+public final class ThreatSpaceBenchmark {
+
+    private ThreatSpaceBenchmark() { }
+
+    public static void main(String[] args) {
+        int size       = args.length > 0 ? Integer.parseInt(args[0]) : 9;
+        int games      = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int maxThreats = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+
+        List<GameState> positions = ResistanceBenchmark.randomGamePositions(size, games, new Random(17));
+        ThreatSpaceSolver solver = new ThreatSpaceSolver();
+        solver.setMaxThreats(maxThreats);
+
+        long[] count = new long[maxThreats + 1];
+        long[] solverNanos = new long[maxThreats + 1];
+        long[] solverNodes = new long[maxThreats + 1];
+        long[] searchNanos = new long[maxThreats + 1];
+        long[] searchNodes = new long[maxThreats + 1];
+        long unproven = 0;
+        long unprovenNanos = 0;
+        for (GameState position : positions) {
+            if (!position.isInProgress()) {
+                continue;
+            }
+            SolverResult result = solver.solve(position);
+            if (result.outcome() != SolverResult.Outcome.WIN) {
+                unproven++;
+                unprovenNanos += result.elapsedNanos();
+                continue;
+            }
+            int threats = solver.getProofThreats();
+            AlphaBetaBot bot = new AlphaBetaBot(1, 64, SearchLimits.depth(2 * threats + 1));
+            bot.setThreatNodes(0);
+            SearchResult search = bot.search(position.copy());
+
+            count[threats]++;
+            solverNanos[threats] += result.elapsedNanos();
+            solverNodes[threats] += result.nodes();
+            searchNanos[threats] += search.elapsedNanos();
+            searchNodes[threats] += search.nodes();
+        }
+
+        System.out.printf("%dx%d, %d positions, no forced win found in %d (%.2f ms each)%n",
+            size, size, positions.size(), unproven, unproven == 0 ? 0 : unprovenNanos / 1e6 / unproven);
+        for (int t = 0; t <= maxThreats; t++) {
+            if (count[t] == 0) {
+                continue;
+            }
+            System.out.printf("  %d threat(s), %4d wins: solver %8.3f ms %8d nodes | alpha-beta depth %d %9.3f ms %10d nodes (%.0fx)%n",
+                t, count[t], solverNanos[t] / 1e6 / count[t], solverNodes[t] / count[t],
+                2 * t + 1, searchNanos[t] / 1e6 / count[t], searchNodes[t] / count[t],
+                (double) searchNanos[t] / Math.max(1, solverNanos[t]));
+        }
+    }
+}
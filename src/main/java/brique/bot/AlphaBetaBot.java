@@ -0,0 +1,160 @@
+package brique.bot;
+
+import brique.core.GameState;
+import brique.rules.GameRules;
+import brique.rules.RuleType;
+import brique.rules.RulesFactory;
+import brique.solver.SolverResult;
+import brique.solver.ThreatSpaceSolver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+// Alpha-beta bot parallelised with Lazy SMP: every thread searches the same root
+// on its own copy of the game, and the threads only talk through the shared
+// lockless TranspositionTable. The deepest completed iteration wins.
+// Before searching, a ThreatSpaceSolver looks for a forced connection within a small
+// node budget; when it proves one, its move is played without a search.
+public class AlphaBetaBot implements Bot {
+
+    public static final int DEFAULT_TABLE_MB = 64;
+    public static final long DEFAULT_THREAT_NODES = 2_000;
+
+    private final int threads;
+    private final SearchLimits limits;
+    private final TranspositionTable table;
+    private final Supplier<Evaluator> evaluators;
+    private final RuleType ruleType;
+    // Optional: results kept on disk across sessions, shared by every search thread
+    private SearchCache cache;
+    private long threatNodes = DEFAULT_THREAT_NODES;
+
+    public AlphaBetaBot(SearchLimits limits) {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_TABLE_MB, limits);
+    }
+
+    public AlphaBetaBot(int threads, int tableSizeMb, SearchLimits limits) {
+        this(threads, tableSizeMb, limits, ShortestPathEvaluator::new);
+    }
+
+    public AlphaBetaBot(int threads, int tableSizeMb, SearchLimits limits, Supplier<Evaluator> evaluators) {
+        this(threads, new TranspositionTable(tableSizeMb), limits, evaluators, RuleType.STANDARD);
+    }
+
+    public AlphaBetaBot(int threads, TranspositionTable table, SearchLimits limits,
+                        Supplier<Evaluator> evaluators, RuleType ruleType) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("A search needs at least one thread");
+        }
+        this.threads = threads;
+        this.table = table;
+        this.limits = limits;
+        this.evaluators = evaluators;
+        this.ruleType = ruleType;
+    }
+
+    @Override
+    public BotAction chooseAction(GameState state) {
+        return search(state).action();
+    }
+
+    public SearchResult search(GameState state) {
+        if (!state.isInProgress()) {
+            throw new IllegalStateException("Cannot search a finished game");
+        }
+
+        long start = System.nanoTime();
+        if (threatNodes > 0) {
+            ThreatSpaceSolver threats = new ThreatSpaceSolver(RulesFactory.createRules(ruleType));
+            threats.setNodeLimit(threatNodes);
+            SolverResult forced = threats.solve(state);
+            if (forced.outcome() == SolverResult.Outcome.WIN) {
+                int plies = 2 * threats.getProofThreats() + 1;
+                return new SearchResult(forced.winningMove(), SearchWorker.WIN - plies, plies,
+                                        forced.nodes(), System.nanoTime() - start);
+            }
+        }
+
+        SearchControl control = new SearchControl(limits, start);
+        table.newSearch();
+
+        List<SearchWorker> workers = new ArrayList<>(threads);
+        for (int id = 0; id < threads; id++) {
+            GameRules rules = RulesFactory.createRules(ruleType);
+            workers.add(new SearchWorker(id, state.copy(), rules, table, cache, evaluators.get(), control));
+        }
+
+        // Helpers run until the main worker finishes or the budget runs out
+        List<Thread> helpers = new ArrayList<>(threads - 1);
+        for (int id = 1; id < threads; id++) {
+            SearchWorker helper = workers.get(id);
+            Thread thread = new Thread(() -> helper.run(limits.maxDepth()), "brique-search-" + id);
+            thread.setDaemon(true);
+            helpers.add(thread);
+            thread.start();
+        }
+
+        SearchWorker main = workers.get(0);
+        main.run(limits.maxDepth());
+        control.stop();
+
+        for (Thread helper : helpers) {
+            try {
+                helper.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        // Prefer the deepest completed iteration; the main worker wins ties
+        SearchWorker best = main;
+        long nodes = 0;
+        for (SearchWorker worker : workers) {
+            nodes += worker.nodes();
+            if (worker.completedDepth() > best.completedDepth() && worker.bestAction() != null) {
+                best = worker;
+            }
+        }
+
+        return new SearchResult(best.bestAction(), best.bestScore(), best.completedDepth(),
+                                nodes, System.nanoTime() - start);
+    }
+
+    // The cache must hold this bot's evaluator's scores
+    public void setCache(SearchCache cache) {
+        if (cache != null && cache.fingerprint() != getEvaluatorFingerprint()) {
+            throw new IllegalArgumentException("Search cache holds the scores of another evaluator");
+        }
+        this.cache = cache;
+    }
+
+    public long getEvaluatorFingerprint() {
+        return evaluators.get().fingerprint();
+    }
+
+    public SearchCache getCache() {
+        return cache;
+    }
+
+    // Node budget of the forced-connection check before each search; 0 turns it off
+    public void setThreatNodes(long threatNodes) {
+        if (threatNodes < 0) {
+            throw new IllegalArgumentException("Threat node budget cannot be negative: " + threatNodes);
+        }
+        this.threatNodes = threatNodes;
+    }
+
+    public long getThreatNodes() {
+        return threatNodes;
+    }
+
+    public TranspositionTable getTable() {
+        return table;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+}
@@ -0,0 +1,10 @@
+package brique.bot;
+
+import brique.core.GameState;
+
+// Strategy interface for computer opponents.
+// Implementations only read the given state; the engine applies the returned action.
+public interface Bot {
+
+    BotAction chooseAction(GameState state);
+}
@@ -0,0 +1,22 @@
+package brique.bot;
+
+import brique.core.Position;
+
+// Decision taken by a bot: either place a stone or apply the pie rule.
+public record BotAction(Position position, boolean isSwap) {
+
+    private static final BotAction SWAP = new BotAction(null, true);
+
+    public static BotAction place(Position position) {
+        return new BotAction(position, false);
+    }
+
+    public static BotAction swap() {
+        return SWAP;
+    }
+
+    @Override
+    public String toString() {
+        return isSwap ? "swap" : String.valueOf(position);
+    }
+}
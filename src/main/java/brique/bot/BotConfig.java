@@ -0,0 +1,154 @@
+package brique.bot;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+// Bot parameters as a text file of "key = value" lines ('#' starts a comment), written by
+// SpsaTuner and read by the bot engine when it builds its default bot. The "bot" key picks
+// the bot (alphabeta or mcts) and the other keys its parameters; a missing key keeps the
+// bot's default and unknown keys are ignored, so one file can carry several bots' values.
+public final class BotConfig {
+
+    public static final String DEFAULT_FILE_PROPERTY = "brique.botConfig";
+
+    public static final String BOT = "bot";
+    public static final String ALPHA_BETA = "alphabeta";
+    public static final String MCTS = "mcts";
+    public static final String ALPHA_BETA_THREADS = "alphabeta.threads";
+    public static final String ALPHA_BETA_TABLE_MB = "alphabeta.table_mb";
+    public static final String ALPHA_BETA_THREAT_NODES = "alphabeta.threat_nodes";
+    public static final String MCTS_EXPLORATION = "mcts.exploration";
+    public static final String MCTS_RAVE_EQUIVALENCE = "mcts.rave_equivalence";
+
+    private final Map<String, String> values = new LinkedHashMap<>();
+
+    // No keys: the default alpha-beta bot with its default parameters
+    public BotConfig() { }
+
+    public BotConfig(BotConfig other) {
+        values.putAll(other.values);
+    }
+
+    public String get(String key) {
+        return values.get(key);
+    }
+
+    public double getDouble(String key, double defaultValue) {
+        String value = values.get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a number for " + key + ": " + value);
+        }
+    }
+
+    public void set(String key, String value) {
+        if (key.isBlank() || key.contains("=") || key.contains("#") || !key.strip().equals(key)) {
+            throw new IllegalArgumentException("Invalid configuration key: '" + key + "'");
+        }
+        values.put(key, value.strip());
+    }
+
+    public void set(String key, double value) {
+        set(key, Double.toString(value));
+    }
+
+    public Set<String> keys() {
+        return values.keySet();
+    }
+
+    // The bot this configuration names, with its parameters applied
+    public Bot createBot(SearchLimits limits, Random random) {
+        String bot = values.getOrDefault(BOT, ALPHA_BETA);
+        switch (bot) {
+            case ALPHA_BETA -> {
+                int threads = (int) getDouble(ALPHA_BETA_THREADS, Runtime.getRuntime().availableProcessors());
+                int tableMb = (int) getDouble(ALPHA_BETA_TABLE_MB, AlphaBetaBot.DEFAULT_TABLE_MB);
+                AlphaBetaBot alphaBeta = new AlphaBetaBot(threads, tableMb, limits);
+                alphaBeta.setThreatNodes(Math.round(getDouble(ALPHA_BETA_THREAT_NODES, AlphaBetaBot.DEFAULT_THREAT_NODES)));
+                return alphaBeta;
+            }
+            case MCTS -> {
+                MctsBot mcts = new MctsBot(limits, null, random);
+                mcts.setExploration(getDouble(MCTS_EXPLORATION, MctsBot.DEFAULT_EXPLORATION));
+                mcts.setRaveEquivalence(getDouble(MCTS_RAVE_EQUIVALENCE, MctsBot.DEFAULT_RAVE_EQUIVALENCE));
+                return mcts;
+            }
+            default -> throw new IllegalArgumentException("Unknown bot in configuration: " + bot);
+        }
+    }
+
+    public void write(Writer out) throws IOException {
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            out.write(entry.getKey() + " = " + entry.getValue() + System.lineSeparator());
+        }
+        out.flush();
+    }
+
+    // Written next to the target and moved over it, so a reader never sees half a file
+    public void save(Path path) throws IOException {
+        Path absolute = path.toAbsolutePath();
+        Path temp = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+        try (Writer out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            write(out);
+        }
+        Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static BotConfig read(Reader reader) throws IOException {
+        BotConfig config = new BotConfig();
+        BufferedReader in = new BufferedReader(reader);
+        String line;
+        int number = 0;
+        while ((line = in.readLine()) != null) {
+            number++;
+            int comment = line.indexOf('#');
+            String content = (comment >= 0 ? line.substring(0, comment) : line).strip();
+            if (content.isEmpty()) {
+                continue;
+            }
+            int equals = content.indexOf('=');
+            if (equals <= 0) {
+                throw new IOException("Line " + number + " is not 'key = value': " + line);
+            }
+            config.set(content.substring(0, equals).strip(), content.substring(equals + 1));
+        }
+        return config;
+    }
+
+    public static BotConfig load(Path path) throws IOException {
+        try (Reader in = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            return read(in);
+        }
+    }
+
+    // The file named by the brique.botConfig system property, else ~/.brique/bot.conf;
+    // an empty configuration when there is none or it cannot be read or has a bad key.
+    public static BotConfig loadDefault() {
+        String configured = System.getProperty(DEFAULT_FILE_PROPERTY);
+        Path path = configured != null
+                  ? Path.of(configured)
+                  : Path.of(System.getProperty("user.home"), ".brique", "bot.conf");
+        if (!Files.isRegularFile(path)) {
+            return new BotConfig();
+        }
+        try {
+            return load(path);
+        } catch (IOException | IllegalArgumentException e) {
+            return new BotConfig();
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package brique.bot;
+
+import brique.core.GameState;
+import brique.rules.GameRules;
+import brique.rules.RuleType;
+import brique.rules.RulesFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Runs the searches of many bot games on one fixed set of threads, instead of every game
+// starting its own. A search is cut into slices of one iterative-deepening iteration each,
+// bounded by a quantum; after a slice it goes back into the run queue. A move's budget
+// (SearchLimits) counts the CPU time and nodes of its own slices, and its answer is due
+// latencyFactor times its time budget after it was asked for. The queue serves higher
+// priorities first and, within a priority, the search with the least slack (due time
+// minus the budget it has left), so searches take turns and none falls behind. A move
+// that is due is answered before anything else, from the deepest iteration it finished,
+// which bounds the response time even when more games ask than the threads can serve.
+// All searches share one transposition table, aged once per round of searches.
+public final class BotScheduler implements AutoCloseable {
+
+    public enum Priority { URGENT, NORMAL, BACKGROUND }
+
+    private static final long DEFAULT_QUANTUM_NANOS = 5_000_000L;
+    private static final int LATENCY_WINDOW = 4096;
+
+    private final TranspositionTable table;
+    private final Supplier<Evaluator> evaluators;
+    private final PriorityBlockingQueue<Job> ready;
+    // The same jobs (those with a time budget) by due time
+    private final PriorityBlockingQueue<Job> deadlines;
+    private final Thread[] workers;
+    private final long startNanos = System.nanoTime();
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong slices = new AtomicLong();
+    private final AtomicLong busyNanos = new AtomicLong();
+    private final long[] latencies = new long[LATENCY_WINDOW];
+    private long latencyCount;
+    // Guarded by rounds. The table is aged when a search is submitted and every search of
+    // the round before has finished, which starts a new round: a running search sees its
+    // entries aged at most once
+    private final Object rounds = new Object();
+    private long round;
+    private int previousRoundJobs;
+    private int currentRoundJobs;
+
+    private volatile long quantumNanos = DEFAULT_QUANTUM_NANOS;
+    private volatile double latencyFactor = 2.0;
+    private volatile boolean closed;
+
+    public BotScheduler(int threads, int tableSizeMb) {
+        this(threads, tableSizeMb, ShortestPathEvaluator::new);
+    }
+
+    public BotScheduler(int threads, int tableSizeMb, Supplier<Evaluator> evaluators) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("A scheduler needs at least one thread");
+        }
+        this.table = new TranspositionTable(tableSizeMb);
+        this.evaluators = evaluators;
+        this.ready = new PriorityBlockingQueue<>(64, Comparator
+            .comparingInt((Job job) -> job.priority.ordinal())
+            .thenComparingLong(Job::startBy)
+            .thenComparingLong(job -> job.consumedNanos)
+            .thenComparingLong(job -> job.sequence));
+        this.deadlines = new PriorityBlockingQueue<>(64, Comparator.comparingLong((Job job) -> job.dueNanos));
+        this.workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(this::work, "brique-scheduler-" + t);
+            workers[t].setDaemon(true);
+            workers[t].start();
+        }
+    }
+
+    public void setQuantumMillis(long millis) {
+        this.quantumNanos = Math.max(1, millis) * 1_000_000L;
+    }
+
+    // An answer is due this many times the move's time budget after it was asked for
+    public void setLatencyFactor(double latencyFactor) {
+        this.latencyFactor = Math.max(1, latencyFactor);
+    }
+
+    // Searches the position within the budget; the result's elapsed time is the response time.
+    public CompletableFuture<SearchResult> submit(GameState state, SearchLimits budget, Priority priority) {
+        if (closed) {
+            throw new IllegalStateException("The scheduler is closed");
+        }
+        if (!state.isInProgress()) {
+            throw new IllegalStateException("Cannot search a finished game");
+        }
+        if (budget.timeMillis() == 0 && budget.maxNodes() == 0 && budget.maxDepth() == 0) {
+            throw new IllegalArgumentException("A scheduled search needs a time, node or depth budget");
+        }
+        Job job = new Job(state.copy(), budget, priority, sequence.getAndIncrement());
+        synchronized (rounds) {
+            if (previousRoundJobs == 0) {
+                table.newSearch();
+                round++;
+                previousRoundJobs = currentRoundJobs;
+                currentRoundJobs = 0;
+            }
+            job.round = round;
+            currentRoundJobs++;
+        }
+        job.future.whenComplete((result, error) -> finished(job));
+        enqueue(job);
+        return job.future;
+    }
+
+    // A Bot whose moves are searched by this scheduler (the calling thread waits for them).
+    public Bot bot(SearchLimits budget, Priority priority) {
+        return state -> submit(state, budget, priority).join().action();
+    }
+
+    public SchedulerMetrics metrics() {
+        long[] window;
+        synchronized (latencies) {
+            window = Arrays.copyOf(latencies, (int) Math.min(latencyCount, LATENCY_WINDOW));
+        }
+        Arrays.sort(window);
+        long uptime = System.nanoTime() - startNanos;
+        return new SchedulerMetrics(ready.size(), running.get(), completed.get(), slices.get(),
+            percentile(window, 0.50), percentile(window, 0.99),
+            Math.min(1.0, (double) busyNanos.get() / ((double) uptime * workers.length)));
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+        List<Job> pending = new ArrayList<>();
+        ready.drainTo(pending);
+        deadlines.clear();
+        for (Job job : pending) {
+            job.future.completeExceptionally(new CancellationException("The scheduler was closed"));
+        }
+    }
+
+    private void work() {
+        while (!closed) {
+            Job job;
+            try {
+                job = nextJob();
+            } catch (InterruptedException e) {
+                return;
+            }
+            running.incrementAndGet();
+            long start = System.nanoTime();
+            boolean done;
+            try {
+                done = job.runSlice(start);
+            } catch (RuntimeException e) {
+                job.future.completeExceptionally(e);
+                continue;
+            } finally {
+                long elapsed = System.nanoTime() - start;
+                busyNanos.addAndGet(elapsed);
+                slices.incrementAndGet();
+                running.decrementAndGet();
+            }
+
+            if (done) {
+                // Counted before the caller can see the answer
+                long now = System.nanoTime();
+                synchronized (latencies) {
+                    latencies[(int) (latencyCount++ % LATENCY_WINDOW)] = now - job.submitNanos;
+                }
+                completed.incrementAndGet();
+                job.future.complete(job.result(now));
+            } else if (closed) {
+                job.future.completeExceptionally(new CancellationException("The scheduler was closed"));
+            } else {
+                enqueue(job);
+            }
+        }
+    }
+
+    private void finished(Job job) {
+        synchronized (rounds) {
+            if (job.round == round) {
+                currentRoundJobs--;
+            } else {
+                previousRoundJobs--;
+            }
+        }
+    }
+
+    private void enqueue(Job job) {
+        if (job.dueNanos != Long.MAX_VALUE) {
+            deadlines.add(job);
+        }
+        ready.add(job);
+    }
+
+    // A job that is due, otherwise the head of the run queue. Whoever removes a job from
+    // the run queue owns it; the deadline queue only points at jobs.
+    private Job nextJob() throws InterruptedException {
+        while (true) {
+            Job due = deadlines.peek();
+            long now = System.nanoTime();
+            if (due != null && due.dueNanos <= now) {
+                deadlines.remove(due);
+                if (ready.remove(due)) {
+                    return due;
+                }
+                continue;
+            }
+            long wait = due != null ? due.dueNanos - now : Long.MAX_VALUE;
+            Job job = ready.poll(wait, TimeUnit.NANOSECONDS);
+            if (job != null) {
+                deadlines.remove(job);
+                return job;
+            }
+        }
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(fraction * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    // One move being searched: its worker, budget and the CPU time used so far
+    private final class Job {
+
+        final SearchWorker worker;
+        final SearchLimits budget;
+        final Priority priority;
+        final long sequence;
+        final long submitNanos = System.nanoTime();
+        final long dueNanos;
+        final CompletableFuture<SearchResult> future = new CompletableFuture<>();
+
+        // Guarded by rounds
+        long round;
+        // Only changed while the job is out of the queue, so the ordering stays consistent
+        long consumedNanos;
+        long quantum = quantumNanos;
+
+        Job(GameState state, SearchLimits budget, Priority priority, long sequence) {
+            GameRules rules = RulesFactory.createRules(RuleType.STANDARD);
+            SearchControl unused = new SearchControl(Long.MAX_VALUE, Long.MAX_VALUE);
+            this.worker = new SearchWorker(0, state, rules, table, null, evaluators.get(), unused);
+            this.budget = budget;
+            this.priority = priority;
+            this.sequence = sequence;
+            this.dueNanos = budget.timeMillis() > 0
+                ? submitNanos + (long) (budget.timeMillis() * 1_000_000L * latencyFactor)
+                : Long.MAX_VALUE;
+        }
+
+        // Latest time to start using the rest of the budget and still answer when due
+        long startBy() {
+            return budget.timeMillis() > 0 ? dueNanos - (budget.timeMillis() * 1_000_000L - consumedNanos) : Long.MAX_VALUE;
+        }
+
+        // Runs one iteration within the quantum; returns true when the move is decided
+        boolean runSlice(long start) {
+            if (start >= dueNanos && worker.completedDepth() > 0) {
+                return true;
+            }
+            long remaining = budget.timeMillis() > 0 ? budget.timeMillis() * 1_000_000L - consumedNanos : Long.MAX_VALUE;
+            long slice = Math.min(quantum, Math.min(remaining, Math.max(0, dueNanos - start)));
+            long nodesLeft = budget.maxNodes() > 0 ? Math.max(0, budget.maxNodes() - worker.nodes()) : Long.MAX_VALUE;
+
+            boolean completedIteration = worker.step(new SearchControl(start + slice, nodesLeft));
+            long end = System.nanoTime();
+            consumedNanos += end - start;
+            // An interrupted iteration starts over, so it gets a longer slice next time
+            quantum = completedIteration ? quantumNanos : 2 * quantum;
+
+            return worker.isFinished(budget.maxDepth())
+                || (budget.timeMillis() > 0 && consumedNanos >= budget.timeMillis() * 1_000_000L)
+                || (budget.maxNodes() > 0 && worker.nodes() >= budget.maxNodes())
+                || end >= dueNanos;
+        }
+
+        SearchResult result(long now) {
+            return new SearchResult(worker.bestAction(), worker.bestScore(), worker.completedDepth(),
+                                    worker.nodes(), now - submitNanos);
+        }
+    }
+}
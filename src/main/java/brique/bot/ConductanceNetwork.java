@@ -0,0 +1,173 @@
+package brique.bot;
+
+import java.util.Arrays;
+
+// Sparse resistor network over the cells of one board, solved with a Jacobi-preconditioned
+// conjugate gradient on primitive arrays. Every cell is a node; the source edge is held at
+// 1 V and the goal edge at 0 V, and the unknown voltages satisfy the (SPD) reduced Laplacian.
+// The voltages of the last solve are kept and reused as the next starting point, so solving
+// a position one move away from the previous one converges in a handful of iterations.
+final class ConductanceNetwork {
+
+    // Every cell has at most 4 orthogonal neighbours and 4 escort partners
+    static final int MAX_DEGREE = 8;
+
+    // Tiny leak to ground keeps the system non-singular for islands cut off from both edges
+    private static final double LEAK = 1e-9;
+
+    private final int cells;
+    private final int[] degree;
+    private final int[] neighbour;
+    private final double[] conductance;
+    private final double[] diagonal;
+    private final double[] sourceConductance;
+
+    // Solver state, reused between solves
+    private final double[] voltage;
+    private final double[] residual;
+    private final double[] direction;
+    private final double[] product;
+    private final double[] preconditioned;
+
+    private int lastIterations;
+
+    ConductanceNetwork(int cells) {
+        this.cells = cells;
+        this.degree = new int[cells];
+        this.neighbour = new int[cells * MAX_DEGREE];
+        this.conductance = new double[cells * MAX_DEGREE];
+        this.diagonal = new double[cells];
+        this.sourceConductance = new double[cells];
+        this.voltage = new double[cells];
+        this.residual = new double[cells];
+        this.direction = new double[cells];
+        this.product = new double[cells];
+        this.preconditioned = new double[cells];
+    }
+
+    void clear() {
+        Arrays.fill(degree, 0);
+        Arrays.fill(diagonal, LEAK);
+        Arrays.fill(sourceConductance, 0);
+    }
+
+    // Adds a resistor between two cells (parallel resistors simply add up).
+    void connect(int a, int b, double g) {
+        addHalf(a, b, g);
+        addHalf(b, a, g);
+        diagonal[a] += g;
+        diagonal[b] += g;
+    }
+
+    void connectSource(int cell, double g) {
+        sourceConductance[cell] += g;
+        diagonal[cell] += g;
+    }
+
+    void connectSink(int cell, double g) {
+        diagonal[cell] += g;
+    }
+
+    // Solves for the voltages and returns the current flowing out of the source
+    // (the inverse of the network's equivalent resistance).
+    double solve(double tolerance, int maxIterations) {
+        // Cells without resistors to other cells have an exact voltage; the rest
+        // start from the previous solution
+        for (int i = 0; i < cells; i++) {
+            if (degree[i] == 0) {
+                voltage[i] = sourceConductance[i] / diagonal[i];
+            }
+        }
+
+        // r = b - A x
+        multiply(voltage, product);
+        double rhsNorm = 0;
+        for (int i = 0; i < cells; i++) {
+            residual[i] = sourceConductance[i] - product[i];
+            rhsNorm += sourceConductance[i] * sourceConductance[i];
+        }
+        double threshold = tolerance * tolerance * Math.max(rhsNorm, Double.MIN_NORMAL);
+
+        double rz = precondition();
+        System.arraycopy(preconditioned, 0, direction, 0, cells);
+
+        int iteration = 0;
+        while (iteration < maxIterations && dot(residual, residual) > threshold) {
+            multiply(direction, product);
+            double curvature = dot(direction, product);
+            if (curvature <= 0) {
+                break;
+            }
+            double alpha = rz / curvature;
+            for (int i = 0; i < cells; i++) {
+                voltage[i] += alpha * direction[i];
+                residual[i] -= alpha * product[i];
+            }
+            double rzNext = precondition();
+            double beta = rzNext / rz;
+            rz = rzNext;
+            for (int i = 0; i < cells; i++) {
+                direction[i] = preconditioned[i] + beta * direction[i];
+            }
+            iteration++;
+        }
+        lastIterations = iteration;
+
+        double current = 0;
+        for (int i = 0; i < cells; i++) {
+            current += sourceConductance[i] * (1.0 - voltage[i]);
+        }
+        return current;
+    }
+
+    void resetVoltages() {
+        Arrays.fill(voltage, 0);
+    }
+
+    int lastIterations() {
+        return lastIterations;
+    }
+
+    // --- Sparse algebra on the flat adjacency arrays ----------------
+
+    private void addHalf(int from, int to, double g) {
+        int base = from * MAX_DEGREE;
+        for (int k = 0; k < degree[from]; k++) {
+            if (neighbour[base + k] == to) {
+                conductance[base + k] += g;
+                return;
+            }
+        }
+        neighbour[base + degree[from]] = to;
+        conductance[base + degree[from]] = g;
+        degree[from]++;
+    }
+
+    private void multiply(double[] x, double[] out) {
+        for (int i = 0; i < cells; i++) {
+            double sum = diagonal[i] * x[i];
+            int base = i * MAX_DEGREE;
+            for (int k = 0; k < degree[i]; k++) {
+                sum -= conductance[base + k] * x[neighbour[base + k]];
+            }
+            out[i] = sum;
+        }
+    }
+
+    private double precondition() {
+        double rz = 0;
+        for (int i = 0; i < cells; i++) {
+            preconditioned[i] = residual[i] / diagonal[i];
+            rz += residual[i] * preconditioned[i];
+        }
+        return rz;
+    }
+
+    private double dot(double[] a, double[] b) {
+        double sum = 0;
+        for (int i = 0; i < cells; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,17 @@
+package brique.bot;
+
+import brique.core.GameState;
+
+// Static evaluation of a position, used by searches at their leaves.
+// Scores are from the point of view of the player to move: positive is good for them.
+// Implementations may keep scratch buffers, so each search thread uses its own instance.
+public interface Evaluator {
+
+    int evaluate(GameState state);
+
+    // Tells apart evaluators that may score a position differently, so that results kept
+    // across sessions (SearchCache) are not reused under another evaluator
+    default long fingerprint() {
+        return getClass().getName().hashCode();
+    }
+}
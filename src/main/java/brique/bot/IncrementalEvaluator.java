@@ -0,0 +1,24 @@
+package brique.bot;
+
+import brique.core.GameState;
+import brique.core.Move;
+import brique.core.Position;
+
+// Evaluator that keeps state derived from the board and updates it from what each move
+// changed instead of rereading the board. After reset(state), every change made to that
+// state must be reported, in order; a search reports them as it makes and unmakes moves.
+public interface IncrementalEvaluator extends Evaluator {
+
+    void reset(GameState state);
+
+    // The move was just played (its placed, filled and captured cells are recorded on it)
+    void moveMade(Move move);
+
+    // The move was just taken back
+    void moveUndone(Move move);
+
+    // White just swapped: the first stone, at `first`, changed from Black to White
+    void swapMade(Position first);
+
+    void swapUndone(Position first);
+}
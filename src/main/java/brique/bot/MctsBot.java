@@ -0,0 +1,251 @@
+package brique.bot;
+
+import brique.core.GameState;
+import brique.core.Position;
+import brique.core.Stone;
+
+import java.util.Random;
+
+// Monte Carlo tree search with RAVE. Every playout descends the tree, plays out with a
+// Playout (uniform or pattern-weighted) and reads the final board: a cell counts as played
+// by whoever owns it at the end, escort fills and captures included, because in a
+// connection game a cell's owner matters more than when it was taken. Those all-moves-
+// as-first (AMAF) results update every child of every node on the path, so one playout
+// teaches many moves at once. A child's value blends its AMAF mean and its own mean with
+// beta = sqrt(k / (3n + k)), n its visits and k the RAVE equivalence: AMAF leads while a
+// move has few playouts of its own and fades as they grow. k = 0 gives plain UCT.
+// The pie rule is a child of the root; the limits give the thinking time (timeMillis)
+// and/or the number of playouts (maxNodes).
+public final class MctsBot implements Bot {
+
+    public static final double DEFAULT_RAVE_EQUIVALENCE = 1_000;
+    public static final double DEFAULT_EXPLORATION = 0.1;
+    // A child gets its own node after this many playouts through it
+    private static final int EXPAND_VISITS = 4;
+    private static final int CLOCK_INTERVAL = 64;
+    private static final int SWAP = -1;
+
+    private final SearchLimits limits;
+    private final PatternTable patterns;
+    private final Random random;
+    private double raveEquivalence = DEFAULT_RAVE_EQUIVALENCE;
+    private double exploration = DEFAULT_EXPLORATION;
+    private Playout playout;
+    private Playout swapped;
+    private long lastPlayouts;
+
+    // Per-search path
+    private Node[] pathNodes;
+    private int[] pathChoices;
+    private boolean[] pathBlack;
+
+    public MctsBot(SearchLimits limits, PatternTable patterns) {
+        this(limits, patterns, new Random());
+    }
+
+    public MctsBot(SearchLimits limits, PatternTable patterns, Random random) {
+        if (limits.timeMillis() == 0 && limits.maxNodes() == 0) {
+            throw new IllegalArgumentException("A Monte Carlo bot needs a time or playout limit");
+        }
+        this.limits = limits;
+        this.patterns = patterns;
+        this.random = random;
+    }
+
+    // Playouts a move needs before its own mean counts as much as its AMAF mean; 0 turns RAVE off
+    public void setRaveEquivalence(double raveEquivalence) {
+        if (raveEquivalence < 0) {
+            throw new IllegalArgumentException("RAVE equivalence cannot be negative: " + raveEquivalence);
+        }
+        this.raveEquivalence = raveEquivalence;
+    }
+
+    public void setExploration(double exploration) {
+        if (exploration < 0) {
+            throw new IllegalArgumentException("Exploration cannot be negative: " + exploration);
+        }
+        this.exploration = exploration;
+    }
+
+    // Playouts run by the last chooseAction
+    public long getLastPlayouts() {
+        return lastPlayouts;
+    }
+
+    @Override
+    public BotAction chooseAction(GameState state) {
+        if (!state.isInProgress()) {
+            throw new IllegalStateException("Cannot search a finished game");
+        }
+        int size = state.getBoard().getSize();
+        if (playout == null || playout.getSize() != size) {
+            playout = new Playout(size, patterns);
+            swapped = new Playout(size, patterns);
+            int cells = size * size;
+            pathNodes = new Node[cells + 1];
+            pathChoices = new int[cells + 1];
+            pathBlack = new boolean[cells + 1];
+        }
+        playout.load(state);
+        if (playout.emptyCount() == 0) {
+            throw new IllegalStateException("No legal action: the board is full");
+        }
+
+        // A connecting move needs no search
+        for (int cell = 0; cell < size * size; cell++) {
+            if (playout.isEmpty(cell)) {
+                boolean connects = playout.place(cell);
+                playout.restart();
+                if (connects) {
+                    lastPlayouts = 0;
+                    return toAction(cell, size);
+                }
+            }
+        }
+
+        boolean canSwap = state.isPieRuleAvailable() && state.getCurrentPlayer() == Stone.WHITE
+            && !state.getMoveHistory().isEmpty();
+        if (canSwap) {
+            GameState afterSwap = state.copy();
+            afterSwap.applyPieRule();
+            swapped.load(afterSwap);
+        }
+        Node root = new Node(playout, canSwap);
+
+        long deadline = limits.timeMillis() > 0 ? System.currentTimeMillis() + limits.timeMillis() : Long.MAX_VALUE;
+        long budget = limits.maxNodes() > 0 ? limits.maxNodes() : Long.MAX_VALUE;
+        long count = 0;
+        while (count < budget && (count % CLOCK_INTERVAL != 0 || System.currentTimeMillis() < deadline)) {
+            simulate(root);
+            count++;
+        }
+        lastPlayouts = count;
+
+        int best = 0;
+        for (int i = 1; i < root.moves.length; i++) {
+            if (root.visits[i] > root.visits[best]) {
+                best = i;
+            }
+        }
+        return root.moves[best] == SWAP ? BotAction.swap() : toAction(root.moves[best], size);
+    }
+
+    private void simulate(Node root) {
+        Playout board = playout;
+        board.restart();
+        Node node = root;
+        int depth = 0;
+        Stone winner = null;
+        while (true) {
+            int choice = select(node);
+            boolean black = board.isBlackToMove();
+            pathNodes[depth] = node;
+            pathChoices[depth] = choice;
+            pathBlack[depth++] = black;
+
+            int move = node.moves[choice];
+            if (move == SWAP) {
+                // The swap hands the position to the other board; the mover stays the same
+                board = swapped;
+                board.restart();
+            } else if (board.place(move)) {
+                winner = black ? Stone.BLACK : Stone.WHITE;
+                break;
+            }
+            if (board.emptyCount() == 0) {
+                winner = Stone.EMPTY;
+                break;
+            }
+            Node child = node.children[choice];
+            if (child == null) {
+                if (node.visits[choice] + 1 >= EXPAND_VISITS) {
+                    node.children[choice] = new Node(board, false);
+                }
+                break;
+            }
+            node = child;
+        }
+        if (winner == null) {
+            winner = board.finish(random);
+        }
+
+        for (int d = 0; d < depth; d++) {
+            Node n = pathNodes[d];
+            Stone mover = pathBlack[d] ? Stone.BLACK : Stone.WHITE;
+            double result = winner == mover ? 1 : winner == Stone.EMPTY ? 0.5 : 0;
+            n.total++;
+            n.visits[pathChoices[d]]++;
+            n.wins[pathChoices[d]] += result;
+            // Below a swap the final board is the swapped one, which the root's moves do not describe
+            if (raveEquivalence == 0 || (d == 0 && n.moves[pathChoices[0]] == SWAP)) {
+                continue;
+            }
+            for (int i = 0; i < n.moves.length; i++) {
+                if (n.moves[i] != SWAP && board.owner(n.moves[i]) == mover) {
+                    n.amafVisits[i]++;
+                    n.amafWins[i] += result;
+                }
+            }
+        }
+    }
+
+    private int select(Node node) {
+        double logTotal = Math.log(node.total + 1.0);
+        int best = 0;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < node.moves.length; i++) {
+            int n = node.visits[i];
+            int amaf = node.amafVisits[i];
+            if (n == 0 && amaf == 0) {
+                return i;
+            }
+            double mean = n > 0 ? node.wins[i] / n : 0;
+            double value = mean;
+            if (amaf > 0 && raveEquivalence > 0) {
+                double beta = Math.sqrt(raveEquivalence / (3.0 * n + raveEquivalence));
+                value = (1 - beta) * mean + beta * node.amafWins[i] / amaf;
+            }
+            value += exploration * Math.sqrt(logTotal / (n + 1));
+            if (value > bestValue) {
+                bestValue = value;
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    private static BotAction toAction(int cell, int size) {
+        return BotAction.place(Position.of(cell / size, cell % size));
+    }
+
+    // Statistics of the moves from one position, from the mover's point of view
+    private static final class Node {
+
+        final int[] moves;
+        final Node[] children;
+        final int[] visits;
+        final double[] wins;
+        final int[] amafVisits;
+        final double[] amafWins;
+        int total;
+
+        Node(Playout board, boolean withSwap) {
+            int count = board.emptyCount() + (withSwap ? 1 : 0);
+            moves = new int[count];
+            int i = 0;
+            for (int cell = 0; i < board.emptyCount(); cell++) {
+                if (board.isEmpty(cell)) {
+                    moves[i++] = cell;
+                }
+            }
+            if (withSwap) {
+                moves[i] = SWAP;
+            }
+            children = new Node[count];
+            visits = new int[count];
+            wins = new double[count];
+            amafVisits = new int[count];
+            amafWins = new double[count];
+        }
+    }
+}
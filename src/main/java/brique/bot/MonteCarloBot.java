@@ -0,0 +1,116 @@
+package brique.bot;
+
+import brique.core.GameState;
+import brique.core.MoveExecutor;
+import brique.core.Position;
+import brique.core.Stone;
+import brique.rules.GameRules;
+import brique.rules.RuleType;
+import brique.rules.RulesFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Flat Monte Carlo bot: the actions of the root share the playouts by UCB1 and the most
+// visited one is played. Playouts are random or, with a PatternTable, pattern-weighted;
+// the limits give the thinking time (timeMillis) and/or the number of playouts (maxNodes).
+public final class MonteCarloBot implements Bot {
+
+    private static final double EXPLORATION = 0.7;
+    private static final int CLOCK_INTERVAL = 64;
+
+    private final SearchLimits limits;
+    private final PatternTable patterns;
+    private final GameRules rules;
+    private final Random random;
+    private Playout playout;
+
+    public MonteCarloBot(SearchLimits limits, PatternTable patterns) {
+        this(limits, patterns, new Random());
+    }
+
+    public MonteCarloBot(SearchLimits limits, PatternTable patterns, Random random) {
+        if (limits.timeMillis() == 0 && limits.maxNodes() == 0) {
+            throw new IllegalArgumentException("A Monte Carlo bot needs a time or playout limit");
+        }
+        this.limits = limits;
+        this.patterns = patterns;
+        this.rules = RulesFactory.createRules(RuleType.STANDARD);
+        this.random = random;
+    }
+
+    @Override
+    public BotAction chooseAction(GameState state) {
+        int size = state.getBoard().getSize();
+        if (playout == null || playout.getSize() != size) {
+            playout = new Playout(size, patterns);
+        }
+
+        Stone me = state.getCurrentPlayer();
+        List<BotAction> actions = new ArrayList<>();
+        List<GameState> children = new ArrayList<>();
+        for (int cell = 0; cell < size * size; cell++) {
+            Position pos = Position.of(cell / size, cell % size);
+            if (state.getBoard().getStone(pos) != Stone.EMPTY) {
+                continue;
+            }
+            GameState child = state.copy();
+            MoveExecutor.play(child, rules, pos);
+            if (child.getWinner() == me) {
+                return BotAction.place(pos);
+            }
+            actions.add(BotAction.place(pos));
+            children.add(child);
+        }
+        if (state.isPieRuleAvailable() && me == Stone.WHITE && !state.getMoveHistory().isEmpty()) {
+            GameState child = state.copy();
+            child.applyPieRule();
+            actions.add(BotAction.swap());
+            children.add(child);
+        }
+        if (actions.isEmpty()) {
+            throw new IllegalStateException("No legal action: the board is full");
+        }
+
+        int[] visits = new int[actions.size()];
+        double[] scores = new double[actions.size()];
+        long deadline = limits.timeMillis() > 0 ? System.currentTimeMillis() + limits.timeMillis() : Long.MAX_VALUE;
+        long budget = limits.maxNodes() > 0 ? limits.maxNodes() : Long.MAX_VALUE;
+
+        for (long total = 0; total < budget; total++) {
+            if (total % CLOCK_INTERVAL == 0 && System.currentTimeMillis() >= deadline) {
+                break;
+            }
+            int pick = select(visits, scores, total);
+            Stone winner = playout.run(children.get(pick), random);
+            visits[pick]++;
+            scores[pick] += winner == me ? 1 : winner == Stone.EMPTY ? 0.5 : 0;
+        }
+
+        int best = 0;
+        for (int i = 1; i < visits.length; i++) {
+            if (visits[i] > visits[best]) {
+                best = i;
+            }
+        }
+        return actions.get(best);
+    }
+
+    private static int select(int[] visits, double[] scores, long total) {
+        double logTotal = Math.log(total + 1.0);
+        int best = 0;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < visits.length; i++) {
+            if (visits[i] == 0) {
+                return i;
+            }
+            double value = scores[i] / visits[i] + EXPLORATION * Math.sqrt(logTotal / visits[i]);
+            if (value > bestValue) {
+                bestValue = value;
+                best = i;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,143 @@
+package brique.bot;
+
+import brique.core.Board;
+import brique.core.GameState;
+import brique.core.Move;
+import brique.core.Position;
+import brique.core.Stone;
+
+// NNUE-style evaluation with an NnueNetwork. The input layer is kept as one int16
+// accumulator per side, updated from what each move changed: the placed stone, the
+// filled cells and the captured stones the rules record on the Move. A move therefore
+// costs a few HIDDEN-wide vector additions whatever the board size, and evaluate() only
+// runs the small dense layers. Without reset() (or for another state than the one being
+// tracked) the accumulators are rebuilt from the board, so it also works as a plain Evaluator.
+public final class NnueEvaluator implements IncrementalEvaluator {
+
+    private static final int HIDDEN = NnueNetwork.HIDDEN;
+    private static final int DENSE = NnueNetwork.DENSE;
+    private static final int SCALE = 300;
+    private static final int MAX_SCORE = 20_000;
+
+    private final NnueNetwork network;
+    private final int size;
+    private final short[] blackAccumulator = new short[HIDDEN];
+    private final short[] whiteAccumulator = new short[HIDDEN];
+    private final int[] dense = new int[DENSE];
+
+    private GameState tracked;
+
+    public NnueEvaluator(NnueNetwork network) {
+        this.network = network;
+        this.size = network.getSize();
+    }
+
+    // The same weights score the same
+    @Override
+    public long fingerprint() {
+        return network.fingerprint();
+    }
+
+    @Override
+    public void reset(GameState state) {
+        refresh(state.getBoard());
+        tracked = state;
+    }
+
+    @Override
+    public int evaluate(GameState state) {
+        if (state != tracked) {
+            refresh(state.getBoard());
+            tracked = null;
+        }
+        boolean blackToMove = state.getCurrentPlayer() == Stone.BLACK;
+        short[] mover = blackToMove ? blackAccumulator : whiteAccumulator;
+        short[] opponent = blackToMove ? whiteAccumulator : blackAccumulator;
+
+        short[] weights = network.denseWeights;
+        for (int j = 0; j < DENSE; j++) {
+            int sum = network.denseBiases[j];
+            int row = j * 2 * HIDDEN;
+            for (int i = 0; i < HIDDEN; i++) {
+                sum += weights[row + i] * clip(mover[i]) + weights[row + HIDDEN + i] * clip(opponent[i]);
+            }
+            dense[j] = Math.max(0, Math.min(NnueNetwork.QA, sum / NnueNetwork.QB));
+        }
+        long output = network.outputBias;
+        for (int j = 0; j < DENSE; j++) {
+            output += network.outputWeights[j] * dense[j];
+        }
+
+        long score = output * SCALE / (NnueNetwork.QA * NnueNetwork.QB);
+        return (int) Math.max(-MAX_SCORE, Math.min(MAX_SCORE, score));
+    }
+
+    @Override
+    public void moveMade(Move move) {
+        boolean black = move.getStone() == Stone.BLACK;
+        add(move.getPosition(), black, 1);
+        for (Position filled : move.getFilledPositions()) {
+            if (move.getCapturedPositions().contains(filled)) {
+                add(filled, !black, -1);
+            }
+            add(filled, black, 1);
+        }
+    }
+
+    @Override
+    public void moveUndone(Move move) {
+        boolean black = move.getStone() == Stone.BLACK;
+        add(move.getPosition(), black, -1);
+        for (Position filled : move.getFilledPositions()) {
+            add(filled, black, -1);
+            if (move.getCapturedPositions().contains(filled)) {
+                add(filled, !black, 1);
+            }
+        }
+    }
+
+    @Override
+    public void swapMade(Position first) {
+        add(first, true, -1);
+        add(first, false, 1);
+    }
+
+    @Override
+    public void swapUndone(Position first) {
+        add(first, false, -1);
+        add(first, true, 1);
+    }
+
+    private void refresh(Board board) {
+        if (board.getSize() != size) {
+            throw new IllegalArgumentException(
+                "Network trained for " + size + "x" + size + " boards, not " + board.getSize() + "x" + board.getSize());
+        }
+        System.arraycopy(network.inputBiases, 0, blackAccumulator, 0, HIDDEN);
+        System.arraycopy(network.inputBiases, 0, whiteAccumulator, 0, HIDDEN);
+        for (int cell = 0; cell < size * size; cell++) {
+            Stone stone = board.getStone(Position.of(cell / size, cell % size));
+            if (stone != Stone.EMPTY) {
+                addFeatures(cell, stone == Stone.BLACK, 1);
+            }
+        }
+    }
+
+    private void add(Position pos, boolean blackStone, int sign) {
+        addFeatures(pos.row() * size + pos.col(), blackStone, sign);
+    }
+
+    private void addFeatures(int cell, boolean blackStone, int sign) {
+        short[] weights = network.inputWeights;
+        int blackRow = NnueNetwork.blackFeature(cell, blackStone) * HIDDEN;
+        int whiteRow = NnueNetwork.whiteFeature(size, cell, blackStone) * HIDDEN;
+        for (int i = 0; i < HIDDEN; i++) {
+            blackAccumulator[i] += (short) (sign * weights[blackRow + i]);
+            whiteAccumulator[i] += (short) (sign * weights[whiteRow + i]);
+        }
+    }
+
+    private static int clip(short value) {
+        return Math.max(0, Math.min(NnueNetwork.QA, value));
+    }
+}
@@ -0,0 +1,151 @@
+package brique.bot;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+// Quantised weights of the NnueEvaluator network for one board size, written by NnueTrainer.
+// Inputs are one feature per (cell, colour) seen from each player's side: Black reads the
+// board as it is, White reads it transposed with the colours swapped, so both sides share
+// the input weights (that transformation is a symmetry of the rules). The input layer feeds
+// a HIDDEN-wide accumulator per side; the mover's and the opponent's accumulators, clipped
+// to [0, QA], go through a DENSE-wide layer and then to the single output, a winning logit
+// for the mover. Input weights and accumulators are int16; the dense layers use int16
+// weights with int32 sums, scaled by QB.
+public final class NnueNetwork {
+
+    public static final int HIDDEN = 64;
+    public static final int DENSE = 16;
+
+    static final int QA = 127;
+    static final int QB = 256;
+
+    private static final int MAGIC = 0x42524E4E; // "BRNN"
+    private static final int VERSION = 1;
+
+    private final int size;
+    final short[] inputWeights;   // [feature][HIDDEN]
+    final short[] inputBiases;    // [HIDDEN]
+    final short[] denseWeights;   // [DENSE][2 * HIDDEN], mover's half first
+    final int[] denseBiases;      // [DENSE]
+    final short[] outputWeights;  // [DENSE]
+    int outputBias;
+
+    NnueNetwork(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Invalid board size: " + size);
+        }
+        this.size = size;
+        this.inputWeights = new short[features(size) * HIDDEN];
+        this.inputBiases = new short[HIDDEN];
+        this.denseWeights = new short[DENSE * 2 * HIDDEN];
+        this.denseBiases = new int[DENSE];
+        this.outputWeights = new short[DENSE];
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    static int features(int size) {
+        return 2 * size * size;
+    }
+
+    // Feature of a stone as Black sees the board
+    static int blackFeature(int cell, boolean blackStone) {
+        return 2 * cell + (blackStone ? 0 : 1);
+    }
+
+    // Feature of a stone as White sees the board: transposed, own colour first
+    static int whiteFeature(int size, int cell, boolean blackStone) {
+        int transposed = (cell % size) * size + cell / size;
+        return 2 * transposed + (blackStone ? 1 : 0);
+    }
+
+    // Largest input weight (before scaling by QA) that cannot overflow an int16
+    // accumulator, with a bias and one active feature per cell
+    static double maxInputWeight(int size) {
+        return (double) Short.MAX_VALUE / (QA * (size * size + 1));
+    }
+
+    // Hash of the size and every weight
+    long fingerprint() {
+        long hash = MAGIC ^ size;
+        hash = hash * 31 + Arrays.hashCode(inputWeights);
+        hash = hash * 31 + Arrays.hashCode(inputBiases);
+        hash = hash * 31 + Arrays.hashCode(denseWeights);
+        hash = hash * 31 + Arrays.hashCode(denseBiases);
+        hash = hash * 31 + Arrays.hashCode(outputWeights);
+        return hash * 31 + outputBias;
+    }
+
+    public void write(OutputStream stream) throws IOException {
+        DataOutputStream out = new DataOutputStream(stream);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(size);
+        out.writeInt(HIDDEN);
+        out.writeInt(DENSE);
+        writeShorts(out, inputWeights);
+        writeShorts(out, inputBiases);
+        writeShorts(out, denseWeights);
+        for (int bias : denseBiases) {
+            out.writeInt(bias);
+        }
+        writeShorts(out, outputWeights);
+        out.writeInt(outputBias);
+        out.flush();
+    }
+
+    public void save(Path path) throws IOException {
+        try (OutputStream out = Files.newOutputStream(path)) {
+            write(new BufferedOutputStream(out));
+        }
+    }
+
+    public static NnueNetwork read(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(stream);
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            throw new IOException("Not a version " + VERSION + " NNUE network");
+        }
+        int size = in.readInt();
+        if (size < 1 || size > 64 || in.readInt() != HIDDEN || in.readInt() != DENSE) {
+            throw new IOException("Unsupported NNUE network shape");
+        }
+        NnueNetwork network = new NnueNetwork(size);
+        readShorts(in, network.inputWeights);
+        readShorts(in, network.inputBiases);
+        readShorts(in, network.denseWeights);
+        for (int i = 0; i < DENSE; i++) {
+            network.denseBiases[i] = in.readInt();
+        }
+        readShorts(in, network.outputWeights);
+        network.outputBias = in.readInt();
+        return network;
+    }
+
+    public static NnueNetwork load(Path path) throws IOException {
+        try (InputStream in = Files.newInputStream(path)) {
+            return read(new BufferedInputStream(in));
+        }
+    }
+
+    private static void writeShorts(DataOutputStream out, short[] values) throws IOException {
+        for (short value : values) {
+            out.writeShort(value);
+        }
+    }
+
+    private static void readShorts(DataInputStream in, short[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            values[i] = in.readShort();
+        }
+    }
+}
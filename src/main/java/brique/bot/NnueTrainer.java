@@ -0,0 +1,332 @@
+package brique.bot;
+
+import brique.core.GameState;
+import brique.core.MoveExecutor;
+import brique.core.Position;
+import brique.core.Stone;
+import brique.rules.GameRules;
+import brique.rules.RuleType;
+import brique.rules.RulesFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Trains an NnueNetwork on self-play data. Games are played with Playout (uniform, or
+// weighted by a PatternTable), in parallel; a few positions of every game are kept with
+// the game's result for the player to move. The network is then fitted in floating point
+// by stochastic gradient descent on the logistic loss, with the input weights bounded so
+// the int16 accumulators cannot overflow, and finally quantised.
+public final class NnueTrainer {
+
+    private static final int HIDDEN = NnueNetwork.HIDDEN;
+    private static final int DENSE = NnueNetwork.DENSE;
+
+    private final int size;
+    private final int cells;
+
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int games = 20_000;
+    private int positionsPerGame = 4;
+    private int epochs = 4;
+    private double learningRate = 0.01;
+    private PatternTable patterns;
+    private long seed = 1;
+    private double lastLoss = Double.NaN;
+
+    // Float weights, in the units of the quantised network divided by its scales
+    private float[] inputWeights;
+    private float[] inputBiases;
+    private float[] denseWeights;
+    private float[] denseBiases;
+    private float[] outputWeights;
+    private float outputBias;
+
+    public NnueTrainer(int size) {
+        this.size = size;
+        this.cells = size * size;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    public void setGames(int games) {
+        this.games = Math.max(1, games);
+    }
+
+    public void setPositionsPerGame(int positionsPerGame) {
+        this.positionsPerGame = Math.max(1, positionsPerGame);
+    }
+
+    public void setEpochs(int epochs) {
+        this.epochs = Math.max(1, epochs);
+    }
+
+    public void setLearningRate(double learningRate) {
+        this.learningRate = learningRate;
+    }
+
+    // Playout weights for the self-play games; null plays them uniformly at random
+    public void setPatterns(PatternTable patterns) {
+        this.patterns = patterns;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    // Mean logistic loss over the last epoch (log 2 = 0.693 is a coin flip)
+    public double getLastLoss() {
+        return lastLoss;
+    }
+
+    public NnueNetwork train() throws InterruptedException {
+        List<Sample> samples = selfPlay();
+
+        initialise(new Random(seed));
+        int[] order = new int[samples.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Random random = new Random(seed + 1);
+        Scratch scratch = new Scratch(cells);
+        for (int epoch = 0; epoch < epochs; epoch++) {
+            shuffle(order, random);
+            float rate = (float) (learningRate / (1 + epoch));
+            double loss = 0;
+            for (int i : order) {
+                loss += step(samples.get(i), rate, scratch);
+            }
+            lastLoss = loss / Math.max(1, order.length);
+        }
+        return quantise();
+    }
+
+    // --- Self-play data ------------------------------------------
+
+    // A position (0 empty, 1 Black, 2 White per cell) and the result for the player to move
+    private record Sample(byte[] board, boolean blackToMove, float target) { }
+
+    private List<Sample> selfPlay() throws InterruptedException {
+        AtomicInteger next = new AtomicInteger();
+        List<List<Sample>> partial = new ArrayList<>();
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            List<Sample> samples = new ArrayList<>();
+            partial.add(samples);
+            Random random = new Random(seed * 7_919 + t);
+            workers[t] = new Thread(() -> {
+                Playout playout = new Playout(size, patterns);
+                GameRules rules = RulesFactory.createRules(RuleType.STANDARD);
+                while (next.getAndIncrement() < games) {
+                    sampleGame(playout, rules, random, samples);
+                }
+            }, "brique-nnue-" + t);
+            workers[t].setDaemon(true);
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        List<Sample> all = new ArrayList<>();
+        for (List<Sample> samples : partial) {
+            all.addAll(samples);
+        }
+        return all;
+    }
+
+    // Plays one game and keeps up to positionsPerGame of its unfinished positions
+    private void sampleGame(Playout playout, GameRules rules, Random random, List<Sample> samples) {
+        GameState state = new GameState(size);
+        Stone winner = playout.run(state, random);
+        int moves = playout.playedMoves();
+        if (moves < 2) {
+            return;
+        }
+        int[] plies = new int[positionsPerGame];
+        for (int i = 0; i < plies.length; i++) {
+            plies[i] = random.nextInt(moves - 1) + 1;
+        }
+        Arrays.sort(plies);
+
+        state.turnOffPieRule(); // playouts ignore the pie rule
+        int played = 0;
+        for (int ply : plies) {
+            while (played < ply) {
+                int cell = playout.playedCell(played++);
+                MoveExecutor.play(state, rules, Position.of(cell / size, cell % size));
+            }
+            byte[] board = new byte[cells];
+            for (int cell = 0; cell < cells; cell++) {
+                Stone stone = state.getBoard().getStone(Position.of(cell / size, cell % size));
+                board[cell] = (byte) (stone == Stone.BLACK ? 1 : stone == Stone.WHITE ? 2 : 0);
+            }
+            Stone mover = state.getCurrentPlayer();
+            float target = winner == Stone.EMPTY ? 0.5f : winner == mover ? 1f : 0f;
+            samples.add(new Sample(board, mover == Stone.BLACK, target));
+        }
+    }
+
+    // --- Floating-point network -------------------------------------
+
+    private static final class Scratch {
+        final float[] black = new float[HIDDEN];
+        final float[] white = new float[HIDDEN];
+        final float[] input = new float[2 * HIDDEN];
+        final float[] dense = new float[DENSE];
+        final float[] denseSum = new float[DENSE];
+        final float[] inputGradient = new float[2 * HIDDEN];
+        final int[] blackFeatures;
+        final int[] whiteFeatures;
+
+        Scratch(int cells) {
+            blackFeatures = new int[cells];
+            whiteFeatures = new int[cells];
+        }
+    }
+
+    private void initialise(Random random) {
+        inputWeights = new float[NnueNetwork.features(size) * HIDDEN];
+        inputBiases = new float[HIDDEN];
+        denseWeights = new float[DENSE * 2 * HIDDEN];
+        denseBiases = new float[DENSE];
+        outputWeights = new float[DENSE];
+        float inputRange = (float) Math.min(1 / Math.sqrt(cells), NnueNetwork.maxInputWeight(size));
+        for (int i = 0; i < inputWeights.length; i++) {
+            inputWeights[i] = (random.nextFloat() * 2 - 1) * inputRange;
+        }
+        Arrays.fill(inputBiases, 0.5f);
+        float denseRange = (float) (1 / Math.sqrt(2 * HIDDEN));
+        for (int i = 0; i < denseWeights.length; i++) {
+            denseWeights[i] = (random.nextFloat() * 2 - 1) * denseRange;
+        }
+        Arrays.fill(denseBiases, 0.5f);
+        float outputRange = (float) (1 / Math.sqrt(DENSE));
+        for (int i = 0; i < DENSE; i++) {
+            outputWeights[i] = (random.nextFloat() * 2 - 1) * outputRange;
+        }
+    }
+
+    // One gradient step on one position; returns its loss
+    private double step(Sample sample, float rate, Scratch s) {
+        byte[] board = sample.board();
+        boolean blackToMove = sample.blackToMove();
+        float target = sample.target();
+        int count = 0;
+        System.arraycopy(inputBiases, 0, s.black, 0, HIDDEN);
+        System.arraycopy(inputBiases, 0, s.white, 0, HIDDEN);
+        for (int cell = 0; cell < cells; cell++) {
+            if (board[cell] == 0) {
+                continue;
+            }
+            boolean blackStone = board[cell] == 1;
+            s.blackFeatures[count] = NnueNetwork.blackFeature(cell, blackStone) * HIDDEN;
+            s.whiteFeatures[count] = NnueNetwork.whiteFeature(size, cell, blackStone) * HIDDEN;
+            for (int h = 0; h < HIDDEN; h++) {
+                s.black[h] += inputWeights[s.blackFeatures[count] + h];
+                s.white[h] += inputWeights[s.whiteFeatures[count] + h];
+            }
+            count++;
+        }
+
+        float[] mover = blackToMove ? s.black : s.white;
+        float[] opponent = blackToMove ? s.white : s.black;
+        for (int h = 0; h < HIDDEN; h++) {
+            s.input[h] = clip(mover[h]);
+            s.input[HIDDEN + h] = clip(opponent[h]);
+        }
+        float output = outputBias;
+        for (int j = 0; j < DENSE; j++) {
+            float sum = denseBiases[j];
+            int row = j * 2 * HIDDEN;
+            for (int i = 0; i < 2 * HIDDEN; i++) {
+                sum += denseWeights[row + i] * s.input[i];
+            }
+            s.denseSum[j] = sum;
+            s.dense[j] = clip(sum);
+            output += outputWeights[j] * s.dense[j];
+        }
+
+        double p = 1 / (1 + Math.exp(-output));
+        double loss = -(target * Math.log(p + 1e-12) + (1 - target) * Math.log(1 - p + 1e-12));
+        float g = (float) (p - target);
+
+        // Backward pass, updating each layer once its gradient has been passed down
+        Arrays.fill(s.inputGradient, 0);
+        for (int j = 0; j < DENSE; j++) {
+            float denseGradient = s.denseSum[j] > 0 && s.denseSum[j] < 1 ? g * outputWeights[j] : 0;
+            outputWeights[j] = bound(outputWeights[j] - rate * g * s.dense[j], NnueNetwork.QB);
+            if (denseGradient != 0) {
+                int row = j * 2 * HIDDEN;
+                for (int i = 0; i < 2 * HIDDEN; i++) {
+                    s.inputGradient[i] += denseGradient * denseWeights[row + i];
+                    denseWeights[row + i] = bound(denseWeights[row + i] - rate * denseGradient * s.input[i], NnueNetwork.QB);
+                }
+                denseBiases[j] -= rate * denseGradient;
+            }
+        }
+        outputBias -= rate * g;
+
+        float maxInput = (float) NnueNetwork.maxInputWeight(size);
+        int[] moverFeatures = blackToMove ? s.blackFeatures : s.whiteFeatures;
+        int[] opponentFeatures = blackToMove ? s.whiteFeatures : s.blackFeatures;
+        for (int h = 0; h < HIDDEN; h++) {
+            float moverGradient = mover[h] > 0 && mover[h] < 1 ? s.inputGradient[h] : 0;
+            float opponentGradient = opponent[h] > 0 && opponent[h] < 1 ? s.inputGradient[HIDDEN + h] : 0;
+            if (moverGradient == 0 && opponentGradient == 0) {
+                continue;
+            }
+            for (int f = 0; f < count; f++) {
+                int a = moverFeatures[f] + h;
+                inputWeights[a] = Math.max(-maxInput, Math.min(maxInput, inputWeights[a] - rate * moverGradient));
+                int b = opponentFeatures[f] + h;
+                inputWeights[b] = Math.max(-maxInput, Math.min(maxInput, inputWeights[b] - rate * opponentGradient));
+            }
+            inputBiases[h] = Math.max(-1, Math.min(1, inputBiases[h] - rate * (moverGradient + opponentGradient)));
+        }
+        return loss;
+    }
+
+    private NnueNetwork quantise() {
+        NnueNetwork network = new NnueNetwork(size);
+        int qa = NnueNetwork.QA;
+        int qb = NnueNetwork.QB;
+        for (int i = 0; i < inputWeights.length; i++) {
+            network.inputWeights[i] = (short) Math.round(inputWeights[i] * qa);
+        }
+        for (int i = 0; i < HIDDEN; i++) {
+            network.inputBiases[i] = (short) Math.round(inputBiases[i] * qa);
+        }
+        for (int i = 0; i < denseWeights.length; i++) {
+            network.denseWeights[i] = (short) Math.round(denseWeights[i] * qb);
+        }
+        for (int j = 0; j < DENSE; j++) {
+            network.denseBiases[j] = Math.round(denseBiases[j] * qa * qb);
+            network.outputWeights[j] = (short) Math.round(outputWeights[j] * qb);
+        }
+        network.outputBias = Math.round(outputBias * qa * qb);
+        return network;
+    }
+
+    private static float clip(float value) {
+        return Math.max(0, Math.min(1, value));
+    }
+
+    // Keeps a weight inside the int16 range once multiplied by its scale
+    private static float bound(float weight, int scale) {
+        float limit = (float) (Short.MAX_VALUE - 1) / scale;
+        return Math.max(-limit, Math.min(limit, weight));
+    }
+
+    private static void shuffle(int[] order, Random random) {
+        for (int i = order.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = order[i];
+            order[i] = order[j];
+            order[j] = tmp;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package brique.bot;
+
+import brique.core.GameState;
+import brique.core.Move;
+import brique.core.MoveExecutor;
+import brique.core.Position;
+import brique.core.Stone;
+import brique.core.ZobristHash;
+import brique.rules.GameRules;
+import brique.rules.RuleType;
+import brique.rules.RulesFactory;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Read-only opening book written by OpeningBookBuilder, memory-mapped from disk.
+// The file is a 32-byte header and then 12-byte entries sorted by position hash:
+// the ZobristHash key, then the number of games through the position (15 bits) and how
+// many of them the player to move went on to win (16 bits), scaled down together when capped.
+// probe() is a binary search over the mapping: O(log n) and no allocation.
+public final class OpeningBook {
+
+    static final int MAGIC = 0x4252424B; // "BRBK"
+    static final int VERSION = 1;
+    public static final int HEADER_BYTES = 32;
+    public static final int ENTRY_BYTES = 12;
+    static final int MAX_COUNT = 0x7FFF;
+
+    public static final int NOT_FOUND = -1;
+
+    private final MappedByteBuffer entries;
+    private final int size;
+    private final int maxPly;
+    private final int count;
+    private final GameRules rules;
+
+    private OpeningBook(MappedByteBuffer entries, int size, int maxPly, int count) {
+        this.entries = entries;
+        this.size = size;
+        this.maxPly = maxPly;
+        this.count = count;
+        this.rules = RulesFactory.createRules(RuleType.STANDARD);
+    }
+
+    public static OpeningBook open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES) {
+                throw new IOException(path + " is not an opening book");
+            }
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                throw new IOException(path + " is not a version " + VERSION + " opening book");
+            }
+            long count = header.getLong(16);
+            long bytes = count * ENTRY_BYTES;
+            if (bytes > Integer.MAX_VALUE || channel.size() < HEADER_BYTES + bytes) {
+                throw new IOException(path + " is truncated or too large to map");
+            }
+            MappedByteBuffer entries = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, bytes);
+            entries.order(ByteOrder.LITTLE_ENDIAN);
+            return new OpeningBook(entries, header.getInt(8), header.getInt(12), (int) count);
+        }
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    // Positions deeper than this many moves are never in the book.
+    public int getMaxPly() {
+        return maxPly;
+    }
+
+    public int entries() {
+        return count;
+    }
+
+    // Packed statistics of the position with this hash, or NOT_FOUND.
+    public int probe(long key) {
+        int lo = 0;
+        int hi = count - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            long midKey = entries.getLong(mid * ENTRY_BYTES);
+            if (midKey < key) {
+                lo = mid + 1;
+            } else if (midKey > key) {
+                hi = mid - 1;
+            } else {
+                return entries.getInt(mid * ENTRY_BYTES + Long.BYTES);
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    // Book action for the player to move: the child position the opponent scored worst
+    // from, or null when the position (or every child) is out of book.
+    public BotAction choose(GameState state) {
+        int boardSize = state.getBoard().getSize();
+        if (boardSize != size || !state.isInProgress() || state.getMoveHistory().size() >= maxPly) {
+            return null;
+        }
+
+        GameState scratch = state.copy();
+        long boardHash = ZobristHash.boardHash(scratch.getBoard());
+        BotAction best = null;
+        double bestRate = -1;
+
+        for (int cell = 0; cell < size * size; cell++) {
+            Position pos = Position.of(cell / size, cell % size);
+            if (scratch.getBoard().getStone(pos) != Stone.EMPTY) {
+                continue;
+            }
+            Move move = MoveExecutor.play(scratch, rules, pos);
+            boolean won = !scratch.isInProgress();
+            double rate = ourRate(probe(boardHash ^ ZobristHash.moveDelta(move) ^ ZobristHash.turnKey(scratch)));
+            scratch.undoLastMove();
+            if (won) {
+                return BotAction.place(pos);
+            }
+            if (rate > bestRate) {
+                bestRate = rate;
+                best = BotAction.place(pos);
+            }
+        }
+
+        if (scratch.isPieRuleAvailable() && scratch.getCurrentPlayer() == Stone.WHITE
+                && !scratch.getMoveHistory().isEmpty()) {
+            Position first = scratch.getMoveHistory().get(0).getPosition();
+            scratch.applyPieRule();
+            double rate = ourRate(probe(boardHash ^ ZobristHash.pieDelta(first) ^ ZobristHash.turnKey(scratch)));
+            scratch.undoPieRule();
+            if (rate > bestRate) {
+                best = BotAction.swap();
+            }
+        }
+        return best;
+    }
+
+    public static int games(int stats) {
+        return stats >>> 16;
+    }
+
+    public static int wins(int stats) {
+        return stats & 0xFFFF;
+    }
+
+    static int pack(int games, int wins) {
+        return games << 16 | wins;
+    }
+
+    // Our winning rate after moving into a child, from the child's statistics (which are
+    // for the opponent). Laplace-smoothed so a single lucky game does not dominate.
+    private static double ourRate(int childStats) {
+        if (childStats == NOT_FOUND) {
+            return -1;
+        }
+        int games = games(childStats);
+        return (games - wins(childStats) + 1.0) / (games + 2.0);
+    }
+}
@@ -0,0 +1,203 @@
+package brique.bot;
+
+import brique.core.GameState;
+import brique.core.MoveExecutor;
+import brique.core.Position;
+import brique.core.Stone;
+import brique.core.ZobristHash;
+import brique.rules.GameRules;
+import brique.rules.RuleType;
+import brique.rules.RulesFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// Builds an OpeningBook from self-play. Games run in parallel, one bot per thread;
+// up to maxPly each move is replaced by a random one with the exploration probability,
+// so the games spread over many openings. Every position up to maxPly counts the game
+// and, if the player to move there won it, the win. Positions seen in fewer than
+// minGames games are left out of the file.
+public final class OpeningBookBuilder {
+
+    private static final int WRITE_CHUNK = 64 * 1024;
+
+    private final int size;
+    private final int maxPly;
+    private final Supplier<Bot> bots;
+    private final GameRules rules;
+
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private double exploration = 0.3;
+    private int minGames = 2;
+    private long seed = 1;
+
+    public OpeningBookBuilder(int size, int maxPly, Supplier<Bot> bots) {
+        if (maxPly < 1) {
+            throw new IllegalArgumentException("Book depth must be at least one ply: " + maxPly);
+        }
+        this.size = size;
+        this.maxPly = maxPly;
+        this.bots = bots;
+        this.rules = RulesFactory.createRules(RuleType.STANDARD);
+    }
+
+    public void setThreads(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    public void setExploration(double exploration) {
+        this.exploration = exploration;
+    }
+
+    public void setMinGames(int minGames) {
+        this.minGames = Math.max(1, minGames);
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    // Plays the games and writes the book; returns the number of positions written.
+    public int build(int games, Path path) throws IOException, InterruptedException {
+        AtomicInteger next = new AtomicInteger();
+        List<Map<Long, int[]>> partial = new ArrayList<>();
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            Map<Long, int[]> stats = new HashMap<>();
+            Random random = new Random(seed + t);
+            partial.add(stats);
+            workers[t] = new Thread(() -> {
+                Bot bot = bots.get();
+                while (next.getAndIncrement() < games) {
+                    playGame(bot, random, stats);
+                }
+            }, "brique-book-" + t);
+            workers[t].setDaemon(true);
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        Map<Long, int[]> merged = partial.get(0);
+        for (int t = 1; t < threads; t++) {
+            for (Map.Entry<Long, int[]> e : partial.get(t).entrySet()) {
+                int[] into = merged.computeIfAbsent(e.getKey(), k -> new int[2]);
+                into[0] += e.getValue()[0];
+                into[1] += e.getValue()[1];
+            }
+        }
+        return write(merged, path);
+    }
+
+    // One self-play game; records (games, wins for the player to move) per position.
+    private void playGame(Bot bot, Random random, Map<Long, int[]> stats) {
+        GameState state = new GameState(size);
+        long[] keys = new long[maxPly + 1];
+        Stone[] movers = new Stone[maxPly + 1];
+        int recorded = 0;
+
+        // Plies are counted per action, so the position after a swap is recorded too
+        for (int ply = 0; state.isInProgress(); ply++) {
+            if (ply <= maxPly) {
+                keys[ply] = ZobristHash.of(state);
+                movers[ply] = state.getCurrentPlayer();
+                recorded = ply + 1;
+            }
+
+            BotAction action = ply < maxPly && random.nextDouble() < exploration
+                             ? randomAction(state, random)
+                             : bot.chooseAction(state);
+            if (action == null) {
+                break; // full board without a connection
+            }
+            if (action.isSwap()) {
+                state.applyPieRule();
+            } else if (MoveExecutor.play(state, rules, action.position()) == null) {
+                throw new IllegalStateException("Self-play bot chose an illegal move: " + action);
+            }
+        }
+
+        Stone winner = state.getWinner();
+        for (int i = 0; i < recorded; i++) {
+            int[] entry = stats.computeIfAbsent(keys[i], k -> new int[2]);
+            entry[0]++;
+            if (movers[i] == winner) {
+                entry[1]++;
+            }
+        }
+    }
+
+    private BotAction randomAction(GameState state, Random random) {
+        List<Position> empty = new ArrayList<>();
+        for (int cell = 0; cell < size * size; cell++) {
+            Position pos = Position.of(cell / size, cell % size);
+            if (state.getBoard().getStone(pos) == Stone.EMPTY) {
+                empty.add(pos);
+            }
+        }
+        boolean canSwap = state.isPieRuleAvailable() && state.getCurrentPlayer() == Stone.WHITE
+                          && !state.getMoveHistory().isEmpty();
+        int choices = empty.size() + (canSwap ? 1 : 0);
+        if (choices == 0) {
+            return null;
+        }
+        int pick = random.nextInt(choices);
+        return pick == empty.size() ? BotAction.swap() : BotAction.place(empty.get(pick));
+    }
+
+    private int write(Map<Long, int[]> stats, Path path) throws IOException {
+        long[] keys = stats.entrySet().stream()
+                           .filter(e -> e.getValue()[0] >= minGames)
+                           .mapToLong(Map.Entry::getKey)
+                           .toArray();
+        Arrays.sort(keys);
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(OpeningBook.HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(OpeningBook.MAGIC).putInt(OpeningBook.VERSION)
+                  .putInt(size).putInt(maxPly).putLong(keys.length);
+            header.rewind();
+            writeFully(channel, header);
+
+            ByteBuffer chunk = ByteBuffer.allocate(WRITE_CHUNK).order(ByteOrder.LITTLE_ENDIAN);
+            for (long key : keys) {
+                if (chunk.remaining() < OpeningBook.ENTRY_BYTES) {
+                    chunk.flip();
+                    writeFully(channel, chunk);
+                    chunk.clear();
+                }
+                int[] entry = stats.get(key);
+                int games = entry[0];
+                int wins = entry[1];
+                if (games > OpeningBook.MAX_COUNT) {
+                    wins = (int) ((long) wins * OpeningBook.MAX_COUNT / games);
+                    games = OpeningBook.MAX_COUNT;
+                }
+                chunk.putLong(key).putInt(OpeningBook.pack(games, wins));
+            }
+            chunk.flip();
+            writeFully(channel, chunk);
+        }
+        return keys.length;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
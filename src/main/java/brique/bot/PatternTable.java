@@ -0,0 +1,85 @@
+package brique.bot;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Playout weights of local patterns, written by PatternTrainer and read by Playout.
+// A pattern code describes the 3x3 neighbourhood of an empty cell from the mover's side:
+// two bits per neighbour (empty, own, opponent, off the board) and one bit for the cell's
+// square colour, which decides its escorts. White's neighbourhoods are transposed, so both
+// players share one table (transposing and swapping colours is a symmetry of the rules).
+// Each weight is one signed byte, a base-2 logarithm in eighths: the table is 128 KB.
+public final class PatternTable {
+
+    public static final int CODES = 1 << 17;
+
+    // Neighbour states inside a code
+    static final int EMPTY = 0;
+    static final int OWN = 1;
+    static final int OPPONENT = 2;
+    static final int OFF_BOARD = 3;
+
+    private static final int MAGIC = 0x42525054; // "BRPT"
+    private static final int VERSION = 1;
+    static final double STEPS_PER_DOUBLING = 8;
+
+    private static final double[] WEIGHT_OF_LEVEL = new double[256];
+
+    static {
+        for (int level = -128; level < 128; level++) {
+            WEIGHT_OF_LEVEL[level & 0xFF] = Math.pow(2, level / STEPS_PER_DOUBLING);
+        }
+    }
+
+    private final byte[] levels = new byte[CODES];
+
+    // Every pattern weighs 1: playouts are uniformly random
+    public PatternTable() { }
+
+    public double weight(int code) {
+        return WEIGHT_OF_LEVEL[levels[code] & 0xFF];
+    }
+
+    public int level(int code) {
+        return levels[code];
+    }
+
+    public void setLevel(int code, int level) {
+        levels[code] = (byte) Math.max(-128, Math.min(127, level));
+    }
+
+    public void write(OutputStream stream) throws IOException {
+        DataOutputStream out = new DataOutputStream(stream);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.write(levels);
+        out.flush();
+    }
+
+    public void save(Path path) throws IOException {
+        try (OutputStream out = Files.newOutputStream(path)) {
+            write(out);
+        }
+    }
+
+    public static PatternTable read(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(stream);
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            throw new IOException("Not a version " + VERSION + " pattern table");
+        }
+        PatternTable table = new PatternTable();
+        in.readFully(table.levels);
+        return table;
+    }
+
+    public static PatternTable load(Path path) throws IOException {
+        try (InputStream in = Files.newInputStream(path)) {
+            return read(in);
+        }
+    }
+}
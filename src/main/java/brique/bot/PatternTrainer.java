@@ -0,0 +1,140 @@
+package brique.bot;
+
+import brique.core.GameState;
+import brique.core.Stone;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Learns PatternTable weights from self-play. Each generation plays games from the empty
+// board with the current weights and counts, for every pattern, how often a move with it
+// was played and how often its player went on to win. A pattern whose moves win more
+// often than moves in general gets a heavier weight (and one that wins less a lighter
+// one), in proportion to the difference of the two winning rates in logit space; the next
+// generation plays with the new weights.
+public final class PatternTrainer {
+
+    private final int size;
+
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int games = 20_000;
+    private int generations = 4;
+    private double learningRate = 1.0;
+    private int minPlays = 30;
+    private long seed = 1;
+
+    public PatternTrainer(int size) {
+        this.size = size;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    // Self-play games per generation
+    public void setGames(int games) {
+        this.games = Math.max(1, games);
+    }
+
+    public void setGenerations(int generations) {
+        this.generations = Math.max(1, generations);
+    }
+
+    public void setLearningRate(double learningRate) {
+        this.learningRate = learningRate;
+    }
+
+    // Patterns seen in fewer moves than this keep their weight for the generation
+    public void setMinPlays(int minPlays) {
+        this.minPlays = Math.max(1, minPlays);
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    public PatternTable train() throws InterruptedException {
+        return train(new PatternTable());
+    }
+
+    // Improves a copy of the given weights; the table passed in is left unchanged.
+    public PatternTable train(PatternTable start) throws InterruptedException {
+        PatternTable table = copy(start);
+        for (int generation = 0; generation < generations; generation++) {
+            table = nextGeneration(table, generation);
+        }
+        return table;
+    }
+
+    private PatternTable nextGeneration(PatternTable table, int generation) throws InterruptedException {
+        AtomicInteger next = new AtomicInteger();
+        List<int[]> plays = new ArrayList<>();
+        List<int[]> wins = new ArrayList<>();
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int[] threadPlays = new int[PatternTable.CODES];
+            int[] threadWins = new int[PatternTable.CODES];
+            plays.add(threadPlays);
+            wins.add(threadWins);
+            Random random = new Random(seed * 1_000 + generation * 100 + t);
+            workers[t] = new Thread(() -> {
+                Playout playout = new Playout(size, table);
+                GameState empty = new GameState(size);
+                while (next.getAndIncrement() < games) {
+                    Stone winner = playout.run(empty, random);
+                    for (int move = 0; move < playout.playedMoves(); move++) {
+                        int code = playout.playedCode(move);
+                        threadPlays[code]++;
+                        if ((winner == Stone.BLACK) == playout.playedByBlack(move) && winner != Stone.EMPTY) {
+                            threadWins[code]++;
+                        }
+                    }
+                }
+            }, "brique-patterns-" + t);
+            workers[t].setDaemon(true);
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        int[] totalPlays = plays.get(0);
+        int[] totalWins = wins.get(0);
+        long allPlays = 0;
+        long allWins = 0;
+        for (int code = 0; code < PatternTable.CODES; code++) {
+            for (int t = 1; t < threads; t++) {
+                totalPlays[code] += plays.get(t)[code];
+                totalWins[code] += wins.get(t)[code];
+            }
+            allPlays += totalPlays[code];
+            allWins += totalWins[code];
+        }
+
+        double baseline = logit((allWins + 1.0) / (allPlays + 2.0));
+        PatternTable updated = copy(table);
+        for (int code = 0; code < PatternTable.CODES; code++) {
+            if (totalPlays[code] < minPlays) {
+                continue;
+            }
+            double rate = (totalWins[code] + 1.0) / (totalPlays[code] + 2.0);
+            double doublings = learningRate * (logit(rate) - baseline) / Math.log(2);
+            updated.setLevel(code, table.level(code) + (int) Math.round(doublings * PatternTable.STEPS_PER_DOUBLING));
+        }
+        return updated;
+    }
+
+    private static double logit(double p) {
+        return Math.log(p / (1 - p));
+    }
+
+    private static PatternTable copy(PatternTable table) {
+        PatternTable copy = new PatternTable();
+        for (int code = 0; code < PatternTable.CODES; code++) {
+            copy.setLevel(code, table.level(code));
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,441 @@
+package brique.bot;
+
+import brique.core.Board;
+import brique.core.GameState;
+import brique.core.Position;
+import brique.core.Stone;
+import brique.rules.GameRules;
+import brique.rules.RuleType;
+import brique.rules.RulesFactory;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+// Plays a position out to the end on flat arrays, for Monte Carlo bots and trainers.
+// Without a PatternTable every empty cell is equally likely; with one, a cell is chosen
+// with probability proportional to the weight of its pattern code. The codes of all cells
+// are kept up to date incrementally: a stone that appears or changes colour rewrites one
+// field in the codes of its eight neighbours, and their weights and row sums follow, so
+// sampling a move costs O(size) instead of a scan of the board.
+// Not thread-safe: use one instance per thread.
+public final class Playout {
+
+    // Neighbour directions (row, col); the opposite of direction d is 7 - d
+    private static final int[] DR = {-1, -1, -1, 0, 0, 1, 1, 1};
+    private static final int[] DC = {-1, 0, 1, -1, 1, -1, 0, 1};
+    // Direction d seen on the transposed board
+    private static final int[] TRANSPOSED = {0, 3, 5, 1, 6, 2, 4, 7};
+    private static final int[] ORTHOGONAL = {1, 3, 4, 6};
+    private static final int PARITY_BIT = 1 << 16;
+
+    private static final byte EMPTY = 0;
+    private static final byte BLACK = 1;
+    private static final byte WHITE = 2;
+
+    private final int size;
+    private final int cells;
+    private final PatternTable patterns;
+
+    private final int[][] neighbours;
+    // Escorts of each cell (-1 when it has fewer than two) and the cells each cell escorts
+    private final int[] escortA;
+    private final int[] escortB;
+    private final int[][] escorted;
+
+    private final byte[] stones;
+    private final int[] empty;
+    private final int[] emptySlot;
+    private int emptyCount;
+
+    // Pattern codes and weights from Black's and White's side (only with a table)
+    private final int[] blackCodes;
+    private final int[] whiteCodes;
+    private final double[] blackWeights;
+    private final double[] whiteWeights;
+    private final double[] blackRows;
+    private final double[] whiteRows;
+    private double blackTotal;
+    private double whiteTotal;
+
+    private final int[] fills = new int[4];
+    private final int[] stack;
+    private final int[] visited;
+    private int stamp;
+
+    // Moves of the last playout, their codes and who played them, for the trainer
+    private final int[] playedCells;
+    private final int[] playedCodes;
+    private final boolean[] playedByBlack;
+    private int played;
+
+    private boolean blackToMove;
+    // The position given to load(GameState), for restart()
+    private byte[] savedStones;
+    private int[] savedEmpty;
+    private int[] savedEmptySlot;
+    private int savedEmptyCount;
+    private boolean savedBlackToMove;
+    private int[] savedCodes;
+    private double[] savedWeights;
+    private double[] savedRows;
+    private double savedBlackTotal;
+    private double savedWhiteTotal;
+
+    public Playout(int size, PatternTable patterns) {
+        this.size = size;
+        this.cells = size * size;
+        this.patterns = patterns;
+        GameRules rules = RulesFactory.createRules(RuleType.STANDARD);
+        Board board = new Board(size);
+
+        this.neighbours = new int[cells][8];
+        this.escortA = new int[cells];
+        this.escortB = new int[cells];
+        int[] escortedCount = new int[cells];
+        for (int cell = 0; cell < cells; cell++) {
+            int row = cell / size;
+            int col = cell % size;
+            for (int d = 0; d < 8; d++) {
+                int r = row + DR[d];
+                int c = col + DC[d];
+                neighbours[cell][d] = r >= 0 && r < size && c >= 0 && c < size ? r * size + c : -1;
+            }
+            List<Position> pair = rules.getEscorts(Position.of(row, col), board);
+            escortA[cell] = pair.size() == 2 ? index(pair.get(0)) : -1;
+            escortB[cell] = pair.size() == 2 ? index(pair.get(1)) : -1;
+            if (pair.size() == 2) {
+                escortedCount[escortA[cell]]++;
+                escortedCount[escortB[cell]]++;
+            }
+        }
+        this.escorted = new int[cells][];
+        for (int cell = 0; cell < cells; cell++) {
+            escorted[cell] = new int[escortedCount[cell]];
+            escortedCount[cell] = 0;
+        }
+        for (int cell = 0; cell < cells; cell++) {
+            if (escortA[cell] >= 0) {
+                escorted[escortA[cell]][escortedCount[escortA[cell]]++] = cell;
+                escorted[escortB[cell]][escortedCount[escortB[cell]]++] = cell;
+            }
+        }
+
+        this.stones = new byte[cells];
+        this.empty = new int[cells];
+        this.emptySlot = new int[cells];
+        this.stack = new int[cells];
+        this.visited = new int[cells];
+        this.playedCells = new int[cells];
+        this.playedCodes = new int[cells];
+        this.playedByBlack = new boolean[cells];
+
+        boolean weighted = patterns != null;
+        this.blackCodes = weighted ? new int[cells] : null;
+        this.whiteCodes = weighted ? new int[cells] : null;
+        this.blackWeights = weighted ? new double[cells] : null;
+        this.whiteWeights = weighted ? new double[cells] : null;
+        this.blackRows = weighted ? new double[size] : null;
+        this.whiteRows = weighted ? new double[size] : null;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    // Plays the position out with the player to move starting; returns the winner,
+    // or Stone.EMPTY when the board fills up without a connection. The pie rule is ignored.
+    public Stone run(GameState state, Random random) {
+        played = 0;
+        if (!state.isInProgress()) {
+            return state.getWinner();
+        }
+        load(state);
+        return finish(random);
+    }
+
+    // --- Step by step, for tree search: load() a position once, then for every playout
+    // restart(), place() the moves of a tree path and finish(); owner() reads the result.
+
+    // Sets up the position and keeps it for restart()
+    void load(GameState state) {
+        load(state.getBoard());
+        blackToMove = state.getCurrentPlayer() == Stone.BLACK;
+        if (savedStones == null) {
+            savedStones = new byte[cells];
+            savedEmpty = new int[cells];
+            savedEmptySlot = new int[cells];
+            if (patterns != null) {
+                savedCodes = new int[2 * cells];
+                savedWeights = new double[2 * cells];
+                savedRows = new double[2 * size];
+            }
+        }
+        System.arraycopy(stones, 0, savedStones, 0, cells);
+        System.arraycopy(empty, 0, savedEmpty, 0, cells);
+        System.arraycopy(emptySlot, 0, savedEmptySlot, 0, cells);
+        savedEmptyCount = emptyCount;
+        savedBlackToMove = blackToMove;
+        if (patterns != null) {
+            copy(blackCodes, whiteCodes, savedCodes, true);
+            copy(blackWeights, whiteWeights, savedWeights, true);
+            copy(blackRows, whiteRows, savedRows, true);
+            savedBlackTotal = blackTotal;
+            savedWhiteTotal = whiteTotal;
+        }
+    }
+
+    // Back to the position given to load()
+    void restart() {
+        System.arraycopy(savedStones, 0, stones, 0, cells);
+        System.arraycopy(savedEmpty, 0, empty, 0, cells);
+        System.arraycopy(savedEmptySlot, 0, emptySlot, 0, cells);
+        emptyCount = savedEmptyCount;
+        blackToMove = savedBlackToMove;
+        played = 0;
+        if (patterns != null) {
+            copy(blackCodes, whiteCodes, savedCodes, false);
+            copy(blackWeights, whiteWeights, savedWeights, false);
+            copy(blackRows, whiteRows, savedRows, false);
+            blackTotal = savedBlackTotal;
+            whiteTotal = savedWhiteTotal;
+        }
+    }
+
+    boolean isEmpty(int cell) {
+        return stones[cell] == EMPTY;
+    }
+
+    int emptyCount() {
+        return emptyCount;
+    }
+
+    boolean isBlackToMove() {
+        return blackToMove;
+    }
+
+    // Plays a stone for the player to move; returns true when it connected
+    boolean place(int cell) {
+        boolean connected = play(cell, blackToMove ? BLACK : WHITE);
+        blackToMove = !blackToMove;
+        return connected;
+    }
+
+    // Plays the current position out; returns the winner, or Stone.EMPTY for a full board
+    Stone finish(Random random) {
+        while (emptyCount > 0) {
+            boolean black = blackToMove;
+            int cell = patterns == null ? empty[random.nextInt(emptyCount)] : sample(black, random);
+            playedCells[played] = cell;
+            playedCodes[played] = patterns == null ? 0 : (black ? blackCodes : whiteCodes)[cell];
+            playedByBlack[played++] = black;
+            if (place(cell)) {
+                return black ? Stone.BLACK : Stone.WHITE;
+            }
+        }
+        return Stone.EMPTY;
+    }
+
+    // Colour of a cell on the current board, escort fills and captures included
+    Stone owner(int cell) {
+        return stones[cell] == BLACK ? Stone.BLACK : stones[cell] == WHITE ? Stone.WHITE : Stone.EMPTY;
+    }
+
+    int playedMoves() {
+        return played;
+    }
+
+    int playedCell(int move) {
+        return playedCells[move];
+    }
+
+    int playedCode(int move) {
+        return playedCodes[move];
+    }
+
+    boolean playedByBlack(int move) {
+        return playedByBlack[move];
+    }
+
+    private static void copy(int[] black, int[] white, int[] saved, boolean save) {
+        if (save) {
+            System.arraycopy(black, 0, saved, 0, black.length);
+            System.arraycopy(white, 0, saved, black.length, white.length);
+        } else {
+            System.arraycopy(saved, 0, black, 0, black.length);
+            System.arraycopy(saved, black.length, white, 0, white.length);
+        }
+    }
+
+    private static void copy(double[] black, double[] white, double[] saved, boolean save) {
+        if (save) {
+            System.arraycopy(black, 0, saved, 0, black.length);
+            System.arraycopy(white, 0, saved, black.length, white.length);
+        } else {
+            System.arraycopy(saved, 0, black, 0, black.length);
+            System.arraycopy(saved, black.length, white, 0, white.length);
+        }
+    }
+
+    private void load(Board board) {
+        emptyCount = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            Stone stone = board.getStone(Position.of(cell / size, cell % size));
+            stones[cell] = stone == Stone.BLACK ? BLACK : stone == Stone.WHITE ? WHITE : EMPTY;
+            if (stones[cell] == EMPTY) {
+                emptySlot[cell] = emptyCount;
+                empty[emptyCount++] = cell;
+            }
+        }
+        if (patterns == null) {
+            return;
+        }
+
+        Arrays.fill(blackRows, 0);
+        Arrays.fill(whiteRows, 0);
+        blackTotal = 0;
+        whiteTotal = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            int black = (cell / size + cell % size) % 2 == 0 ? 0 : PARITY_BIT;
+            int white = black;
+            for (int d = 0; d < 8; d++) {
+                int n = neighbours[cell][d];
+                black |= (n < 0 ? PatternTable.OFF_BOARD : view(stones[n], BLACK)) << (2 * d);
+                white |= (n < 0 ? PatternTable.OFF_BOARD : view(stones[n], WHITE)) << (2 * TRANSPOSED[d]);
+            }
+            blackCodes[cell] = black;
+            whiteCodes[cell] = white;
+            blackWeights[cell] = 0;
+            whiteWeights[cell] = 0;
+            if (stones[cell] == EMPTY) {
+                reweigh(cell);
+            }
+        }
+    }
+
+    // Places a stone and applies the escort fills; returns true when the mover connected.
+    private boolean play(int cell, byte mover) {
+        // Only squares escorted by the new stone can become fillable; all of them are
+        // decided on the board with the stone placed, and filled together afterwards
+        set(cell, mover);
+        int fillCount = 0;
+        for (int square : escorted[cell]) {
+            if (stones[square] != mover && stones[escortA[square]] == mover && stones[escortB[square]] == mover) {
+                fills[fillCount++] = square;
+            }
+        }
+        for (int i = 0; i < fillCount; i++) {
+            set(fills[i], mover);
+        }
+        return connects(cell, mover);
+    }
+
+    private void set(int cell, byte stone) {
+        if (stones[cell] == EMPTY) {
+            int slot = emptySlot[cell];
+            int last = empty[--emptyCount];
+            empty[slot] = last;
+            emptySlot[last] = slot;
+        }
+        stones[cell] = stone;
+        if (patterns == null) {
+            return;
+        }
+
+        setWeight(cell, 0, 0);
+        for (int d = 0; d < 8; d++) {
+            int n = neighbours[cell][d];
+            if (n < 0) {
+                continue;
+            }
+            int shift = 2 * (7 - d);
+            int transposedShift = 2 * TRANSPOSED[7 - d];
+            blackCodes[n] = blackCodes[n] & ~(3 << shift) | view(stone, BLACK) << shift;
+            whiteCodes[n] = whiteCodes[n] & ~(3 << transposedShift) | view(stone, WHITE) << transposedShift;
+            if (stones[n] == EMPTY) {
+                reweigh(n);
+            }
+        }
+    }
+
+    private void reweigh(int cell) {
+        setWeight(cell, patterns.weight(blackCodes[cell]), patterns.weight(whiteCodes[cell]));
+    }
+
+    private void setWeight(int cell, double black, double white) {
+        int row = cell / size;
+        blackRows[row] += black - blackWeights[cell];
+        blackTotal += black - blackWeights[cell];
+        blackWeights[cell] = black;
+        whiteRows[row] += white - whiteWeights[cell];
+        whiteTotal += white - whiteWeights[cell];
+        whiteWeights[cell] = white;
+    }
+
+    // Empty cell drawn with probability proportional to its weight for the mover
+    private int sample(boolean blackToMove, Random random) {
+        double[] weights = blackToMove ? blackWeights : whiteWeights;
+        double[] rows = blackToMove ? blackRows : whiteRows;
+        double u = random.nextDouble() * (blackToMove ? blackTotal : whiteTotal);
+        for (int row = 0; row < size; row++) {
+            if (u >= rows[row]) {
+                u -= rows[row];
+                continue;
+            }
+            int last = -1;
+            for (int cell = row * size; cell < row * size + size; cell++) {
+                if (stones[cell] != EMPTY) {
+                    continue;
+                }
+                last = cell;
+                if (u < weights[cell]) {
+                    return cell;
+                }
+                u -= weights[cell];
+            }
+            if (last >= 0) {
+                return last; // rounding drift in the row sum
+            }
+        }
+        return empty[random.nextInt(emptyCount)];
+    }
+
+    // Whether the group through `cell` reaches both of the mover's edges. Every stone
+    // the move added touches `cell`, so no other group can have become a connection.
+    private boolean connects(int cell, byte mover) {
+        if (++stamp == Integer.MAX_VALUE) {
+            Arrays.fill(visited, 0);
+            stamp = 1;
+        }
+        int top = 0;
+        stack[top++] = cell;
+        visited[cell] = stamp;
+        boolean first = false;
+        boolean last = false;
+        while (top > 0) {
+            int current = stack[--top];
+            int line = mover == BLACK ? current / size : current % size;
+            first |= line == 0;
+            last |= line == size - 1;
+            if (first && last) {
+                return true;
+            }
+            for (int d : ORTHOGONAL) {
+                int n = neighbours[current][d];
+                if (n >= 0 && stones[n] == mover && visited[n] != stamp) {
+                    visited[n] = stamp;
+                    stack[top++] = n;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static int view(byte stone, byte side) {
+        return stone == EMPTY ? PatternTable.EMPTY : stone == side ? PatternTable.OWN : PatternTable.OPPONENT;
+    }
+
+    private int index(Position pos) {
+        return pos.row() * size + pos.col();
+    }
+}
@@ -0,0 +1,160 @@
+package brique.bot;
+
+import brique.core.Board;
+import brique.core.GameState;
+import brique.core.Position;
+import brique.core.Stone;
+import brique.rules.GameRules;
+import brique.rules.RuleType;
+import brique.rules.RulesFactory;
+
+import java.util.List;
+
+// Circuit-resistance evaluation, as used for Hex: each colour's board is a resistor
+// network between its two goal edges. Own stones are near-zero resistors, empty cells
+// are unit resistors and opponent stones are removed. Two cells escorting the same square
+// are also wired together, because holding both of them fills (or captures) that square.
+// The score is the log of the opponent's resistance over ours, so it is antisymmetric.
+// Each colour keeps its last voltages, so evaluations along a game or a search path
+// warm-start from the previous solution.
+public class ResistanceEvaluator implements Evaluator {
+
+    private static final double OWN_RESISTANCE = 0.01;
+    private static final double EMPTY_RESISTANCE = 1.0;
+    private static final double SCALE = 300.0;
+    private static final int MAX_SCORE = 20_000;
+    private static final double TOLERANCE = 1e-4;
+
+    private final GameRules rules;
+
+    private int size;
+    private int[][] escortPairs = new int[0][];
+    private ConductanceNetwork blackNetwork;
+    private ConductanceNetwork whiteNetwork;
+    private int lastIterations;
+
+    public ResistanceEvaluator() {
+        this(RulesFactory.createRules(RuleType.STANDARD));
+    }
+
+    public ResistanceEvaluator(GameRules rules) {
+        this.rules = rules;
+    }
+
+    @Override
+    public int evaluate(GameState state) {
+        Board board = state.getBoard();
+        prepare(board);
+
+        double blackCurrent = solve(blackNetwork, board, Stone.BLACK);
+        int iterations = blackNetwork.lastIterations();
+        double whiteCurrent = solve(whiteNetwork, board, Stone.WHITE);
+        lastIterations = iterations + whiteNetwork.lastIterations();
+
+        // Resistance is 1 / current: log(R_white / R_black) = log(I_black / I_white)
+        double ratio = Math.log(Math.max(blackCurrent, Double.MIN_NORMAL)
+                              / Math.max(whiteCurrent, Double.MIN_NORMAL));
+        long score = Math.round(SCALE * ratio);
+        int clamped = (int) Math.max(-MAX_SCORE, Math.min(MAX_SCORE, score));
+        return state.getCurrentPlayer() == Stone.BLACK ? clamped : -clamped;
+    }
+
+    // Equivalent resistance between the player's two edges on the given board.
+    public double resistance(Board board, Stone player) {
+        prepare(board);
+        ConductanceNetwork network = player == Stone.BLACK ? blackNetwork : whiteNetwork;
+        return 1.0 / solve(network, board, player);
+    }
+
+    // Conjugate-gradient iterations used by the last evaluation (both colours).
+    public int lastIterations() {
+        return lastIterations;
+    }
+
+    // Drops the remembered voltages, so the next evaluation solves from scratch.
+    public void reset() {
+        if (blackNetwork != null) {
+            blackNetwork.resetVoltages();
+            whiteNetwork.resetVoltages();
+        }
+    }
+
+    private double solve(ConductanceNetwork network, Board board, Stone player) {
+        network.clear();
+        int cells = size * size;
+
+        // Cell-to-cell resistors: orthogonal neighbours
+        for (int cell = 0; cell < cells; cell++) {
+            double r = resistance(board, cell, player);
+            if (Double.isInfinite(r)) {
+                continue;
+            }
+            int row = cell / size;
+            int col = cell % size;
+            if (col + 1 < size) {
+                wire(network, board, player, cell, cell + 1, r);
+            }
+            if (row + 1 < size) {
+                wire(network, board, player, cell, cell + size, r);
+            }
+
+            // Terminals: the source edge at 1 V, the goal edge at 0 V
+            boolean onSource = player == Stone.BLACK ? row == 0 : col == 0;
+            boolean onGoal = player == Stone.BLACK ? row == size - 1 : col == size - 1;
+            if (onSource) {
+                network.connectSource(cell, 1.0 / r);
+            }
+            if (onGoal) {
+                network.connectSink(cell, 1.0 / r);
+            }
+        }
+
+        // Escort-fill adjacency: the two escorts of a square are wired to each other
+        for (int[] pair : escortPairs) {
+            double r = resistance(board, pair[0], player);
+            if (!Double.isInfinite(r)) {
+                wire(network, board, player, pair[0], pair[1], r);
+            }
+        }
+
+        return network.solve(TOLERANCE, cells * 2);
+    }
+
+    private void wire(ConductanceNetwork network, Board board, Stone player, int a, int b, double ra) {
+        double rb = resistance(board, b, player);
+        if (!Double.isInfinite(rb)) {
+            network.connect(a, b, 1.0 / (ra + rb));
+        }
+    }
+
+    private double resistance(Board board, int cell, Stone player) {
+        Stone stone = board.getStone(Position.of(cell / size, cell % size));
+        if (stone == player) {
+            return OWN_RESISTANCE;
+        }
+        return stone == Stone.EMPTY ? EMPTY_RESISTANCE : Double.POSITIVE_INFINITY;
+    }
+
+    // Builds the networks and the escort pairs the first time a board size is seen.
+    private void prepare(Board board) {
+        if (board.getSize() == size) {
+            return;
+        }
+        size = board.getSize();
+        int cells = size * size;
+        blackNetwork = new ConductanceNetwork(cells);
+        whiteNetwork = new ConductanceNetwork(cells);
+
+        int[][] pairs = new int[cells][];
+        int count = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            List<Position> escorts = rules.getEscorts(Position.of(cell / size, cell % size), board);
+            if (escorts.size() == 2) {
+                Position a = escorts.get(0);
+                Position b = escorts.get(1);
+                pairs[count++] = new int[] {a.row() * size + a.col(), b.row() * size + b.col()};
+            }
+        }
+        escortPairs = java.util.Arrays.copyOf(pairs, count);
+    }
+}
@@ -0,0 +1,13 @@
+package brique.bot;
+
+// Snapshot of a BotScheduler: searches waiting for a thread, searches running, how many
+// moves were answered, the response time of recent moves and how busy the threads were.
+public record SchedulerMetrics(int queued, int running, long completed, long slices,
+                               double p50Millis, double p99Millis, double utilisation) {
+
+    @Override
+    public String toString() {
+        return String.format("queued %d, running %d, completed %d, slices %d, p50 %.1f ms, p99 %.1f ms, %.0f%% busy",
+            queued, running, completed, slices, p50Millis, p99Millis, 100 * utilisation);
+    }
+}
@@ -0,0 +1,208 @@
+package brique.bot;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Search results that outlive the process: a memory-mapped, open-addressing hash table
+// file keyed by ZobristHash (which includes the board size, so one file serves every size).
+// Opening only maps the file, so a bot starts with everything earlier sessions stored.
+// The file is a 64-byte header (magic, version, entry count, the fingerprint of the
+// evaluator whose scores it holds and a checksum of those) followed by buckets of four 16-byte entries: (key ^ check(data), data), where data is
+// packed like a TranspositionTable entry. An entry whose two words do not agree, for
+// instance because the process died between writing them, is simply not found, so the
+// file never needs repairing; a file with a bad header, or one written under another
+// evaluator, is recreated empty.
+// A bucket keeps the deepest results: a new one replaces the shallowest entry only when it
+// is at least as deep. Threads may share one cache; a torn entry is rejected the same way.
+public final class SearchCache {
+
+    // Results of shallower searches are cheap to redo and are not worth the disk writes
+    public static final int MIN_DEPTH = 3;
+
+    public static final String DEFAULT_FILE_PROPERTY = "brique.searchCache";
+    public static final int DEFAULT_SIZE_MB = 64;
+
+    static final int HEADER_BYTES = 64;
+    static final int ENTRY_BYTES = 16;
+    private static final int BUCKET = 4;
+    private static final int MAGIC = 0x42525343; // "BRSC"
+    private static final int VERSION = 2;
+    private static final long MAX_ENTRIES = 1L << 26; // one 1 GB mapping
+
+    private final MappedByteBuffer buffer;
+    private final long entries;
+    private final long fingerprint;
+    private final int bucketMask;
+
+    private SearchCache(MappedByteBuffer buffer, long entries, long fingerprint) {
+        this.buffer = buffer;
+        this.entries = entries;
+        this.fingerprint = fingerprint;
+        this.bucketMask = (int) (entries / BUCKET - 1);
+    }
+
+    // Opens the cache at `path` for the scores of the evaluator with `fingerprint` (see
+    // Evaluator.fingerprint); a new file gets sizeMb, an existing one keeps its size.
+    public static SearchCache open(Path path, int sizeMb, long fingerprint) throws IOException {
+        if (sizeMb <= 0) {
+            throw new IllegalArgumentException("Search cache size must be positive: " + sizeMb + " MB");
+        }
+        long entries = Long.highestOneBit(((long) sizeMb << 20) / ENTRY_BYTES);
+        return open(path, Math.max(BUCKET, Math.min(entries, MAX_ENTRIES)), fingerprint);
+    }
+
+    // Maps an existing cache (keeping its size) or creates an empty one of `entries`;
+    // a file that is not a complete cache for `fingerprint` is recreated.
+    static SearchCache open(Path path, long entries, long fingerprint) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long existing = existingEntries(channel, fingerprint);
+            if (existing > 0) {
+                entries = existing;
+            } else {
+                // Zeroed entries are all empty; the header goes last, so a crash here
+                // leaves a file that is recreated again next time
+                channel.truncate(0);
+                channel.write(ByteBuffer.allocate(1), HEADER_BYTES + entries * ENTRY_BYTES - 1);
+                channel.force(false);
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                header.putInt(MAGIC).putInt(VERSION).putLong(entries).putLong(fingerprint)
+                      .putLong(headerCheck(entries, fingerprint));
+                header.rewind();
+                channel.write(header, 0);
+                channel.force(true);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_BYTES, entries * ENTRY_BYTES);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return new SearchCache(buffer, entries, fingerprint);
+        }
+    }
+
+    // The cache in the file the brique.searchCache property names, for the evaluator with
+    // `fingerprint`; null when the property is not set or the file cannot be opened.
+    public static SearchCache openDefault(long fingerprint) {
+        String configured = System.getProperty(DEFAULT_FILE_PROPERTY);
+        if (configured == null || configured.isBlank()) {
+            return null;
+        }
+        Path path = Path.of(configured);
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            return open(path, DEFAULT_SIZE_MB, fingerprint);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    public long capacity() {
+        return entries;
+    }
+
+    public long fingerprint() {
+        return fingerprint;
+    }
+
+    // Packed data stored for the key (see TranspositionTable), or 0 when there is none.
+    public long probe(long key) {
+        int base = bucketBase(key);
+        for (int offset = base; offset < base + BUCKET * ENTRY_BYTES; offset += ENTRY_BYTES) {
+            long data = buffer.getLong(offset + Long.BYTES);
+            if (data != 0 && (buffer.getLong(offset) ^ check(data)) == key) {
+                return data;
+            }
+        }
+        return 0L;
+    }
+
+    public void store(long key, int move, int score, int depth, int bound) {
+        long data = TranspositionTable.pack(move, score, depth, bound, 0);
+        int base = bucketBase(key);
+        int victim = -1;
+        int victimDepth = Integer.MAX_VALUE;
+        for (int offset = base; offset < base + BUCKET * ENTRY_BYTES; offset += ENTRY_BYTES) {
+            long old = buffer.getLong(offset + Long.BYTES);
+            if (old == 0 || (buffer.getLong(offset) ^ check(old)) != key) {
+                // Another position: empty entries go first, then the shallowest
+                int oldDepth = old == 0 ? -1 : TranspositionTable.depth(old);
+                if (oldDepth < victimDepth) {
+                    victimDepth = oldDepth;
+                    victim = offset;
+                }
+                continue;
+            }
+            if (depth >= TranspositionTable.depth(old)) {
+                write(offset, key, move == TranspositionTable.NO_MOVE
+                                   ? TranspositionTable.withMove(data, TranspositionTable.move(old)) : data);
+            }
+            return;
+        }
+        if (depth >= victimDepth) {
+            write(victim, key, data);
+        }
+    }
+
+    // Number of stored entries (scans the whole file).
+    public long occupied() {
+        long count = 0;
+        for (long offset = 0; offset < entries * ENTRY_BYTES; offset += ENTRY_BYTES) {
+            if (buffer.getLong((int) offset + Long.BYTES) != 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // Writes the dirty pages to the disk. Not needed to survive the process being killed
+    // (the operating system keeps the pages), only to survive the machine going down.
+    public void force() {
+        buffer.force();
+    }
+
+    private void write(int offset, long key, long data) {
+        buffer.putLong(offset + Long.BYTES, data);
+        buffer.putLong(offset, key ^ check(data));
+    }
+
+    private int bucketBase(long key) {
+        int h = (int) (key ^ (key >>> 32));
+        return (h & bucketMask) * BUCKET * ENTRY_BYTES;
+    }
+
+    // Entry count of a valid cache file for the fingerprint, or 0
+    private static long existingEntries(FileChannel channel, long fingerprint) throws IOException {
+        if (channel.size() < HEADER_BYTES) {
+            return 0;
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        channel.read(header, 0);
+        long entries = header.getLong(8);
+        boolean valid = header.getInt(0) == MAGIC && header.getInt(4) == VERSION
+            && header.getLong(16) == fingerprint && header.getLong(24) == headerCheck(entries, fingerprint)
+            && entries >= BUCKET && entries <= MAX_ENTRIES && Long.bitCount(entries) == 1
+            && channel.size() == HEADER_BYTES + entries * ENTRY_BYTES;
+        return valid ? entries : 0;
+    }
+
+    private static long headerCheck(long entries, long fingerprint) {
+        return check(((long) MAGIC << 32 | VERSION) ^ entries ^ Long.rotateLeft(fingerprint, 17));
+    }
+
+    // 64-bit finaliser (MurmurHash3) of the data word, salted so that zero does not map to zero
+    static long check(long data) {
+        long h = data ^ 0x6A09_E667_F3BC_C908L;
+        h ^= h >>> 33;
+        h *= 0xFF51_AFD7_ED55_8CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CE_B9FE_1A85_EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,45 @@
+package brique.bot;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Stop signal and budget shared by all threads of one search.
+final class SearchControl {
+
+    private final long deadlineNanos;
+    private final long maxNodes;
+    private final AtomicLong nodes = new AtomicLong();
+    private volatile boolean stopped;
+
+    SearchControl(SearchLimits limits, long startNanos) {
+        this.deadlineNanos = limits.timeMillis() > 0
+            ? startNanos + limits.timeMillis() * 1_000_000L
+            : Long.MAX_VALUE;
+        this.maxNodes = limits.maxNodes() > 0 ? limits.maxNodes() : Long.MAX_VALUE;
+    }
+
+    // A slice of a longer search: stop at the deadline or after maxNodes more nodes
+    SearchControl(long deadlineNanos, long maxNodes) {
+        this.deadlineNanos = deadlineNanos;
+        this.maxNodes = maxNodes;
+    }
+
+    // Called by workers every few thousand nodes with the nodes searched since their last report.
+    void report(long newNodes) {
+        long total = nodes.addAndGet(newNodes);
+        if (total >= maxNodes || System.nanoTime() >= deadlineNanos) {
+            stopped = true;
+        }
+    }
+
+    void stop() {
+        stopped = true;
+    }
+
+    boolean isStopped() {
+        return stopped;
+    }
+
+    long nodes() {
+        return nodes.get();
+    }
+}
@@ -0,0 +1,20 @@
+package brique.bot;
+
+// Limits of a single search. A value of 0 means "no limit" for that dimension;
+// at least one of depth or time should be set.
+public record SearchLimits(int maxDepth, long timeMillis, long maxNodes) {
+
+    public SearchLimits {
+        if (maxDepth < 0 || timeMillis < 0 || maxNodes < 0) {
+            throw new IllegalArgumentException("Search limits cannot be negative");
+        }
+    }
+
+    public static SearchLimits depth(int maxDepth) {
+        return new SearchLimits(maxDepth, 0, 0);
+    }
+
+    public static SearchLimits time(long timeMillis) {
+        return new SearchLimits(0, timeMillis, 0);
+    }
+}
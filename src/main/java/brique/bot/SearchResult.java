@@ -0,0 +1,9 @@
+package brique.bot;
+
+// Outcome of a search: the chosen action with its score and the work it took.
+public record SearchResult(BotAction action, int score, int depth, long nodes, long elapsedNanos) {
+
+    public long nodesPerSecond() {
+        return elapsedNanos == 0 ? 0 : nodes * 1_000_000_000L / elapsedNanos;
+    }
+}
@@ -0,0 +1,360 @@
+package brique.bot;
+
+import brique.core.GameState;
+import brique.core.Move;
+import brique.core.MoveExecutor;
+import brique.core.Position;
+import brique.core.Stone;
+import brique.core.ZobristHash;
+import brique.rules.GameRules;
+
+// One alpha-beta searcher: negamax with iterative deepening over its own copy of the game.
+// Moves are made and unmade in place through MoveExecutor / GameState.undoLastMove(),
+// and the position hash (and an IncrementalEvaluator) is updated from what each Move records.
+// Several workers searching the same root and sharing one TranspositionTable form Lazy SMP.
+final class SearchWorker {
+
+    static final int INFINITY = 32_000;
+    static final int WIN = 30_000;
+
+    private static final int CHECK_INTERVAL = 2048;
+    // Slices are a few milliseconds long, so they look at the clock more often
+    private static final int SLICE_CHECK_INTERVAL = 128;
+
+    private final int id;
+    private final GameState state;
+    private final GameRules rules;
+    private final TranspositionTable table;
+    // Optional persistent results, consulted when the table has nothing for a deep node
+    private final SearchCache cache;
+    private final Evaluator evaluator;
+    // The evaluator again when it follows moves incrementally, otherwise null
+    private final IncrementalEvaluator incremental;
+    // Replaced for every slice when a BotScheduler runs the search in steps
+    private SearchControl control;
+    private final int size;
+    private final int swapCode;
+    private final int[] staticOrder;
+    private final int[][] moveStack;
+
+    private long boardHash;
+    private long nodes;
+    private long unreportedNodes;
+
+    // Best result of the deepest fully completed iteration
+    private int bestCode = TranspositionTable.NO_MOVE;
+    private int bestScore;
+    private int completedDepth;
+    private boolean proven;
+    private int checkInterval = CHECK_INTERVAL;
+
+    SearchWorker(int id, GameState state, GameRules rules, TranspositionTable table, SearchCache cache,
+                 Evaluator evaluator, SearchControl control) {
+        this.id = id;
+        this.state = state;
+        this.rules = rules;
+        this.table = table;
+        this.cache = cache;
+        this.evaluator = evaluator;
+        this.incremental = evaluator instanceof IncrementalEvaluator inc ? inc : null;
+        this.control = control;
+        this.size = state.getBoard().getSize();
+        this.swapCode = size * size;
+        this.staticOrder = centreFirstOrder(size);
+        this.moveStack = new int[size * size + 2][size * size + 1];
+        this.boardHash = ZobristHash.boardHash(state.getBoard());
+        if (incremental != null) {
+            incremental.reset(state);
+        }
+    }
+
+    // Iterative deepening up to maxDepth (0 = until stopped). Odd helpers run one ply
+    // deeper than the main thread so the threads spread over neighbouring depths.
+    void run(int maxDepth) {
+        int limit = maxDepth > 0 ? maxDepth : moveStack.length - 1;
+        int offset = id % 2;
+
+        for (int depth = 1 + offset; depth <= limit; depth++) {
+            int score = searchRoot(depth);
+            if (control.isStopped() && completedDepth > 0) {
+                break;
+            }
+            completedDepth = depth;
+            bestScore = score;
+
+            // A proven result cannot change with more depth
+            if (isProven(score)) {
+                break;
+            }
+        }
+        flushNodes();
+    }
+
+    // One iteration, one ply deeper than the last completed one, under the given control.
+    // Returns false when the control stopped it; the next call then retries that depth,
+    // mostly from the transposition table. The first iteration always completes.
+    boolean step(SearchControl sliceControl) {
+        control = sliceControl;
+        checkInterval = SLICE_CHECK_INTERVAL;
+        int depth = completedDepth + 1;
+        int score = searchRoot(depth);
+        flushNodes();
+        if (control.isStopped() && completedDepth > 0) {
+            return false;
+        }
+        completedDepth = depth;
+        bestScore = score;
+        proven = isProven(score);
+        return true;
+    }
+
+    // Whether deeper iterations cannot change the result (a proven score or maxDepth reached)
+    boolean isFinished(int maxDepth) {
+        int limit = maxDepth > 0 ? maxDepth : moveStack.length - 1;
+        return proven || completedDepth >= limit;
+    }
+
+    private boolean isProven(int score) {
+        return Math.abs(score) >= WIN - moveStack.length;
+    }
+
+    private void flushNodes() {
+        nodes += unreportedNodes;
+        control.report(unreportedNodes);
+        unreportedNodes = 0;
+    }
+
+    private int searchRoot(int depth) {
+        int alpha = -INFINITY;
+        int beta = INFINITY;
+        long entry = probe(key(), depth);
+        int ttMove = entry != 0 ? TranspositionTable.move(entry) : TranspositionTable.NO_MOVE;
+        int count = generate(0, bestCode != TranspositionTable.NO_MOVE ? bestCode : ttMove);
+
+        int iterationBest = TranspositionTable.NO_MOVE;
+        int best = -INFINITY;
+        for (int i = 0; i < count; i++) {
+            int code = moveStack[0][i];
+            int score = searchChild(code, depth, alpha, beta, 0);
+
+            // The first iteration always completes so there is a move to play
+            if (control.isStopped() && completedDepth > 0) {
+                return best;
+            }
+            if (score > best) {
+                best = score;
+                iterationBest = code;
+            }
+            if (score > alpha) {
+                alpha = score;
+            }
+        }
+
+        bestCode = iterationBest;
+        if (iterationBest != TranspositionTable.NO_MOVE) {
+            store(key(), iterationBest, toTable(best, 0), depth, TranspositionTable.BOUND_EXACT);
+        }
+        return best;
+    }
+
+    private int negamax(int depth, int alpha, int beta, int ply) {
+        if (++unreportedNodes >= checkInterval) {
+            nodes += unreportedNodes;
+            control.report(unreportedNodes);
+            unreportedNodes = 0;
+        }
+        if (control.isStopped() && completedDepth > 0) {
+            return 0;
+        }
+
+        long key = key();
+        long entry = probe(key, depth);
+        int ttMove = TranspositionTable.NO_MOVE;
+        if (entry != 0) {
+            ttMove = TranspositionTable.move(entry);
+            if (TranspositionTable.depth(entry) >= depth) {
+                int score = fromTable(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.BOUND_EXACT
+                        || (bound == TranspositionTable.BOUND_LOWER && score >= beta)
+                        || (bound == TranspositionTable.BOUND_UPPER && score <= alpha)) {
+                    return score;
+                }
+            }
+        }
+
+        if (depth <= 0) {
+            return evaluator.evaluate(state);
+        }
+
+        int count = generate(ply, ttMove);
+        if (count == 0) {
+            return 0; // full board without a connection
+        }
+
+        int alphaOrig = alpha;
+        int best = -INFINITY;
+        int bestMove = TranspositionTable.NO_MOVE;
+        for (int i = 0; i < count; i++) {
+            int code = moveStack[ply][i];
+            int score = searchChild(code, depth, alpha, beta, ply);
+            if (control.isStopped() && completedDepth > 0) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                bestMove = code;
+            }
+            if (score > alpha) {
+                alpha = score;
+                if (alpha >= beta) {
+                    break;
+                }
+            }
+        }
+
+        int bound = best <= alphaOrig ? TranspositionTable.BOUND_UPPER
+                  : best >= beta ? TranspositionTable.BOUND_LOWER
+                  : TranspositionTable.BOUND_EXACT;
+        store(key, bestMove, toTable(best, ply), depth, bound);
+        return best;
+    }
+
+    // Makes the move (or the swap), searches the reply and takes it back.
+    // Returns the score from the point of view of the player making the move.
+    private int searchChild(int code, int depth, int alpha, int beta, int ply) {
+        if (code == swapCode) {
+            Position first = state.getMoveHistory().get(0).getPosition();
+            state.applyPieRule();
+            boardHash ^= ZobristHash.pieDelta(first);
+            if (incremental != null) {
+                incremental.swapMade(first);
+            }
+            int score = -negamax(depth - 1, -beta, -alpha, ply + 1);
+            state.undoPieRule();
+            boardHash ^= ZobristHash.pieDelta(first);
+            if (incremental != null) {
+                incremental.swapUndone(first);
+            }
+            return score;
+        }
+
+        Move move = MoveExecutor.play(state, rules, Position.of(code / size, code % size));
+        long delta = ZobristHash.moveDelta(move);
+        boardHash ^= delta;
+        if (incremental != null) {
+            incremental.moveMade(move);
+        }
+        int score = state.isInProgress()
+            ? -negamax(depth - 1, -beta, -alpha, ply + 1)
+            : WIN - (ply + 1);
+        state.undoLastMove();
+        boardHash ^= delta;
+        if (incremental != null) {
+            incremental.moveUndone(move);
+        }
+        return score;
+    }
+
+    // Fills moveStack[ply] with the legal moves, hash move first, then centre-out.
+    private int generate(int ply, int firstCode) {
+        int[] moves = moveStack[ply];
+        int count = 0;
+        boolean canSwap = state.isPieRuleAvailable() && state.getCurrentPlayer() == Stone.WHITE
+            && !state.getMoveHistory().isEmpty();
+
+        if (firstCode == swapCode ? canSwap : isEmptyCell(firstCode)) {
+            moves[count++] = firstCode;
+        }
+        for (int cell : staticOrder) {
+            if (cell != firstCode && isEmptyCell(cell)) {
+                moves[count++] = cell;
+            }
+        }
+        if (canSwap && firstCode != swapCode) {
+            moves[count++] = swapCode;
+        }
+        return count;
+    }
+
+    private boolean isEmptyCell(int code) {
+        return code >= 0 && code < swapCode
+            && state.getBoard().getStone(Position.of(code / size, code % size)) == Stone.EMPTY;
+    }
+
+    // The transposition table, or the persistent cache when it knows a deep node better
+    // (earlier iterations leave shallow table entries for the very nodes it stored)
+    private long probe(long key, int depth) {
+        long entry = table.probe(key);
+        if (cache != null && depth >= SearchCache.MIN_DEPTH
+                && (entry == 0 || TranspositionTable.depth(entry) < depth)) {
+            long cached = cache.probe(key);
+            if (cached != 0 && (entry == 0 || TranspositionTable.depth(cached) > TranspositionTable.depth(entry))) {
+                return cached;
+            }
+        }
+        return entry;
+    }
+
+    private void store(long key, int move, int score, int depth, int bound) {
+        table.store(key, move, score, depth, bound);
+        if (cache != null && depth >= SearchCache.MIN_DEPTH) {
+            cache.store(key, move, score, depth, bound);
+        }
+    }
+
+    private long key() {
+        return boardHash ^ ZobristHash.turnKey(state);
+    }
+
+    // Win scores are stored relative to the node so they stay valid at any ply.
+    private int toTable(int score, int ply) {
+        if (score >= WIN - moveStack.length) return score + ply;
+        if (score <= -WIN + moveStack.length) return score - ply;
+        return score;
+    }
+
+    private int fromTable(int score, int ply) {
+        if (score >= WIN - moveStack.length) return score - ply;
+        if (score <= -WIN + moveStack.length) return score + ply;
+        return score;
+    }
+
+    private static int[] centreFirstOrder(int size) {
+        Integer[] cells = new Integer[size * size];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = i;
+        }
+        double centre = (size - 1) / 2.0;
+        java.util.Arrays.sort(cells, java.util.Comparator.comparingDouble(
+            c -> Math.abs(c / size - centre) + Math.abs(c % size - centre)));
+        int[] order = new int[cells.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = cells[i];
+        }
+        return order;
+    }
+
+    // --- Results ------------------------------------------------
+
+    BotAction bestAction() {
+        if (bestCode == TranspositionTable.NO_MOVE) {
+            return null;
+        }
+        return bestCode == swapCode
+            ? BotAction.swap()
+            : BotAction.place(Position.of(bestCode / size, bestCode % size));
+    }
+
+    int bestScore() {
+        return bestScore;
+    }
+
+    int completedDepth() {
+        return completedDepth;
+    }
+
+    long nodes() {
+        return nodes + unreportedNodes;
+    }
+}
@@ -0,0 +1,113 @@
+package brique.bot;
+
+import brique.core.Board;
+import brique.core.GameState;
+import brique.core.Position;
+import brique.core.Stone;
+
+// Connection-distance evaluation: how many empty cells each player still needs
+// to link their two edges, computed with a 0-1 BFS (own stones cost 0, empty cells 1,
+// opponent stones block). The score is the opponent's distance minus our own.
+public class ShortestPathEvaluator implements Evaluator {
+
+    private static final int SCALE = 100;
+    private static final int BLOCKED = Integer.MAX_VALUE / 2;
+    private static final int[] ROW_STEP = {-1, 1, 0, 0};
+    private static final int[] COL_STEP = {0, 0, -1, 1};
+
+    // Scratch buffers reused across calls (one evaluator per search thread)
+    private int[] dist = new int[0];
+    private int[] deque = new int[0];
+
+    @Override
+    public int evaluate(GameState state) {
+        Board board = state.getBoard();
+        Stone me = state.getCurrentPlayer();
+
+        int mine = distance(board, me);
+        int theirs = distance(board, me.opposite());
+
+        // A fully blocked side counts as one more than the longest possible path
+        int cap = board.getSize() * board.getSize() + 1;
+        return (Math.min(theirs, cap) - Math.min(mine, cap)) * SCALE;
+    }
+
+    // Minimum number of empty cells the player must still fill to connect their edges.
+    int distance(Board board, Stone player) {
+        int size = board.getSize();
+        int cells = size * size;
+        ensureCapacity(cells);
+        java.util.Arrays.fill(dist, 0, cells, BLOCKED);
+
+        // Ring-buffer deque: 0-cost steps are pushed at the front, 1-cost steps at the back
+        int capacity = deque.length;
+        int head = 0;
+        int count = 0;
+
+        // Seed from the start edge (top row for Black, left column for White)
+        for (int i = 0; i < size; i++) {
+            int cell = player == Stone.BLACK ? i : i * size;
+            int cost = cost(board, cell, size, player);
+            if (cost < BLOCKED) {
+                dist[cell] = cost;
+                deque[(head + count++) % capacity] = cell;
+            }
+        }
+
+        while (count > 0) {
+            int cell = deque[head];
+            head = (head + 1) % capacity;
+            count--;
+
+            int d = dist[cell];
+            int row = cell / size;
+            int col = cell % size;
+
+            // Cells leave the deque in distance order, so the first goal cell is the answer
+            if (isGoal(row, col, size, player)) {
+                return d;
+            }
+
+            for (int k = 0; k < 4; k++) {
+                int nr = row + ROW_STEP[k];
+                int nc = col + COL_STEP[k];
+                if (nr < 0 || nr >= size || nc < 0 || nc >= size) {
+                    continue;
+                }
+                int next = nr * size + nc;
+                int cost = cost(board, next, size, player);
+                if (cost < BLOCKED && d + cost < dist[next]) {
+                    dist[next] = d + cost;
+                    if (cost == 0) {
+                        head = (head - 1 + capacity) % capacity;
+                        deque[head] = next;
+                    } else {
+                        deque[(head + count) % capacity] = next;
+                    }
+                    count++;
+                }
+            }
+        }
+        return BLOCKED;
+    }
+
+    private static int cost(Board board, int cell, int size, Stone player) {
+        Stone stone = board.getStone(Position.of(cell / size, cell % size));
+        if (stone == player) {
+            return 0;
+        }
+        return stone == Stone.EMPTY ? 1 : BLOCKED;
+    }
+
+    private static boolean isGoal(int row, int col, int size, Stone player) {
+        return player == Stone.BLACK ? row == size - 1 : col == size - 1;
+    }
+
+    private void ensureCapacity(int cells) {
+        if (dist.length < cells) {
+            dist = new int[cells];
+            // 0-1 BFS queues a cell at most twice, so this never wraps onto live entries
+            deque = new int[cells * 4];
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package brique.bot;
+
+// Callback for SpsaTuner, called at every checkpoint: iterations finished (each one a pair
+// of games), the parameters reached so far, and games played per hour in this run.
+@FunctionalInterface
+public interface SpsaProgress {
+
+    void onProgress(int iterations, BotConfig current, double gamesPerHour);
+}
@@ -0,0 +1,268 @@
+package brique.bot;
+
+import brique.core.GameState;
+import brique.core.MoveExecutor;
+import brique.core.Position;
+import brique.core.Stone;
+import brique.rules.GameRules;
+import brique.rules.RuleType;
+import brique.rules.RulesFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+// Tunes bot parameters by SPSA (simultaneous perturbation stochastic approximation) over
+// self-play. Each iteration moves every parameter by +c or -c at random, plays the bot with
+// the + values against the bot with the - values twice (colours swapped) and moves every
+// parameter towards the side that scored better, in proportion to its own perturbation.
+// One pair of games thus estimates the gradient in all parameters at once. The step a and
+// the perturbation c shrink as a / (A + k + 1)^0.602 and c / (k + 1)^0.101 (Spall's
+// exponents), with A a tenth of the iterations.
+// Iterations run on all threads at once, each one on the latest parameters (the updates
+// are small, so a few stale ones do no harm), which keeps the threads busy with games and
+// scales throughput with cores. At every checkpoint the parameters and iteration count are
+// written to a BotConfig file; tuning again with the same file resumes from there.
+public final class SpsaTuner {
+
+    // Key of the finished iteration count in checkpoint files
+    public static final String ITERATIONS_KEY = "spsa.iterations";
+
+    private static final double ALPHA = 0.602;
+    private static final double GAMMA = 0.101;
+
+    private final int size;
+    private final BotConfig base;
+    private final List<TunableParameter> parameters;
+    private final SearchLimits limits;
+
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int iterations = 1_000;
+    private double learningRate = 0.1;
+    private long seed = 1;
+    private Path checkpoint;
+    private int checkpointInterval = 50;
+    private SpsaProgress progress;
+
+    // Shared by the workers, guarded by this
+    private double[] theta;
+    private int nextIteration;
+    private int finished;
+    private int finishedAtStart;
+    private long startNanos;
+
+    // Bots are built from base with the tuned values set, and search with the given limits
+    public SpsaTuner(int size, BotConfig base, List<TunableParameter> parameters, SearchLimits limits) {
+        if (parameters.isEmpty()) {
+            throw new IllegalArgumentException("Nothing to tune");
+        }
+        this.size = size;
+        this.base = new BotConfig(base);
+        this.parameters = List.copyOf(parameters);
+        this.limits = limits;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    // Total iterations of the run, counting those of the checkpoint it resumes
+    public void setIterations(int iterations) {
+        this.iterations = Math.max(1, iterations);
+    }
+
+    // a: a decisive pair moves a parameter by about 2a times its perturbation at first
+    public void setLearningRate(double learningRate) {
+        if (!(learningRate > 0)) {
+            throw new IllegalArgumentException("Learning rate must be positive: " + learningRate);
+        }
+        this.learningRate = learningRate;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    // Read at the start when it exists, written every interval iterations and at the end
+    public void setCheckpoint(Path file, int interval) {
+        this.checkpoint = file;
+        this.checkpointInterval = Math.max(1, interval);
+    }
+
+    public void setProgress(SpsaProgress progress) {
+        this.progress = progress;
+    }
+
+    public BotConfig tune() throws IOException, InterruptedException {
+        theta = new double[parameters.size()];
+        for (int i = 0; i < theta.length; i++) {
+            theta[i] = parameters.get(i).start();
+        }
+        finished = 0;
+        if (checkpoint != null && Files.exists(checkpoint)) {
+            BotConfig saved = BotConfig.load(checkpoint);
+            for (int i = 0; i < theta.length; i++) {
+                TunableParameter parameter = parameters.get(i);
+                theta[i] = parameter.clamp(saved.getDouble(parameter.key(), theta[i]));
+            }
+            finished = (int) saved.getDouble(ITERATIONS_KEY, 0);
+        }
+        nextIteration = finished;
+        finishedAtStart = finished;
+        startNanos = System.nanoTime();
+
+        Thread[] workers = new Thread[threads];
+        Throwable[] failure = new Throwable[1];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                try {
+                    work();
+                } catch (RuntimeException | Error e) {
+                    synchronized (this) {
+                        failure[0] = e;
+                        nextIteration = Integer.MAX_VALUE;
+                    }
+                }
+            }, "brique-spsa-" + t);
+            workers[t].setDaemon(true);
+            workers[t].start();
+        }
+        try {
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        } catch (InterruptedException e) {
+            synchronized (this) {
+                nextIteration = Integer.MAX_VALUE;
+            }
+            throw e;
+        }
+        if (failure[0] instanceof UncheckedIOException io) {
+            throw io.getCause();
+        }
+        if (failure[0] instanceof RuntimeException runtime) {
+            throw runtime;
+        }
+        if (failure[0] instanceof Error error) {
+            throw error;
+        }
+
+        BotConfig result = current();
+        if (checkpoint != null) {
+            result.save(checkpoint);
+        }
+        return result;
+    }
+
+    private void work() {
+        double[] plus = new double[theta.length];
+        double[] minus = new double[theta.length];
+        int[] delta = new int[theta.length];
+        while (true) {
+            int k;
+            synchronized (this) {
+                if (nextIteration >= iterations) {
+                    return;
+                }
+                k = nextIteration++;
+                System.arraycopy(theta, 0, plus, 0, theta.length);
+            }
+            Random random = new Random(seed * 1_000_003 + k);
+            double shrink = Math.pow(k + 1, GAMMA);
+            for (int i = 0; i < delta.length; i++) {
+                TunableParameter parameter = parameters.get(i);
+                delta[i] = random.nextBoolean() ? 1 : -1;
+                double c = parameter.perturbation() / shrink;
+                minus[i] = parameter.clamp(plus[i] - c * delta[i]);
+                plus[i] = parameter.clamp(plus[i] + c * delta[i]);
+            }
+
+            // Each side's score over the pair minus the other's, in [-2, 2]
+            double result = 0;
+            for (int game = 0; game < 2; game++) {
+                boolean plusBlack = game == 0;
+                Bot plusBot = bot(plus, new Random(random.nextLong()));
+                Bot minusBot = bot(minus, new Random(random.nextLong()));
+                Stone winner = play(plusBlack ? plusBot : minusBot, plusBlack ? minusBot : plusBot);
+                if (winner != null) {
+                    result += (winner == Stone.BLACK) == plusBlack ? 1 : -1;
+                }
+            }
+
+            double stability = iterations / 10.0;
+            double a = learningRate * Math.pow((stability + 1) / (stability + k + 1), ALPHA);
+            synchronized (this) {
+                for (int i = 0; i < theta.length; i++) {
+                    TunableParameter parameter = parameters.get(i);
+                    double c = parameter.perturbation() / shrink;
+                    theta[i] = parameter.clamp(theta[i] + a * c * result * delta[i]);
+                }
+                finished++;
+                if (finished % checkpointInterval == 0 && finished < iterations) {
+                    checkpoint();
+                }
+            }
+        }
+    }
+
+    // Called with the lock held
+    private void checkpoint() {
+        BotConfig config = current();
+        if (checkpoint != null) {
+            try {
+                config.save(checkpoint);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        if (progress != null) {
+            double hours = (System.nanoTime() - startNanos) / 3.6e12;
+            progress.onProgress(finished, config, 2 * (finished - finishedAtStart) / hours);
+        }
+    }
+
+    private synchronized BotConfig current() {
+        BotConfig config = new BotConfig(base);
+        for (int i = 0; i < theta.length; i++) {
+            config.set(parameters.get(i).key(), theta[i]);
+        }
+        config.set(ITERATIONS_KEY, Integer.toString(finished));
+        return config;
+    }
+
+    private Bot bot(double[] values, Random random) {
+        BotConfig config = new BotConfig(base);
+        for (int i = 0; i < values.length; i++) {
+            config.set(parameters.get(i).key(), values[i]);
+        }
+        return config.createBot(limits, random);
+    }
+
+    // Winner of one game from the empty board, or null when it fills up without a connection
+    private Stone play(Bot black, Bot white) {
+        GameRules rules = RulesFactory.createRules(RuleType.STANDARD);
+        GameState state = new GameState(size);
+        while (state.isInProgress() && hasEmptyCell(state)) {
+            BotAction action = (state.getCurrentPlayer() == Stone.BLACK ? black : white).chooseAction(state);
+            if (action.isSwap()) {
+                state.applyPieRule();
+            } else {
+                MoveExecutor.play(state, rules, action.position());
+            }
+        }
+        return state.getWinner();
+    }
+
+    private static boolean hasEmptyCell(GameState state) {
+        int n = state.getBoard().getSize();
+        for (int cell = 0; cell < n * n; cell++) {
+            if (state.getBoard().getStone(Position.of(cell / n, cell % n)) == Stone.EMPTY) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
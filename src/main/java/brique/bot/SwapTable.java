@@ -0,0 +1,164 @@
+package brique.bot;
+
+import brique.core.GameState;
+import brique.core.Position;
+import brique.core.Stone;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+// Pie-rule table: for each board size, Black's estimated winning rate after each possible
+// first move when White does not swap (written by SwapTableGenerator). White swaps exactly
+// when that rate is above one half, and Black's best opening is the move whose rate is
+// closest to one half, because White takes whichever side of it is better. Both answers
+// are precomputed, so the bot engine decides them with a single array lookup.
+// File format: magic, version, number of sizes, then per size the size and one byte per
+// cell holding the rate scaled to 0..255.
+public final class SwapTable {
+
+    public static final String DEFAULT_RESOURCE = "/brique/bot/swap-table.bin";
+
+    private static final int MAGIC = 0x42525357; // "BRSW"
+    private static final int VERSION = 1;
+    private static final int MAX_SIZE = 64;
+    private static final int SCALE = 255;
+
+    // Indexed by board size; null when the size is not covered
+    private final byte[][] rates = new byte[MAX_SIZE + 1][];
+    private final Position[] bestOpening = new Position[MAX_SIZE + 1];
+
+    public boolean covers(int size) {
+        return size > 0 && size <= MAX_SIZE && rates[size] != null;
+    }
+
+    // Stores the rates of one size, indexed by cell (row * size + col).
+    public void put(int size, double[] blackWinRates) {
+        if (size < 1 || size > MAX_SIZE || blackWinRates.length != size * size) {
+            throw new IllegalArgumentException("Need " + size * size + " rates for a " + size + "x" + size + " board");
+        }
+        byte[] quantised = new byte[blackWinRates.length];
+        for (int cell = 0; cell < quantised.length; cell++) {
+            double rate = Math.max(0, Math.min(1, blackWinRates[cell]));
+            quantised[cell] = (byte) Math.round(rate * SCALE);
+        }
+        store(size, quantised);
+    }
+
+    public double blackWinRate(int size, Position firstMove) {
+        checkCovered(size);
+        return (rates[size][firstMove.row() * size + firstMove.col()] & 0xFF) / (double) SCALE;
+    }
+
+    public boolean isSwapWorthy(int size, Position firstMove) {
+        checkCovered(size);
+        return (rates[size][firstMove.row() * size + firstMove.col()] & 0xFF) * 2 > SCALE;
+    }
+
+    // White's decision on her first turn; false when swapping is not possible.
+    public boolean shouldSwap(GameState state) {
+        int size = state.getBoard().getSize();
+        return state.isInProgress() && state.isPieRuleAvailable() && state.getCurrentPlayer() == Stone.WHITE
+            && state.getMoveHistory().size() == 1 && covers(size)
+            && isSwapWorthy(size, state.getMoveHistory().get(0).getPosition());
+    }
+
+    public Position bestOpening(int size) {
+        checkCovered(size);
+        return bestOpening[size];
+    }
+
+    // First moves White should swap, e.g. for shading them on the board.
+    public Set<Position> swapWorthyMoves(int size) {
+        checkCovered(size);
+        Set<Position> moves = new LinkedHashSet<>();
+        for (int cell = 0; cell < size * size; cell++) {
+            Position pos = Position.of(cell / size, cell % size);
+            if (isSwapWorthy(size, pos)) {
+                moves.add(pos);
+            }
+        }
+        return moves;
+    }
+
+    public void write(OutputStream stream) throws IOException {
+        DataOutputStream out = new DataOutputStream(stream);
+        int sizes = 0;
+        for (byte[] table : rates) {
+            if (table != null) sizes++;
+        }
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(sizes);
+        for (int size = 1; size <= MAX_SIZE; size++) {
+            if (rates[size] != null) {
+                out.writeInt(size);
+                out.write(rates[size]);
+            }
+        }
+        out.flush();
+    }
+
+    public void save(Path path) throws IOException {
+        try (OutputStream out = Files.newOutputStream(path)) {
+            write(out);
+        }
+    }
+
+    public static SwapTable read(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(stream);
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            throw new IOException("Not a version " + VERSION + " swap table");
+        }
+        SwapTable table = new SwapTable();
+        int sizes = in.readInt();
+        for (int i = 0; i < sizes; i++) {
+            int size = in.readInt();
+            if (size < 1 || size > MAX_SIZE) {
+                throw new IOException("Invalid board size in swap table: " + size);
+            }
+            byte[] quantised = new byte[size * size];
+            in.readFully(quantised);
+            table.store(size, quantised);
+        }
+        return table;
+    }
+
+    public static SwapTable load(Path path) throws IOException {
+        try (InputStream in = Files.newInputStream(path)) {
+            return read(in);
+        }
+    }
+
+    // The table bundled with the game, or an empty one when it is missing or unreadable.
+    public static SwapTable loadDefault() {
+        try (InputStream in = SwapTable.class.getResourceAsStream(DEFAULT_RESOURCE)) {
+            return in == null ? new SwapTable() : read(in);
+        } catch (IOException e) {
+            return new SwapTable();
+        }
+    }
+
+    private void store(int size, byte[] quantised) {
+        rates[size] = quantised;
+        int best = 0;
+        for (int cell = 1; cell < quantised.length; cell++) {
+            if (Math.abs(2 * (quantised[cell] & 0xFF) - SCALE) < Math.abs(2 * (quantised[best] & 0xFF) - SCALE)) {
+                best = cell;
+            }
+        }
+        bestOpening[size] = Position.of(best / size, best % size);
+    }
+
+    private void checkCovered(int size) {
+        if (!covers(size)) {
+            throw new IllegalArgumentException("No swap table for " + size + "x" + size + " boards");
+        }
+    }
+}
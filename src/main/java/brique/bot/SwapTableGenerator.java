@@ -0,0 +1,130 @@
+package brique.bot;
+
+import brique.core.GameState;
+import brique.core.MoveExecutor;
+import brique.core.Position;
+import brique.core.Stone;
+import brique.rules.GameRules;
+import brique.rules.RuleType;
+import brique.rules.RulesFactory;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// Estimates Black's winning rate after every first move, for a SwapTable.
+// Each first move gets the same number of playouts from the position where White has
+// declined the swap; the first moves are shared out over threads. Playouts are uniformly
+// random unless a policy bot is given (slower, but closer to real play).
+public final class SwapTableGenerator {
+
+    private final int playouts;
+    private final GameRules rules;
+
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private Supplier<Bot> policy;
+    private long seed = 1;
+
+    public SwapTableGenerator(int playouts) {
+        if (playouts < 1) {
+            throw new IllegalArgumentException("Need at least one playout per move: " + playouts);
+        }
+        this.playouts = playouts;
+        this.rules = RulesFactory.createRules(RuleType.STANDARD);
+    }
+
+    public void setThreads(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    // Bot playing both sides of every playout; one instance per thread.
+    public void setPolicy(Supplier<Bot> policy) {
+        this.policy = policy;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    public SwapTable generate(int... sizes) throws InterruptedException {
+        SwapTable table = new SwapTable();
+        for (int size : sizes) {
+            table.put(size, winRates(size));
+        }
+        return table;
+    }
+
+    // Black's winning rate for each first move (indexed row * size + col).
+    public double[] winRates(int size) throws InterruptedException {
+        double[] rates = new double[size * size];
+        AtomicInteger next = new AtomicInteger();
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            long threadSeed = seed * 31 + size * 1_000 + t;
+            workers[t] = new Thread(() -> {
+                Random random = new Random(threadSeed);
+                Bot bot = policy != null ? policy.get() : null;
+                for (int cell = next.getAndIncrement(); cell < rates.length; cell = next.getAndIncrement()) {
+                    Position first = Position.of(cell / size, cell % size);
+                    int wins = 0;
+                    for (int i = 0; i < playouts; i++) {
+                        if (playout(size, first, bot, random) == Stone.BLACK) {
+                            wins++;
+                        }
+                    }
+                    rates[cell] = (double) wins / playouts;
+                }
+            }, "brique-swap-" + t);
+            workers[t].setDaemon(true);
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return rates;
+    }
+
+    private Stone playout(int size, Position first, Bot bot, Random random) {
+        GameState state = new GameState(size);
+        MoveExecutor.play(state, rules, first);
+        state.turnOffPieRule(); // White declined the swap
+        if (!state.isInProgress()) {
+            return state.getWinner();
+        }
+
+        if (bot != null) {
+            while (state.isInProgress() && hasEmptyCell(state)) {
+                BotAction action = bot.chooseAction(state);
+                if (MoveExecutor.play(state, rules, action.position()) == null) {
+                    throw new IllegalStateException("Playout policy chose an illegal move: " + action);
+                }
+            }
+            return state.getWinner();
+        }
+
+        // Random playout: visit the cells in a random order, skipping those filled meanwhile
+        int[] order = new int[size * size];
+        for (int i = 0; i < order.length; i++) {
+            int j = random.nextInt(i + 1);
+            order[i] = order[j];
+            order[j] = i;
+        }
+        for (int i = 0; i < order.length && state.isInProgress(); i++) {
+            Position pos = Position.of(order[i] / size, order[i] % size);
+            if (state.getBoard().getStone(pos) == Stone.EMPTY) {
+                MoveExecutor.play(state, rules, pos);
+            }
+        }
+        return state.getWinner();
+    }
+
+    private static boolean hasEmptyCell(GameState state) {
+        int size = state.getBoard().getSize();
+        for (int cell = 0; cell < size * size; cell++) {
+            if (state.getBoard().getStone(Position.of(cell / size, cell % size)) == Stone.EMPTY) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
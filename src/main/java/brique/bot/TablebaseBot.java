@@ -0,0 +1,28 @@
+package brique.bot;
+
+import brique.core.GameState;
+import brique.solver.Tablebase;
+
+// Plays perfectly from a tablebase while the position is covered by it, and hands
+// every other position (other board sizes, unfinished tables) to the fallback bot.
+public class TablebaseBot implements Bot {
+
+    private final Tablebase tablebase;
+    private final Bot fallback;
+
+    public TablebaseBot(Tablebase tablebase, Bot fallback) {
+        this.tablebase = tablebase;
+        this.fallback = fallback;
+    }
+
+    @Override
+    public BotAction chooseAction(GameState state) {
+        if (tablebase.covers(state)) {
+            BotAction action = tablebase.bestAction(state);
+            if (action != null) {
+                return action;
+            }
+        }
+        return fallback.chooseAction(state);
+    }
+}
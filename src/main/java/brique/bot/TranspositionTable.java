@@ -0,0 +1,159 @@
+package brique.bot;
+
+// Lockless transposition table shared by every search thread.
+// Each entry is two longs in one flat array: (key ^ data, data). A reader recomputes
+// key ^ data and only trusts the entry when it matches the probed key, so a torn write
+// (another thread's key with this thread's data) is rejected instead of needing a lock.
+// Entries live in buckets of two: a depth-preferred slot and an always-replace slot.
+public final class TranspositionTable {
+
+    public static final int BOUND_EXACT = 0;
+    public static final int BOUND_LOWER = 1;
+    public static final int BOUND_UPPER = 2;
+
+    public static final int NO_MOVE = -1;
+
+    private static final int BYTES_PER_ENTRY = 2 * Long.BYTES;
+    private static final long VALID = 1L << 63;
+
+    // data layout: move+1 (16) | score (16) | depth (8) | bound (2) | generation (8) | valid (1)
+    private static final int SCORE_SHIFT = 16;
+    private static final int DEPTH_SHIFT = 32;
+    private static final int BOUND_SHIFT = 40;
+    private static final int GEN_SHIFT   = 42;
+
+    private final long[] table;
+    private final int bucketMask;
+    private volatile int generation;
+
+    public TranspositionTable(int sizeMb) {
+        if (sizeMb <= 0) {
+            throw new IllegalArgumentException("Transposition table size must be positive: " + sizeMb + " MB");
+        }
+
+        // Round the entry count down to a power of two so indexing is a mask
+        long entries = Long.highestOneBit(((long) sizeMb << 20) / BYTES_PER_ENTRY);
+        entries = Math.min(entries, 1L << 28);
+        this.table = new long[(int) (entries * 2)];
+        this.bucketMask = (int) (entries / 2 - 1);
+    }
+
+    public int capacity() {
+        return table.length / 2;
+    }
+
+    public int sizeMb() {
+        return (int) (((long) table.length * Long.BYTES) >> 20);
+    }
+
+    // Starts a new search: older entries become preferred victims for replacement.
+    public void newSearch() {
+        generation = (generation + 1) & 0xFF;
+    }
+
+    public void clear() {
+        java.util.Arrays.fill(table, 0L);
+        generation = 0;
+    }
+
+    // Returns the packed data stored for the key, or 0 when nothing valid is stored.
+    public long probe(long key) {
+        int base = bucketBase(key);
+        for (int slot = base; slot < base + 4; slot += 2) {
+            long data = table[slot + 1];
+            if ((table[slot] ^ data) == key && (data & VALID) != 0) {
+                return data;
+            }
+        }
+        return 0L;
+    }
+
+    public void store(long key, int move, int score, int depth, int bound) {
+        int base = bucketBase(key);
+        int gen = generation;
+        long data = pack(move, score, depth, bound, gen);
+
+        // Same position already stored: keep the deeper result unless this one is exact
+        for (int slot = base; slot < base + 4; slot += 2) {
+            long old = table[slot + 1];
+            if ((table[slot] ^ old) == key && (old & VALID) != 0) {
+                if (depth >= depth(old) || bound == BOUND_EXACT || generation(old) != gen) {
+                    write(slot, key, move == NO_MOVE ? withMove(data, move(old)) : data);
+                }
+                return;
+            }
+        }
+
+        // First slot is depth-preferred; whatever loses it moves to the always-replace slot
+        long firstKey = table[base];
+        long first = table[base + 1];
+        if ((first & VALID) == 0 || generation(first) != gen || depth >= depth(first)) {
+            if ((first & VALID) != 0) {
+                table[base + 2] = firstKey;
+                table[base + 3] = first;
+            }
+            write(base, key, data);
+        } else {
+            write(base + 2, key, data);
+        }
+    }
+
+    // Permille of the first slots written during the current search (sampled).
+    public int hashfull() {
+        int sample = Math.min(1000, capacity() / 2);
+        int used = 0;
+        for (int i = 0; i < sample; i++) {
+            long data = table[i * 4 + 1];
+            if ((data & VALID) != 0 && generation(data) == generation) {
+                used++;
+            }
+        }
+        return sample == 0 ? 0 : used * 1000 / sample;
+    }
+
+    // --- Packed data accessors ---------------------------------
+
+    public static int move(long data) {
+        return (int) (data & 0xFFFF) - 1;
+    }
+
+    public static int score(long data) {
+        return (short) (data >>> SCORE_SHIFT);
+    }
+
+    public static int depth(long data) {
+        return (int) ((data >>> DEPTH_SHIFT) & 0xFF);
+    }
+
+    public static int bound(long data) {
+        return (int) ((data >>> BOUND_SHIFT) & 0x3);
+    }
+
+    private static int generation(long data) {
+        return (int) ((data >>> GEN_SHIFT) & 0xFF);
+    }
+
+    static long pack(int move, int score, int depth, int bound, int gen) {
+        return VALID
+            | ((long) gen << GEN_SHIFT)
+            | ((long) (bound & 0x3) << BOUND_SHIFT)
+            | ((long) Math.min(depth, 0xFF) << DEPTH_SHIFT)
+            | ((long) (score & 0xFFFF) << SCORE_SHIFT)
+            | ((move + 1) & 0xFFFF);
+    }
+
+    static long withMove(long data, int move) {
+        return (data & ~0xFFFFL) | ((move + 1) & 0xFFFF);
+    }
+
+    private int bucketBase(long key) {
+        // Fold the high half in so keys from any source spread over the buckets
+        int h = (int) (key ^ (key >>> 32));
+        return (h & bucketMask) << 2;
+    }
+
+    private void write(int slot, long key, long data) {
+        table[slot] = key ^ data;
+        table[slot + 1] = data;
+    }
+}
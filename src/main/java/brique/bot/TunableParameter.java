@@ -0,0 +1,19 @@
+package brique.bot;
+
+// One BotConfig value SpsaTuner may change: where it starts, the range it is kept in and
+// how far the first iterations perturb it (later ones perturb less).
+public record TunableParameter(String key, double start, double min, double max, double perturbation) {
+
+    public TunableParameter {
+        if (!(min <= start && start <= max)) {
+            throw new IllegalArgumentException("Start of " + key + " is outside [" + min + ", " + max + "]: " + start);
+        }
+        if (!(perturbation > 0)) {
+            throw new IllegalArgumentException("Perturbation of " + key + " must be positive: " + perturbation);
+        }
+    }
+
+    double clamp(double value) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
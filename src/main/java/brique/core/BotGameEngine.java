@@ -1,24 +1,80 @@
 package brique.core;
 
+import brique.bot.AlphaBetaBot;
+import brique.bot.Bot;
+import brique.bot.BotAction;
+import brique.bot.BotConfig;
+import brique.bot.OpeningBook;
+import brique.bot.SearchCache;
+import brique.bot.SearchLimits;
+import brique.bot.SwapTable;
 import brique.rules.GameRules;
 import brique.rules.RuleType;
 import brique.rules.RulesFactory;
 
+import java.util.Random;
+
 
 public class BotGameEngine implements GameEngine {
 
+    // Thinking time per bot move when no bot is injected
+    private static final long DEFAULT_MOVE_TIME_MS = 1000;
+
     private final GameState state;
     private final GameRules rules;
     private final Stone humanPlayer;
+    private final Bot bot;
+    // Optional: while the position is in book the bot answers instantly from it
+    private final OpeningBook book;
+    // Optional: the bot's opening move and swap decision, looked up instead of searched
+    private final SwapTable swapTable;
 
     public BotGameEngine(int boardSize) {
         this(boardSize, Stone.BLACK);
     }
 
     public BotGameEngine(int boardSize, Stone humanPlayer) {
+        this(boardSize, humanPlayer, defaultBot(), null, SwapTable.loadDefault());
+    }
+
+    public BotGameEngine(int boardSize, Stone humanPlayer, Bot bot) {
+        this(boardSize, humanPlayer, bot, null, null);
+    }
+
+    public BotGameEngine(int boardSize, Stone humanPlayer, Bot bot, OpeningBook book) {
+        this(boardSize, humanPlayer, bot, book, null);
+    }
+
+    public BotGameEngine(int boardSize, Stone humanPlayer, Bot bot, OpeningBook book, SwapTable swapTable) {
         this.state = new GameState(boardSize);
         this.rules = RulesFactory.createRules(RuleType.STANDARD);
         this.humanPlayer = humanPlayer;
+        this.bot = bot;
+        this.book = book;
+        this.swapTable = swapTable;
+
+        // Black opens: if the human plays White, the bot moves first
+        if (state.getCurrentPlayer() != humanPlayer) {
+            playBotTurn();
+        }
+    }
+
+    // The bot of the default BotConfig (alpha-beta unless a tuned file says otherwise, and
+    // the default bot when the file names an unknown bot or a value it cannot use); an
+    // alpha-beta bot gets the persistent search cache when one is configured, so it keeps
+    // what earlier games taught it
+    private static Bot defaultBot() {
+        SearchLimits limits = SearchLimits.time(DEFAULT_MOVE_TIME_MS);
+        Bot bot;
+        try {
+            bot = BotConfig.loadDefault().createBot(limits, new Random());
+        } catch (IllegalArgumentException e) {
+            bot = new BotConfig().createBot(limits, new Random());
+        }
+        if (bot instanceof AlphaBetaBot alphaBeta) {
+            alphaBeta.setCache(SearchCache.openDefault(alphaBeta.getEvaluatorFingerprint()));
+        }
+        return bot;
     }
 
     @Override
@@ -28,14 +84,71 @@ public class BotGameEngine implements GameEngine {
 
     @Override
     public boolean playMove(Position position) {
-        // TODO: 1. Validate and process human move using rules
-        // TODO: 2. Check win condition after human move
-        // TODO: 3. Generate bot move using AI strategy
-        // TODO: 4. Validate and process bot move
-        // TODO: 5. Check win condition after bot move
-        throw new UnsupportedOperationException(
-            "Bot opponent is not yet implemented. "
-            + "This engine will process human moves and generate bot responses.");
+        if (!state.isInProgress()) {
+            throw new IllegalStateException("Cannot play a move after the game has ended");
+        }
+
+        // Only the human's moves go through here; the bot answers on its own
+        if (state.getCurrentPlayer() != humanPlayer) {
+            return false;
+        }
+
+        if (MoveExecutor.play(state, rules, position) == null) {
+            return false;
+        }
+
+        playBotTurn();
+        return true;
+    }
+
+    @Override
+    public void applyPieRule() {
+        state.applyPieRule();
+        playBotTurn();
+    }
+
+    // Lets the bot act for as long as it is the bot's turn in a running game
+    // (after a bot swap the human moves next, so this runs at most once per call).
+    private void playBotTurn() {
+        if (!state.isInProgress() || state.getCurrentPlayer() == humanPlayer) {
+            return;
+        }
+
+        BotAction action = tableAction();
+        // The table said not to swap: the book and the search only get to place a stone
+        GameState position = state;
+        if (action == null && tableDeclinesSwap()) {
+            position = state.copy();
+            position.turnOffPieRule();
+        }
+        if (action == null && book != null) {
+            action = book.choose(position);
+        }
+        if (action == null) {
+            action = bot.chooseAction(position);
+        }
+        if (action.isSwap()) {
+            state.applyPieRule();
+        } else if (MoveExecutor.play(state, rules, action.position()) == null) {
+            throw new IllegalStateException("Bot chose an illegal move: " + action);
+        }
+    }
+
+    // Opening move and swap decision from the swap table, or null to think normally
+    private BotAction tableAction() {
+        int size = state.getBoard().getSize();
+        if (swapTable == null || !swapTable.covers(size)) {
+            return null;
+        }
+        if (state.getMoveHistory().isEmpty()) {
+            return BotAction.place(swapTable.bestOpening(size));
+        }
+        return swapTable.shouldSwap(state) ? BotAction.swap() : null;
+    }
+
+    private boolean tableDeclinesSwap() {
+        return swapTable != null && swapTable.covers(state.getBoard().getSize()) && state.isPieRuleAvailable()
+            && state.getCurrentPlayer() == Stone.WHITE && state.getMoveHistory().size() == 1;
     }
 
     @Override
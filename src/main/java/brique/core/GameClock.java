@@ -0,0 +1,87 @@
+package brique.core;
+
+// Both players' clocks of one game under a TimeControl. Times are milliseconds on whatever
+// monotonic clock the caller reads; only the side to move has its clock running, and its
+// flag falls at deadline() unless it acts before.
+public final class GameClock {
+
+    private final TimeControl control;
+    private final long[] main = new long[2];
+    private final int[] periods = new int[2];
+    private Stone running;
+    private long since;
+
+    public GameClock(TimeControl control) {
+        this.control = control;
+        for (int i = 0; i < 2; i++) {
+            main[i] = control.mainMillis();
+            periods[i] = control.periods();
+        }
+    }
+
+    public void start(Stone side, long now) {
+        running = side;
+        since = now;
+    }
+
+    // The running side acted at now: its time is charged (and its increment added, or the
+    // byo-yomi periods it overran taken), then next's clock runs. The caller checks flagged first.
+    public void press(Stone next, long now) {
+        if (running == null) {
+            throw new IllegalStateException("The clock has not started");
+        }
+        int side = index(running);
+        long used = now - since;
+        if (used <= main[side]) {
+            main[side] += control.incrementMillis() - used;
+        } else if (control.periods() > 0) {
+            long over = used - main[side];
+            main[side] = 0;
+            periods[side] -= (int) Math.min(periods[side], over / control.periodMillis());
+        } else {
+            main[side] = 0;
+        }
+        start(next, now);
+    }
+
+    // When the running side's flag falls, Long.MAX_VALUE before start
+    public long deadline() {
+        if (running == null) {
+            return Long.MAX_VALUE;
+        }
+        int side = index(running);
+        return since + main[side] + periods[side] * control.periodMillis();
+    }
+
+    public boolean flagged(long now) {
+        return now >= deadline();
+    }
+
+    public Stone running() {
+        return running;
+    }
+
+    // Time left before the side's flag falls, byo-yomi periods included
+    public long remaining(Stone side, long now) {
+        if (side == running) {
+            return Math.max(0, deadline() - now);
+        }
+        int i = index(side);
+        return main[i] + periods[i] * control.periodMillis();
+    }
+
+    public int periodsLeft(Stone side) {
+        return periods[index(side)];
+    }
+
+    public TimeControl control() {
+        return control;
+    }
+
+    private static int index(Stone side) {
+        if (side == Stone.EMPTY) {
+            throw new IllegalArgumentException("A clock belongs to Black or White");
+        }
+        return side == Stone.BLACK ? 0 : 1;
+    }
+}
@@ -7,4 +7,9 @@ public interface GameEngine {
     boolean isGameOver();
 
     GameState getState();
+
+    // Applies the pie rule for the player to move; engines with an opponent to notify override this.
+    default void applyPieRule() {
+        getState().applyPieRule();
+    }
 }
@@ -39,6 +39,23 @@ public class GameState {
         this.moveHistory = new ArrayList<>();
     }
 
+    private GameState(GameState other) {
+
+        // Deep-copy the board so the copy can be played on independently
+        this.board = other.board.copy();
+        this.currentPlayer = other.currentPlayer;
+        this.status = other.status;
+        this.pieRuleAvailable = other.pieRuleAvailable;
+
+        // Moves are not modified once recorded, so sharing them is safe
+        this.moveHistory = new ArrayList<>(other.moveHistory);
+    }
+
+    public GameState copy() {
+
+        return new GameState(this);
+    }
+
     public void switchPlayer() {
 
         // Toggle between BLACK and WHITE
@@ -118,6 +135,45 @@ public class GameState {
         }
     }
 
+    public void undoPieRule() {
+
+        // Only the swap that was just applied can be reverted
+        if (moveHistory.size() != 1 || pieRuleAvailable || currentPlayer != Stone.BLACK) {
+            throw new IllegalStateException("Pie rule can only be undone right after it was applied");
+        }
+
+        // Give the first stone back to Black and hand the decision back to White
+        this.board.setStone(this.moveHistory.get(0).getPosition(), Stone.BLACK);
+        this.pieRuleAvailable = true;
+        this.currentPlayer = Stone.WHITE;
+    }
+
+    public Move undoLastMove() {
+
+        if (moveHistory.isEmpty()) {
+            throw new IllegalStateException("No move to undo");
+        }
+
+        Move last = moveHistory.remove(moveHistory.size() - 1);
+        Stone player = last.getStone();
+
+        // Filled cells were either empty or captured from the opponent
+        for (Position pos : last.getFilledPositions()) {
+            board.setStone(pos, last.getCapturedPositions().contains(pos) ? player.opposite() : Stone.EMPTY);
+        }
+        board.setStone(last.getPosition(), Stone.EMPTY);
+
+        // The player who made the move is to move again, and the game is open again
+        this.currentPlayer = player;
+        this.status = GameEnd.IN_PROGRESS;
+
+        // The pie rule stays available until White has either swapped or played
+        this.pieRuleAvailable = moveHistory.isEmpty()
+                || (moveHistory.size() == 1 && player == Stone.WHITE);
+
+        return last;
+    }
+
     public List<Move> getMoveHistory() {
 
         // Prevent external modification of history
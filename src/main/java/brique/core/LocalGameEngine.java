@@ -29,27 +29,7 @@ public class LocalGameEngine implements GameEngine {
             throw new IllegalStateException("Cannot play a move after the game has ended");
         }
 
-        Stone player = state.getCurrentPlayer();
-        Move move = new Move(position, player);
-
-        if (!rules.isValidMove(state, move)) {
-            return false;
-        }
-
-        rules.processMove(state, move);
-        state.recordMove(move);
-
-        if (rules.checkWinCondition(state, player)) {
-            state.declareWinner(player);
-            return true;
-        }
-
-        if (player == Stone.WHITE && state.isPieRuleAvailable()) {
-            state.turnOffPieRule();
-        }
-
-        state.switchPlayer();
-        return true;
+        return MoveExecutor.play(state, rules, position) != null;
     }
 
     @Override
@@ -0,0 +1,38 @@
+package brique.core;
+
+import brique.rules.GameRules;
+
+// Plays one complete turn on a GameState: validation, rule side effects, history,
+// win detection, pie-rule expiry and the turn switch.
+// Engines and bot searches share it so every caller follows the same sequence,
+// and GameState.undoLastMove() reverts exactly what it does.
+public final class MoveExecutor {
+
+    private MoveExecutor() { /* utility class */ }
+
+    // Returns the recorded move, or null when the move is not legal.
+    public static Move play(GameState state, GameRules rules, Position position) {
+        Stone player = state.getCurrentPlayer();
+        Move move = new Move(position, player);
+
+        if (!rules.isValidMove(state, move)) {
+            return null;
+        }
+
+        rules.processMove(state, move);
+        state.recordMove(move);
+
+        // The winner keeps the turn: nobody moves after the game has ended
+        if (rules.checkWinCondition(state, player)) {
+            state.declareWinner(player);
+            return move;
+        }
+
+        if (player == Stone.WHITE && state.isPieRuleAvailable()) {
+            state.turnOffPieRule();
+        }
+
+        state.switchPlayer();
+        return move;
+    }
+}
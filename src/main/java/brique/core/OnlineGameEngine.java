@@ -1,11 +1,110 @@
 package brique.core;
 
-public class OnlineGameEngine implements GameEngine {
+import brique.server.Protocol;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+
+// Client of a GameServer. The constructor connects and asks for a game of the board size (or
+// takes back a seat in a game the server recovered after a restart); awaitStart then waits
+// until it is paired and it is this player's turn, which can take a while, so a UI calls it
+// off its own thread. playMove and applyPieRule send
+// the action and wait for the server's verdict, then for the opponent's answer, the way
+// BotGameEngine waits for its bot. Closing the engine from another thread ends any wait. Every delta from the server is applied to the local
+// GameState as the Move it describes, so the history is the same as in a local game, and
+// checked against the server's position hash, rehashed in full so that any difference is
+// caught: on a mismatch (or a gap in the action count) the engine asks for a snapshot and
+// overwrites its board with it.
+// The server address comes from the brique.server property ("host:port"), by default
+// this machine on Protocol.DEFAULT_PORT.
+public class OnlineGameEngine implements GameEngine, Closeable {
+
+    public static final String SERVER_PROPERTY = "brique.server";
+
+    private static final int CONNECT_TIMEOUT_MILLIS = 5_000;
 
     private final GameState state;
+    private final Socket socket;
+    private final InputStream in;
+    private final OutputStream out;
+    private final ByteBuffer frame = ByteBuffer.allocate(Protocol.MAX_FRAME_BYTES);
+    private final int size;
+    // Set by awaitStart
+    private long gameId;
+    private Stone colour;
+    private long seat;
+    private boolean started;
+    private int actions;
+    // A RESYNC is on its way: deltas are ignored until the snapshot arrives
+    private boolean resyncing;
+    private int resyncs;
 
     public OnlineGameEngine(int boardSize) {
+        this(boardSize, defaultServer());
+    }
+
+    public OnlineGameEngine(int boardSize, InetSocketAddress server) {
+        this(boardSize, server, out -> Protocol.writePlay(out, boardSize));
+    }
+
+    // Back in a game the server recovered from its move log, with the seat getSeat gave
+    public OnlineGameEngine(int boardSize, InetSocketAddress server, long game, long seat) {
+        this(boardSize, server, out -> Protocol.writeResume(out, game, seat));
+    }
+
+    private OnlineGameEngine(int boardSize, InetSocketAddress server, Consumer<ByteBuffer> request) {
         this.state = new GameState(boardSize);
+        this.size = boardSize;
+        this.socket = new Socket();
+        try {
+            socket.connect(server, CONNECT_TIMEOUT_MILLIS);
+            socket.setTcpNoDelay(true);
+            this.in = new BufferedInputStream(socket.getInputStream());
+            this.out = socket.getOutputStream();
+            request.accept(frame.clear());
+            send();
+        } catch (IOException e) {
+            closeQuietly();
+            throw new UncheckedIOException("Cannot play online at " + server, e);
+        }
+    }
+
+    // Waits until the server has paired this player (or given the seat back) and it is this
+    // player's turn. A failure leaves the game aborted.
+    public void awaitStart() {
+        if (started) {
+            return;
+        }
+        try {
+            Protocol.Message reply = Protocol.read(in);
+            if (!(reply instanceof Protocol.Start start) || start.size() != size) {
+                throw new IOException("Unexpected reply: " + reply);
+            }
+            gameId = start.game();
+            colour = start.colour();
+            seat = start.seat();
+            started = true;
+            resyncing = true;
+            apply(Protocol.read(in));
+            awaitTurn();
+        } catch (IOException e) {
+            state.abort();
+            closeQuietly();
+            throw new UncheckedIOException("No game from the server", e);
+        }
+    }
+
+    public boolean isStarted() {
+        return started;
     }
 
     @Override
@@ -13,19 +112,212 @@ public class OnlineGameEngine implements GameEngine {
         return state;
     }
 
+    public Stone getColour() {
+        return colour;
+    }
+
+    public long getGameId() {
+        return gameId;
+    }
+
+    // The secret that takes this seat back after a server restart
+    public long getSeat() {
+        return seat;
+    }
+
+    // Snapshots asked for after a hash mismatch
+    public int getResyncs() {
+        return resyncs;
+    }
+
     @Override
     public boolean playMove(Position position) {
-        // TODO: 1. Serialise move and send to game server
-        // TODO: 2. Receive validated game state from server
-        // TODO: 3. Apply server state to local GameState
-        // TODO: 4. Return success/failure based on server response
-        throw new UnsupportedOperationException(
-            "Online multiplayer is not yet implemented. "
-            + "This engine will communicate with a game server to process moves.");
+        checkStarted();
+        if (!state.isInProgress()) {
+            throw new IllegalStateException("Cannot play a move after the game has ended");
+        }
+        if (state.getCurrentPlayer() != colour) {
+            return false;
+        }
+        Protocol.writeMove(frame.clear(), gameId, Protocol.cell(position, size));
+        return act();
+    }
+
+    @Override
+    public void applyPieRule() {
+        checkStarted();
+        Protocol.writeSwap(frame.clear(), gameId);
+        if (!act()) {
+            throw new IllegalStateException("The server refused the pie rule");
+        }
     }
 
     @Override
     public boolean isGameOver() {
         return !state.isInProgress();
     }
+
+    // Leaving aborts the game on the server
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+
+    private void checkStarted() {
+        if (!started) {
+            throw new IllegalStateException("Not paired with an opponent yet");
+        }
+    }
+
+    private void closeQuietly() {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // Closed either way
+        }
+    }
+
+    // Sends the encoded action; false when the server refuses it, else waits for the opponent
+    private boolean act() {
+        try {
+            send();
+            int before = actions;
+            while (actions == before && !resyncing) {
+                Protocol.Message message = Protocol.read(in);
+                if (message instanceof Protocol.Error error && error.game() == gameId) {
+                    return false;
+                }
+                apply(message);
+            }
+            awaitTurn();
+            return true;
+        } catch (IOException e) {
+            state.abort();
+            throw new UncheckedIOException("Connection to the game server lost", e);
+        }
+    }
+
+    private void awaitTurn() throws IOException {
+        while (resyncing || state.isInProgress() && state.getCurrentPlayer() != colour) {
+            apply(Protocol.read(in));
+        }
+    }
+
+    private void apply(Protocol.Message message) throws IOException {
+        if (message instanceof Protocol.Snapshot snapshot && snapshot.game() == gameId) {
+            restore(snapshot);
+        } else if (message instanceof Protocol.Delta delta && delta.game() == gameId && !resyncing) {
+            if (!applied(delta) || ZobristHash.of(state) != delta.hash()) {
+                actions = delta.actions();
+                resync();
+            }
+        } else if (message instanceof Protocol.Error error && error.game() == gameId && resyncing) {
+            // The game ended on the server before it could send the snapshot: the result is lost
+            resyncing = false;
+            if (state.isInProgress()) {
+                state.abort();
+            }
+        }
+    }
+
+    // Plays the delta on the local state; false when it does not follow from it
+    private boolean applied(Protocol.Delta delta) {
+        if (delta.change() == Protocol.Change.STATUS) {
+            if (delta.actions() != actions) {
+                return false;
+            }
+        } else if (delta.actions() != actions + 1 || !state.isInProgress()) {
+            return false;
+        } else if (delta.change() == Protocol.Change.SWAP) {
+            if (!state.isPieRuleAvailable() || state.getCurrentPlayer() != Stone.WHITE || state.getMoveHistory().isEmpty()) {
+                return false;
+            }
+            state.applyPieRule();
+        } else {
+            Move move = new Move(cellPosition(delta.placed()), state.getCurrentPlayer());
+            for (int cell : delta.filled()) {
+                move.addFilledPosition(cellPosition(cell));
+            }
+            for (int cell : delta.captured()) {
+                move.addCapturedPosition(cellPosition(cell));
+            }
+            if (move.getPosition() == null || move.getFilledPositions().contains(null) || move.getCapturedPositions().contains(null)) {
+                return false;
+            }
+            Board board = state.getBoard();
+            board.setStone(move.getPosition(), move.getStone());
+            for (Position pos : move.getFilledPositions()) {
+                board.setStone(pos, move.getStone());
+            }
+            state.recordMove(move);
+        }
+        actions = delta.actions();
+        follow(delta.toMove(), delta.status(), delta.pieOpen());
+        return true;
+    }
+
+    // Makes the local position the server's, which is authoritative
+    private void restore(Protocol.Snapshot snapshot) throws IOException {
+        if (snapshot.size() != size) {
+            throw new IOException("Snapshot of a " + snapshot.size() + "x" + snapshot.size() + " board");
+        }
+        Board board = state.getBoard();
+        for (int cell = 0; cell < size * size; cell++) {
+            Position pos = cellPosition(cell);
+            if (board.getStone(pos) != snapshot.cells()[cell]) {
+                board.setStone(pos, snapshot.cells()[cell]);
+            }
+        }
+        actions = snapshot.actions();
+        follow(snapshot.toMove(), snapshot.status(), snapshot.pieOpen());
+        if (ZobristHash.of(state) != snapshot.hash()) {
+            throw new IOException("Snapshot does not match its hash");
+        }
+        resyncing = false;
+    }
+
+    private void follow(Stone toMove, GameEnd status, boolean pieOpen) {
+        if (!pieOpen && state.isPieRuleAvailable()) {
+            state.turnOffPieRule();
+        }
+        if (state.getCurrentPlayer() != toMove) {
+            state.switchPlayer();
+        }
+        if (status == GameEnd.ABORTED && state.isInProgress()) {
+            state.abort();
+        } else if (status == GameEnd.BLACK_WON && state.isInProgress()) {
+            state.declareWinner(Stone.BLACK);
+        } else if (status == GameEnd.WHITE_WON && state.isInProgress()) {
+            state.declareWinner(Stone.WHITE);
+        }
+    }
+
+    private void resync() throws IOException {
+        resyncing = true;
+        resyncs++;
+        Protocol.writeResync(frame.clear(), gameId);
+        send();
+    }
+
+    // The position of a cell index from the server, null when it is off the board
+    private Position cellPosition(int cell) {
+        return cell >= 0 && cell < size * size ? Protocol.position(cell, size) : null;
+    }
+
+    private void send() throws IOException {
+        frame.flip();
+        out.write(frame.array(), 0, frame.limit());
+        out.flush();
+    }
+
+    private static InetSocketAddress defaultServer() {
+        String configured = System.getProperty(SERVER_PROPERTY);
+        if (configured == null) {
+            return new InetSocketAddress(InetAddress.getLoopbackAddress(), Protocol.DEFAULT_PORT);
+        }
+        int colon = configured.lastIndexOf(':');
+        return colon < 0
+            ? new InetSocketAddress(configured, Protocol.DEFAULT_PORT)
+            : new InetSocketAddress(configured.substring(0, colon), Integer.parseInt(configured.substring(colon + 1)));
+    }
 }
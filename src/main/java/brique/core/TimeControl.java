@@ -0,0 +1,57 @@
+package brique.core;
+
+// The time each player gets, in milliseconds: main time, then either an increment added
+// after each of their actions (Fischer) or a number of byo-yomi periods. A period is used
+// up only by an action that takes longer than it, and the flag falls when the last one runs out.
+public record TimeControl(long mainMillis, long incrementMillis, long periodMillis, int periods) {
+
+    public TimeControl {
+        if (mainMillis < 0 || incrementMillis < 0 || periodMillis < 0 || periods < 0) {
+            throw new IllegalArgumentException("Times must not be negative");
+        }
+        if ((periods > 0) != (periodMillis > 0)) {
+            throw new IllegalArgumentException("Byo-yomi needs both a period length and a number of periods");
+        }
+        if (periods > 0 && incrementMillis > 0) {
+            throw new IllegalArgumentException("Use either an increment or byo-yomi");
+        }
+        if (mainMillis == 0 && periods == 0) {
+            throw new IllegalArgumentException("A time control needs some time");
+        }
+    }
+
+    public static TimeControl fischer(long mainMillis, long incrementMillis) {
+        return new TimeControl(mainMillis, incrementMillis, 0, 0);
+    }
+
+    public static TimeControl byoYomi(long mainMillis, long periodMillis, int periods) {
+        return new TimeControl(mainMillis, 0, periodMillis, periods);
+    }
+
+    // "300+5" is 300 seconds with 5 more after each action, "600/30x5" is 600 seconds and
+    // then 5 byo-yomi periods of 30; seconds may have a fraction
+    public static TimeControl parse(String text) {
+        try {
+            int plus = text.indexOf('+');
+            if (plus >= 0) {
+                return fischer(millis(text.substring(0, plus)), millis(text.substring(plus + 1)));
+            }
+            int slash = text.indexOf('/');
+            if (slash >= 0) {
+                int times = text.indexOf('x', slash);
+                if (times < 0) {
+                    throw new IllegalArgumentException("Byo-yomi needs a number of periods: " + text);
+                }
+                return byoYomi(millis(text.substring(0, slash)), millis(text.substring(slash + 1, times)),
+                               Integer.parseInt(text.substring(times + 1)));
+            }
+            return fischer(millis(text), 0);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a time control: " + text);
+        }
+    }
+
+    private static long millis(String seconds) {
+        return Math.round(Double.parseDouble(seconds) * 1_000);
+    }
+}
@@ -0,0 +1,73 @@
+package brique.core;
+
+// 64-bit Zobrist hashing of Brique positions.
+// Keys are derived from a fixed seed instead of a random table, so the same position
+// hashes to the same value in every process (books, caches and the wire protocol rely on it).
+public final class ZobristHash {
+
+    private static final long SEED       = 0x42524951_55450001L; // "BRIQUE" + version
+    private static final long SIZE_SALT  = 0x5A3C_9E37_79B9_7F4AL;
+    private static final long WHITE_TURN = mix(SEED ^ 0x7E57_0001L);
+    private static final long PIE_OPEN   = mix(SEED ^ 0x7E57_0002L);
+
+    private ZobristHash() { /* utility class */ }
+
+    // Key of a single stone; EMPTY cells contribute nothing.
+    public static long stoneKey(Position pos, Stone stone) {
+        if (stone == Stone.EMPTY) {
+            return 0L;
+        }
+        long cell = ((long) pos.row() << 32) | (pos.col() & 0xFFFF_FFFFL);
+        return mix(SEED + cell * 2 + stone.ordinal() + 1);
+    }
+
+    // Hash of the stones on the board, including the board size.
+    public static long boardHash(Board board) {
+        int size = board.getSize();
+        long hash = mix(SIZE_SALT + size);
+        for (int r = 0; r < size; r++) {
+            for (int c = 0; c < size; c++) {
+                Position pos = Position.of(r, c);
+                hash ^= stoneKey(pos, board.getStone(pos));
+            }
+        }
+        return hash;
+    }
+
+    // Contribution of the side to move and the pie-rule flag.
+    public static long turnKey(GameState state) {
+        long key = state.getCurrentPlayer() == Stone.WHITE ? WHITE_TURN : 0L;
+        return state.isPieRuleAvailable() ? key ^ PIE_OPEN : key;
+    }
+
+    // Full hash of a game position: stones, side to move and pie-rule availability.
+    public static long of(GameState state) {
+        return boardHash(state.getBoard()) ^ turnKey(state);
+    }
+
+    // Change of boardHash caused by a processed move. XOR is its own inverse,
+    // so the same delta applies the move and takes it back.
+    public static long moveDelta(Move move) {
+        Stone player = move.getStone();
+        long delta = stoneKey(move.getPosition(), player);
+        for (Position pos : move.getFilledPositions()) {
+            delta ^= stoneKey(pos, player);
+        }
+        for (Position pos : move.getCapturedPositions()) {
+            delta ^= stoneKey(pos, player.opposite());
+        }
+        return delta;
+    }
+
+    // Change of boardHash caused by applying (or undoing) the pie rule on a first stone.
+    public static long pieDelta(Position firstStone) {
+        return stoneKey(firstStone, Stone.BLACK) ^ stoneKey(firstStone, Stone.WHITE);
+    }
+
+    // SplitMix64 finaliser: spreads consecutive inputs over all 64 bits.
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58_476D_1CE4_E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D0_49BB_1331_11EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,211 @@
+package brique.server;
+
+import brique.core.GameEnd;
+import brique.core.GameState;
+import brique.core.Move;
+import brique.core.Stone;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// The spectators one shard has for one game, with the shard's own copy of the position.
+// The game's shard encodes each update once and hands the frame over; spectators who keep
+// up get it as it is. The copy lets this shard answer a spectator that fell behind with a
+// single PATCH of the cells changed since its last update (a SNAPSHOT when that is smaller
+// or it is too far behind) without asking the game's shard. Catch-up frames are encoded
+// once per position and starting point, and shared by every spectator that needs them.
+// Only the spectators' shard touches it.
+final class Audience {
+
+    // A spectator further behind than this many updates gets a snapshot
+    static final int MAX_PATCH_LAG = 32;
+    private static final int[] NO_CELLS = new int[0];
+
+    // One update from the game's shard: the cells that changed colour with the new flags and
+    // hash, and the frame to send as it is. A full update carries the whole position (the
+    // game was just watched: the frame is a SNAPSHOT).
+    record Update(Protocol.Patch change, int size, ByteBuffer frame, boolean full) { }
+
+    // One connection watching the game
+    static final class Spectator {
+
+        final ClientConnection connection;
+        final Audience audience;
+        // Version of the last update queued for it
+        int seen;
+        // Updates were skipped while its socket was behind: it is owed a catch-up frame
+        boolean behind;
+
+        Spectator(ClientConnection connection, Audience audience) {
+            this.connection = connection;
+            this.audience = audience;
+        }
+    }
+
+    final long game;
+    final List<Spectator> spectators = new ArrayList<>();
+    private final int size;
+    private final Stone[] cells;
+    // Version at which each cell last changed colour
+    private final int[] changedAt;
+    // Counts the updates applied; flags and hash are those of the last one
+    private int version;
+    private Protocol.Patch last;
+    private ByteBuffer snapshot;
+    private final Map<Integer, ByteBuffer> patches = new HashMap<>();
+
+    Audience(long game, int size) {
+        this.game = game;
+        this.size = size;
+        this.cells = new Stone[size * size];
+        this.changedAt = new int[size * size];
+        Arrays.fill(cells, Stone.EMPTY);
+    }
+
+    void apply(Update update) {
+        version++;
+        if (update.full()) {
+            Arrays.fill(cells, Stone.EMPTY);
+        }
+        Protocol.Patch change = update.change();
+        for (int cell : change.black()) {
+            cells[cell] = Stone.BLACK;
+            changedAt[cell] = version;
+        }
+        for (int cell : change.white()) {
+            cells[cell] = Stone.WHITE;
+            changedAt[cell] = version;
+        }
+        last = change;
+        snapshot = null;
+        patches.clear();
+    }
+
+    int version() {
+        return version;
+    }
+
+    boolean isOver() {
+        return last.status() != GameEnd.IN_PROGRESS;
+    }
+
+    // The frame that brings a spectator from version seen to the current position,
+    // read-only and shared: duplicate it before writing
+    ByteBuffer catchUp(int seen) {
+        if (version - seen > MAX_PATCH_LAG) {
+            return snapshot();
+        }
+        ByteBuffer patch = patches.get(seen);
+        if (patch == null) {
+            patch = patchSince(seen);
+            if (patch.remaining() >= snapshot().remaining()) {
+                patch = snapshot();
+            }
+            patches.put(seen, patch);
+        }
+        return patch;
+    }
+
+    ByteBuffer snapshot() {
+        if (snapshot == null) {
+            ByteBuffer out = ByteBuffer.allocate(Protocol.MAX_FRAME_BYTES);
+            Protocol.writeSnapshot(out, new Protocol.Snapshot(game, last.actions(), last.toMove(), last.status(),
+                                                              last.pieOpen(), size, cells, last.hash()));
+            snapshot = shared(out.flip());
+        }
+        return snapshot;
+    }
+
+    private ByteBuffer patchSince(int seen) {
+        int blacks = 0;
+        int whites = 0;
+        for (int cell = 0; cell < cells.length; cell++) {
+            if (changedAt[cell] > seen) {
+                if (cells[cell] == Stone.BLACK) {
+                    blacks++;
+                } else {
+                    whites++;
+                }
+            }
+        }
+        int[] black = new int[blacks];
+        int[] white = new int[whites];
+        blacks = 0;
+        whites = 0;
+        for (int cell = 0; cell < cells.length; cell++) {
+            if (changedAt[cell] > seen) {
+                if (cells[cell] == Stone.BLACK) {
+                    black[blacks++] = cell;
+                } else {
+                    white[whites++] = cell;
+                }
+            }
+        }
+        ByteBuffer out = ByteBuffer.allocate(Protocol.MAX_FRAME_BYTES);
+        Protocol.writePatch(out, new Protocol.Patch(game, last.actions(), last.toMove(), last.status(), last.pieOpen(),
+                                                    black, white, last.hash()));
+        return shared(out.flip());
+    }
+
+    // The cells an action changed, as the game's shard describes it after the players' delta
+    static Protocol.Patch change(long game, int actions, GameState state, Protocol.Change change, Move move, long hash) {
+        int size = state.getBoard().getSize();
+        int[] changed = NO_CELLS;
+        Stone colour = Stone.BLACK;
+        if (change == Protocol.Change.MOVE) {
+            changed = new int[1 + move.getFilledPositions().size()];
+            changed[0] = Protocol.cell(move.getPosition(), size);
+            for (int i = 1; i < changed.length; i++) {
+                changed[i] = Protocol.cell(move.getFilledPositions().get(i - 1), size);
+            }
+            colour = move.getStone();
+        } else if (change == Protocol.Change.SWAP) {
+            // Black's first stone turned White
+            changed = new int[] {Protocol.cell(state.getMoveHistory().get(0).getPosition(), size)};
+            colour = Stone.WHITE;
+        }
+        return colour == Stone.BLACK ? patch(game, actions, state, changed, NO_CELLS, hash)
+                                     : patch(game, actions, state, NO_CELLS, changed, hash);
+    }
+
+    // Every stone on the board, for a full update
+    static Protocol.Patch position(long game, int actions, GameState state, long hash) {
+        int size = state.getBoard().getSize();
+        int blacks = 0;
+        int whites = 0;
+        for (int cell = 0; cell < size * size; cell++) {
+            Stone stone = state.getBoard().getStone(Protocol.position(cell, size));
+            blacks += stone == Stone.BLACK ? 1 : 0;
+            whites += stone == Stone.WHITE ? 1 : 0;
+        }
+        int[] black = new int[blacks];
+        int[] white = new int[whites];
+        blacks = 0;
+        whites = 0;
+        for (int cell = 0; cell < size * size; cell++) {
+            Stone stone = state.getBoard().getStone(Protocol.position(cell, size));
+            if (stone == Stone.BLACK) {
+                black[blacks++] = cell;
+            } else if (stone == Stone.WHITE) {
+                white[whites++] = cell;
+            }
+        }
+        return patch(game, actions, state, black, white, hash);
+    }
+
+    private static Protocol.Patch patch(long game, int actions, GameState state, int[] black, int[] white, long hash) {
+        return new Protocol.Patch(game, actions, state.getCurrentPlayer(), state.getStatus(), state.isPieRuleAvailable(),
+                                  black, white, hash);
+    }
+
+    // A read-only copy of the frame (left unread), to be handed to many connections
+    static ByteBuffer shared(ByteBuffer frame) {
+        byte[] copy = new byte[frame.remaining()];
+        frame.duplicate().get(copy);
+        return ByteBuffer.wrap(copy).asReadOnlyBuffer();
+    }
+}
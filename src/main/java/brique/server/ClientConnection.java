@@ -0,0 +1,119 @@
+package brique.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// A client socket of the server: bytes read but not yet decoded, bytes waiting to be sent,
+// the games it plays in and the games it watches. Its own frames are copied into its output
+// buffer; updates of watched games stay in the read-only buffers shared with the other
+// spectators, and one gathering write sends the output and those together. Only its shard
+// touches the buffers; the shards owning its games add and remove them, and the others
+// read whether it is closed.
+final class ClientConnection {
+
+    private static final int INITIAL_OUTPUT = 4 * 1024;
+    // Buffers handed to one gathering write
+    private static final int GATHER = 64;
+
+    final SocketChannel channel;
+    final SelectionKey key;
+    final Shard shard;
+    final ByteBuffer input;
+    final Set<Long> games = ConcurrentHashMap.newKeySet();
+    // In write mode: everything from 0 to position is still to be sent
+    private ByteBuffer output = ByteBuffer.allocate(INITIAL_OUTPUT);
+    // Shared frames to send after the output, each a duplicate of its own
+    private final ArrayDeque<ByteBuffer> broadcasts = new ArrayDeque<>();
+    private int broadcastBytes;
+    private ByteBuffer[] gather;
+    // Games watched through this connection; behind counts those owed a catch-up frame
+    final List<Audience.Spectator> spectating = new ArrayList<>();
+    int behind;
+    // Queued on the server's flush list since the last flush
+    boolean dirty;
+    volatile boolean closed;
+
+    ClientConnection(SocketChannel channel, SelectionKey key, Shard shard, int inputBytes) {
+        this.channel = channel;
+        this.key = key;
+        this.shard = shard;
+        this.input = ByteBuffer.allocate(inputBytes);
+    }
+
+    // Appends a frame (left unread); false when the client is so far behind that it must be dropped
+    boolean append(ByteBuffer frame, int maxBacklog) {
+        int length = frame.remaining();
+        if (output.remaining() < length) {
+            int needed = output.position() + length;
+            if (needed > maxBacklog) {
+                return false;
+            }
+            ByteBuffer larger = ByteBuffer.allocate(Math.min(maxBacklog, Math.max(needed, output.capacity() * 2)));
+            output.flip();
+            larger.put(output);
+            output = larger;
+        }
+        output.put(frame.duplicate());
+        return true;
+    }
+
+    // Queues a shared frame (left unread) without copying it
+    void broadcast(ByteBuffer frame) {
+        broadcasts.add(frame.duplicate());
+        broadcastBytes += frame.remaining();
+    }
+
+    // Bytes of shared frames not sent yet
+    int broadcastBytes() {
+        return broadcastBytes;
+    }
+
+    // Writes what the socket takes now and asks for OP_WRITE while anything is left
+    void flush() throws IOException {
+        output.flip();
+        if (broadcasts.isEmpty()) {
+            channel.write(output);
+        } else {
+            writeGathering();
+        }
+        output.compact();
+        int ops = output.position() > 0 || !broadcasts.isEmpty() ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ;
+        if (key.interestOps() != ops) {
+            key.interestOps(ops);
+        }
+    }
+
+    // The output, then the shared frames, GATHER buffers per write while the socket takes them all
+    private void writeGathering() throws IOException {
+        if (gather == null) {
+            gather = new ByteBuffer[GATHER];
+        }
+        boolean drained = true;
+        while (drained && (output.hasRemaining() || !broadcasts.isEmpty())) {
+            gather[0] = output;
+            int count = 1;
+            for (ByteBuffer frame : broadcasts) {
+                if (count == GATHER) {
+                    break;
+                }
+                gather[count++] = frame;
+            }
+            int before = output.remaining();
+            long written = channel.write(gather, 0, count);
+            broadcastBytes -= (int) written - (before - output.remaining());
+            while (!broadcasts.isEmpty() && !broadcasts.peek().hasRemaining()) {
+                broadcasts.poll();
+            }
+            drained = !gather[count - 1].hasRemaining();
+            Arrays.fill(gather, 1, count, null);
+        }
+    }
+}
@@ -0,0 +1,966 @@
+package brique.server;
+
+import brique.core.Stone;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+// The front of a cluster of GameServer nodes, each started with the same cluster key.
+// Clients connect to the router and speak the Protocol as to one server. The router pairs
+// players with its own Matchmaker and places each new game on the node the HashRing gives
+// its id (an IMPORT of its START record). Every other frame is passed on as it came, read
+// only as far as the game it is about: for each client the router opens a connection to
+// each node hosting one of its games, so a node sees the players as direct clients and
+// seats them with RESUME.
+// When a node joins or leaves, the games whose place on the ring changed move live. The old
+// node sends a checkpoint (EXPORT) while the game goes on, then on HANDOFF the actions
+// played since, and the new node replays both (IMPORT). The game is paused only from the
+// HANDOFF to the new node's answer: the router holds its commands meanwhile, seats the
+// players and spectators again on the new node (the second START is not passed on) and
+// then sends what it held. A command that was already on its way to the old node comes back
+// as MOVED and is routed again; updates from the old node that come after the move are
+// dropped, the new node's snapshot having them. A game that cannot be imported goes back to
+// its old node.
+// Clocks restart on the new node, as after a restart from the move log.
+// Blocking sockets on virtual threads: one reads each client and one each connection to a
+// node. Locks held across socket writes are ReentrantLocks, which unlike monitors leave the
+// carrier thread to other virtual threads while a write blocks. A client whose connection to
+// a node breaks is dropped, as it would be by that node.
+public final class ClusterRouter implements Closeable {
+
+    // Games moving at once during a rebalance
+    private static final int MAX_MOVING = 64;
+    private static final long REBALANCE_MILLIS = 60_000;
+    // A reader that always finds its next frame buffered never blocks, and a virtual thread
+    // keeps its carrier until it does: after this many frames it lets the other readers in
+    private static final int FRAMES_PER_TURN = 64;
+    // Pauses kept for getMigrationPauses
+    private static final int PAUSES = 1 << 16;
+    // Moves remembered for the updates from the old node still on their way after the game ended
+    private static final int DEPARTURES = 1 << 14;
+    private static final ThreadLocal<ByteBuffer> SCRATCH = ThreadLocal.withInitial(() -> ByteBuffer.allocate(Protocol.MAX_FRAME_BYTES));
+
+    private final InetSocketAddress address;
+    private final long key;
+    private int matcherCount = 1;
+    private final SecureRandom seats = new SecureRandom();
+
+    private volatile HashRing ring = new HashRing(List.of());
+    private final Map<String, Node> nodes = new ConcurrentHashMap<>();
+    private final Map<Long, RoutedGame> games = new ConcurrentHashMap<>();
+    // New games sent to their node, until it answers
+    private final Map<Long, RoutedGame> hosting = new ConcurrentHashMap<>();
+    private final Map<Long, Migration> moving = new ConcurrentHashMap<>();
+    private final Semaphore slots = new Semaphore(MAX_MOVING);
+    private final Set<Client> clients = ConcurrentHashMap.newKeySet();
+    // Above the ids an earlier router gave, at up to 256 games a millisecond: their games may
+    // still be on the nodes, for their players to RESUME through this one
+    private final AtomicLong nextGameId = new AtomicLong(System.currentTimeMillis() << 8);
+    private final Object membership = new Object();
+    private Matchmaker<Client> matchmaker;
+    private ServerSocket serverSocket;
+    private Thread acceptor;
+    private volatile boolean running;
+
+    private final AtomicLong migrations = new AtomicLong();
+    private final AtomicLong failedMigrations = new AtomicLong();
+    private final long[] pauses = new long[PAUSES];
+    private long pauseCount;
+    // The node each of the last games to move left
+    private final Map<Long, Node> departed = new ConcurrentHashMap<>();
+    private final long[] departures = new long[DEPARTURES];
+    private long departureCount;
+
+    // Listens on the loopback interface
+    public ClusterRouter(int port, long key) {
+        this(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), key);
+    }
+
+    public ClusterRouter(InetSocketAddress address, long key) {
+        if (key == 0) {
+            throw new IllegalArgumentException("The cluster key must not be 0");
+        }
+        this.address = address;
+        this.key = key;
+    }
+
+    // Threads that pair players; board sizes are spread over them
+    public void setMatchers(int matchers) {
+        if (matchers < 1) {
+            throw new IllegalArgumentException("Matchers must be positive");
+        }
+        this.matcherCount = matchers;
+    }
+
+    public synchronized void start() throws IOException {
+        if (running) {
+            throw new IllegalStateException("Router already started");
+        }
+        serverSocket = new ServerSocket();
+        serverSocket.bind(address, 1024);
+        matchmaker = new Matchmaker<>(GameServer.MAX_SIZE, Protocol.MAX_RATING, matcherCount, client -> client.closed, this::pair);
+        running = true;
+        acceptor = Thread.ofPlatform().name("brique-router-acceptor").daemon().start(this::acceptLoop);
+    }
+
+    // The bound port (useful when started on port 0)
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    // Connects to the node and moves to it the games the ring now gives it; returns once they
+    // have moved
+    public void addNode(InetSocketAddress node) throws IOException {
+        String name = name(node);
+        synchronized (membership) {
+            if (nodes.containsKey(name)) {
+                throw new IllegalArgumentException("Already a node: " + name);
+            }
+            nodes.put(name, new Node(name, node));
+            ring = ring.with(name);
+            rebalance();
+        }
+    }
+
+    // Moves the node's games to the others, then lets it go
+    public void removeNode(InetSocketAddress node) {
+        String name = name(node);
+        synchronized (membership) {
+            Node leaving = nodes.get(name);
+            if (leaving == null) {
+                throw new IllegalArgumentException("Not a node: " + name);
+            }
+            if (nodes.size() == 1) {
+                throw new IllegalStateException("The last node cannot leave");
+            }
+            ring = ring.without(name);
+            rebalance();
+            nodes.remove(name);
+            leaving.control.close();
+            for (Client client : clients) {
+                Link link = client.links.remove(leaving);
+                if (link != null) {
+                    link.close();
+                }
+            }
+        }
+    }
+
+    public List<String> getNodes() {
+        return ring.nodes();
+    }
+
+    // Games in progress through the router
+    public int getGames() {
+        return games.size();
+    }
+
+    public int getClients() {
+        return clients.size();
+    }
+
+    public int getWaitingPlayers() {
+        return matchmaker.getWaiting();
+    }
+
+    public long getMigrations() {
+        return migrations.get();
+    }
+
+    // Migrations given up: the game ended first, or no node would take it
+    public long getFailedMigrations() {
+        return failedMigrations.get();
+    }
+
+    // How long each of the last migrations held the game's commands, in nanoseconds
+    public synchronized long[] getMigrationPauses() {
+        int count = (int) Math.min(pauseCount, PAUSES);
+        return Arrays.copyOf(pauses, count);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        serverSocket.close();
+        matchmaker.close();
+        for (Client client : clients) {
+            client.close();
+        }
+        for (Node node : nodes.values()) {
+            node.control.close();
+        }
+        try {
+            acceptor.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ---- Clients ----
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                Client client = new Client(socket);
+                clients.add(client);
+                Thread.ofVirtual().name("brique-router-client").start(() -> client.readLoop());
+            } catch (IOException e) {
+                // Closed, or a client gone before it was accepted
+            }
+        }
+    }
+
+    private void handle(Client client, Frames frame) throws IOException {
+        byte type = frame.type();
+        if (type == Protocol.PLAY) {
+            Protocol.Play play;
+            try {
+                play = (Protocol.Play) Protocol.decode(frame.payload());
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Malformed frame", e);
+            }
+            if (play.size() < GameServer.MIN_SIZE || play.size() > GameServer.MAX_SIZE) {
+                client.deliver(encode(out -> Protocol.writeError(out, 0,
+                    "Board size must be between " + GameServer.MIN_SIZE + " and " + GameServer.MAX_SIZE)));
+                return;
+            }
+            matchmaker.join(client, play.size(), play.rating());
+        } else if (type == Protocol.MOVE || type == Protocol.SWAP || type == Protocol.RESYNC
+                || type == Protocol.WATCH || type == Protocol.RESUME) {
+            long id;
+            try {
+                id = Protocol.gameOf(frame.payload());
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Malformed frame", e);
+            }
+            route(client, id, type, frame.copy());
+        } else {
+            // Only nodes send the other messages, and only the router the cluster commands
+            throw new IOException("Unexpected message type " + (type & 0xFF));
+        }
+    }
+
+    // Sends the command to the game's node, or holds it while the game moves. A command sent
+    // just as a move begins comes back from the old node as MOVED.
+    private void route(Client client, long id, byte type, byte[] command) throws IOException {
+        RoutedGame game = games.get(id);
+        Node node;
+        if (game == null) {
+            node = nodes.get(ring.owner(id));
+        } else {
+            game.lock.lock();
+            try {
+                if (game.paused) {
+                    game.held.add(new Held(client, command));
+                    return;
+                }
+                if (type == Protocol.WATCH) {
+                    game.spectators.add(client);
+                }
+                node = game.node;
+            } finally {
+                game.lock.unlock();
+            }
+        }
+        if (node == null) {
+            client.deliver(encode(out -> Protocol.writeError(out, id, "No such game")));
+            return;
+        }
+        client.link(node).send(command);
+    }
+
+    // On a connection to a node: passes the frame on to its client
+    private void fromNode(Link link, Frames frame) throws IOException {
+        Client client = link.client;
+        ByteBuffer payload = frame.payload();
+        byte type = frame.type();
+        Protocol.Message message = null;
+        if (type == Protocol.START || type == Protocol.MOVED) {
+            try {
+                message = Protocol.decode(payload);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Malformed frame from " + link.node.name, e);
+            }
+        }
+        if (message instanceof Protocol.Start start) {
+            RoutedGame game = games.computeIfAbsent(start.game(), id -> new RoutedGame(id, link.node));
+            game.lock.lock();
+            try {
+                int seat = start.colour() == Stone.BLACK ? 0 : 1;
+                if (game.seated[seat] && game.players[seat] == client) {
+                    // Seated again on the node the game moved to
+                    reseated(game);
+                    return;
+                }
+                game.players[seat] = client;
+                game.seats[seat] = start.seat();
+                game.seated[seat] = true;
+            } finally {
+                game.lock.unlock();
+            }
+            client.playing.add(start.game());
+        } else if (message instanceof Protocol.Moved moved) {
+            if (games.containsKey(moved.game())) {
+                route(client, moved.game(), moved.command()[Frames.prefix(moved.command())], moved.command());
+            } else {
+                client.deliver(encode(out -> Protocol.writeError(out, moved.game(), "No such game")));
+            }
+            return;
+        } else if (type == Protocol.ERROR) {
+            RoutedGame game = games.get(Protocol.gameOf(payload));
+            if (game != null && game.node == link.node) {
+                boolean unseated = false;
+                game.lock.lock();
+                try {
+                    if (game.reseating > 0) {
+                        // A seat the new node would not give back: the game goes on without waiting for it
+                        reseated(game);
+                    } else {
+                        // A new game the node aborted before this player's seat was taken
+                        for (int seat = 0; seat < 2; seat++) {
+                            unseated |= game.players[seat] == client && !game.seated[seat];
+                        }
+                    }
+                } finally {
+                    game.lock.unlock();
+                }
+                if (unseated) {
+                    ended(game.id);
+                }
+            }
+        } else if (type == Protocol.SNAPSHOT || type == Protocol.DELTA || type == Protocol.PATCH) {
+            // Late from the node a game moved away from: the new node's snapshot covers it, and
+            // may already have gone out ahead of it on the other link
+            long id = Protocol.gameOf(payload);
+            RoutedGame game = games.get(id);
+            if (game != null ? game.node != link.node : departed.get(id) == link.node) {
+                return;
+            }
+            if (game != null && Protocol.reportsEnd(payload)) {
+                ended(game.id);
+            }
+        }
+        client.deliver(frame.buffer, frame.length);
+    }
+
+    private void ended(long id) {
+        RoutedGame game = games.remove(id);
+        if (game == null) {
+            return;
+        }
+        for (Client player : game.players) {
+            if (player != null) {
+                player.playing.remove(id);
+            }
+        }
+    }
+
+    // ---- New games ----
+
+    // On a matcher thread
+    private void pair(Client black, Client white, int size) {
+        RoutedGame game = new RoutedGame(nextGameId.getAndIncrement(), null);
+        game.players[0] = black;
+        game.players[1] = white;
+        game.seats[0] = seats.nextLong();
+        game.seats[1] = seats.nextLong();
+        host(game, size);
+    }
+
+    // Sends the game to the node the ring gives its id; the players take their seats once
+    // the node has it
+    private void host(RoutedGame game, int size) {
+        Node node = nodes.get(ring.owner(game.id));
+        if (node == null) {
+            byte[] error = encode(out -> Protocol.writeError(out, 0, "No node can host the game"));
+            for (Client player : game.players) {
+                player.deliver(error);
+            }
+            return;
+        }
+        game.node = node;
+        game.size = size;
+        games.put(game.id, game);
+        hosting.put(game.id, game);
+        MoveLog.Batch records = MoveLog.records(64);
+        records.started(new HostedGame(game.id, size, null, null, game.seats[0], game.seats[1]));
+        if (!node.command(encode(out -> Protocol.writeImport(out, key, game.id, records.contents())))) {
+            hosting.remove(game.id);
+            ended(game.id);
+            byte[] error = encode(out -> Protocol.writeError(out, 0, "No node can host the game"));
+            for (Client player : game.players) {
+                player.deliver(error);
+            }
+        }
+    }
+
+    // The players still here first: a node aborts a game once a seat is taken on a closed
+    // connection, and they then hear of it, as when a player leaves while a game is set up
+    private void hosted(RoutedGame game) {
+        boolean[] here = {!game.players[0].closed, !game.players[1].closed};
+        for (int seat = 0; seat < 2; seat++) {
+            if (here[seat]) {
+                seat(game, seat, game.node);
+            }
+        }
+        for (int seat = 0; seat < 2; seat++) {
+            if (!here[seat]) {
+                seat(game, seat, game.node);
+            }
+        }
+    }
+
+    // A node refused the id (it hosts a game with it already): the players get another
+    private void notHosted(RoutedGame game) {
+        games.remove(game.id);
+        RoutedGame again = new RoutedGame(nextGameId.getAndIncrement(), null);
+        System.arraycopy(game.players, 0, again.players, 0, 2);
+        System.arraycopy(game.seats, 0, again.seats, 0, 2);
+        host(again, game.size);
+    }
+
+    // Takes the player's seat on the node for them; true if the player's START will come back.
+    // A player who has left is seated on a connection closed at once, so that the node aborts
+    // the game as for any other leaver.
+    private boolean seat(RoutedGame game, int seat, Node node) {
+        Client player = game.players[seat];
+        byte[] resume = encode(out -> Protocol.writeResume(out, game.id, game.seats[seat]));
+        if (player != null && !player.closed) {
+            try {
+                player.link(node).send(resume);
+                return true;
+            } catch (IOException e) {
+                player.close();
+            }
+        }
+        try (Socket socket = new Socket(node.address.getAddress(), node.address.getPort())) {
+            socket.getOutputStream().write(resume);
+        } catch (IOException e) {
+            // The node is gone as well
+        }
+        return false;
+    }
+
+    // ---- Migration ----
+
+    // Moves every game whose node is no longer its owner on the ring, MAX_MOVING at a time,
+    // until none is left or REBALANCE_MILLIS have passed. A game that could not move is not
+    // tried again before the next rebalance.
+    private void rebalance() {
+        long deadline = System.currentTimeMillis() + REBALANCE_MILLIS;
+        Set<Long> tried = new HashSet<>();
+        try {
+            while (System.currentTimeMillis() < deadline) {
+                boolean misplaced = false;
+                for (RoutedGame game : games.values()) {
+                    Node owner = nodes.get(ring.owner(game.id));
+                    if (owner == null || game.node == owner || tried.contains(game.id)) {
+                        continue;
+                    }
+                    misplaced = true;
+                    // A new game is moved on the next pass, once its node has it
+                    if (hosting.containsKey(game.id) || moving.containsKey(game.id)) {
+                        continue;
+                    }
+                    tried.add(game.id);
+                    slots.acquire();
+                    Migration migration = new Migration(game, game.node, owner);
+                    if (moving.putIfAbsent(game.id, migration) != null) {
+                        slots.release();
+                        continue;
+                    }
+                    if (!game.node.command(encode(out -> Protocol.writeExport(out, key, game.id)))) {
+                        moving.remove(game.id);
+                        slots.release();
+                        failedMigrations.incrementAndGet();
+                    }
+                }
+                if (!misplaced) {
+                    return;
+                }
+                while (!moving.isEmpty() && System.currentTimeMillis() < deadline) {
+                    Thread.sleep(1);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // On a node's control connection: the answers to the router's own commands
+    private void fromControl(Node node, Frames frame) throws IOException {
+        Protocol.Message message;
+        try {
+            message = Protocol.decode(frame.payload());
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Malformed frame from " + node.name, e);
+        }
+        if (message instanceof Protocol.Exported exported) {
+            Migration migration = moving.get(exported.game());
+            if (migration == null) {
+                return;
+            }
+            if (migration.snapshot == null) {
+                // The checkpoint: from now on the game's commands wait for the new node
+                migration.snapshot = exported.records();
+                migration.game.lock.lock();
+                try {
+                    migration.game.paused = true;
+                    migration.game.pausedAt = System.nanoTime();
+                } finally {
+                    migration.game.lock.unlock();
+                }
+                if (!node.command(encode(out -> Protocol.writeHandoff(out, key, exported.game())))) {
+                    notMoved(migration, node);
+                }
+            } else {
+                byte[] records = Arrays.copyOf(migration.snapshot, migration.snapshot.length + exported.records().length);
+                System.arraycopy(exported.records(), 0, records, migration.snapshot.length, exported.records().length);
+                migration.records = records;
+                if (!migration.target.command(encode(out -> Protocol.writeImport(out, key, exported.game(), ByteBuffer.wrap(records))))) {
+                    notMoved(migration, migration.target);
+                }
+            }
+        } else if (message instanceof Protocol.Imported imported) {
+            Migration migration = moving.get(imported.game());
+            if (migration != null && migration.target == node) {
+                moved(migration);
+                return;
+            }
+            RoutedGame game = hosting.remove(imported.game());
+            if (game != null) {
+                hosted(game);
+            }
+        } else if (message instanceof Protocol.Error error) {
+            Migration migration = moving.get(error.game());
+            if (migration != null) {
+                notMoved(migration, node);
+                return;
+            }
+            RoutedGame game = hosting.remove(error.game());
+            if (game != null) {
+                notHosted(game);
+            }
+        }
+    }
+
+    // The new node has the game: the players and spectators are seated there again, and the
+    // held commands go once both players have their seats back. Their RESUMEs go over their
+    // own connections, so a held move sent any earlier could end the game before the other
+    // player was seated to hear of it.
+    private void moved(Migration migration) {
+        RoutedGame game = migration.game;
+        Node target = migration.target;
+        if (target != migration.source) {
+            departed(game.id, migration.source);
+        }
+        game.lock.lock();
+        try {
+            game.node = target;
+            for (int seat = 0; seat < 2; seat++) {
+                if (game.seated[seat] && seat(game, seat, target)) {
+                    game.reseating++;
+                }
+            }
+            byte[] watch = encode(out -> Protocol.writeWatch(out, game.id));
+            for (Client spectator : game.spectators) {
+                send(spectator, target, watch);
+            }
+            if (game.reseating == 0) {
+                resume(game);
+            }
+        } finally {
+            game.lock.unlock();
+        }
+        migrations.incrementAndGet();
+        moving.remove(game.id);
+        slots.release();
+    }
+
+    // Under the game's lock: one player has a seat on the new node again
+    private void reseated(RoutedGame game) {
+        if (game.reseating > 0 && --game.reseating == 0) {
+            resume(game);
+        }
+    }
+
+    // Under the game's lock
+    private void resume(RoutedGame game) {
+        for (Held held : game.held) {
+            send(held.client, game.node, held.command);
+        }
+        game.held.clear();
+        game.paused = false;
+        recordPause(System.nanoTime() - game.pausedAt);
+    }
+
+    // An EXPORT or HANDOFF refused (the game ended on its node) or an IMPORT refused: in the
+    // first case the game stays where it was, in the second it is imported back there
+    private void notMoved(Migration migration, Node node) {
+        RoutedGame game = migration.game;
+        if (migration.records != null && node == migration.target && migration.target != migration.source) {
+            migration.target = migration.source;
+            if (migration.source.command(encode(out -> Protocol.writeImport(out, key, game.id, ByteBuffer.wrap(migration.records))))) {
+                return;
+            }
+        }
+        if (migration.records != null) {
+            // Neither node took it back: it is lost, and its commands are refused
+            ended(game.id);
+        }
+        game.lock.lock();
+        try {
+            for (Held held : game.held) {
+                send(held.client, game.node, held.command);
+            }
+            game.held.clear();
+            game.paused = false;
+        } finally {
+            game.lock.unlock();
+        }
+        failedMigrations.incrementAndGet();
+        moving.remove(game.id);
+        slots.release();
+    }
+
+    private void send(Client client, Node node, byte[] frame) {
+        if (client.closed) {
+            return;
+        }
+        try {
+            client.link(node).send(frame);
+        } catch (IOException e) {
+            client.close();
+        }
+    }
+
+    private synchronized void recordPause(long nanos) {
+        pauses[(int) (pauseCount++ % PAUSES)] = nanos;
+    }
+
+    private void departed(long id, Node source) {
+        synchronized (departures) {
+            int slot = (int) (departureCount++ % DEPARTURES);
+            if (departureCount > DEPARTURES) {
+                departed.remove(departures[slot]);
+            }
+            departures[slot] = id;
+            departed.put(id, source);
+        }
+    }
+
+    private static String name(InetSocketAddress node) {
+        return node.getHostString() + ":" + node.getPort();
+    }
+
+    private static byte[] encode(Consumer<ByteBuffer> writer) {
+        ByteBuffer frame = SCRATCH.get().clear();
+        writer.accept(frame);
+        return Arrays.copyOf(frame.array(), frame.position());
+    }
+
+    // ---- Connections ----
+
+    // A game as the router knows it: its node, who sits where with which seat, who watches,
+    // and while it moves between nodes, its commands held in order
+    private static final class RoutedGame {
+
+        final long id;
+        int size;
+        volatile Node node;
+        final ReentrantLock lock = new ReentrantLock();
+        // Guarded by lock
+        final Client[] players = new Client[2];
+        final long[] seats = new long[2];
+        final boolean[] seated = new boolean[2];
+        final Set<Client> spectators = new HashSet<>();
+        boolean paused;
+        long pausedAt;
+        final List<Held> held = new ArrayList<>();
+        // Players seated again on the node it moved to whose START has not come back
+        int reseating;
+
+        RoutedGame(long id, Node node) {
+            this.id = id;
+            this.node = node;
+        }
+    }
+
+    private record Held(Client client, byte[] command) { }
+
+    private static final class Migration {
+
+        final RoutedGame game;
+        final Node source;
+        volatile Node target;
+        // The checkpoint from the EXPORT, then with the tail as sent in the IMPORT
+        volatile byte[] snapshot;
+        volatile byte[] records;
+
+        Migration(RoutedGame game, Node source, Node target) {
+            this.game = game;
+            this.source = source;
+            this.target = target;
+        }
+    }
+
+    // A member of the cluster and the router's own connection to it
+    private final class Node {
+
+        final String name;
+        final InetSocketAddress address;
+        final Link control;
+
+        Node(String name, InetSocketAddress address) throws IOException {
+            this.name = name;
+            this.address = address;
+            this.control = new Link(this, null);
+        }
+
+        // False if the node cannot be reached any more
+        boolean command(byte[] frame) {
+            try {
+                control.send(frame);
+                return true;
+            } catch (IOException e) {
+                return false;
+            }
+        }
+    }
+
+    // One client of the router
+    private final class Client {
+
+        final Socket socket;
+        private final OutputStream out;
+        private final ReentrantLock sending = new ReentrantLock();
+        private final ReentrantLock linking = new ReentrantLock();
+        final Map<Node, Link> links = new ConcurrentHashMap<>();
+        final Set<Long> playing = ConcurrentHashMap.newKeySet();
+        volatile boolean closed;
+
+        Client(Socket socket) throws IOException {
+            this.socket = socket;
+            this.out = socket.getOutputStream();
+        }
+
+        void readLoop() {
+            Frames frame = new Frames();
+            try (InputStream in = new BufferedInputStream(socket.getInputStream())) {
+                while (true) {
+                    frame.next(in);
+                    handle(this, frame);
+                }
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        // Opens the connection to the node the first time one of its games is there
+        Link link(Node node) throws IOException {
+            Link link = links.get(node);
+            if (link != null) {
+                return link;
+            }
+            linking.lock();
+            try {
+                link = links.get(node);
+                if (link == null) {
+                    if (closed) {
+                        throw new IOException("The client has left");
+                    }
+                    link = new Link(node, this);
+                    links.put(node, link);
+                }
+                return link;
+            } finally {
+                linking.unlock();
+            }
+        }
+
+        void deliver(byte[] frame) {
+            deliver(frame, frame.length);
+        }
+
+        void deliver(byte[] frame, int length) {
+            sending.lock();
+            try {
+                out.write(frame, 0, length);
+            } catch (IOException e) {
+                close();
+            } finally {
+                sending.unlock();
+            }
+        }
+
+        // The nodes see its connections close and abort its games
+        void close() {
+            linking.lock();
+            try {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+            } finally {
+                linking.unlock();
+            }
+            clients.remove(this);
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Closing anyway
+            }
+            for (Link link : links.values()) {
+                link.close();
+            }
+            for (Long id : playing) {
+                RoutedGame game = games.get(id);
+                if (game != null && Arrays.stream(game.players).allMatch(player -> player == null || player.closed)) {
+                    ended(id);
+                }
+            }
+        }
+    }
+
+    // A connection to a node: a client's, or the router's own control connection (client null)
+    private final class Link {
+
+        final Node node;
+        final Client client;
+        private final Socket socket;
+        private final OutputStream out;
+        private final ReentrantLock sending = new ReentrantLock();
+        private volatile boolean closing;
+
+        Link(Node node, Client client) throws IOException {
+            this.node = node;
+            this.client = client;
+            this.socket = new Socket(node.address.getAddress(), node.address.getPort());
+            socket.setTcpNoDelay(true);
+            this.out = socket.getOutputStream();
+            Thread.ofVirtual().name("brique-router-link").start(this::readLoop);
+        }
+
+        void send(byte[] frame) throws IOException {
+            sending.lock();
+            try {
+                out.write(frame);
+            } finally {
+                sending.unlock();
+            }
+        }
+
+        void close() {
+            closing = true;
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Closing anyway
+            }
+        }
+
+        private void readLoop() {
+            Frames frame = new Frames();
+            try (InputStream in = new BufferedInputStream(socket.getInputStream())) {
+                while (true) {
+                    frame.next(in);
+                    if (client == null) {
+                        fromControl(node, frame);
+                    } else {
+                        fromNode(this, frame);
+                    }
+                }
+            } catch (IOException e) {
+                if (!closing && client != null) {
+                    client.close();
+                }
+            }
+        }
+    }
+
+    // One frame at a time from a blocking stream, kept as it came
+    private static final class Frames {
+
+        final byte[] buffer = new byte[Protocol.MAX_FRAME_BYTES];
+        int length;
+        private int start;
+        private int read;
+
+        void next(InputStream in) throws IOException {
+            if (++read % FRAMES_PER_TURN == 0) {
+                Thread.yield();
+            }
+            int size = 0;
+            int at = 0;
+            for (int shift = 0; ; shift += 7) {
+                if (shift > 7) {
+                    throw new IOException("Frame length prefix too long");
+                }
+                int b = in.read();
+                if (b < 0) {
+                    throw new EOFException("The connection was closed");
+                }
+                buffer[at++] = (byte) b;
+                size |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    break;
+                }
+            }
+            if (size == 0 || size > Protocol.MAX_FRAME) {
+                throw new IOException("Frame length out of range: " + size);
+            }
+            if (in.readNBytes(buffer, at, size) < size) {
+                throw new EOFException("The connection was closed inside a frame");
+            }
+            start = at;
+            length = at + size;
+        }
+
+        byte type() {
+            return buffer[start];
+        }
+
+        ByteBuffer payload() {
+            return ByteBuffer.wrap(buffer, start, length - start).slice();
+        }
+
+        byte[] copy() {
+            return Arrays.copyOf(buffer, length);
+        }
+
+        // Bytes of a whole frame's length prefix
+        static int prefix(byte[] frame) {
+            int at = 0;
+            while ((frame[at] & 0x80) != 0) {
+                at++;
+            }
+            return at + 1;
+        }
+    }
+}
@@ -0,0 +1,553 @@
+package brique.server;
+
+import brique.core.TimeControl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.SecureRandom;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Headless game server: binary frames (see Protocol) over java.nio, played on the
+// authoritative GameState with the standard rules through MoveExecutor. Each game lives on
+// one Shard, an event-loop thread that is its only writer, so moves take no locks and
+// shards scale with cores. Connections are spread over the shards as they arrive; a
+// command read on one shard for a game on another goes through that shard's MPSC task
+// queue, and so do the updates back. Players asking for a game are paired by board size and
+// rating on the Matchmaker's threads, without going through any shard. New games go to the
+// shard with the fewest, and every rebalance interval the busiest shard hands some of its
+// recently active games to the idlest when their loads are skewed.
+// After each action the players get its delta with the position hash; a client whose hash
+// disagrees asks for a snapshot, and a client that sends a malformed frame is dropped.
+// Spectators get the same deltas, encoded once for all of them, and a slow spectator gets
+// one PATCH or SNAPSHOT in place of the deltas it could not take in time (see Shard). A
+// client that stops reading is dropped once its backlog passes MAX_BACKLOG; a client that
+// disconnects aborts its games, and the opponents are told.
+// With a move log (see MoveLog) every action is on disk before it is announced; a server
+// started on the same log recovers the games that were in progress, and their players
+// take their seats back with RESUME. A log that cannot be written stops the whole server
+// as if the process had crashed.
+// With passivation, games idle for a while leave only a stub in memory and their position
+// in a GameStore file on their shard, until the next command for them. A game whose file
+// cannot be read back is lost alone: its players get an ERROR and it ends.
+// With a time control, a player whose clock runs out loses the game (see GameClock); the
+// clocks of a shard's games are timers on one TimerWheel that its loop advances.
+// As a node of a cluster (see ClusterRouter), the router pairs the players, and games come
+// and go whole as move log records: a checkpoint, then the actions played while it was sent.
+public final class GameServer implements Closeable {
+
+    public static final int MIN_SIZE = 3;
+    public static final int MAX_SIZE = 25;
+
+    static final int INPUT_BYTES = 16 * 1024;
+    static final int MAX_BACKLOG = 4 << 20;
+    // Bytes of shared updates a spectator may have unsent before it skips to a catch-up frame
+    static final int SPECTATOR_BACKLOG = 2 * 1024;
+    // Kernel send buffer of a connection that watches games
+    static final int SPECTATOR_SEND_BUFFER = 4 * 1024;
+    // Clock timers fire on 10 ms ticks; one turn of the wheel covers about 10 seconds
+    static final long CLOCK_TICK_MILLIS = 10;
+    static final int CLOCK_SLOTS = 1024;
+    // How long a node sends commands for a game it handed off back to the router
+    static final long HANDED_OFF_MILLIS = 60_000;
+
+    // Rebalance when the busiest shard played this many times the mean, and at least
+    // MIN_SKEW more actions than the idlest, over the last interval
+    private static final double SKEW = 1.5;
+    private static final long MIN_SKEW = 64;
+
+    // Seat secrets: one generator per matcher thread
+    private static final ThreadLocal<SecureRandom> SEATS = ThreadLocal.withInitial(SecureRandom::new);
+
+    private final InetSocketAddress address;
+    private int shardCount = Runtime.getRuntime().availableProcessors();
+    private int matcherCount = 1;
+    private long rebalanceMillis = 1_000;
+    private Path logDirectory;
+    private long checkpointBytes = MoveLog.DEFAULT_CHECKPOINT_BYTES;
+    private Path storeDirectory;
+    private long idleMillis;
+    private TimeControl timeControl;
+    private long clusterKey;
+
+    private final ConcurrentHashMap<Long, Shard> owners = new ConcurrentHashMap<>();
+    // Games handed to another node, with when
+    private final ConcurrentHashMap<Long, Long> handedOff = new ConcurrentHashMap<>();
+    private volatile long lastHandedOffSweep;
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicLong nextGameId = new AtomicLong(1);
+    private Matchmaker<ClientConnection> matchmaker;
+    private Shard[] shards;
+    private Thread[] threads;
+    private Thread rebalancer;
+    private long[] lastActions;
+    private MoveLog log;
+    private int recoveredGames;
+    private volatile int port;
+    private volatile boolean running;
+    private volatile boolean crashed;
+
+    // Listens on the loopback interface
+    public GameServer(int port) {
+        this(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+    }
+
+    public GameServer(InetSocketAddress address) {
+        this.address = address;
+    }
+
+    // Event-loop threads, by default one per core
+    public void setShards(int shards) {
+        if (shards < 1) {
+            throw new IllegalArgumentException("Shards must be positive");
+        }
+        this.shardCount = shards;
+    }
+
+    // Threads that pair players; board sizes are spread over them
+    public void setMatchers(int matchers) {
+        if (matchers < 1) {
+            throw new IllegalArgumentException("Matchers must be positive");
+        }
+        this.matcherCount = matchers;
+    }
+
+    // 0 turns rebalancing off
+    public void setRebalanceInterval(long millis) {
+        if (millis < 0) {
+            throw new IllegalArgumentException("Rebalance interval must not be negative");
+        }
+        this.rebalanceMillis = millis;
+    }
+
+    // Keeps a write-ahead log of the games in the directory and recovers the games it holds
+    // on start; without one, games end with the process
+    public void setMoveLog(Path directory) {
+        this.logDirectory = directory;
+    }
+
+    // The log starts a new segment, with a checkpoint of every game, after this many bytes
+    public void setCheckpointBytes(long bytes) {
+        if (bytes <= 0) {
+            throw new IllegalArgumentException("Checkpoint bytes must be positive");
+        }
+        this.checkpointBytes = bytes;
+    }
+
+    // Games nobody sent a command for in idleMillis go to files in the directory (one per
+    // shard, emptied on start) until their next command
+    public void setPassivation(Path directory, long idleMillis) {
+        if (idleMillis <= 0) {
+            throw new IllegalArgumentException("Idle time must be positive");
+        }
+        this.storeDirectory = directory;
+        this.idleMillis = idleMillis;
+    }
+
+    // Every game is played under the time control; null (the default) for none
+    public void setTimeControl(TimeControl timeControl) {
+        this.timeControl = timeControl;
+    }
+
+    // Makes the server a node of a cluster: it obeys the cluster commands of a ClusterRouter
+    // that carry this key, and leaves pairing players to the router. 0 (the default) for none.
+    public void setClusterKey(long key) {
+        this.clusterKey = key;
+    }
+
+    public synchronized void start() throws IOException {
+        if (threads != null) {
+            throw new IllegalStateException("Server already started");
+        }
+        if (storeDirectory != null) {
+            Files.createDirectories(storeDirectory);
+        }
+        if (logDirectory != null) {
+            log = MoveLog.open(logDirectory, checkpointBytes);
+            log.setCheckpoints(shardCount, () -> {
+                for (Shard shard : shards) {
+                    shard.execute(shard::checkpoint);
+                }
+            });
+        }
+        shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i, this);
+        }
+        if (log != null) {
+            List<HostedGame> recovered = log.recovered();
+            for (HostedGame game : recovered) {
+                Shard owner = leastLoaded();
+                own(game.id, owner);
+                owner.add(game);
+            }
+            recoveredGames = recovered.size();
+            // Ids up to this one were used before the restart
+            nextGameId.set(log.lastGame() + 1);
+        }
+        ServerSocketChannel channel = ServerSocketChannel.open();
+        channel.bind(address, 1024);
+        channel.configureBlocking(false);
+        shards[0].listen(channel);
+        port = channel.socket().getLocalPort();
+        lastActions = new long[shardCount];
+        matchmaker = new Matchmaker<>(MAX_SIZE, Protocol.MAX_RATING, matcherCount, connection -> connection.closed, this::pair);
+
+        running = true;
+        threads = new Thread[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            threads[i] = new Thread(shards[i], "brique-server-" + i);
+            threads[i].setDaemon(true);
+            threads[i].start();
+        }
+        if (rebalanceMillis > 0 && shardCount > 1) {
+            rebalancer = new Thread(this::rebalanceLoop, "brique-server-rebalancer");
+            rebalancer.setDaemon(true);
+            rebalancer.start();
+        }
+    }
+
+    // The bound port (useful when started on port 0)
+    public int getPort() {
+        return port;
+    }
+
+    public int getShards() {
+        return shardCount;
+    }
+
+    // Games in progress, idle ones included
+    public int getActiveGames() {
+        int games = 0;
+        for (Shard shard : shards) {
+            games += shard.gameCount;
+        }
+        return games;
+    }
+
+    // Moves and swaps accepted since the start
+    public long getActionsPlayed() {
+        long actions = 0;
+        for (Shard shard : shards) {
+            actions += shard.actionsPlayed;
+        }
+        return actions;
+    }
+
+    // Snapshots sent because a client's hash disagreed
+    public long getResyncs() {
+        long resyncs = 0;
+        for (Shard shard : shards) {
+            resyncs += shard.resyncs;
+        }
+        return resyncs;
+    }
+
+    // Games moved to another shard by the rebalancer
+    public long getMigrations() {
+        long migrations = 0;
+        for (Shard shard : shards) {
+            migrations += shard.migrations;
+        }
+        return migrations;
+    }
+
+    // Connections watching a game, counted once per game
+    public int getSpectators() {
+        int spectators = 0;
+        for (Shard shard : shards) {
+            spectators += shard.spectators;
+        }
+        return spectators;
+    }
+
+    // Frames sent to spectators that fell behind, in place of the updates they missed
+    public long getCatchUpPatches() {
+        long patches = 0;
+        for (Shard shard : shards) {
+            patches += shard.catchUpPatches;
+        }
+        return patches;
+    }
+
+    public long getCatchUpSnapshots() {
+        long snapshots = 0;
+        for (Shard shard : shards) {
+            snapshots += shard.catchUpSnapshots;
+        }
+        return snapshots;
+    }
+
+    public int getConnections() {
+        return connections.get();
+    }
+
+    // Games in progress found in the move log on start
+    public int getRecoveredGames() {
+        return recoveredGames;
+    }
+
+    // Hosted games that are only a stub in memory
+    public int getIdleGames() {
+        int idle = 0;
+        for (Shard shard : shards) {
+            idle += shard.idleGames;
+        }
+        return idle;
+    }
+
+    // Idle games brought back by a command
+    public long getReactivations() {
+        long reactivations = 0;
+        for (Shard shard : shards) {
+            reactivations += shard.reactivations;
+        }
+        return reactivations;
+    }
+
+    // Idle games ended because their position could not be read back from the store
+    public long getLostGames() {
+        long lost = 0;
+        for (Shard shard : shards) {
+            lost += shard.lostGames;
+        }
+        return lost;
+    }
+
+    // Players waiting for an opponent
+    public int getWaitingPlayers() {
+        return matchmaker.getWaiting();
+    }
+
+    // Games ended by a player's clock running out
+    public long getFlagFalls() {
+        long flagFalls = 0;
+        for (Shard shard : shards) {
+            flagFalls += shard.flagFalls;
+        }
+        return flagFalls;
+    }
+
+    // Games handed to another node of the cluster, and taken from one (or from the router)
+    public long getHandoffs() {
+        long handoffs = 0;
+        for (Shard shard : shards) {
+            handoffs += shard.handoffs;
+        }
+        return handoffs;
+    }
+
+    public long getImports() {
+        long imports = 0;
+        for (Shard shard : shards) {
+            imports += shard.imports;
+        }
+        return imports;
+    }
+
+    // Forced writes of the move log, each covering the actions of every shard since the last
+    public long getLogSyncs() {
+        return log == null ? 0 : log.syncs;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        // Also after a crash, which stopped the loops but left the rest open
+        if (threads == null) {
+            return;
+        }
+        running = false;
+        matchmaker.close();
+        if (rebalancer != null) {
+            rebalancer.interrupt();
+        }
+        for (Shard shard : shards) {
+            shard.wakeup();
+        }
+        try {
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            if (rebalancer != null) {
+                rebalancer.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Shard shard : shards) {
+            shard.close();
+        }
+        if (log != null) {
+            log.close();
+        }
+        threads = null;
+    }
+
+    // False once closed, or once the server crashed
+    public boolean isRunning() {
+        return running;
+    }
+
+    // A shard whose move log commit failed stops every shard, as if the
+    // process had crashed: each one cuts its clients off when it sees it, and nothing else is
+    // played or sent. Safe from any thread, any number of times.
+    void crash() {
+        crashed = true;
+        running = false;
+        for (Shard shard : shards) {
+            shard.wakeup();
+        }
+    }
+
+    boolean crashed() {
+        return crashed;
+    }
+
+    // Null without a move log
+    MoveLog log() {
+        return log;
+    }
+
+    // Null without passivation
+    Path storeDirectory() {
+        return storeDirectory;
+    }
+
+    long idleMillis() {
+        return idleMillis;
+    }
+
+    // Null without a time control
+    TimeControl timeControl() {
+        return timeControl;
+    }
+
+    Matchmaker<ClientConnection> matchmaker() {
+        return matchmaker;
+    }
+
+    boolean clustered() {
+        return clusterKey != 0;
+    }
+
+    boolean trusts(long key) {
+        return clusterKey != 0 && key == clusterKey;
+    }
+
+    // Commands still on their way to the game are sent back to the router for a while
+    void handedOff(long game, long now) {
+        handedOff.put(game, now);
+        if (now - lastHandedOffSweep > HANDED_OFF_MILLIS) {
+            lastHandedOffSweep = now;
+            handedOff.values().removeIf(at -> now - at > HANDED_OFF_MILLIS);
+        }
+    }
+
+    boolean wasHandedOff(long game) {
+        return handedOff.containsKey(game);
+    }
+
+    // The game is back on this node
+    void arrived(long game) {
+        handedOff.remove(game);
+    }
+
+    // On a matcher thread: creates the game and routes it, before the START goes out, so
+    // that the players' first commands find it
+    private void pair(ClientConnection black, ClientConnection white, int size) {
+        SecureRandom seats = SEATS.get();
+        HostedGame game = new HostedGame(nextGameId.getAndIncrement(), size, black, white, seats.nextLong(), seats.nextLong());
+        Shard owner = leastLoaded();
+        own(game.id, owner);
+        black.games.add(game.id);
+        white.games.add(game.id);
+        owner.execute(() -> owner.start(game));
+    }
+
+    Shard shard(int index) {
+        return shards[index];
+    }
+
+    int shardCount() {
+        return shardCount;
+    }
+
+    // The shard that owns the game, null when it has ended (or never existed)
+    Shard owner(long game) {
+        return owners.get(game);
+    }
+
+    // Index of the game's shard, -1 when it has ended
+    int shardOf(long game) {
+        Shard owner = owners.get(game);
+        return owner == null ? -1 : owner.index;
+    }
+
+    void own(long game, Shard shard) {
+        owners.put(game, shard);
+    }
+
+    void disown(long game) {
+        owners.remove(game);
+    }
+
+    void connected(int delta) {
+        connections.addAndGet(delta);
+    }
+
+    Shard leastLoaded() {
+        Shard best = shards[0];
+        for (Shard shard : shards) {
+            if (shard.gameCount < best.gameCount) {
+                best = shard;
+            }
+        }
+        return best;
+    }
+
+    private void rebalanceLoop() {
+        while (running) {
+            try {
+                Thread.sleep(rebalanceMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+            rebalance();
+        }
+    }
+
+    // Compares the actions each shard played since the last call and, when the busiest is
+    // well ahead, asks it to move half the difference to the idlest
+    synchronized void rebalance() {
+        long total = 0;
+        int busiest = 0;
+        int idlest = 0;
+        long[] load = new long[shards.length];
+        for (int i = 0; i < shards.length; i++) {
+            long actions = shards[i].actionsPlayed;
+            load[i] = actions - lastActions[i];
+            lastActions[i] = actions;
+            total += load[i];
+            if (load[i] > load[busiest]) {
+                busiest = i;
+            }
+            if (load[i] < load[idlest]) {
+                idlest = i;
+            }
+        }
+        double mean = total / (double) shards.length;
+        long gap = load[busiest] - load[idlest];
+        if (gap >= MIN_SKEW && load[busiest] > SKEW * mean) {
+            Shard from = shards[busiest];
+            Shard to = shards[idlest];
+            from.execute(() -> from.migrate(to, gap / 2));
+        }
+    }
+}
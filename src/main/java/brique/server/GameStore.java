@@ -0,0 +1,76 @@
+package brique.server;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Idle games of one shard on disk, each in a fixed slot of SLOT_BYTES: a 2-byte length and
+// the game as a move log checkpoint (MoveLog.writeCheckpoint), about 30 bytes for 9x9 and
+// 200 for 25x25. Freed slots are reused before the file grows, so it stays as large as the
+// most games that were idle at once. The file is scratch space: it is emptied on open, and
+// a server with a move log recovers from the log, never from here.
+// Only its shard touches it.
+final class GameStore implements Closeable {
+
+    static final int SLOT_BYTES = MoveLog.MAX_RECORD + 2;
+
+    private final FileChannel channel;
+    private final ByteBuffer slot = ByteBuffer.allocate(SLOT_BYTES);
+    private int[] free = new int[64];
+    private int freeCount;
+    private int slots;
+
+    GameStore(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    // Writes the game's checkpoint to a free slot and returns the slot
+    int put(HostedGame game) throws IOException {
+        slot.clear().position(2);
+        MoveLog.writeCheckpoint(slot, game);
+        // Whole slots, so that every slot reads back in full
+        slot.putShort(0, (short) (slot.position() - 2)).clear();
+        int index = freeCount > 0 ? free[--freeCount] : slots++;
+        long at = (long) index * SLOT_BYTES;
+        while (slot.hasRemaining()) {
+            at += channel.write(slot, at);
+        }
+        return index;
+    }
+
+    // The checkpoint in the slot, valid until the next call
+    ByteBuffer get(int index) throws IOException {
+        slot.clear();
+        long at = (long) index * SLOT_BYTES;
+        while (slot.hasRemaining()) {
+            if (channel.read(slot, at + slot.position()) < 0) {
+                throw new EOFException("Slot " + index + " runs past the end of the store");
+            }
+        }
+        return slot.slice(2, slot.getShort(0));
+    }
+
+    void free(int index) {
+        if (freeCount == free.length) {
+            int[] larger = new int[free.length * 2];
+            System.arraycopy(free, 0, larger, 0, freeCount);
+            free = larger;
+        }
+        free[freeCount++] = index;
+    }
+
+    // Slots in use
+    int size() {
+        return slots - freeCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,103 @@
+package brique.server;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+
+// Consistent hashing of game ids onto the nodes of a cluster. Each node stands at points
+// places on a ring of 64-bit hashes (the hash of its name and the point's number), and a
+// game belongs to the node of the first point at or after the hash of its id. A node that
+// joins takes about 1/n of the games, all from the others, and a node that leaves only
+// gives up its own; with 256 points a node's share is within about 10% of the mean.
+// Immutable: a change of members makes a new ring.
+public final class HashRing {
+
+    public static final int DEFAULT_POINTS = 256;
+
+    private final List<String> nodes;
+    private final int points;
+    // Sorted hashes and the node at each
+    private final long[] hashes;
+    private final String[] owners;
+
+    public HashRing(Collection<String> nodes, int points) {
+        if (points < 1) {
+            throw new IllegalArgumentException("Points must be positive");
+        }
+        this.nodes = List.copyOf(new TreeSet<>(nodes));
+        this.points = points;
+        int count = this.nodes.size() * points;
+        long[][] placed = new long[count][];
+        int at = 0;
+        for (int node = 0; node < this.nodes.size(); node++) {
+            byte[] name = this.nodes.get(node).getBytes(StandardCharsets.UTF_8);
+            for (int point = 0; point < points; point++) {
+                placed[at++] = new long[] {mix(fnv(name) + point * 0x9E3779B97F4A7C15L), node};
+            }
+        }
+        // Ties (practically never) go to the node first by name
+        Arrays.sort(placed, (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+        this.hashes = new long[count];
+        this.owners = new String[count];
+        for (int i = 0; i < count; i++) {
+            hashes[i] = placed[i][0];
+            owners[i] = this.nodes.get((int) placed[i][1]);
+        }
+    }
+
+    public HashRing(Collection<String> nodes) {
+        this(nodes, DEFAULT_POINTS);
+    }
+
+    // Null on an empty ring
+    public String owner(long game) {
+        if (hashes.length == 0) {
+            return null;
+        }
+        int at = Arrays.binarySearch(hashes, mix(game));
+        if (at < 0) {
+            at = -at - 1;
+        }
+        return owners[at == hashes.length ? 0 : at];
+    }
+
+    public HashRing with(String node) {
+        TreeSet<String> members = new TreeSet<>(nodes);
+        members.add(node);
+        return new HashRing(members, points);
+    }
+
+    public HashRing without(String node) {
+        TreeSet<String> members = new TreeSet<>(nodes);
+        members.remove(node);
+        return new HashRing(members, points);
+    }
+
+    // In name order
+    public List<String> nodes() {
+        return nodes;
+    }
+
+    public boolean contains(String node) {
+        return nodes.contains(node);
+    }
+
+    // The finalizer of MurmurHash3: consecutive ids land far apart
+    static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xFF51AFD7ED558CCDL;
+        value ^= value >>> 33;
+        value *= 0xC4CEB9FE1A85EC53L;
+        return value ^ value >>> 33;
+    }
+
+    private static long fnv(byte[] bytes) {
+        long hash = 0xCBF29CE484222325L;
+        for (byte b : bytes) {
+            hash = (hash ^ (b & 0xFF)) * 0x100000001B3L;
+        }
+        return hash;
+    }
+}
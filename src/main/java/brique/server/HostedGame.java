@@ -0,0 +1,78 @@
+package brique.server;
+
+import brique.core.GameClock;
+import brique.core.GameState;
+import brique.core.Move;
+import brique.core.Stone;
+import brique.core.ZobristHash;
+
+import java.util.BitSet;
+
+// One game on the server: the authoritative GameState, the connection of each player with
+// the secret that lets a player take the seat back, the shards with spectators of it and
+// the position hash, kept up to date from each Move instead of rehashing the board.
+// Only the shard that owns it touches it; a migration hands it over through the task queue.
+// A game recovered from the move log starts with both seats empty (null). An idle game is a
+// stub: its state is null and the position is in its shard's GameStore until the next
+// command for it. A game on its way to another node of a cluster keeps its later actions as
+// move log records.
+final class HostedGame {
+
+    final long id;
+    GameState state;
+    final long blackSeat;
+    final long whiteSeat;
+    ClientConnection black;
+    ClientConnection white;
+    // Moves and swaps applied so far, and when the shard last measured how busy the game is
+    int actions;
+    int actionsAtLastLook;
+    int recentActions;
+    // When the last command for it arrived (the shard's clock), and its GameStore slot while idle
+    long lastActive;
+    int slot = -1;
+    // Null without a time control; the flag is armed on the owning shard's wheel
+    GameClock clock;
+    TimerWheel.Timer<HostedGame> flag;
+    // Indexes of the shards that get every update for their spectators
+    final BitSet watchedFrom = new BitSet();
+    // Between an EXPORT and the HANDOFF, the actions played since the checkpoint went out
+    MoveLog.Batch tail;
+    private long boardHash;
+
+    HostedGame(long id, int size, ClientConnection black, ClientConnection white, long blackSeat, long whiteSeat) {
+        this(id, new GameState(size), 0, blackSeat, whiteSeat);
+        this.black = black;
+        this.white = white;
+    }
+
+    HostedGame(long id, GameState state, int actions, long blackSeat, long whiteSeat) {
+        this.id = id;
+        this.state = state;
+        this.actions = actions;
+        this.blackSeat = blackSeat;
+        this.whiteSeat = whiteSeat;
+        this.boardHash = ZobristHash.boardHash(state.getBoard());
+    }
+
+    ClientConnection playerToMove() {
+        return state.getCurrentPlayer() == Stone.BLACK ? black : white;
+    }
+
+    ClientConnection opponentOf(ClientConnection connection) {
+        return connection == black ? white : black;
+    }
+
+    void moved(Move move) {
+        boardHash ^= ZobristHash.moveDelta(move);
+    }
+
+    void swapped() {
+        boardHash ^= ZobristHash.pieDelta(state.getMoveHistory().get(0).getPosition());
+    }
+
+    // ZobristHash.of(state)
+    long hash() {
+        return boardHash ^ ZobristHash.turnKey(state);
+    }
+}
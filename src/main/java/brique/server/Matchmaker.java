@@ -0,0 +1,254 @@
+package brique.server;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Predicate;
+
+// Pairs players who asked for a game of the same board size and a close enough rating.
+// Requests go into buckets, one per board size and rating band, each with a lock-free MPSC
+// inbox (see MpscQueue), so joining takes one atomic exchange whatever thread it comes
+// from. Each board size belongs to one matcher thread, the only one that touches its
+// buckets: it drains the inboxes in a batch, walks the waiting players in rating order
+// (band by band, each band sorted) and pairs each with the next one when the gap is within
+// both players' windows. A player who asked more than once is never its own opponent: its
+// other requests wait behind it for the next players along. A window starts at BASE_WINDOW and widens by WIDEN_PER_SECOND for
+// every second waited, so a player nobody is near gets a wider choice in time, across
+// bands too. Of a pair, the player who waited longer plays Black. Players that are gone
+// (the predicate) are dropped at the next pass.
+public final class Matchmaker<T> implements Closeable {
+
+    public static final int BAND_WIDTH = 200;
+    public static final int BASE_WINDOW = 100;
+    public static final int WIDEN_PER_SECOND = 50;
+    // Waiting players are looked at again this often, for their wider windows
+    private static final long PASS_NANOS = 20_000_000;
+
+    public interface Pairing<T> {
+        // On the matcher thread
+        void paired(T black, T white, int size);
+    }
+
+    private static final class Ticket<T> {
+
+        final T player;
+        final int rating;
+        final long joined;
+        boolean done;
+
+        Ticket(T player, int rating, long joined) {
+            this.player = player;
+            this.rating = rating;
+            this.joined = joined;
+        }
+    }
+
+    private static final class Bucket<T> {
+
+        final MpscQueue<Ticket<T>> inbox = new MpscQueue<>();
+        // Matcher only
+        final List<Ticket<T>> waiting = new ArrayList<>();
+        boolean unsorted;
+    }
+
+    private final int maxSize;
+    private final int maxRating;
+    private final Predicate<T> gone;
+    private final Pairing<T> pairing;
+    private final Bucket<T>[][] buckets;
+    private final List<Matcher> matchers = new ArrayList<>();
+    private volatile boolean running = true;
+
+    // Board sizes up to maxSize, ratings from 0 to maxRating
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public Matchmaker(int maxSize, int maxRating, int threads, Predicate<T> gone, Pairing<T> pairing) {
+        if (maxSize < 1 || maxRating < 0 || threads < 1) {
+            throw new IllegalArgumentException("Sizes and threads must be positive and ratings not negative");
+        }
+        this.maxSize = maxSize;
+        this.maxRating = maxRating;
+        this.gone = gone;
+        this.pairing = pairing;
+        int bands = maxRating / BAND_WIDTH + 1;
+        this.buckets = new Bucket[maxSize + 1][bands];
+        for (Bucket<T>[] size : buckets) {
+            for (int band = 0; band < bands; band++) {
+                size[band] = new Bucket<>();
+            }
+        }
+        for (int i = 0; i < Math.min(threads, maxSize + 1); i++) {
+            matchers.add(new Matcher(i));
+        }
+        for (Matcher matcher : matchers) {
+            matcher.thread.start();
+        }
+    }
+
+    // Any thread
+    public void join(T player, int size, int rating) {
+        if (size < 1 || size > maxSize) {
+            throw new IllegalArgumentException("Board size out of range: " + size);
+        }
+        if (rating < 0 || rating > maxRating) {
+            throw new IllegalArgumentException("Rating out of range: " + rating);
+        }
+        buckets[size][rating / BAND_WIDTH].inbox.offer(new Ticket<>(player, rating, System.nanoTime()));
+        matchers.get(size % matchers.size()).wake();
+    }
+
+    // Players waiting for an opponent as of each matcher's last pass
+    public int getWaiting() {
+        int waiting = 0;
+        for (Matcher matcher : matchers) {
+            waiting += matcher.waiting;
+        }
+        return waiting;
+    }
+
+    public long getPairings() {
+        long pairings = 0;
+        for (Matcher matcher : matchers) {
+            pairings += matcher.pairings;
+        }
+        return pairings;
+    }
+
+    // Batches in which a matcher found new requests or waiting players to look at again
+    public long getPasses() {
+        long passes = 0;
+        for (Matcher matcher : matchers) {
+            passes += matcher.passes;
+        }
+        return passes;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        for (Matcher matcher : matchers) {
+            LockSupport.unpark(matcher.thread);
+        }
+        try {
+            for (Matcher matcher : matchers) {
+                matcher.thread.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // The accepted rating gap after waiting since joined
+    static long window(long joined, long now) {
+        return BASE_WINDOW + (now - joined) * WIDEN_PER_SECOND / 1_000_000_000L;
+    }
+
+    private final class Matcher implements Runnable {
+
+        final Thread thread;
+        private final AtomicBoolean awake = new AtomicBoolean(true);
+        private final int index;
+        private final List<Ticket<T>> order = new ArrayList<>();
+        // Requests of the player in previous, seen while it waited
+        private final ArrayDeque<Ticket<T>> held = new ArrayDeque<>();
+        volatile int waiting;
+        volatile long pairings;
+        volatile long passes;
+
+        Matcher(int index) {
+            this.index = index;
+            this.thread = new Thread(this, "brique-matcher-" + index);
+            thread.setDaemon(true);
+        }
+
+        void wake() {
+            if (!awake.getAndSet(true)) {
+                LockSupport.unpark(thread);
+            }
+        }
+
+        @Override
+        public void run() {
+            long nextPass = 0;
+            while (running) {
+                awake.set(false);
+                boolean joined = drain();
+                long now = System.nanoTime();
+                if (joined || waiting > 0 && now - nextPass >= 0) {
+                    pass(now);
+                    nextPass = now + PASS_NANOS;
+                }
+                // A bounded park: an offer still being linked can be missed by drain
+                LockSupport.parkNanos(waiting > 0 ? Math.max(1, nextPass - now) : PASS_NANOS);
+            }
+        }
+
+        // Moves every request in this matcher's inboxes to its bucket; true if there were any
+        private boolean drain() {
+            boolean any = false;
+            for (int size = index; size <= maxSize; size += matchers.size()) {
+                for (Bucket<T> bucket : buckets[size]) {
+                    Ticket<T> ticket;
+                    while ((ticket = bucket.inbox.poll()) != null) {
+                        bucket.waiting.add(ticket);
+                        bucket.unsorted = true;
+                        any = true;
+                    }
+                }
+            }
+            return any;
+        }
+
+        private void pass(long now) {
+            int left = 0;
+            long paired = 0;
+            for (int size = index; size <= maxSize; size += matchers.size()) {
+                order.clear();
+                for (Bucket<T> bucket : buckets[size]) {
+                    if (bucket.unsorted) {
+                        bucket.waiting.sort(Comparator.comparingInt(ticket -> ticket.rating));
+                        bucket.unsorted = false;
+                    }
+                    order.addAll(bucket.waiting);
+                }
+                if (order.isEmpty()) {
+                    continue;
+                }
+                Ticket<T> previous = null;
+                held.clear();
+                for (Ticket<T> ticket : order) {
+                    if (gone.test(ticket.player)) {
+                        ticket.done = true;
+                        continue;
+                    }
+                    if (previous != null && previous.player == ticket.player) {
+                        held.add(ticket);
+                        continue;
+                    }
+                    if (previous != null && ticket.rating - previous.rating
+                            <= Math.min(window(previous.joined, now), window(ticket.joined, now))) {
+                        previous.done = true;
+                        ticket.done = true;
+                        boolean older = previous.joined - ticket.joined <= 0;
+                        pairing.paired(older ? previous.player : ticket.player, older ? ticket.player : previous.player, size);
+                        paired++;
+                        previous = held.poll();
+                    } else {
+                        previous = ticket;
+                        held.clear();
+                    }
+                }
+                for (Bucket<T> bucket : buckets[size]) {
+                    bucket.waiting.removeIf(ticket -> ticket.done);
+                    left += bucket.waiting.size();
+                }
+            }
+            waiting = left;
+            pairings += paired;
+            passes++;
+        }
+    }
+}
@@ -0,0 +1,575 @@
+package brique.server;
+
+import brique.core.GameState;
+import brique.core.Move;
+import brique.core.MoveExecutor;
+import brique.core.Stone;
+import brique.rules.GameRules;
+import brique.rules.RuleType;
+import brique.rules.RulesFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+// Write-ahead log of the server's games: each game started, move, swap and end is on disk
+// before anyone hears of it, so a server that dies loses no action a client saw. Each shard
+// collects the records of one loop turn in its Batch and commits it before flushing its
+// sockets. The first shard to commit writes every batch waiting at that moment with one
+// gathering write and one force, while the others wait for it (group commit): a sync per
+// turn of the loops rather than one per move.
+// The log is a directory of segments, wal-<n>.log: a header (magic, version, highest game
+// id so far), then records, each a varint length, the payload (type and fields, varints as
+// in Protocol) and the CRC32C of the payload:
+//   START      game size blackSeat whiteSeat
+//   MOVE       game actions cell
+//   SWAP       game actions
+//   END        game
+//   CHECKPOINT game actions size blackSeat whiteSeat flags first cells
+// actions counts the moves and swaps including this one. A checkpoint is the whole position:
+// flags bit 0 White to move, bit 1 pie rule open; first is Black's first cell + 1 while the
+// swap may still need it, else 0; cells 2 bits each as in a SNAPSHOT.
+// Once the current segment passes the checkpoint size a new one is started and every shard
+// writes a checkpoint of each of its games into it; when they are all on disk the older
+// segments are deleted. Opening the log replays it: each game from its last checkpoint, its
+// later actions through the rules, and games that ended are dropped; the games left are
+// checkpointed into a fresh segment. A torn record at the end of the last segment (the
+// crash hit a write) is ignored; damage anywhere else is an IOException.
+// The same records carry games between the nodes of a cluster: a checkpoint, then the tail
+// of actions played while it was on its way (see records and replay).
+final class MoveLog implements Closeable {
+
+    static final long DEFAULT_CHECKPOINT_BYTES = 64L << 20;
+
+    private static final int MAGIC = 0x4252574C; // "BRWL"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    // A checkpoint of a 25x25 board takes about 200 bytes
+    static final int MAX_RECORD = 256;
+    private static final int BATCH_BYTES = 64 * 1024;
+    private static final String PREFIX = "wal-";
+    private static final String SUFFIX = ".log";
+
+    private static final byte START = 1;
+    private static final byte MOVE = 2;
+    private static final byte SWAP = 3;
+    private static final byte END = 4;
+    private static final byte CHECKPOINT = 5;
+    private static final int WHITE_TO_MOVE = 1;
+    private static final int PIE_OPEN = 2;
+
+    private final Path directory;
+    private final long checkpointBytes;
+    private final AtomicLong lastGame = new AtomicLong();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition synced = lock.newCondition();
+    // Guarded by lock: batches not written yet, and commit tickets handed out and on disk
+    private final List<ByteBuffer> waiting = new ArrayList<>();
+    private long queued;
+    private long durable;
+    private boolean writing;
+    private IOException failure;
+
+    // Touched by whichever shard is writing
+    private FileChannel channel;
+    private long segment;
+    private long segmentBytes;
+    // Segments to delete once every shard has checkpointed its games after them
+    private final List<Path> obsolete = new ArrayList<>();
+    private final AtomicInteger checkpointsDue = new AtomicInteger();
+    private int shards;
+    private Runnable checkpointRequest;
+
+    private final Map<Long, HostedGame> recovered = new LinkedHashMap<>();
+    volatile long syncs;
+
+    private MoveLog(Path directory, long checkpointBytes) {
+        this.directory = directory;
+        this.checkpointBytes = checkpointBytes;
+    }
+
+    // Replays the log in the directory (created when missing) and starts a new segment
+    static MoveLog open(Path directory, long checkpointBytes) throws IOException {
+        Files.createDirectories(directory);
+        MoveLog log = new MoveLog(directory, checkpointBytes);
+        List<Path> segments = segments(directory);
+        GameRules rules = RulesFactory.createRules(RuleType.STANDARD);
+        for (int i = 0; i < segments.size(); i++) {
+            log.replay(segments.get(i), i == segments.size() - 1, rules);
+        }
+        log.recovered.values().removeIf(game -> !game.state.isInProgress() || !Shard.hasEmptyCell(game.state));
+        log.startSegment(segments.isEmpty() ? 1 : number(segments.get(segments.size() - 1)) + 1);
+        Batch batch = log.newBatch();
+        for (HostedGame game : log.recovered.values()) {
+            batch.checkpoint(game);
+        }
+        log.commit(batch);
+        for (Path old : segments) {
+            Files.delete(old);
+        }
+        return log;
+    }
+
+    // The shards each write a checkpoint of their games when asked by the task, then call
+    // checkpointed
+    void setCheckpoints(int shards, Runnable request) {
+        this.shards = shards;
+        this.checkpointRequest = request;
+    }
+
+    // The games in progress when the log was opened, each with both seats empty
+    List<HostedGame> recovered() {
+        return new ArrayList<>(recovered.values());
+    }
+
+    // Highest game id the log has seen: new games must take higher ones
+    long lastGame() {
+        return lastGame.get();
+    }
+
+    Batch newBatch() {
+        return new Batch(this, BATCH_BYTES);
+    }
+
+    // Records for another node rather than the disk, starting with room for this many bytes
+    static Batch records(int bytes) {
+        return new Batch(null, bytes);
+    }
+
+    // The game that START or CHECKPOINT records and the MOVE and SWAP records after them
+    // describe, as a log replay would find it: both seats empty. IllegalArgumentException
+    // when a record is damaged or about another game, or when the game ended.
+    static HostedGame replay(long id, ByteBuffer records, GameRules rules) {
+        Map<Long, HostedGame> games = new LinkedHashMap<>();
+        CRC32C crc = new CRC32C();
+        ByteBuffer data = records.duplicate();
+        while (data.hasRemaining()) {
+            ByteBuffer payload = nextRecord(data, crc);
+            if (payload == null) {
+                throw new IllegalArgumentException("damaged record at byte " + data.position());
+            }
+            if (apply(payload, rules, games) != id) {
+                throw new IllegalArgumentException("a record about another game than " + id);
+            }
+        }
+        HostedGame game = games.get(id);
+        if (game == null || !game.state.isInProgress() || !Shard.hasEmptyCell(game.state)) {
+            throw new IllegalArgumentException("no game in progress in the records");
+        }
+        return game;
+    }
+
+    // Returns once the batch is on disk, with those the other shards committed meanwhile.
+    // After a failed write every commit throws: the log can no longer promise anything.
+    void commit(Batch batch) throws IOException {
+        ByteBuffer records = batch.buffer.flip();
+        lock.lock();
+        try {
+            waiting.add(records);
+            long ticket = ++queued;
+            while (durable < ticket) {
+                if (failure != null) {
+                    throw new IOException("The move log failed", failure);
+                }
+                if (writing) {
+                    synced.awaitUninterruptibly();
+                    continue;
+                }
+                writing = true;
+                ByteBuffer[] group = waiting.toArray(new ByteBuffer[0]);
+                waiting.clear();
+                long upTo = queued;
+                lock.unlock();
+                try {
+                    write(group);
+                    durable = upTo;
+                } catch (IOException e) {
+                    failure = e;
+                } finally {
+                    lock.lock();
+                    writing = false;
+                    synced.signalAll();
+                }
+            }
+        } finally {
+            lock.unlock();
+            batch.buffer.clear();
+        }
+    }
+
+    // A shard's checkpoints are on disk; the last shard's lets the old segments go
+    void checkpointed() throws IOException {
+        if (checkpointsDue.decrementAndGet() == 0) {
+            for (Path old : obsolete) {
+                Files.deleteIfExists(old);
+            }
+            obsolete.clear();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void write(ByteBuffer[] group) throws IOException {
+        long bytes = 0;
+        for (ByteBuffer records : group) {
+            bytes += records.remaining();
+        }
+        for (int first = 0; first < group.length; ) {
+            channel.write(group, first, group.length - first);
+            while (first < group.length && !group[first].hasRemaining()) {
+                first++;
+            }
+        }
+        channel.force(false);
+        syncs++;
+        segmentBytes += bytes;
+        if (segmentBytes >= checkpointBytes && checkpointRequest != null && checkpointsDue.get() == 0) {
+            obsolete.add(path(segment));
+            checkpointsDue.set(shards);
+            startSegment(segment + 1);
+            checkpointRequest.run();
+        }
+    }
+
+    private void startSegment(long number) throws IOException {
+        FileChannel next = FileChannel.open(path(number), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC).putInt(VERSION).putLong(lastGame.get()).flip();
+        while (header.hasRemaining()) {
+            next.write(header);
+        }
+        next.force(true);
+        // The new file's directory entry must survive a crash too
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            // Directories cannot be opened on every platform
+        }
+        if (channel != null) {
+            channel.close();
+        }
+        channel = next;
+        segment = number;
+        segmentBytes = HEADER_BYTES;
+    }
+
+    private Path path(long number) {
+        return directory.resolve(String.format("%s%016d%s", PREFIX, number, SUFFIX));
+    }
+
+    private static List<Path> segments(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().matches(PREFIX + "\\d{16}" + SUFFIX))
+                        .sorted()
+                        .toList();
+        }
+    }
+
+    private static long number(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    // ---- Recovery ----
+
+    private void replay(Path path, boolean last, GameRules rules) throws IOException {
+        ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(path));
+        if (data.remaining() < HEADER_BYTES && last) {
+            // Created, but the crash came before its header was written
+            return;
+        }
+        if (data.remaining() < HEADER_BYTES || data.getInt() != MAGIC || data.getInt() != VERSION) {
+            throw new IOException(path + " is not a move log segment");
+        }
+        lastGame.accumulateAndGet(data.getLong(), Math::max);
+        CRC32C crc = new CRC32C();
+        while (data.hasRemaining()) {
+            int start = data.position();
+            ByteBuffer payload = nextRecord(data, crc);
+            if (payload == null) {
+                if (last) {
+                    return;
+                }
+                throw new IOException(path + " is damaged at byte " + start);
+            }
+            try {
+                lastGame.accumulateAndGet(apply(payload, rules, recovered), Math::max);
+            } catch (IllegalArgumentException e) {
+                throw new IOException(path + " has a bad record at byte " + start + ": " + e.getMessage(), e);
+            }
+        }
+    }
+
+    // The payload of the next record, or null when it is cut short or fails its checksum
+    private static ByteBuffer nextRecord(ByteBuffer data, CRC32C crc) {
+        int length;
+        try {
+            length = Protocol.readVarint(data);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (length < 1 || length > MAX_RECORD || data.remaining() < length + 4) {
+            return null;
+        }
+        ByteBuffer payload = data.slice(data.position(), length);
+        data.position(data.position() + length);
+        crc.reset();
+        crc.update(payload.duplicate());
+        return (int) crc.getValue() == data.getInt() ? payload : null;
+    }
+
+    // Plays the record on the games; returns the id it is about
+    private static long apply(ByteBuffer payload, GameRules rules, Map<Long, HostedGame> games) {
+        byte type = Protocol.readByte(payload);
+        long id = Protocol.readVarlong(payload);
+        HostedGame game = games.get(id);
+        switch (type) {
+            case START -> {
+                int size = readSize(payload);
+                games.put(id, new HostedGame(id, new GameState(size), 0, Protocol.readLong(payload), Protocol.readLong(payload)));
+            }
+            case MOVE -> {
+                int actions = Protocol.readVarint(payload);
+                int cell = Protocol.readVarint(payload);
+                if (next(game, actions)) {
+                    int size = game.state.getBoard().getSize();
+                    Move move = cell < size * size ? MoveExecutor.play(game.state, rules, Protocol.position(cell, size)) : null;
+                    if (move == null) {
+                        throw new IllegalArgumentException("illegal move " + cell + " in game " + id);
+                    }
+                    game.moved(move);
+                    game.actions = actions;
+                }
+            }
+            case SWAP -> {
+                int actions = Protocol.readVarint(payload);
+                if (next(game, actions)) {
+                    GameState state = game.state;
+                    if (!state.isPieRuleAvailable() || state.getCurrentPlayer() != Stone.WHITE || state.getMoveHistory().isEmpty()) {
+                        throw new IllegalArgumentException("swap out of turn in game " + id);
+                    }
+                    state.applyPieRule();
+                    game.swapped();
+                    game.actions = actions;
+                }
+            }
+            case END -> games.remove(id);
+            case CHECKPOINT -> {
+                HostedGame restored = readPosition(id, payload);
+                if (game == null || restored.actions >= game.actions) {
+                    games.put(id, restored);
+                }
+            }
+            default -> throw new IllegalArgumentException("unknown record type " + type);
+        }
+        if (payload.hasRemaining()) {
+            throw new IllegalArgumentException(payload.remaining() + " bytes after the record");
+        }
+        return id;
+    }
+
+    // Whether the action is the game's next one. Actions of a game the log has no start of
+    // come before its checkpoint (written by the shard it migrated to), and so do actions
+    // the checkpoint already holds.
+    private static boolean next(HostedGame game, int actions) {
+        if (game == null || actions <= game.actions) {
+            return false;
+        }
+        if (actions > game.actions + 1) {
+            throw new IllegalArgumentException("action " + (game.actions + 1) + " of game " + game.id + " is missing");
+        }
+        return true;
+    }
+
+    // A CHECKPOINT payload, as written by writeCheckpoint: the game with both seats empty
+    static HostedGame readCheckpoint(ByteBuffer payload) {
+        byte type = Protocol.readByte(payload);
+        if (type != CHECKPOINT) {
+            throw new IllegalArgumentException("not a checkpoint: record type " + type);
+        }
+        HostedGame game = readPosition(Protocol.readVarlong(payload), payload);
+        if (payload.hasRemaining()) {
+            throw new IllegalArgumentException(payload.remaining() + " bytes after the checkpoint");
+        }
+        return game;
+    }
+
+    // The payload of a CHECKPOINT record (without length and checksum): the whole game, at
+    // most MAX_RECORD bytes. A shard stores its idle games this way too.
+    static void writeCheckpoint(ByteBuffer out, HostedGame game) {
+        GameState state = game.state;
+        int size = state.getBoard().getSize();
+        out.put(CHECKPOINT);
+        Protocol.writeVarlong(out, game.id);
+        Protocol.writeVarint(out, game.actions);
+        Protocol.writeVarint(out, size);
+        out.putLong(game.blackSeat).putLong(game.whiteSeat);
+        boolean pieOpen = state.isPieRuleAvailable();
+        out.put((byte) ((state.getCurrentPlayer() == Stone.WHITE ? WHITE_TO_MOVE : 0) | (pieOpen ? PIE_OPEN : 0)));
+        boolean firstMatters = pieOpen && !state.getMoveHistory().isEmpty();
+        Protocol.writeVarint(out, firstMatters ? Protocol.cell(state.getMoveHistory().get(0).getPosition(), size) + 1 : 0);
+        int bits = 0;
+        for (int cell = 0; cell < size * size; cell++) {
+            Stone stone = state.getBoard().getStone(Protocol.position(cell, size));
+            bits |= (stone == Stone.BLACK ? 1 : stone == Stone.WHITE ? 2 : 0) << (2 * (cell & 3));
+            if ((cell & 3) == 3 || cell == size * size - 1) {
+                out.put((byte) bits);
+                bits = 0;
+            }
+        }
+    }
+
+    private static HostedGame readPosition(long id, ByteBuffer in) {
+        int actions = Protocol.readVarint(in);
+        int size = readSize(in);
+        long blackSeat = Protocol.readLong(in);
+        long whiteSeat = Protocol.readLong(in);
+        int flags = Protocol.readByte(in);
+        int first = Protocol.readVarint(in);
+        if (first > size * size) {
+            throw new IllegalArgumentException("first move " + (first - 1) + " off the board");
+        }
+        GameState state = new GameState(size);
+        int bits = 0;
+        for (int cell = 0; cell < size * size; cell++) {
+            if ((cell & 3) == 0) {
+                bits = Protocol.readByte(in);
+            }
+            int code = bits >> (2 * (cell & 3)) & 3;
+            if (code == 3) {
+                throw new IllegalArgumentException("unknown colour at cell " + cell);
+            }
+            if (code != 0) {
+                state.getBoard().setStone(Protocol.position(cell, size), code == 1 ? Stone.BLACK : Stone.WHITE);
+            }
+        }
+        if ((flags & WHITE_TO_MOVE) != 0) {
+            state.switchPlayer();
+        }
+        if ((flags & PIE_OPEN) == 0) {
+            state.turnOffPieRule();
+        }
+        if (first > 0) {
+            state.recordMove(new Move(Protocol.position(first - 1, size), Stone.BLACK));
+        }
+        return new HostedGame(id, state, actions, blackSeat, whiteSeat);
+    }
+
+    private static int readSize(ByteBuffer in) {
+        int size = Protocol.readVarint(in);
+        if (size < GameServer.MIN_SIZE || size > GameServer.MAX_SIZE) {
+            throw new IllegalArgumentException("board size out of range: " + size);
+        }
+        return size;
+    }
+
+    // ---- Writing ----
+
+    // The records one shard made since its last commit; only that shard touches it. Without
+    // a log (see records) they go to another node.
+    static final class Batch {
+
+        private final MoveLog log;
+        private final ByteBuffer record = ByteBuffer.allocate(MAX_RECORD);
+        private final CRC32C crc = new CRC32C();
+        private ByteBuffer buffer;
+
+        private Batch(MoveLog log, int bytes) {
+            this.log = log;
+            this.buffer = ByteBuffer.allocate(bytes);
+        }
+
+        boolean isEmpty() {
+            return buffer.position() == 0;
+        }
+
+        int bytes() {
+            return buffer.position();
+        }
+
+        // The records so far, to be read
+        ByteBuffer contents() {
+            return buffer.duplicate().flip();
+        }
+
+        void started(HostedGame game) {
+            begin(START, game.id);
+            Protocol.writeVarint(record, game.state.getBoard().getSize());
+            record.putLong(game.blackSeat).putLong(game.whiteSeat);
+            end();
+            if (log != null) {
+                log.lastGame.accumulateAndGet(game.id, Math::max);
+            }
+        }
+
+        void moved(HostedGame game, Move move) {
+            begin(MOVE, game.id);
+            Protocol.writeVarint(record, game.actions);
+            Protocol.writeVarint(record, Protocol.cell(move.getPosition(), game.state.getBoard().getSize()));
+            end();
+        }
+
+        void swapped(HostedGame game) {
+            begin(SWAP, game.id);
+            Protocol.writeVarint(record, game.actions);
+            end();
+        }
+
+        void ended(HostedGame game) {
+            begin(END, game.id);
+            end();
+        }
+
+        void checkpoint(HostedGame game) {
+            record.clear();
+            writeCheckpoint(record, game);
+            end();
+        }
+
+        // A checkpoint encoded already: an idle game as its shard stored it
+        void checkpoint(ByteBuffer payload) {
+            record.clear();
+            record.put(payload.duplicate());
+            end();
+        }
+
+        private void begin(byte type, long game) {
+            record.clear();
+            record.put(type);
+            Protocol.writeVarlong(record, game);
+        }
+
+        // Appends the record with its length and checksum
+        private void end() {
+            record.flip();
+            if (buffer.remaining() < record.remaining() + 8) {
+                ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + record.remaining() + 8));
+                larger.put(buffer.flip());
+                buffer = larger;
+            }
+            crc.reset();
+            crc.update(record.duplicate());
+            Protocol.writeVarint(buffer, record.remaining());
+            buffer.put(record);
+            buffer.putInt((int) crc.getValue());
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package brique.server;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+// Unbounded multi-producer single-consumer queue (Vyukov's linked list): a producer swaps
+// itself in as the tail with one atomic exchange and then links the old tail to it, the
+// consumer walks the links without any atomic operation. Between the exchange and the link
+// the consumer may briefly see the queue as empty; the producer wakes it afterwards anyway.
+final class MpscQueue<T> {
+
+    private static final class Node<T> {
+        volatile Node<T> next;
+        T value;
+
+        Node(T value) {
+            this.value = value;
+        }
+    }
+
+    private final AtomicReference<Node<T>> tail;
+    // Consumer only: the last node taken, whose successor is the next value
+    private Node<T> head;
+
+    MpscQueue() {
+        Node<T> stub = new Node<>(null);
+        this.head = stub;
+        this.tail = new AtomicReference<>(stub);
+    }
+
+    // Any thread
+    void offer(T value) {
+        Node<T> node = new Node<>(value);
+        tail.getAndSet(node).next = node;
+    }
+
+    // Consumer only; null when empty
+    T poll() {
+        Node<T> next = head.next;
+        if (next == null) {
+            return null;
+        }
+        T value = next.value;
+        next.value = null;
+        head = next;
+        return value;
+    }
+
+    // Consumer only
+    boolean isEmpty() {
+        return head.next == null;
+    }
+}
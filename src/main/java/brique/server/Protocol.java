@@ -0,0 +1,725 @@
+package brique.server;
+
+import brique.core.GameEnd;
+import brique.core.GameState;
+import brique.core.Move;
+import brique.core.Position;
+import brique.core.Stone;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+// Binary protocol between GameServer and its clients. A frame is a varint payload length
+// (1..MAX_FRAME) followed by the payload: a type byte and the fields below. Varints are
+// unsigned LEB128, cells are row * size + col, hashes are ZobristHash.of the position
+// after the change (big-endian). A connection can play any number of games at once;
+// every message after the pairing names its game.
+//   client: PLAY     size [rating]                       play someone of that size and a close rating
+//                                                        (DEFAULT_RATING if left out), see Matchmaker
+//           MOVE     game cell                           place a stone
+//           SWAP     game                                apply the pie rule
+//           RESYNC   game                                send me a SNAPSHOT: my hash disagreed
+//           WATCH    game                                spectate: a SNAPSHOT, then every update
+//           RESUME   game seat                           take a seat back (a game the server recovered
+//                                                        from its move log): START and SNAPSHOT again
+//   router: EXPORT   key game                            send the game's checkpoint and keep its later actions
+//           HANDOFF  key game                            stop hosting the game: send the actions since the EXPORT
+//           IMPORT   key game records                    host the game the records describe
+//                                                        (cluster commands, see ClusterRouter: refused unless
+//                                                        key is the node's cluster key)
+//   server: START    game colour size seat               paired: the game exists, colour 1 = Black, 2 = White;
+//                                                        seat is the secret RESUME takes (8 bytes)
+//           SNAPSHOT game actions flags size cells hash  the whole position, 2 bits per cell (0 empty,
+//                                                        1 Black, 2 White), after the start and on RESYNC
+//           DELTA    game actions flags [placed n filled... m captured...] hash
+//                                                        after every action, to both players: the cells
+//                                                        the Move recorded (captured cells are among the
+//                                                        filled ones); the lists only for a move
+//           ERROR    game length utf8                    the message was refused (game 0: not about a game)
+//           PATCH    game actions flags n black... m white... hash
+//                                                        to a spectator that fell behind, in place of
+//                                                        the deltas it missed: the cells that turned
+//                                                        Black or White since the last update it got
+//           EXPORTED game records                        to EXPORT and HANDOFF: MoveLog records, the
+//                                                        checkpoint or the tail of actions after it
+//                                                        (none if nothing was played since)
+//           IMPORTED game actions                        to IMPORT: the game is hosted here now
+//           MOVED    game command                        a command for a game handed to another node,
+//                                                        returned whole (a frame) to be routed again
+// flags: bits 0-1 colour to move, bits 2-3 GameEnd ordinal, bit 4 pie rule still open,
+// bits 5-6 the Change (DELTA only). actions counts the moves and swaps played so far.
+// Stones are never removed, so a cell only ever changes to a colour.
+// A malformed frame (unknown type, overlong varint, values out of range, trailing bytes)
+// is rejected with IllegalArgumentException; the server drops a client that sends one.
+public final class Protocol {
+
+    // Where servers listen and clients connect unless told otherwise
+    public static final int DEFAULT_PORT = 4747;
+    public static final int MAX_FRAME = 4096;
+    // Largest varint prefix plus MAX_FRAME: a buffer this big holds any frame
+    public static final int MAX_FRAME_BYTES = MAX_FRAME + 2;
+    public static final int DEFAULT_RATING = 1500;
+    public static final int MAX_RATING = 4000;
+
+    public static final byte PLAY     = 0x01;
+    public static final byte MOVE     = 0x02;
+    public static final byte SWAP     = 0x03;
+    public static final byte RESYNC   = 0x04;
+    public static final byte WATCH    = 0x05;
+    public static final byte RESUME   = 0x06;
+    public static final byte EXPORT   = 0x07;
+    public static final byte HANDOFF  = 0x08;
+    public static final byte IMPORT   = 0x09;
+    public static final byte START    = (byte) 0x81;
+    public static final byte SNAPSHOT = (byte) 0x82;
+    public static final byte DELTA    = (byte) 0x83;
+    public static final byte ERROR    = (byte) 0x84;
+    public static final byte PATCH    = (byte) 0x85;
+    public static final byte EXPORTED = (byte) 0x86;
+    public static final byte IMPORTED = (byte) 0x87;
+    public static final byte MOVED    = (byte) 0x88;
+
+    private static final int TO_MOVE_MASK = 0x03;
+    private static final int STATUS_SHIFT = 2;
+    private static final int PIE_OPEN     = 0x10;
+    private static final int CHANGE_SHIFT = 5;
+    private static final int MAX_ERROR    = 200;
+    private static final GameEnd[] STATUSES = GameEnd.values();
+    private static final Change[] CHANGES = Change.values();
+
+    private Protocol() { /* utility class */ }
+
+    // What a DELTA reports: only a new status (the game was aborted), a move or the swap
+    public enum Change { STATUS, MOVE, SWAP }
+
+    public sealed interface Message permits Play, Place, Swap, Resync, Watch, Resume, Export, Handoff, Import,
+                                            Start, Snapshot, Delta, Error, Patch, Exported, Imported, Moved { }
+
+    public record Play(int size, int rating) implements Message {
+
+        public Play(int size) {
+            this(size, DEFAULT_RATING);
+        }
+    }
+
+    public record Place(long game, int cell) implements Message { }
+
+    public record Swap(long game) implements Message { }
+
+    public record Resync(long game) implements Message { }
+
+    public record Watch(long game) implements Message { }
+
+    public record Resume(long game, long seat) implements Message { }
+
+    public record Export(long key, long game) implements Message { }
+
+    public record Handoff(long key, long game) implements Message { }
+
+    public record Import(long key, long game, byte[] records) implements Message { }
+
+    public record Start(long game, Stone colour, int size, long seat) implements Message { }
+
+    public record Snapshot(long game, int actions, Stone toMove, GameEnd status, boolean pieOpen,
+                           int size, Stone[] cells, long hash) implements Message { }
+
+    // placed is -1 and the lists are empty unless change is MOVE
+    public record Delta(long game, int actions, Stone toMove, GameEnd status, boolean pieOpen,
+                        Change change, int placed, int[] filled, int[] captured, long hash) implements Message { }
+
+    public record Error(long game, String message) implements Message { }
+
+    public record Patch(long game, int actions, Stone toMove, GameEnd status, boolean pieOpen,
+                        int[] black, int[] white, long hash) implements Message { }
+
+    public record Exported(long game, byte[] records) implements Message { }
+
+    public record Imported(long game, int actions) implements Message { }
+
+    // command is the whole frame the node was sent
+    public record Moved(long game, byte[] command) implements Message { }
+
+    public static int cell(Position position, int size) {
+        return position.row() * size + position.col();
+    }
+
+    public static Position position(int cell, int size) {
+        return Position.of(cell / size, cell % size);
+    }
+
+    // ---- Writing: each method appends one whole frame ----
+
+    public static void writePlay(ByteBuffer out, int size) {
+        writeVarint(out, 1 + varintSize(size));
+        out.put(PLAY);
+        writeVarint(out, size);
+    }
+
+    public static void writePlay(ByteBuffer out, int size, int rating) {
+        writeVarint(out, 1 + varintSize(size) + varintSize(rating));
+        out.put(PLAY);
+        writeVarint(out, size);
+        writeVarint(out, rating);
+    }
+
+    public static void writeMove(ByteBuffer out, long game, int cell) {
+        writeVarint(out, 1 + varlongSize(game) + varintSize(cell));
+        out.put(MOVE);
+        writeVarlong(out, game);
+        writeVarint(out, cell);
+    }
+
+    public static void writeSwap(ByteBuffer out, long game) {
+        writeGameOnly(out, SWAP, game);
+    }
+
+    public static void writeResync(ByteBuffer out, long game) {
+        writeGameOnly(out, RESYNC, game);
+    }
+
+    public static void writeWatch(ByteBuffer out, long game) {
+        writeGameOnly(out, WATCH, game);
+    }
+
+    public static void writeResume(ByteBuffer out, long game, long seat) {
+        writeVarint(out, 1 + varlongSize(game) + 8);
+        out.put(RESUME);
+        writeVarlong(out, game);
+        out.putLong(seat);
+    }
+
+    public static void writeExport(ByteBuffer out, long key, long game) {
+        writeKeyed(out, EXPORT, key, game);
+    }
+
+    public static void writeHandoff(ByteBuffer out, long key, long game) {
+        writeKeyed(out, HANDOFF, key, game);
+    }
+
+    // records is left unread
+    public static void writeImport(ByteBuffer out, long key, long game, ByteBuffer records) {
+        writeVarint(out, 9 + varlongSize(game) + records.remaining());
+        out.put(IMPORT);
+        out.putLong(key);
+        writeVarlong(out, game);
+        out.put(records.duplicate());
+    }
+
+    public static void writeStart(ByteBuffer out, long game, Stone colour, int size, long seat) {
+        writeVarint(out, 2 + varlongSize(game) + varintSize(size) + 8);
+        out.put(START);
+        writeVarlong(out, game);
+        out.put(colourCode(colour));
+        writeVarint(out, size);
+        out.putLong(seat);
+    }
+
+    public static void writeSnapshot(ByteBuffer out, long game, int actions, GameState state, long hash) {
+        int size = state.getBoard().getSize();
+        int packed = (size * size + 3) / 4;
+        writeVarint(out, 2 + varlongSize(game) + varintSize(actions) + varintSize(size) + packed + 8);
+        out.put(SNAPSHOT);
+        writeVarlong(out, game);
+        writeVarint(out, actions);
+        out.put((byte) flags(state, Change.STATUS));
+        writeVarint(out, size);
+        int bits = 0;
+        for (int cell = 0; cell < size * size; cell++) {
+            bits |= colourCode(state.getBoard().getStone(position(cell, size))) << (2 * (cell & 3));
+            if ((cell & 3) == 3 || cell == size * size - 1) {
+                out.put((byte) bits);
+                bits = 0;
+            }
+        }
+        out.putLong(hash);
+    }
+
+    // The same frame from a copy of the position, as a spectator's shard keeps it
+    public static void writeSnapshot(ByteBuffer out, Snapshot snapshot) {
+        int size = snapshot.size();
+        int packed = (size * size + 3) / 4;
+        writeVarint(out, 2 + varlongSize(snapshot.game()) + varintSize(snapshot.actions()) + varintSize(size) + packed + 8);
+        out.put(SNAPSHOT);
+        writeVarlong(out, snapshot.game());
+        writeVarint(out, snapshot.actions());
+        out.put((byte) flags(snapshot.toMove(), snapshot.status(), snapshot.pieOpen(), Change.STATUS));
+        writeVarint(out, size);
+        int bits = 0;
+        for (int cell = 0; cell < size * size; cell++) {
+            bits |= colourCode(snapshot.cells()[cell]) << (2 * (cell & 3));
+            if ((cell & 3) == 3 || cell == size * size - 1) {
+                out.put((byte) bits);
+                bits = 0;
+            }
+        }
+        out.putLong(snapshot.hash());
+    }
+
+    // The delta of a processed move, a swap (move null) or a status change only
+    public static void writeDelta(ByteBuffer out, long game, int actions, GameState state, Change change, Move move, long hash) {
+        int size = state.getBoard().getSize();
+        int length = 2 + varlongSize(game) + varintSize(actions) + 8;
+        if (change == Change.MOVE) {
+            length += varintSize(cell(move.getPosition(), size)) + listSize(move.getFilledPositions(), size)
+                    + listSize(move.getCapturedPositions(), size);
+        }
+        writeVarint(out, length);
+        out.put(DELTA);
+        writeVarlong(out, game);
+        writeVarint(out, actions);
+        out.put((byte) flags(state, change));
+        if (change == Change.MOVE) {
+            writeVarint(out, cell(move.getPosition(), size));
+            writeList(out, move.getFilledPositions(), size);
+            writeList(out, move.getCapturedPositions(), size);
+        }
+        out.putLong(hash);
+    }
+
+    public static void writeError(ByteBuffer out, long game, String message) {
+        byte[] text = message.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(text.length, MAX_ERROR);
+        writeVarint(out, 1 + varlongSize(game) + varintSize(length) + length);
+        out.put(ERROR);
+        writeVarlong(out, game);
+        writeVarint(out, length);
+        out.put(text, 0, length);
+    }
+
+    public static void writePatch(ByteBuffer out, Patch patch) {
+        writeVarint(out, 2 + varlongSize(patch.game()) + varintSize(patch.actions())
+                       + listSize(patch.black()) + listSize(patch.white()) + 8);
+        out.put(PATCH);
+        writeVarlong(out, patch.game());
+        writeVarint(out, patch.actions());
+        out.put((byte) flags(patch.toMove(), patch.status(), patch.pieOpen(), Change.STATUS));
+        writeList(out, patch.black());
+        writeList(out, patch.white());
+        out.putLong(patch.hash());
+    }
+
+    // records is left unread
+    public static void writeExported(ByteBuffer out, long game, ByteBuffer records) {
+        writeVarint(out, 1 + varlongSize(game) + records.remaining());
+        out.put(EXPORTED);
+        writeVarlong(out, game);
+        out.put(records.duplicate());
+    }
+
+    public static void writeImported(ByteBuffer out, long game, int actions) {
+        writeVarint(out, 1 + varlongSize(game) + varintSize(actions));
+        out.put(IMPORTED);
+        writeVarlong(out, game);
+        writeVarint(out, actions);
+    }
+
+    // Returns a command for a game this node no longer hosts, encoded again as it came
+    public static void writeMoved(ByteBuffer out, long game, Message command) {
+        // A command about a game takes at most 20 bytes
+        ByteBuffer frame = ByteBuffer.allocate(32);
+        switch (command) {
+            case Place place -> writeMove(frame, place.game(), place.cell());
+            case Swap swap -> writeSwap(frame, swap.game());
+            case Resync resync -> writeResync(frame, resync.game());
+            case Watch watch -> writeWatch(frame, watch.game());
+            case Resume resume -> writeResume(frame, resume.game(), resume.seat());
+            default -> throw new IllegalArgumentException("Not a command about a game: " + command);
+        }
+        writeVarint(out, 1 + varlongSize(game) + frame.position());
+        out.put(MOVED);
+        writeVarlong(out, game);
+        out.put(frame.flip());
+    }
+
+    private static void writeKeyed(ByteBuffer out, byte type, long key, long game) {
+        writeVarint(out, 9 + varlongSize(game));
+        out.put(type);
+        out.putLong(key);
+        writeVarlong(out, game);
+    }
+
+    private static void writeGameOnly(ByteBuffer out, byte type, long game) {
+        writeVarint(out, 1 + varlongSize(game));
+        out.put(type);
+        writeVarlong(out, game);
+    }
+
+    private static int flags(GameState state, Change change) {
+        return flags(state.getCurrentPlayer(), state.getStatus(), state.isPieRuleAvailable(), change);
+    }
+
+    private static int flags(Stone toMove, GameEnd status, boolean pieOpen, Change change) {
+        return colourCode(toMove) | status.ordinal() << STATUS_SHIFT | (pieOpen ? PIE_OPEN : 0) | change.ordinal() << CHANGE_SHIFT;
+    }
+
+    private static int listSize(List<Position> cells, int size) {
+        int bytes = varintSize(cells.size());
+        for (Position position : cells) {
+            bytes += varintSize(cell(position, size));
+        }
+        return bytes;
+    }
+
+    private static void writeList(ByteBuffer out, List<Position> cells, int size) {
+        writeVarint(out, cells.size());
+        for (Position position : cells) {
+            writeVarint(out, cell(position, size));
+        }
+    }
+
+    private static int listSize(int[] cells) {
+        int bytes = varintSize(cells.length);
+        for (int cell : cells) {
+            bytes += varintSize(cell);
+        }
+        return bytes;
+    }
+
+    private static void writeList(ByteBuffer out, int[] cells) {
+        writeVarint(out, cells.length);
+        for (int cell : cells) {
+            writeVarint(out, cell);
+        }
+    }
+
+    private static byte colourCode(Stone stone) {
+        return (byte) (stone == Stone.BLACK ? 1 : stone == Stone.WHITE ? 2 : 0);
+    }
+
+    static void writeVarint(ByteBuffer out, int value) {
+        writeVarlong(out, value & 0xFFFF_FFFFL);
+    }
+
+    static void writeVarlong(ByteBuffer out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    static int varintSize(int value) {
+        return varlongSize(value & 0xFFFF_FFFFL);
+    }
+
+    static int varlongSize(long value) {
+        int bytes = 1;
+        while ((value & ~0x7FL) != 0) {
+            value >>>= 7;
+            bytes++;
+        }
+        return bytes;
+    }
+
+    // ---- Reading ----
+
+    // Takes one frame off the buffer (in read mode); null, with the position unchanged,
+    // while the frame is still incomplete
+    public static Message read(ByteBuffer in) {
+        int start = in.position();
+        long length = 0;
+        int at = start;
+        for (int shift = 0; ; shift += 7) {
+            if (at == in.limit()) {
+                return null;
+            }
+            if (shift > 7) {
+                throw new IllegalArgumentException("Frame length prefix too long");
+            }
+            int b = in.get(at++);
+            length |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                break;
+            }
+        }
+        if (length == 0 || length > MAX_FRAME) {
+            throw new IllegalArgumentException("Frame length out of range: " + length);
+        }
+        if (in.limit() - at < length) {
+            return null;
+        }
+        Message message = decode(in.slice(at, (int) length));
+        in.position(at + (int) length);
+        return message;
+    }
+
+    // Reads one whole frame from a blocking stream
+    public static Message read(InputStream in) throws IOException {
+        int length = 0;
+        for (int shift = 0; ; shift += 7) {
+            if (shift > 7) {
+                throw new IOException("Frame length prefix too long");
+            }
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException("The connection was closed");
+            }
+            length |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                break;
+            }
+        }
+        if (length == 0 || length > MAX_FRAME) {
+            throw new IOException("Frame length out of range: " + length);
+        }
+        byte[] payload = in.readNBytes(length);
+        if (payload.length < length) {
+            throw new EOFException("The connection was closed inside a frame");
+        }
+        try {
+            return decode(ByteBuffer.wrap(payload));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Malformed frame", e);
+        }
+    }
+
+    // Decodes a payload that must be exactly one message
+    public static Message decode(ByteBuffer payload) {
+        byte type = readByte(payload);
+        Message message = switch (type) {
+            case PLAY     -> readPlay(payload);
+            case MOVE     -> new Place(readVarlong(payload), readVarint(payload));
+            case SWAP     -> new Swap(readVarlong(payload));
+            case RESYNC   -> new Resync(readVarlong(payload));
+            case WATCH    -> new Watch(readVarlong(payload));
+            case RESUME   -> new Resume(readVarlong(payload), readLong(payload));
+            case EXPORT   -> new Export(readLong(payload), readVarlong(payload));
+            case HANDOFF  -> new Handoff(readLong(payload), readVarlong(payload));
+            case IMPORT   -> new Import(readLong(payload), readVarlong(payload), readRest(payload));
+            case START    -> new Start(readVarlong(payload), readColour(payload), readSize(payload), readLong(payload));
+            case SNAPSHOT -> readSnapshot(payload);
+            case DELTA    -> readDelta(payload);
+            case ERROR    -> readError(payload);
+            case PATCH    -> readPatch(payload);
+            case EXPORTED -> new Exported(readVarlong(payload), readRest(payload, 0));
+            case IMPORTED -> new Imported(readVarlong(payload), readVarint(payload));
+            case MOVED    -> readMoved(payload);
+            default       -> throw new IllegalArgumentException("Unknown message type " + (type & 0xFF));
+        };
+        if (payload.hasRemaining()) {
+            throw new IllegalArgumentException(payload.remaining() + " bytes after the message");
+        }
+        return message;
+    }
+
+    // For a router passing frames on without decoding them: the game of a payload that
+    // starts with its type, then the game (every message but PLAY and the cluster commands)
+    static long gameOf(ByteBuffer payload) {
+        ByteBuffer in = payload.duplicate();
+        readByte(in);
+        return readVarlong(in);
+    }
+
+    // Whether the payload is a SNAPSHOT, DELTA or PATCH that reports the end of its game
+    static boolean reportsEnd(ByteBuffer payload) {
+        ByteBuffer in = payload.duplicate();
+        byte type = readByte(in);
+        if (type != SNAPSHOT && type != DELTA && type != PATCH) {
+            return false;
+        }
+        readVarlong(in);
+        readVarint(in);
+        return status(readFlags(in)) != GameEnd.IN_PROGRESS;
+    }
+
+    private static Play readPlay(ByteBuffer in) {
+        int size = readVarint(in);
+        if (!in.hasRemaining()) {
+            return new Play(size);
+        }
+        int rating = readVarint(in);
+        if (rating > MAX_RATING) {
+            throw new IllegalArgumentException("Rating " + rating + " above " + MAX_RATING);
+        }
+        return new Play(size, rating);
+    }
+
+    private static Snapshot readSnapshot(ByteBuffer in) {
+        long game = readVarlong(in);
+        int actions = readVarint(in);
+        int flags = readFlags(in);
+        int size = readSize(in);
+        Stone[] cells = new Stone[size * size];
+        int bits = 0;
+        for (int cell = 0; cell < cells.length; cell++) {
+            if ((cell & 3) == 0) {
+                bits = readByte(in);
+            }
+            cells[cell] = colour(bits >> (2 * (cell & 3)) & 3, true);
+        }
+        return new Snapshot(game, actions, toMove(flags), status(flags), (flags & PIE_OPEN) != 0, size, cells, readLong(in));
+    }
+
+    private static Delta readDelta(ByteBuffer in) {
+        long game = readVarlong(in);
+        int actions = readVarint(in);
+        int flags = readFlags(in);
+        int code = flags >> CHANGE_SHIFT & 3;
+        if (code >= CHANGES.length) {
+            throw new IllegalArgumentException("Unknown change " + code);
+        }
+        Change change = CHANGES[code];
+        int placed = -1;
+        int[] filled = new int[0];
+        int[] captured = filled;
+        if (change == Change.MOVE) {
+            placed = readVarint(in);
+            filled = readList(in);
+            captured = readList(in);
+        }
+        return new Delta(game, actions, toMove(flags), status(flags), (flags & PIE_OPEN) != 0,
+                         change, placed, filled, captured, readLong(in));
+    }
+
+    private static Patch readPatch(ByteBuffer in) {
+        long game = readVarlong(in);
+        int actions = readVarint(in);
+        int flags = readFlags(in);
+        if ((flags >> CHANGE_SHIFT & 3) != 0) {
+            throw new IllegalArgumentException("A patch has no change");
+        }
+        int[] black = readList(in);
+        int[] white = readList(in);
+        return new Patch(game, actions, toMove(flags), status(flags), (flags & PIE_OPEN) != 0, black, white, readLong(in));
+    }
+
+    private static Moved readMoved(ByteBuffer in) {
+        long game = readVarlong(in);
+        byte[] command = readRest(in);
+        ByteBuffer frame = ByteBuffer.wrap(command);
+        Message message = read(frame);
+        if (message == null || frame.hasRemaining()) {
+            throw new IllegalArgumentException("A moved command must be one whole frame");
+        }
+        long about = switch (message) {
+            case Place place -> place.game();
+            case Swap swap -> swap.game();
+            case Resync resync -> resync.game();
+            case Watch watch -> watch.game();
+            case Resume resume -> resume.game();
+            default -> invalid("Not a command about a game: " + message);
+        };
+        if (about != game) {
+            throw new IllegalArgumentException("A moved command about game " + about + " returned for " + game);
+        }
+        return new Moved(game, command);
+    }
+
+    // At least one byte: records or a frame
+    private static byte[] readRest(ByteBuffer in) {
+        return readRest(in, 1);
+    }
+
+    private static byte[] readRest(ByteBuffer in, int least) {
+        if (in.remaining() < least) {
+            throw new IllegalArgumentException("Frame ends inside a message");
+        }
+        byte[] rest = new byte[in.remaining()];
+        in.get(rest);
+        return rest;
+    }
+
+    private static Error readError(ByteBuffer in) {
+        long game = readVarlong(in);
+        int length = readVarint(in);
+        if (length > in.remaining()) {
+            throw new IllegalArgumentException("Error text runs past the frame");
+        }
+        byte[] text = new byte[length];
+        in.get(text);
+        return new Error(game, new String(text, StandardCharsets.UTF_8));
+    }
+
+    private static int[] readList(ByteBuffer in) {
+        int count = readVarint(in);
+        // Every cell takes at least a byte, so a longer list cannot fit in the frame
+        if (count > in.remaining()) {
+            throw new IllegalArgumentException("Cell list of " + count + " runs past the frame");
+        }
+        int[] cells = new int[count];
+        for (int i = 0; i < count; i++) {
+            cells[i] = readVarint(in);
+        }
+        return cells;
+    }
+
+    private static int readFlags(ByteBuffer in) {
+        int flags = readByte(in) & 0xFF;
+        if ((flags & 0x80) != 0) {
+            throw new IllegalArgumentException("Unknown flags " + flags);
+        }
+        return flags;
+    }
+
+    private static Stone toMove(int flags) {
+        return colour(flags & TO_MOVE_MASK, false);
+    }
+
+    private static GameEnd status(int flags) {
+        return STATUSES[flags >> STATUS_SHIFT & 3];
+    }
+
+    private static Stone readColour(ByteBuffer in) {
+        return colour(readByte(in), false);
+    }
+
+    private static Stone colour(int code, boolean emptyAllowed) {
+        return switch (code) {
+            case 0 -> emptyAllowed ? Stone.EMPTY : invalid("Missing colour");
+            case 1 -> Stone.BLACK;
+            case 2 -> Stone.WHITE;
+            default -> invalid("Unknown colour " + code);
+        };
+    }
+
+    private static int readSize(ByteBuffer in) {
+        int size = readVarint(in);
+        if (size < 1 || size > GameServer.MAX_SIZE) {
+            throw new IllegalArgumentException("Board size out of range: " + size);
+        }
+        return size;
+    }
+
+    static byte readByte(ByteBuffer in) {
+        if (!in.hasRemaining()) {
+            throw new IllegalArgumentException("Frame ends inside a message");
+        }
+        return in.get();
+    }
+
+    static long readLong(ByteBuffer in) {
+        if (in.remaining() < 8) {
+            throw new IllegalArgumentException("Frame ends inside a hash or seat");
+        }
+        return in.getLong();
+    }
+
+    static int readVarint(ByteBuffer in) {
+        long value = readVarlong(in);
+        if (value > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Value out of range: " + value);
+        }
+        return (int) value;
+    }
+
+    // Non-negative values only: at most 9 bytes of 7 bits
+    static long readVarlong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 63; shift += 7) {
+            int b = readByte(in);
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Varint too long");
+    }
+
+    private static <T> T invalid(String message) {
+        throw new IllegalArgumentException(message);
+    }
+}
@@ -0,0 +1,218 @@
+package brique.server;
+
+import brique.core.GameState;
+import brique.core.Move;
+import brique.core.MoveExecutor;
+import brique.core.Position;
+import brique.core.Stone;
+import brique.core.ZobristHash;
+import brique.rules.GameRules;
+import brique.rules.RuleType;
+import brique.rules.RulesFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+
+// Mutation fuzzer for Protocol frames. The corpus holds valid frames of every message type,
+// taken from random games on every board size; each input is a corpus frame (or two)
+// damaged in one of several ways, or plain random bytes. Protocol.read must decode each
+// frame in the input, report an incomplete frame without moving, or reject it with
+// IllegalArgumentException (IOException from a stream); any other outcome is a failure,
+// kept with the input in hex. The server decodes with the same code, so a clean run also
+// means a malformed frame only ever costs its sender the connection.
+public final class ProtocolFuzzer {
+
+    private static final int KEPT_FAILURES = 10;
+    private static final int MUTATIONS = 9;
+
+    private final Random random;
+    private final List<byte[]> corpus = new ArrayList<>();
+
+    public record Report(long inputs, long decoded, long incomplete, long rejected, List<String> failures) { }
+
+    public ProtocolFuzzer(long seed) {
+        this.random = new Random(seed);
+        buildCorpus();
+    }
+
+    public List<byte[]> corpus() {
+        return corpus;
+    }
+
+    public Report run(long inputs) {
+        long decoded = 0;
+        long incomplete = 0;
+        long rejected = 0;
+        List<String> failures = new ArrayList<>();
+        for (long i = 0; i < inputs; i++) {
+            byte[] input = next();
+            ByteBuffer buffer = ByteBuffer.wrap(input);
+            try {
+                while (true) {
+                    int before = buffer.position();
+                    Protocol.Message message = Protocol.read(buffer);
+                    if (message == null) {
+                        if (buffer.position() != before) {
+                            throw new IllegalStateException("Incomplete frame moved the buffer");
+                        }
+                        incomplete++;
+                        break;
+                    }
+                    decoded++;
+                    if (!buffer.hasRemaining()) {
+                        break;
+                    }
+                }
+            } catch (IllegalArgumentException e) {
+                rejected++;
+            } catch (RuntimeException e) {
+                fail(failures, e, input);
+            }
+            try {
+                Protocol.read(new ByteArrayInputStream(input));
+            } catch (IOException e) {
+                // Rejected or cut short
+            } catch (RuntimeException e) {
+                fail(failures, e, input);
+            }
+        }
+        return new Report(inputs, decoded, incomplete, rejected, failures);
+    }
+
+    // One fuzzed input
+    public byte[] next() {
+        byte[] frame = corpus.get(random.nextInt(corpus.size()));
+        switch (random.nextInt(MUTATIONS)) {
+            case 0 -> {
+                // Flip a few bits
+                frame = frame.clone();
+                for (int flips = 1 + random.nextInt(4); flips > 0; flips--) {
+                    frame[random.nextInt(frame.length)] ^= (byte) (1 << random.nextInt(8));
+                }
+            }
+            case 1 -> {
+                frame = frame.clone();
+                frame[random.nextInt(frame.length)] = (byte) random.nextInt(256);
+            }
+            case 2 -> frame = Arrays.copyOf(frame, random.nextInt(frame.length));
+            case 3 -> frame = concat(frame, randomBytes(1 + random.nextInt(16)));
+            case 4 -> {
+                // A new length prefix, often wrong
+                int start = frame[0] < 0 ? 2 : 1;
+                ByteBuffer prefix = ByteBuffer.allocate(10);
+                Protocol.writeVarlong(prefix, random.nextBoolean() ? random.nextInt(frame.length + 2) : random.nextLong() >>> 1);
+                frame = concat(Arrays.copyOf(prefix.array(), prefix.position()), Arrays.copyOfRange(frame, start, frame.length));
+            }
+            case 5 -> {
+                int at = random.nextInt(frame.length + 1);
+                frame = concat(concat(Arrays.copyOf(frame, at), new byte[] {(byte) random.nextInt(256)}),
+                               Arrays.copyOfRange(frame, at, frame.length));
+            }
+            case 6 -> {
+                // Two frames, the second damaged
+                byte[] second = corpus.get(random.nextInt(corpus.size())).clone();
+                second[random.nextInt(second.length)] ^= (byte) (1 << random.nextInt(8));
+                frame = concat(frame, second);
+            }
+            case 7 -> frame = randomBytes(random.nextInt(64));
+            default -> {
+                // A run of continuation bytes after the type: an overlong varint
+                int start = (frame[0] < 0 ? 2 : 1) + 1;
+                if (start < frame.length) {
+                    frame = frame.clone();
+                    int end = Math.min(frame.length, start + 1 + random.nextInt(12));
+                    Arrays.fill(frame, start, end, (byte) 0xFF);
+                }
+            }
+        }
+        return frame;
+    }
+
+    private void buildCorpus() {
+        GameRules rules = RulesFactory.createRules(RuleType.STANDARD);
+        ByteBuffer out = ByteBuffer.allocate(Protocol.MAX_FRAME_BYTES);
+        for (int n = GameServer.MIN_SIZE; n <= GameServer.MAX_SIZE; n++) {
+            int size = n;
+            GameState state = new GameState(size);
+            long game = 1L + random.nextInt(1 << 20) * (long) size;
+            add(out, o -> Protocol.writePlay(o, size));
+            add(out, o -> Protocol.writePlay(o, size, random.nextInt(Protocol.MAX_RATING + 1)));
+            add(out, o -> Protocol.writeStart(o, game, Stone.WHITE, size, random.nextLong()));
+            add(out, o -> Protocol.writeSwap(o, game));
+            add(out, o -> Protocol.writeResync(o, game));
+            add(out, o -> Protocol.writeWatch(o, game));
+            add(out, o -> Protocol.writeResume(o, game, random.nextLong()));
+            add(out, o -> Protocol.writeError(o, game, "Not your turn"));
+            MoveLog.Batch start = MoveLog.records(64);
+            start.started(new HostedGame(game, size, null, null, random.nextLong(), random.nextLong()));
+            add(out, o -> Protocol.writeExport(o, random.nextLong(), game));
+            add(out, o -> Protocol.writeHandoff(o, random.nextLong(), game));
+            add(out, o -> Protocol.writeImport(o, random.nextLong(), game, start.contents()));
+            add(out, o -> Protocol.writeExported(o, game, ByteBuffer.allocate(0)));
+            add(out, o -> Protocol.writeImported(o, game, random.nextInt(size * size)));
+            add(out, o -> Protocol.writeMoved(o, game, new Protocol.Swap(game)));
+            List<Integer> cells = new ArrayList<>();
+            for (int cell = 0; cell < size * size; cell++) {
+                cells.add(cell);
+            }
+            Collections.shuffle(cells, random);
+            int actions = 0;
+            for (int cell : cells) {
+                Position position = Protocol.position(cell, size);
+                if (!state.isInProgress() || state.getBoard().getStone(position) != Stone.EMPTY) {
+                    continue;
+                }
+                Move move = MoveExecutor.play(state, rules, position);
+                if (move == null) {
+                    continue;
+                }
+                int count = ++actions;
+                add(out, o -> Protocol.writeMove(o, game, cell));
+                add(out, o -> Protocol.writeDelta(o, game, count, state, Protocol.Change.MOVE, move, ZobristHash.of(state)));
+                if (random.nextInt(8) == 0) {
+                    add(out, o -> Protocol.writeSnapshot(o, game, count, state, ZobristHash.of(state)));
+                    add(out, o -> Protocol.writePatch(o, Audience.position(game, count, state, ZobristHash.of(state))));
+                    add(out, o -> Protocol.writeMoved(o, game, new Protocol.Place(game, cell)));
+                }
+            }
+            MoveLog.Batch checkpoint = MoveLog.records(64);
+            checkpoint.checkpoint(new HostedGame(game, state, actions, random.nextLong(), random.nextLong()));
+            add(out, o -> Protocol.writeExported(o, game, checkpoint.contents()));
+            state.abort();
+            int count = actions;
+            add(out, o -> Protocol.writeDelta(o, game, count, state, Protocol.Change.STATUS, null, ZobristHash.of(state)));
+            add(out, o -> Protocol.writeSnapshot(o, game, count, state, ZobristHash.of(state)));
+        }
+    }
+
+    private void add(ByteBuffer out, Consumer<ByteBuffer> writer) {
+        writer.accept(out.clear());
+        corpus.add(Arrays.copyOf(out.array(), out.position()));
+    }
+
+    private byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    private static byte[] concat(byte[] a, byte[] b) {
+        byte[] joined = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, joined, a.length, b.length);
+        return joined;
+    }
+
+    private static void fail(List<String> failures, RuntimeException e, byte[] input) {
+        if (failures.size() < KEPT_FAILURES) {
+            failures.add(e + " on " + HexFormat.of().formatHex(input));
+        }
+    }
+}
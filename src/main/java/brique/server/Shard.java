@@ -0,0 +1,1053 @@
+package brique.server;
+
+import brique.core.GameClock;
+import brique.core.GameState;
+import brique.core.Move;
+import brique.core.MoveExecutor;
+import brique.core.Position;
+import brique.core.Stone;
+import brique.core.TimeControl;
+import brique.rules.GameRules;
+import brique.rules.RuleType;
+import brique.rules.RulesFactory;
+
+import java.io.IOException;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// One event-loop thread of the server. It owns a selector with a share of the client
+// connections and a share of the games, and it is the only thread that reads or writes
+// them, so the game path takes no locks. Other threads hand it work through an MPSC task
+// queue: commands for its games read on another shard, frames for its connections, new
+// connections, new games and games migrating in. Shard 0 also accepts connections.
+// Requests to play go to the server's Matchmaker, whose matcher threads create the games.
+// Spectators are kept on their connection's shard, in one Audience per game. The game's
+// shard encodes each update once and passes the same read-only frame to every shard with
+// an audience, which queues it on each spectator without copying. A spectator whose
+// socket is more than SPECTATOR_BACKLOG behind stops getting updates until it drains, and
+// then gets one frame with everything it missed.
+// With a move log, the actions of a loop turn reach the log's batch as they are played and
+// are committed before the turn ends; only then are sockets flushed and the tasks that
+// tell other shards of them handed over, so nothing a client sees can be lost in a crash.
+// With passivation, a sweep every quarter of the idle time moves the games nobody has sent
+// a command for since to the shard's GameStore, and the next command brings them back.
+// With a time control, the flag of each game's player to move is a timer on the shard's
+// TimerWheel, re-armed after every action and advanced by the loop once per turn.
+// On a node of a cluster, the router's EXPORT, HANDOFF and IMPORT move games between nodes
+// as move log records, and commands for a game that has left go back to the router.
+final class Shard implements Runnable {
+
+    // Most games moved in one rebalancing step
+    private static final int MAX_MIGRATIONS = 256;
+    // Records of actions kept for a game being exported; past this the HANDOFF sends a fresh
+    // checkpoint instead, so that an IMPORT always fits in a frame
+    private static final int MAX_TAIL = 2 * 1024;
+
+    final int index;
+    private final GameServer server;
+    private final Selector selector;
+    private final MpscQueue<Runnable> tasks = new MpscQueue<>();
+    // False while the loop may be blocked in select: producers must wake it
+    private final AtomicBoolean awake = new AtomicBoolean(true);
+    private final GameRules rules = RulesFactory.createRules(RuleType.STANDARD);
+    private final Map<Long, HostedGame> games = new HashMap<>();
+    // Games migrating here whose route points here already, until the task with them runs
+    private final Set<Long> arriving = ConcurrentHashMap.newKeySet();
+    // Spectators on this shard's connections, by game, wherever the game is
+    private final Map<Long, Audience> audiences = new HashMap<>();
+    private final List<ClientConnection> toFlush = new ArrayList<>();
+    // Null without a move log. Tasks for other shards wait in held until the turn's
+    // records are on disk.
+    private final MoveLog log;
+    private final MoveLog.Batch batch;
+    private final List<Runnable> held = new ArrayList<>();
+    private boolean checkpointing;
+    // Null without passivation
+    private final GameStore store;
+    private final long idleMillis;
+    // Null without a time control
+    private final TimeControl timeControl;
+    private final TimerWheel<HostedGame> clocks;
+    // Monotonic milliseconds, read once per loop turn
+    private long now = millis();
+    private long nextSweep;
+    // Each outgoing frame is encoded here once, then copied to its recipients
+    private final ByteBuffer frame = ByteBuffer.allocate(Protocol.MAX_FRAME_BYTES);
+
+    // Shard 0 only: the listening socket
+    private ServerSocketChannel serverChannel;
+    private int nextShard;
+
+    // Written by this thread only, read by the server's getters and the rebalancer
+    volatile int gameCount;
+    volatile long actionsPlayed;
+    volatile long resyncs;
+    volatile long migrations;
+    volatile int spectators;
+    volatile long catchUpPatches;
+    volatile long catchUpSnapshots;
+    volatile int idleGames;
+    volatile long reactivations;
+    volatile long lostGames;
+    volatile long flagFalls;
+    volatile long handoffs;
+    volatile long imports;
+
+    Shard(int index, GameServer server) throws IOException {
+        this.index = index;
+        this.server = server;
+        this.selector = Selector.open();
+        this.log = server.log();
+        this.batch = log == null ? null : log.newBatch();
+        this.idleMillis = server.idleMillis();
+        this.store = server.storeDirectory() == null ? null
+                   : new GameStore(server.storeDirectory().resolve("idle-" + index + ".bin"));
+        this.nextSweep = store == null ? Long.MAX_VALUE : now + idleMillis / 4;
+        this.timeControl = server.timeControl();
+        this.clocks = timeControl == null ? null
+                    : new TimerWheel<>(GameServer.CLOCK_TICK_MILLIS, GameServer.CLOCK_SLOTS, now);
+    }
+
+    void listen(ServerSocketChannel channel) throws IOException {
+        serverChannel = channel;
+        channel.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    // Any thread: runs the task on this shard's thread
+    void execute(Runnable task) {
+        tasks.offer(task);
+        if (!awake.getAndSet(true)) {
+            selector.wakeup();
+        }
+    }
+
+    void wakeup() {
+        selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+        while (server.isRunning()) {
+            awake.set(false);
+            try {
+                long wake = Math.min(nextSweep, clocks == null ? Long.MAX_VALUE : clocks.nextTick());
+                if (!tasks.isEmpty()) {
+                    selector.selectNow();
+                } else if (wake != Long.MAX_VALUE) {
+                    selector.select(Math.max(1, wake - millis()));
+                } else {
+                    selector.select();
+                }
+            } catch (IOException e) {
+                break;
+            }
+            awake.set(true);
+            now = millis();
+            for (SelectionKey key : selector.selectedKeys()) {
+                if (!key.isValid()) {
+                    continue;
+                }
+                if (key.isAcceptable()) {
+                    accept();
+                    continue;
+                }
+                ClientConnection connection = (ClientConnection) key.attachment();
+                try {
+                    if (key.isReadable()) {
+                        read(connection);
+                    }
+                    if (key.isValid() && key.isWritable()) {
+                        // With the others, once this turn's actions are in the log
+                        toFlush(connection);
+                    }
+                } catch (IOException e) {
+                    disconnect(connection);
+                }
+            }
+            selector.selectedKeys().clear();
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                task.run();
+            }
+            if (now >= nextSweep) {
+                passivateIdle();
+                nextSweep = now + Math.max(1, idleMillis / 4);
+            }
+            if (clocks != null) {
+                clocks.advance(now, this::flagFall);
+            }
+            flushAll();
+        }
+        if (server.crashed()) {
+            halt();
+        }
+    }
+
+    // Once the server has crashed, each shard's clients are cut off without hearing of the
+    // actions that could not be saved, which a restart finds in the log as it was before
+    // them. Shard 0 closes the listener with its connections.
+    private void halt() {
+        for (SelectionKey key : selector.keys()) {
+            try {
+                key.channel().close();
+            } catch (IOException e) {
+                // Closing anyway
+            }
+        }
+        try {
+            // A registered channel lets go of its socket at the next select, the listener's
+            // included: until then connections would still be accepted
+            selector.selectNow();
+        } catch (IOException e) {
+            // Closed when the server is
+        }
+        toFlush.clear();
+        held.clear();
+    }
+
+    // Closes the selector and every channel on it, once the loop has stopped
+    void close() throws IOException {
+        for (SelectionKey key : selector.keys()) {
+            key.channel().close();
+        }
+        selector.close();
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    // ---- Connections ----
+
+    // Hands accepted connections round robin to the shards
+    private void accept() {
+        try {
+            SocketChannel channel;
+            while ((channel = serverChannel.accept()) != null) {
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                Shard owner = server.shard(nextShard++ % server.shardCount());
+                SocketChannel accepted = channel;
+                owner.execute(() -> owner.register(accepted));
+            }
+        } catch (IOException e) {
+            // The client is gone already; keep serving the others
+        }
+    }
+
+    private void register(SocketChannel channel) {
+        try {
+            SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+            key.attach(new ClientConnection(channel, key, this, GameServer.INPUT_BYTES));
+            server.connected(1);
+        } catch (IOException e) {
+            // Closed before it could be registered
+        }
+    }
+
+    private void read(ClientConnection connection) throws IOException {
+        int read = connection.channel.read(connection.input);
+        if (read < 0) {
+            disconnect(connection);
+            return;
+        }
+        ByteBuffer input = connection.input;
+        input.flip();
+        try {
+            Protocol.Message message;
+            while ((message = Protocol.read(input)) != null) {
+                handle(connection, message);
+                if (connection.closed) {
+                    return;
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            // Framing cannot recover from a bad frame
+            disconnect(connection);
+            return;
+        }
+        input.compact();
+    }
+
+    private void handle(ClientConnection connection, Protocol.Message message) {
+        if (message instanceof Protocol.Play play) {
+            if (server.clustered()) {
+                error(connection, 0, "Play through the cluster's router");
+                return;
+            }
+            if (play.size() < GameServer.MIN_SIZE || play.size() > GameServer.MAX_SIZE) {
+                error(connection, 0, "Board size must be between " + GameServer.MIN_SIZE + " and " + GameServer.MAX_SIZE);
+                return;
+            }
+            // The matchmaker drops it once the connection is closed
+            server.matchmaker().join(connection, play.size(), play.rating());
+        } else if (message instanceof Protocol.Place place) {
+            dispatch(connection, message, place.game(), true, (shard, game) -> shard.move(connection, game, place.cell()));
+        } else if (message instanceof Protocol.Swap swap) {
+            dispatch(connection, message, swap.game(), true, (shard, game) -> shard.swap(connection, game));
+        } else if (message instanceof Protocol.Resync resync) {
+            dispatch(connection, message, resync.game(), true, (shard, game) -> shard.resync(connection, game));
+        } else if (message instanceof Protocol.Watch watch) {
+            dispatch(connection, message, watch.game(), false, (shard, game) -> shard.watch(connection, game));
+        } else if (message instanceof Protocol.Resume resume) {
+            dispatch(connection, message, resume.game(), false, (shard, game) -> shard.resume(connection, game, resume.seat()));
+        } else if (message instanceof Protocol.Export export && server.trusts(export.key())) {
+            dispatch(connection, null, export.game(), false, (shard, game) -> shard.export(connection, game));
+        } else if (message instanceof Protocol.Handoff handoff && server.trusts(handoff.key())) {
+            dispatch(connection, null, handoff.game(), false, (shard, game) -> shard.handOff(connection, game));
+        } else if (message instanceof Protocol.Import records && server.trusts(records.key())) {
+            importGame(connection, records);
+        } else {
+            // Only the server sends the other messages, and only the router the cluster commands
+            disconnect(connection);
+        }
+    }
+
+    // Closes the socket and aborts the client's games on their shards; the opponents are told
+    private void disconnect(ClientConnection connection) {
+        if (connection.closed) {
+            return;
+        }
+        connection.closed = true;
+        connection.key.cancel();
+        try {
+            connection.channel.close();
+        } catch (IOException e) {
+            // Closing anyway
+        }
+        server.connected(-1);
+        for (Long id : connection.games) {
+            dispatch(connection, null, id, true, (shard, game) -> shard.abort(game));
+        }
+        // Its audiences drop it at their next update
+        spectators -= connection.spectating.size();
+        connection.spectating.clear();
+    }
+
+    // ---- Games ----
+
+    interface GameCommand {
+        void apply(Shard shard, HostedGame game);
+    }
+
+    // Runs the command on the shard that owns the game, following the game if it has just
+    // migrated. A player has at most one action outstanding, so forwarding keeps each game's
+    // commands in order. Player commands are refused from anyone else. The client's message,
+    // when there is one, goes back to the router if the game has left for another node.
+    private void dispatch(ClientConnection connection, Protocol.Message message, long id, boolean players, GameCommand command) {
+        HostedGame game = games.get(id);
+        if (game != null) {
+            if (players && game.black != connection && game.white != connection) {
+                error(connection, id, "No such game");
+                return;
+            }
+            if (!activate(game)) {
+                return;
+            }
+            // Between the deadline and the tick that would have caught it
+            if (players && game.clock != null && game.clock.flagged(now)) {
+                flagFall(game);
+                return;
+            }
+            command.apply(this, game);
+            return;
+        }
+        Shard owner = server.owner(id);
+        if (owner == this && arriving.contains(id)) {
+            // Read here before the game it is for: behind it in the queue
+            execute(() -> dispatch(connection, message, id, players, command));
+            return;
+        }
+        if (owner == null || owner == this) {
+            // Queued behind the game's last updates to this connection, which were sent first
+            Shard home = connection.shard;
+            if (message != null && server.wasHandedOff(id)) {
+                post(home, () -> home.bounce(connection, id, message));
+            } else {
+                post(home, () -> home.error(connection, id, "No such game"));
+            }
+            return;
+        }
+        owner.execute(() -> owner.dispatch(connection, message, id, players, command));
+    }
+
+    // A game the matchmaker paired, routed to this shard
+    void start(HostedGame game) {
+        add(game);
+        if (log != null) {
+            batch.started(game);
+        }
+        int size = game.state.getBoard().getSize();
+        Protocol.writeStart(frame.clear(), game.id, Stone.BLACK, size, game.blackSeat);
+        send(game.black, frame.flip());
+        Protocol.writeStart(frame.clear(), game.id, Stone.WHITE, size, game.whiteSeat);
+        send(game.white, frame.flip());
+        Protocol.writeSnapshot(frame.clear(), game.id, game.actions, game.state, game.hash());
+        broadcast(game, frame.flip());
+        // A player who left while the game was being set up
+        if (game.black.closed || game.white.closed) {
+            abort(game);
+        }
+    }
+
+    private void move(ClientConnection connection, HostedGame game, int cell) {
+        if (!toMove(connection, game)) {
+            return;
+        }
+        int size = game.state.getBoard().getSize();
+        Move move = cell < size * size ? MoveExecutor.play(game.state, rules, Protocol.position(cell, size)) : null;
+        if (move == null) {
+            error(connection, game.id, "Illegal move " + cell);
+            return;
+        }
+        game.moved(move);
+        applied(game, Protocol.Change.MOVE, move);
+    }
+
+    private void swap(ClientConnection connection, HostedGame game) {
+        if (!toMove(connection, game)) {
+            return;
+        }
+        GameState state = game.state;
+        if (!state.isPieRuleAvailable() || state.getCurrentPlayer() != Stone.WHITE || state.getMoveHistory().isEmpty()) {
+            error(connection, game.id, "The pie rule is not available");
+            return;
+        }
+        state.applyPieRule();
+        game.swapped();
+        applied(game, Protocol.Change.SWAP, null);
+    }
+
+    // A player back after a restart takes its seat again with the secret START gave it
+    private void resume(ClientConnection connection, HostedGame game, long seat) {
+        Stone colour = seat == game.blackSeat ? Stone.BLACK : seat == game.whiteSeat ? Stone.WHITE : null;
+        if (colour == null) {
+            error(connection, game.id, "No such seat");
+            return;
+        }
+        ClientConnection holder = colour == Stone.BLACK ? game.black : game.white;
+        if (holder != null && holder != connection && !holder.closed) {
+            error(connection, game.id, "The seat is taken");
+            return;
+        }
+        if (colour == Stone.BLACK) {
+            game.black = connection;
+        } else {
+            game.white = connection;
+        }
+        connection.games.add(game.id);
+        int size = game.state.getBoard().getSize();
+        Protocol.writeStart(frame.clear(), game.id, colour, size, seat);
+        send(connection, frame.flip());
+        Protocol.writeSnapshot(frame.clear(), game.id, game.actions, game.state, game.hash());
+        send(connection, frame.flip());
+    }
+
+    // A client whose hash disagreed gets the whole position again
+    private void resync(ClientConnection connection, HostedGame game) {
+        resyncs++;
+        Protocol.writeSnapshot(frame.clear(), game.id, game.actions, game.state, game.hash());
+        send(connection, frame.flip());
+    }
+
+    private void abort(HostedGame game) {
+        if (!games.containsKey(game.id)) {
+            return;
+        }
+        game.state.abort();
+        ended(game);
+    }
+
+    // The player to move ran out of time and loses, unless nobody had acted yet: then the
+    // game never really started and is aborted
+    private void flagFall(HostedGame game) {
+        if (!games.containsKey(game.id) || !activate(game)) {
+            return;
+        }
+        flagFalls++;
+        if (game.actions == 0) {
+            game.state.abort();
+        } else {
+            game.state.declareWinner(game.clock.running().opposite());
+        }
+        ended(game);
+    }
+
+    // Tells everyone of a status change that ended the game
+    private void ended(HostedGame game) {
+        Protocol.writeDelta(frame.clear(), game.id, game.actions, game.state, Protocol.Change.STATUS, null, game.hash());
+        broadcast(game, frame.flip());
+        publish(game, Protocol.Change.STATUS, null, frame);
+        finish(game);
+    }
+
+    private boolean toMove(ClientConnection connection, HostedGame game) {
+        if (game.playerToMove() != connection) {
+            error(connection, game.id, "Not your turn");
+            return false;
+        }
+        return true;
+    }
+
+    private void applied(HostedGame game, Protocol.Change change, Move move) {
+        game.actions++;
+        actionsPlayed++;
+        if (log != null) {
+            if (move != null) {
+                batch.moved(game, move);
+            } else {
+                batch.swapped(game);
+            }
+        }
+        if (game.tail != null) {
+            if (move != null) {
+                game.tail.moved(game, move);
+            } else {
+                game.tail.swapped(game);
+            }
+        }
+        if (game.state.isInProgress() && !hasEmptyCell(game.state)) {
+            // A full board without a chain: nobody can move any more
+            game.state.abort();
+        }
+        if (game.clock != null && game.state.isInProgress()) {
+            game.clock.press(game.state.getCurrentPlayer(), now);
+            clocks.arm(game.flag, game.clock.deadline());
+        }
+        Protocol.writeDelta(frame.clear(), game.id, game.actions, game.state, change, move, game.hash());
+        broadcast(game, frame.flip());
+        publish(game, change, move, frame);
+        if (!game.state.isInProgress()) {
+            finish(game);
+        }
+    }
+
+    private void finish(HostedGame game) {
+        games.remove(game.id);
+        gameCount = games.size();
+        if (game.flag != null) {
+            clocks.cancel(game.flag);
+        }
+        if (log != null) {
+            batch.ended(game);
+            // Commands that find no owner are refused, which must not overtake the last delta
+            held.add(() -> server.disown(game.id));
+        } else {
+            server.disown(game.id);
+        }
+        if (game.black != null) {
+            game.black.games.remove(game.id);
+        }
+        if (game.white != null) {
+            game.white.games.remove(game.id);
+        }
+    }
+
+    // Moves games to a less loaded shard until about budget actions of recent load went
+    // with them; the busiest games stay when one alone would overshoot
+    void migrate(Shard target, long budget) {
+        HostedGame[] candidates = games.values().toArray(new HostedGame[0]);
+        for (HostedGame game : candidates) {
+            game.recentActions = game.actions - game.actionsAtLastLook;
+            game.actionsAtLastLook = game.actions;
+        }
+        Arrays.sort(candidates, Comparator.comparingInt((HostedGame game) -> game.recentActions).reversed());
+        long moved = 0;
+        int count = 0;
+        for (HostedGame game : candidates) {
+            if (moved >= budget || count == MAX_MIGRATIONS || game.recentActions == 0) {
+                break;
+            }
+            // An idle game's position is in this shard's store
+            if (game.recentActions > budget - moved || game.state == null) {
+                continue;
+            }
+            // Queued before the route changes, so commands sent the new way find the game there
+            games.remove(game.id);
+            if (game.flag != null) {
+                // Armed again on the target's wheel, for the same deadline
+                clocks.cancel(game.flag);
+            }
+            target.arriving.add(game.id);
+            target.execute(() -> target.adopt(game));
+            server.own(game.id, target);
+            moved += game.recentActions;
+            count++;
+        }
+        gameCount = games.size();
+        migrations += count;
+    }
+
+    private void adopt(HostedGame game) {
+        arriving.remove(game.id);
+        add(game);
+        if (log != null) {
+            // Otherwise a checkpoint in progress could miss it, on its way between shards
+            batch.checkpoint(game);
+        }
+    }
+
+    // Also a game recovered from the log, before the loop starts
+    void add(HostedGame game) {
+        game.lastActive = now;
+        games.put(game.id, game);
+        gameCount = games.size();
+        if (clocks != null) {
+            if (game.clock == null) {
+                // A new game, or one recovered from the log: the side to move starts on full time
+                game.clock = new GameClock(timeControl);
+                game.clock.start(game.state.getCurrentPlayer(), now);
+                game.flag = new TimerWheel.Timer<>(game);
+            }
+            clocks.arm(game.flag, game.clock.deadline());
+        }
+    }
+
+    // Asked by the log once it has started a new segment: the whole position of each game
+    // goes into it, so the segments before can be deleted. Idle games are in the same form
+    // in the store already.
+    void checkpoint() {
+        List<HostedGame> unreadable = new ArrayList<>();
+        for (HostedGame game : games.values()) {
+            if (game.state != null) {
+                batch.checkpoint(game);
+                continue;
+            }
+            try {
+                batch.checkpoint(store.get(game.slot));
+            } catch (IOException e) {
+                unreadable.add(game);
+            }
+        }
+        for (HostedGame game : unreadable) {
+            lose(game);
+        }
+        checkpointing = true;
+    }
+
+    // ---- Cluster ----
+
+    // The router is about to move the game to another node: it gets the checkpoint now, while
+    // the game goes on, and the actions after it once the game stops here
+    private void export(ClientConnection router, HostedGame game) {
+        MoveLog.Batch records = MoveLog.records(MoveLog.MAX_RECORD + 8);
+        records.checkpoint(game);
+        game.tail = MoveLog.records(MAX_TAIL);
+        Protocol.writeExported(frame.clear(), game.id, records.contents());
+        send(router, frame.flip());
+    }
+
+    // The game leaves this node without ending: the router gets the actions since the EXPORT
+    // (a fresh checkpoint without one), the log an END so that a restart does not bring it
+    // back, and the spectators' shards forget it
+    private void handOff(ClientConnection router, HostedGame game) {
+        MoveLog.Batch records = game.tail;
+        if (records == null || records.bytes() > MAX_TAIL) {
+            records = MoveLog.records(MoveLog.MAX_RECORD + 8);
+            records.checkpoint(game);
+        }
+        game.tail = null;
+        games.remove(game.id);
+        gameCount = games.size();
+        if (game.flag != null) {
+            clocks.cancel(game.flag);
+        }
+        if (log != null) {
+            batch.ended(game);
+        }
+        // Before the route goes, so that no command for it is refused
+        server.handedOff(game.id, now);
+        server.disown(game.id);
+        if (game.black != null) {
+            game.black.games.remove(game.id);
+        }
+        if (game.white != null) {
+            game.white.games.remove(game.id);
+        }
+        for (int index = game.watchedFrom.nextSetBit(0); index >= 0; index = game.watchedFrom.nextSetBit(index + 1)) {
+            Shard shard = server.shard(index);
+            if (shard == this) {
+                forget(game.id);
+            } else {
+                post(shard, () -> shard.forget(game.id));
+            }
+        }
+        handoffs++;
+        Protocol.writeExported(frame.clear(), game.id, records.contents());
+        send(router, frame.flip());
+    }
+
+    // On the router's connection's shard: the game the records describe is hosted here from
+    // now on, with both seats empty until the players RESUME
+    private void importGame(ClientConnection router, Protocol.Import records) {
+        long id = records.game();
+        HostedGame game;
+        try {
+            game = MoveLog.replay(id, ByteBuffer.wrap(records.records()), rules);
+        } catch (IllegalArgumentException e) {
+            error(router, id, "Bad records: " + e.getMessage());
+            return;
+        }
+        if (server.owner(id) != null) {
+            error(router, id, "The game is hosted here already");
+            return;
+        }
+        server.arrived(id);
+        Shard owner = server.leastLoaded();
+        owner.execute(() -> owner.imported(router, game));
+    }
+
+    // The route is set once the game is here, and the router hears of it only then: its
+    // players' commands may come through any shard as soon as it does
+    private void imported(ClientConnection router, HostedGame game) {
+        adopt(game);
+        server.own(game.id, this);
+        imports++;
+        Protocol.writeImported(frame.clear(), game.id, game.actions);
+        send(router, frame.flip());
+    }
+
+    // A command that reached this node after its game left goes back to the router
+    private void bounce(ClientConnection connection, long id, Protocol.Message command) {
+        Protocol.writeMoved(frame.clear(), id, command);
+        send(connection, frame.flip());
+    }
+
+    // On a spectator's shard: the game left for another node, where the router watches it again
+    private void forget(long id) {
+        Audience audience = audiences.remove(id);
+        if (audience == null) {
+            return;
+        }
+        for (Audience.Spectator spectator : audience.spectators) {
+            if (spectator.connection.spectating.remove(spectator)) {
+                spectators--;
+                if (spectator.behind) {
+                    spectator.connection.behind--;
+                }
+            }
+        }
+    }
+
+    // ---- Idle games ----
+
+    // Leaves a stub of each game nobody has sent a command for in idleMillis
+    private void passivateIdle() {
+        for (HostedGame game : games.values()) {
+            if (game.state == null || now - game.lastActive < idleMillis) {
+                continue;
+            }
+            try {
+                game.slot = store.put(game);
+            } catch (IOException e) {
+                // Kept in memory until the store takes writes again
+                break;
+            }
+            game.state = null;
+        }
+        idleGames = store.size();
+    }
+
+    // Brings the game back from the store if it was idle; false if its slot cannot be read,
+    // and the game is lost
+    private boolean activate(HostedGame game) {
+        game.lastActive = now;
+        if (game.state != null) {
+            return true;
+        }
+        try {
+            game.state = MoveLog.readCheckpoint(store.get(game.slot)).state;
+        } catch (IOException | IllegalArgumentException e) {
+            lose(game);
+            return false;
+        }
+        store.free(game.slot);
+        game.slot = -1;
+        idleGames = store.size();
+        reactivations++;
+        return true;
+    }
+
+    // An idle game whose position cannot be read back ends there, for it alone: with no
+    // position to send, its players get an ERROR in place of the final delta
+    private void lose(HostedGame game) {
+        error(game.black, game.id, "Game lost by the server");
+        if (game.white != game.black) {
+            error(game.white, game.id, "Game lost by the server");
+        }
+        store.free(game.slot);
+        game.slot = -1;
+        idleGames = store.size();
+        lostGames++;
+        finish(game);
+    }
+
+    // ---- Spectators ----
+
+    // On the game's shard: from now on the spectator's shard gets every update, starting
+    // with the whole position
+    private void watch(ClientConnection connection, HostedGame game) {
+        int size = game.state.getBoard().getSize();
+        Protocol.writeSnapshot(frame.clear(), game.id, game.actions, game.state, game.hash());
+        Protocol.Patch position = Audience.position(game.id, game.actions, game.state, game.hash());
+        Audience.Update update = new Audience.Update(position, size, Audience.shared(frame.flip()), true);
+        Shard home = connection.shard;
+        game.watchedFrom.set(home.index);
+        if (home == this) {
+            watched(connection, update);
+        } else {
+            post(home, () -> home.watched(connection, update));
+        }
+    }
+
+    // On the game's shard: hands the update just sent to the players to the shards with spectators
+    private void publish(HostedGame game, Protocol.Change change, Move move, ByteBuffer update) {
+        if (game.watchedFrom.isEmpty()) {
+            return;
+        }
+        Protocol.Patch patch = Audience.change(game.id, game.actions, game.state, change, move, game.hash());
+        Audience.Update shared = new Audience.Update(patch, game.state.getBoard().getSize(), Audience.shared(update), false);
+        for (int index = game.watchedFrom.nextSetBit(0); index >= 0; index = game.watchedFrom.nextSetBit(index + 1)) {
+            Shard shard = server.shard(index);
+            if (shard == this) {
+                show(shared);
+            } else {
+                post(shard, () -> shard.show(shared));
+            }
+        }
+    }
+
+    // On the spectator's shard: a new spectator (or one asking again) gets the position
+    private void watched(ClientConnection connection, Audience.Update update) {
+        if (connection.closed) {
+            return;
+        }
+        long id = update.change().game();
+        Audience audience = audiences.get(id);
+        if (audience == null) {
+            // Otherwise the audience has had every update since it was created, so it is current
+            audience = new Audience(id, update.size());
+            audience.apply(update);
+            audiences.put(id, audience);
+        }
+        Audience.Spectator spectator = null;
+        for (Audience.Spectator watching : connection.spectating) {
+            if (watching.audience == audience) {
+                spectator = watching;
+            }
+        }
+        if (spectator == null) {
+            if (connection.spectating.isEmpty()) {
+                capSendBuffer(connection);
+            }
+            spectator = new Audience.Spectator(connection, audience);
+            audience.spectators.add(spectator);
+            connection.spectating.add(spectator);
+            spectators++;
+        } else if (spectator.behind) {
+            spectator.behind = false;
+            connection.behind--;
+        }
+        queue(spectator, audience.snapshot());
+    }
+
+    // A large kernel buffer would hold stale updates for a slow spectator, and the catch-up
+    // frame would wait behind them
+    private static void capSendBuffer(ClientConnection connection) {
+        try {
+            connection.channel.setOption(StandardSocketOptions.SO_SNDBUF, GameServer.SPECTATOR_SEND_BUFFER);
+        } catch (IOException e) {
+            // Keeps the default buffer
+        }
+    }
+
+    // On the spectator's shard: the update goes to every spectator keeping up; the others
+    // are skipped and catch up once their socket drains
+    private void show(Audience.Update update) {
+        Audience audience = audiences.get(update.change().game());
+        if (audience == null) {
+            return;
+        }
+        audience.apply(update);
+        List<Audience.Spectator> watching = audience.spectators;
+        int kept = 0;
+        for (int i = 0; i < watching.size(); i++) {
+            Audience.Spectator spectator = watching.get(i);
+            if (spectator.connection.closed) {
+                continue;
+            }
+            watching.set(kept++, spectator);
+            if (spectator.behind) {
+                continue;
+            }
+            if (spectator.connection.broadcastBytes() > GameServer.SPECTATOR_BACKLOG) {
+                spectator.behind = true;
+                spectator.connection.behind++;
+                continue;
+            }
+            queue(spectator, update.frame());
+        }
+        watching.subList(kept, watching.size()).clear();
+        if (audience.isOver() || watching.isEmpty()) {
+            // Spectators still behind keep it until they have caught up
+            audiences.remove(audience.game);
+        }
+    }
+
+    private void queue(Audience.Spectator spectator, ByteBuffer update) {
+        ClientConnection connection = spectator.connection;
+        connection.broadcast(update);
+        spectator.seen = spectator.audience.version();
+        if (spectator.audience.isOver()) {
+            connection.spectating.remove(spectator);
+            spectators--;
+        }
+        toFlush(connection);
+    }
+
+    // Sends what the socket takes, then the catch-up frames of spectators once it has drained
+    private void flush(ClientConnection connection) throws IOException {
+        connection.flush();
+        if (connection.behind == 0 || connection.broadcastBytes() > 0) {
+            return;
+        }
+        Audience.Spectator[] owed = connection.spectating.toArray(new Audience.Spectator[0]);
+        for (Audience.Spectator spectator : owed) {
+            if (!spectator.behind) {
+                continue;
+            }
+            spectator.behind = false;
+            connection.behind--;
+            ByteBuffer update = spectator.audience.catchUp(spectator.seen);
+            if (update == spectator.audience.snapshot()) {
+                catchUpSnapshots++;
+            } else {
+                catchUpPatches++;
+            }
+            queue(spectator, update);
+        }
+        connection.flush();
+    }
+
+    // Monotonic milliseconds, for idle times and clocks
+    static long millis() {
+        return System.nanoTime() / 1_000_000;
+    }
+
+    static boolean hasEmptyCell(GameState state) {
+        int n = state.getBoard().getSize();
+        for (int cell = 0; cell < n * n; cell++) {
+            if (state.getBoard().getStone(Position.of(cell / n, cell % n)) == Stone.EMPTY) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // ---- Output ----
+
+    private void broadcast(HostedGame game, ByteBuffer update) {
+        send(game.black, update);
+        if (game.white != game.black) {
+            send(game.white, update);
+        }
+    }
+
+    private void error(ClientConnection connection, long id, String message) {
+        Protocol.writeError(frame.clear(), id, message);
+        send(connection, frame.flip());
+    }
+
+    // Queues the frame on the connection, through its own shard when that is another one.
+    // A seat left empty by a restart (null) gets nothing.
+    private void send(ClientConnection connection, ByteBuffer update) {
+        if (connection == null || connection.closed) {
+            return;
+        }
+        if (connection.shard != this) {
+            byte[] copy = new byte[update.remaining()];
+            update.duplicate().get(copy);
+            Shard owner = connection.shard;
+            post(owner, () -> owner.deliver(connection, ByteBuffer.wrap(copy)));
+            return;
+        }
+        deliver(connection, update);
+    }
+
+    // Hands the task to another shard, after this turn's commit when there is a move log
+    private void post(Shard shard, Runnable task) {
+        if (log == null) {
+            shard.execute(task);
+        } else {
+            held.add(() -> shard.execute(task));
+        }
+    }
+
+    private void deliver(ClientConnection connection, ByteBuffer update) {
+        if (connection.closed) {
+            return;
+        }
+        if (!connection.append(update, GameServer.MAX_BACKLOG)) {
+            disconnect(connection);
+            return;
+        }
+        toFlush(connection);
+    }
+
+    private void toFlush(ClientConnection connection) {
+        if (!connection.dirty) {
+            connection.dirty = true;
+            toFlush.add(connection);
+        }
+    }
+
+    // Commits the turn's records, then lets everything that shows them out
+    private void flushAll() {
+        if (server.crashed()) {
+            return;
+        }
+        if (log != null) {
+            try {
+                if (!batch.isEmpty()) {
+                    log.commit(batch);
+                }
+                if (checkpointing) {
+                    checkpointing = false;
+                    log.checkpointed();
+                }
+            } catch (IOException e) {
+                server.crash();
+                return;
+            }
+            for (Runnable task : held) {
+                task.run();
+            }
+            held.clear();
+        }
+        for (int i = 0; i < toFlush.size(); i++) {
+            ClientConnection connection = toFlush.get(i);
+            connection.dirty = false;
+            if (connection.closed) {
+                continue;
+            }
+            try {
+                flush(connection);
+            } catch (IOException e) {
+                disconnect(connection);
+            }
+        }
+        toFlush.clear();
+    }
+}
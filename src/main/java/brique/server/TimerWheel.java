@@ -0,0 +1,167 @@
+package brique.server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Hashed timer wheel (Varghese and Lauck): a ring of slots, one per tick, each holding a
+// doubly linked list of the timers due in a tick that maps to it. A timer due further away
+// than one turn of the ring shares its slot with nearer ones and is passed over until its
+// own tick comes, so arming and cancelling are O(1) whatever the number of timers, and a
+// tick costs the timers in one slot. A timer fires on the first tick at or after its
+// deadline, so never early and at most one tick late (plus however late advance is called).
+// Only one thread may use a wheel; in the server each shard drives its own from its loop.
+public final class TimerWheel<T> {
+
+    // A timer is armed on at most one wheel at a time and can be armed again after it fired
+    public static final class Timer<T> {
+
+        final T owner;
+        private TimerWheel<T> wheel;
+        private Timer<T> previous;
+        private Timer<T> next;
+        private long dueTick;
+        private boolean firing;
+
+        public Timer(T owner) {
+            this.owner = owner;
+        }
+
+        public T owner() {
+            return owner;
+        }
+
+        public boolean isArmed() {
+            return wheel != null;
+        }
+    }
+
+    private final long tickMillis;
+    private final long origin;
+    private final Timer<T>[] slots;
+    private final int mask;
+    private final List<Timer<T>> due = new ArrayList<>();
+    // Every tick up to this one has been processed
+    private long tick;
+    private int size;
+
+    // Slots are rounded up to a power of two; start is the time of tick 0
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public TimerWheel(long tickMillis, int slots, long start) {
+        if (tickMillis <= 0 || slots <= 0) {
+            throw new IllegalArgumentException("Tick and slots must be positive");
+        }
+        this.tickMillis = tickMillis;
+        this.origin = start;
+        int length = Integer.highestOneBit(slots);
+        this.slots = new Timer[length < slots ? length << 1 : length];
+        this.mask = this.slots.length - 1;
+    }
+
+    // Arms the timer for the deadline, moving it if it was armed already
+    public void arm(Timer<T> timer, long deadline) {
+        if (timer.wheel != null) {
+            cancel(timer);
+        }
+        long elapsed = deadline - origin;
+        // Ceiling, and never a tick already processed
+        long dueTick = Math.max(tick + 1, elapsed <= 0 ? 0 : (elapsed + tickMillis - 1) / tickMillis);
+        int slot = (int) (dueTick & mask);
+        timer.wheel = this;
+        timer.dueTick = dueTick;
+        timer.firing = false;
+        timer.previous = null;
+        timer.next = slots[slot];
+        if (timer.next != null) {
+            timer.next.previous = timer;
+        }
+        slots[slot] = timer;
+        size++;
+    }
+
+    // Does nothing to a timer that is not armed, and keeps one that is due in the current
+    // advance from firing
+    public void cancel(Timer<T> timer) {
+        timer.firing = false;
+        if (timer.wheel == null) {
+            return;
+        }
+        if (timer.wheel != this) {
+            throw new IllegalStateException("The timer is armed on another wheel");
+        }
+        unlink(timer);
+    }
+
+    // Fires every timer due by now and returns how many fired. A callback may arm and
+    // cancel timers, its own included.
+    public int advance(long now, Consumer<T> expired) {
+        long target = (now - origin) / tickMillis;
+        if (target <= tick) {
+            return 0;
+        }
+        if (target - tick >= slots.length) {
+            // A whole turn or more behind: every slot once
+            for (int slot = 0; slot < slots.length; slot++) {
+                collect(slot, target);
+            }
+        } else {
+            for (long t = tick + 1; t <= target; t++) {
+                collect((int) (t & mask), target);
+            }
+        }
+        tick = target;
+        int fired = 0;
+        for (Timer<T> timer : due) {
+            // Cancelled or armed again by an earlier callback
+            if (!timer.firing) {
+                continue;
+            }
+            timer.firing = false;
+            fired++;
+            expired.accept(timer.owner);
+        }
+        due.clear();
+        return fired;
+    }
+
+    // When advance next has something to do, Long.MAX_VALUE with no timer armed
+    public long nextTick() {
+        return size == 0 ? Long.MAX_VALUE : origin + (tick + 1) * tickMillis;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long tickMillis() {
+        return tickMillis;
+    }
+
+    private void collect(int slot, long target) {
+        Timer<T> timer = slots[slot];
+        while (timer != null) {
+            Timer<T> next = timer.next;
+            if (timer.dueTick <= target) {
+                unlink(timer);
+                timer.firing = true;
+                due.add(timer);
+            }
+            timer = next;
+        }
+    }
+
+    private void unlink(Timer<T> timer) {
+        if (timer.previous != null) {
+            timer.previous.next = timer.next;
+        } else {
+            slots[(int) (timer.dueTick & mask)] = timer.next;
+        }
+        if (timer.next != null) {
+            timer.next.previous = timer.previous;
+        }
+        timer.previous = null;
+        timer.next = null;
+        timer.wheel = null;
+        size--;
+    }
+}
@@ -0,0 +1,93 @@
+package brique.solver;
+
+import brique.core.Board;
+import brique.core.Position;
+import brique.rules.GameRules;
+
+import java.util.List;
+
+// The standard Brique move on int bitmasks (bit row*size+col), for boards of up to 5x5.
+// Mirrors StandardBriqueRules: the stone is placed, then every square whose two escorts
+// belong to the mover is filled in one pass (capturing opponent stones), and the mover
+// wins on an orthogonal chain between its two edges. Escort pairs come from the GameRules.
+final class BitboardRules {
+
+    private final int full;
+    private final int topRow;
+    private final int bottomRow;
+    private final int firstColumn;
+    private final int lastColumn;
+    private final int size;
+    // Squares with two escorts, and the mask of those escorts
+    private final int[] fillSquare;
+    private final int[] fillEscorts;
+
+    BitboardRules(int size, GameRules rules) {
+        this.size = size;
+        int cells = size * size;
+        this.full = cells == 32 ? -1 : (1 << cells) - 1;
+
+        int top = 0;
+        int bottom = 0;
+        int first = 0;
+        int last = 0;
+        for (int i = 0; i < size; i++) {
+            top |= 1 << i;
+            bottom |= 1 << ((size - 1) * size + i);
+            first |= 1 << (i * size);
+            last |= 1 << (i * size + size - 1);
+        }
+        this.topRow = top;
+        this.bottomRow = bottom;
+        this.firstColumn = first;
+        this.lastColumn = last;
+
+        Board board = new Board(size);
+        int[] squares = new int[cells];
+        int[] escorts = new int[cells];
+        int count = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            List<Position> pair = rules.getEscorts(Position.of(cell / size, cell % size), board);
+            if (pair.size() == 2) {
+                squares[count] = 1 << cell;
+                escorts[count] = bit(pair.get(0)) | bit(pair.get(1));
+                count++;
+            }
+        }
+        this.fillSquare = java.util.Arrays.copyOf(squares, count);
+        this.fillEscorts = java.util.Arrays.copyOf(escorts, count);
+    }
+
+    int full() {
+        return full;
+    }
+
+    // Squares the mover fills after its stones became `mover` (placed stone included).
+    int fills(int mover) {
+        int fill = 0;
+        for (int i = 0; i < fillSquare.length; i++) {
+            if ((mover & fillEscorts[i]) == fillEscorts[i] && (mover & fillSquare[i]) == 0) {
+                fill |= fillSquare[i];
+            }
+        }
+        return fill;
+    }
+
+    // Black's goal: a chain from the top row to the bottom row.
+    boolean connectsTopBottom(int stones) {
+        int reach = stones & topRow;
+        while (true) {
+            int next = reach
+                     | ((reach << size | reach >>> size
+                         | (reach << 1) & ~firstColumn | (reach >>> 1) & ~lastColumn) & stones);
+            if (next == reach) {
+                return (reach & bottomRow) != 0;
+            }
+            reach = next;
+        }
+    }
+
+    private int bit(Position pos) {
+        return 1 << (pos.row() * size + pos.col());
+    }
+}
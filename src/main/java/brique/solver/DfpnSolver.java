@@ -0,0 +1,300 @@
+package brique.solver;
+
+import brique.bot.BotAction;
+import brique.core.GameState;
+import brique.core.Move;
+import brique.core.MoveExecutor;
+import brique.core.Position;
+import brique.core.Stone;
+import brique.core.ZobristHash;
+import brique.rules.GameRules;
+import brique.rules.RuleType;
+import brique.rules.RulesFactory;
+
+// Depth-first proof-number search (df-pn) that proves whether the player to move wins.
+// Works in negamax form: every node stores (proof, disproof) for its own side to move,
+// so a node's proof number is the smallest disproof number among its children and its
+// disproof number is the sum of its children's proof numbers. Uses the 1+epsilon
+// threshold trick to avoid thrashing, and a ProofTable with a memory cap for transpositions.
+// Brique positions never repeat (every move adds a stone), so there are no cycles to handle.
+// The pie rule is a regular child of White's first decision.
+public class DfpnSolver {
+
+    static final int INF = 100_000_000;
+
+    private static final double EPSILON = 0.25;
+    private static final long DEFAULT_PROGRESS_INTERVAL = 100_000;
+
+    private final GameRules rules;
+    private final ProofTable table;
+
+    private SolverProgress progress;
+    private long progressInterval = DEFAULT_PROGRESS_INTERVAL;
+    private long nodeLimit = Long.MAX_VALUE;
+    private volatile boolean interrupted;
+
+    // Per-search state
+    private GameState state;
+    private int size;
+    private int swapCode;
+    private long boardHash;
+    private int[][] childCodes;
+    private long[][] childKeys;
+    private long nodes;
+    private int rootProof;
+    private int rootDisproof;
+
+    public DfpnSolver(int tableSizeMb) {
+        this(tableSizeMb, RulesFactory.createRules(RuleType.STANDARD));
+    }
+
+    public DfpnSolver(int tableSizeMb, GameRules rules) {
+        this(ProofTable.ofMegabytes(tableSizeMb), rules);
+    }
+
+    DfpnSolver(ProofTable table, GameRules rules) {
+        this.table = table;
+        this.rules = rules;
+    }
+
+    public void setProgress(SolverProgress progress, long intervalNodes) {
+        this.progress = progress;
+        this.progressInterval = Math.max(1, intervalNodes);
+    }
+
+    public void setNodeLimit(long nodeLimit) {
+        this.nodeLimit = nodeLimit > 0 ? nodeLimit : Long.MAX_VALUE;
+    }
+
+    // Asks a running solve() to stop; it returns an UNKNOWN result shortly after.
+    // Interrupting the solving thread has the same effect.
+    public void interrupt() {
+        interrupted = true;
+    }
+
+    public SolverResult solve(GameState position) {
+        if (!position.isInProgress()) {
+            throw new IllegalStateException("Cannot solve a finished game");
+        }
+
+        long start = System.nanoTime();
+        interrupted = false;
+        nodes = 0;
+        rootProof = 1;
+        rootDisproof = 1;
+        state = position.copy();
+        size = state.getBoard().getSize();
+        swapCode = size * size;
+        boardHash = ZobristHash.boardHash(state.getBoard());
+        int maxPly = size * size + 2;
+        childCodes = new int[maxPly][size * size + 1];
+        childKeys = new long[maxPly][size * size + 1];
+
+        mid(0, INF, INF);
+
+        SolverResult.Outcome outcome = rootProof == 0 ? SolverResult.Outcome.WIN
+                                     : rootDisproof == 0 ? SolverResult.Outcome.LOSS
+                                     : SolverResult.Outcome.UNKNOWN;
+        BotAction winningMove = outcome == SolverResult.Outcome.WIN ? findWinningMove() : null;
+        if (outcome == SolverResult.Outcome.WIN && winningMove == null) {
+            // The winning child was evicted and proving it again ran out of budget
+            outcome = SolverResult.Outcome.UNKNOWN;
+        }
+        if (progress != null) {
+            progress.onProgress(nodes, rootProof, rootDisproof);
+        }
+        return new SolverResult(outcome, winningMove, nodes, System.nanoTime() - start);
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getRootProof() {
+        return rootProof;
+    }
+
+    public long getRootDisproof() {
+        return rootDisproof;
+    }
+
+    // Multiple-iterative-deepening step: searches the current node until its proof number
+    // reaches thProof or its disproof number reaches thDisproof.
+    private void mid(int ply, int thProof, int thDisproof) {
+        long key = key();
+        long workStart = nodes;
+        countNode();
+
+        int count = expand(ply);
+        if (count < 0) {
+            // A child wins on the spot
+            record(ply, key, 0, INF, nodes - workStart);
+            return;
+        }
+        if (count == 0) {
+            // No legal move left: the side to move cannot complete a connection
+            record(ply, key, INF, 0, nodes - workStart);
+            return;
+        }
+
+        int[] codes = childCodes[ply];
+        long[] keys = childKeys[ply];
+        while (true) {
+            int best = -1;
+            int bestProof = 0;
+            int minDisproof = INF;
+            int secondDisproof = INF;
+            long proofSum = 0;
+            for (int i = 0; i < count; i++) {
+                int slot = table.find(keys[i]);
+                int childProof = slot >= 0 ? table.proof(slot) : 1;
+                int childDisproof = slot >= 0 ? table.disproof(slot) : 1;
+                proofSum += childProof;
+                if (best < 0 || childDisproof < minDisproof) {
+                    secondDisproof = minDisproof;
+                    minDisproof = childDisproof;
+                    bestProof = childProof;
+                    best = i;
+                } else if (childDisproof < secondDisproof) {
+                    secondDisproof = childDisproof;
+                }
+            }
+
+            int nodeProof = minDisproof;
+            int nodeDisproof = (int) Math.min(INF, proofSum);
+            if (nodeProof >= thProof || nodeDisproof >= thDisproof || isStopped()) {
+                record(ply, key, nodeProof, nodeDisproof, nodes - workStart);
+                return;
+            }
+
+            // The chosen child must stay the most promising one (1+epsilon) and must not
+            // push our disproof number over its threshold
+            int childThProof = (int) Math.min(INF, (long) thDisproof - nodeDisproof + bestProof);
+            int childThDisproof = (int) Math.min(thProof, Math.ceil(secondDisproof * (1 + EPSILON)) + 1);
+
+            makeChild(codes[best]);
+            mid(ply + 1, childThProof, childThDisproof);
+            unmakeChild(codes[best]);
+        }
+    }
+
+    // Generates the children and their keys. Returns -1 as soon as a move wins outright.
+    private int expand(int ply) {
+        int[] codes = childCodes[ply];
+        long[] keys = childKeys[ply];
+        int count = 0;
+
+        for (int cell = 0; cell < swapCode; cell++) {
+            if (state.getBoard().getStone(Position.of(cell / size, cell % size)) != Stone.EMPTY) {
+                continue;
+            }
+            makeChild(cell);
+            boolean won = !state.isInProgress();
+            long childKey = key();
+            unmakeChild(cell);
+            if (won) {
+                return -1;
+            }
+            codes[count] = cell;
+            keys[count] = childKey;
+            count++;
+        }
+
+        if (state.isPieRuleAvailable() && state.getCurrentPlayer() == Stone.WHITE
+                && !state.getMoveHistory().isEmpty()) {
+            makeChild(swapCode);
+            keys[count] = key();
+            unmakeChild(swapCode);
+            codes[count] = swapCode;
+            count++;
+        }
+        return count;
+    }
+
+    private void makeChild(int code) {
+        if (code == swapCode) {
+            Position first = state.getMoveHistory().get(0).getPosition();
+            state.applyPieRule();
+            boardHash ^= ZobristHash.pieDelta(first);
+        } else {
+            Move move = MoveExecutor.play(state, rules, Position.of(code / size, code % size));
+            boardHash ^= ZobristHash.moveDelta(move);
+        }
+    }
+
+    private void unmakeChild(int code) {
+        if (code == swapCode) {
+            Position first = state.getMoveHistory().get(0).getPosition();
+            state.undoPieRule();
+            boardHash ^= ZobristHash.pieDelta(first);
+        } else {
+            Move move = state.undoLastMove();
+            boardHash ^= ZobristHash.moveDelta(move);
+        }
+    }
+
+    private void record(int ply, long key, int proofNumber, int disproofNumber, long work) {
+        table.store(key, proofNumber, disproofNumber, work + 1);
+        if (ply == 0) {
+            rootProof = proofNumber;
+            rootDisproof = disproofNumber;
+        }
+    }
+
+    // A proven win has a child the opponent cannot win from (disproof 0). If that child
+    // was evicted from the table, it is proven again on its own; null if that is stopped.
+    private BotAction findWinningMove() {
+        int count = expand(0);
+        if (count < 0) {
+            for (int cell = 0; cell < swapCode; cell++) {
+                if (state.getBoard().getStone(Position.of(cell / size, cell % size)) == Stone.EMPTY) {
+                    makeChild(cell);
+                    boolean won = !state.isInProgress();
+                    unmakeChild(cell);
+                    if (won) {
+                        return toAction(cell);
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            int slot = table.find(childKeys[0][i]);
+            if (slot >= 0 && table.disproof(slot) == 0) {
+                return toAction(childCodes[0][i]);
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            int code = childCodes[0][i];
+            makeChild(code);
+            mid(1, INF, INF);
+            int slot = table.find(key());
+            unmakeChild(code);
+            if (slot >= 0 && table.disproof(slot) == 0) {
+                return toAction(code);
+            }
+        }
+        return null;
+    }
+
+    private BotAction toAction(int code) {
+        return code == swapCode ? BotAction.swap() : BotAction.place(Position.of(code / size, code % size));
+    }
+
+    private void countNode() {
+        nodes++;
+        if (progress != null && nodes % progressInterval == 0) {
+            progress.onProgress(nodes, rootProof, rootDisproof);
+        }
+        if (Thread.currentThread().isInterrupted()) {
+            interrupted = true;
+        }
+    }
+
+    private boolean isStopped() {
+        return interrupted || nodes >= nodeLimit;
+    }
+
+    private long key() {
+        return boardHash ^ ZobristHash.turnKey(state);
+    }
+}
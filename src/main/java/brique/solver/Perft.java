@@ -0,0 +1,212 @@
+package brique.solver;
+
+import brique.core.GameState;
+import brique.core.Move;
+import brique.core.MoveExecutor;
+import brique.core.Position;
+import brique.core.Stone;
+import brique.core.ZobristHash;
+import brique.rules.GameRules;
+import brique.rules.RuleType;
+import brique.rules.RulesFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+
+// Move-tree enumeration ("perft"): the number of positions exactly depth plies after the
+// start, counting the pie rule as one more move for White on her first turn. A finished
+// game has no moves, so its subtree ends there: it is counted only when the depth runs
+// out at it. Every move is made and unmade through MoveExecutor and GameState, so the
+// counts pin down the rules (fills, captures, wins, pie rule) and the timing measures
+// move generation plus make/unmake.
+// The first plies are split into fork-join tasks, each on its own copy of the game. An
+// optional lockless table, entries (key ^ count, count) like the TranspositionTable,
+// counts a subtree reached by two move orders once.
+public final class Perft {
+
+    private static final long DEPTH_SALT = 0x6A09_E667_F3BC_C909L;
+    // Subtrees this shallow are not worth a table entry or a task of their own
+    private static final int MIN_STORED_DEPTH = 2;
+
+    private final RuleType ruleType;
+
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int splitDepth = 2;
+    private long[] table;
+    private int tableMask;
+    private final LongAdder nodes = new LongAdder();
+    private final LongAdder tableHits = new LongAdder();
+
+    public Perft() {
+        this(RuleType.STANDARD);
+    }
+
+    public Perft(RuleType ruleType) {
+        this.ruleType = ruleType;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    // Plies from the start that are split into parallel tasks
+    public void setSplitDepth(int splitDepth) {
+        this.splitDepth = Math.max(0, splitDepth);
+    }
+
+    // Size of the transposition table; 0 turns it off
+    public void setTableSizeMb(int sizeMb) {
+        if (sizeMb < 0) {
+            throw new IllegalArgumentException("Table size cannot be negative: " + sizeMb + " MB");
+        }
+        if (sizeMb == 0) {
+            table = null;
+            return;
+        }
+        long entries = Math.min(Long.highestOneBit(((long) sizeMb << 20) / (2 * Long.BYTES)), 1L << 28);
+        table = new long[(int) (entries * 2)];
+        tableMask = (int) (entries - 1);
+    }
+
+    // Moves made by the last run, the interior ones included
+    public long getNodes() {
+        return nodes.sum();
+    }
+
+    // Subtrees the last run took from the table instead of enumerating
+    public long getTableHits() {
+        return tableHits.sum();
+    }
+
+    // The start position is not modified
+    public long perft(GameState start, int depth) {
+        if (depth < 0) {
+            throw new IllegalArgumentException("Depth cannot be negative: " + depth);
+        }
+        nodes.reset();
+        tableHits.reset();
+        if (table != null) {
+            java.util.Arrays.fill(table, 0L);
+        }
+        GameState state = start.copy();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            return pool.invoke(new Subtree(state, ZobristHash.boardHash(state.getBoard()), depth, 0));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // Tasks are never serialized
+    @SuppressWarnings("serial")
+    private final class Subtree extends RecursiveTask<Long> {
+
+        private final GameState state;
+        private final long boardHash;
+        private final int depth;
+        private final int ply;
+
+        Subtree(GameState state, long boardHash, int depth, int ply) {
+            this.state = state;
+            this.boardHash = boardHash;
+            this.depth = depth;
+            this.ply = ply;
+        }
+
+        @Override
+        protected Long compute() {
+            GameRules rules = RulesFactory.createRules(ruleType);
+            if (ply >= splitDepth || depth <= MIN_STORED_DEPTH || !state.isInProgress()) {
+                long[] made = new long[1];
+                long count = count(state, rules, boardHash, depth, made);
+                nodes.add(made[0]);
+                return count;
+            }
+
+            List<Subtree> children = new ArrayList<>();
+            int size = state.getBoard().getSize();
+            for (int cell = 0; cell < size * size; cell++) {
+                Position pos = Position.of(cell / size, cell % size);
+                if (state.getBoard().getStone(pos) != Stone.EMPTY) {
+                    continue;
+                }
+                GameState child = state.copy();
+                Move move = MoveExecutor.play(child, rules, pos);
+                if (move != null) {
+                    children.add(new Subtree(child, boardHash ^ ZobristHash.moveDelta(move), depth - 1, ply + 1));
+                }
+            }
+            if (canSwap(state)) {
+                GameState child = state.copy();
+                child.applyPieRule();
+                long hash = boardHash ^ ZobristHash.pieDelta(state.getMoveHistory().get(0).getPosition());
+                children.add(new Subtree(child, hash, depth - 1, ply + 1));
+            }
+            nodes.add(children.size());
+
+            long count = 0;
+            for (Subtree child : invokeAll(children)) {
+                count += child.join();
+            }
+            return count;
+        }
+    }
+
+    // Sequential enumeration with make/unmake; made[0] counts the moves made
+    private long count(GameState state, GameRules rules, long boardHash, int depth, long[] made) {
+        if (depth == 0) {
+            return 1;
+        }
+        if (!state.isInProgress()) {
+            return 0;
+        }
+        long key = 0;
+        if (table != null && depth >= MIN_STORED_DEPTH) {
+            key = (boardHash ^ ZobristHash.turnKey(state)) ^ (DEPTH_SALT * depth);
+            int slot = (int) (key & tableMask) * 2;
+            long stored = table[slot + 1];
+            if (stored != 0 && (table[slot] ^ stored) == key) {
+                tableHits.increment();
+                return stored - 1;
+            }
+        }
+
+        long count = 0;
+        int size = state.getBoard().getSize();
+        for (int cell = 0; cell < size * size; cell++) {
+            Position pos = Position.of(cell / size, cell % size);
+            if (state.getBoard().getStone(pos) != Stone.EMPTY) {
+                continue;
+            }
+            Move move = MoveExecutor.play(state, rules, pos);
+            if (move == null) {
+                continue;
+            }
+            made[0]++;
+            count += depth == 1 ? 1 : count(state, rules, boardHash ^ ZobristHash.moveDelta(move), depth - 1, made);
+            state.undoLastMove();
+        }
+        if (canSwap(state)) {
+            Position first = state.getMoveHistory().get(0).getPosition();
+            state.applyPieRule();
+            made[0]++;
+            count += count(state, rules, boardHash ^ ZobristHash.pieDelta(first), depth - 1, made);
+            state.undoPieRule();
+        }
+
+        if (table != null && depth >= MIN_STORED_DEPTH) {
+            int slot = (int) (key & tableMask) * 2;
+            table[slot] = key ^ (count + 1);
+            table[slot + 1] = count + 1;
+        }
+        return count;
+    }
+
+    private static boolean canSwap(GameState state) {
+        return state.isPieRuleAvailable() && state.getCurrentPlayer() == Stone.WHITE
+            && !state.getMoveHistory().isEmpty();
+    }
+}
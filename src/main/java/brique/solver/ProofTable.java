@@ -0,0 +1,86 @@
+package brique.solver;
+
+// Hash-keyed table of proof and disproof numbers with a fixed memory cap.
+// Entries live in parallel primitive arrays, in buckets of four; when a bucket is full
+// the entry with the least search work behind it is replaced, so expensive results survive.
+final class ProofTable {
+
+    private static final int BUCKET = 4;
+    private static final int BYTES_PER_ENTRY = Long.BYTES + 3 * Integer.BYTES;
+
+    private final long[] keys;
+    private final int[] proof;
+    private final int[] disproof;
+    private final int[] work; // 0 marks an empty slot
+    private final int bucketMask;
+
+    private ProofTable(long buckets) {
+        int entries = (int) buckets * BUCKET;
+        this.keys = new long[entries];
+        this.proof = new int[entries];
+        this.disproof = new int[entries];
+        this.work = new int[entries];
+        this.bucketMask = (int) buckets - 1;
+    }
+
+    static ProofTable ofMegabytes(int sizeMb) {
+        if (sizeMb <= 0) {
+            throw new IllegalArgumentException("Proof table size must be positive: " + sizeMb + " MB");
+        }
+        long buckets = Long.highestOneBit(((long) sizeMb << 20) / (BYTES_PER_ENTRY * BUCKET));
+        return new ProofTable(Math.min(buckets, 1L << 26));
+    }
+
+    // A table of a power of two buckets, for tests that need entries to be evicted
+    static ProofTable ofBuckets(int buckets) {
+        if (buckets <= 0 || Integer.bitCount(buckets) != 1) {
+            throw new IllegalArgumentException("Bucket count must be a power of two: " + buckets);
+        }
+        return new ProofTable(buckets);
+    }
+
+    // Returns the slot holding the key, or -1.
+    int find(long key) {
+        int base = bucketBase(key);
+        for (int slot = base; slot < base + BUCKET; slot++) {
+            if (work[slot] != 0 && keys[slot] == key) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    int proof(int slot) {
+        return proof[slot];
+    }
+
+    int disproof(int slot) {
+        return disproof[slot];
+    }
+
+    void store(long key, int proofNumber, int disproofNumber, long searchWork) {
+        int base = bucketBase(key);
+        int victim = base;
+        for (int slot = base; slot < base + BUCKET; slot++) {
+            if (work[slot] == 0 || keys[slot] == key) {
+                victim = slot;
+                break;
+            }
+            if (work[slot] < work[victim]) {
+                victim = slot;
+            }
+        }
+        keys[victim] = key;
+        proof[victim] = proofNumber;
+        disproof[victim] = disproofNumber;
+        work[victim] = (int) Math.max(1, Math.min(Integer.MAX_VALUE, searchWork));
+    }
+
+    int capacity() {
+        return keys.length;
+    }
+
+    private int bucketBase(long key) {
+        return ((int) (key ^ (key >>> 32)) & bucketMask) * BUCKET;
+    }
+}
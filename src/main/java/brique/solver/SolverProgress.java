@@ -0,0 +1,9 @@
+package brique.solver;
+
+// Callback for long solver runs. Numbers are the root's proof and disproof numbers
+// for the player to move: 0 proof means a proven win, 0 disproof a proven loss.
+@FunctionalInterface
+public interface SolverProgress {
+
+    void onProgress(long nodes, long proofNumber, long disproofNumber);
+}
@@ -0,0 +1,35 @@
+package brique.solver;
+
+import brique.bot.BotAction;
+import brique.core.Stone;
+
+// Outcome of a solver run, from the point of view of the player to move.
+// winningMove is set only when the outcome is WIN.
+public record SolverResult(Outcome outcome, BotAction winningMove, long nodes, long elapsedNanos) {
+
+    public enum Outcome {
+        WIN,
+        LOSS,
+        DRAW,    // the board fills up without a connection (only reported by the tablebase)
+        UNKNOWN // interrupted or out of budget before a proof was found
+    }
+
+    public boolean isProven() {
+        return outcome != Outcome.UNKNOWN;
+    }
+
+    // One-line summary for the player to move, as shown by the "solve" command.
+    public String describe(Stone player) {
+        switch (outcome) {
+            case WIN:
+                return player + " wins by force: " + (winningMove.isSwap() ? "swap" : "play " + winningMove.position())
+                    + " (" + nodes + " nodes)";
+            case LOSS:
+                return player + " loses against best play (" + nodes + " nodes)";
+            case DRAW:
+                return "Neither side can force a connection";
+            default:
+                return "No forced result found within " + nodes + " nodes";
+        }
+    }
+}
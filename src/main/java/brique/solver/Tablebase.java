@@ -0,0 +1,153 @@
+package brique.solver;
+
+import brique.bot.BotAction;
+import brique.core.Board;
+import brique.core.GameState;
+import brique.core.MoveExecutor;
+import brique.core.Position;
+import brique.core.Stone;
+import brique.rules.GameRules;
+import brique.rules.RuleType;
+import brique.rules.RulesFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+// Read-only view of a tablebase file written by TablebaseGenerator: the exact result of
+// every reachable position of one board size. A probe ranks the board (one table lookup
+// per row) and reads two bits from the mapped file, so it costs the same on any position.
+// Results are for the player to move; positions the file does not cover come back UNKNOWN.
+public final class Tablebase {
+
+    private final TablebaseFile file;
+    private final TablebaseIndex index;
+    private final GameRules rules;
+
+    private Tablebase(TablebaseFile file) {
+        this.file = file;
+        this.index = new TablebaseIndex(file.size());
+        this.rules = RulesFactory.createRules(RuleType.STANDARD);
+        if (index.count() != file.entries()) {
+            throw new IllegalStateException("Tablebase index does not match the file");
+        }
+    }
+
+    public static Tablebase open(Path path) throws IOException {
+        return new Tablebase(TablebaseFile.openForReading(path));
+    }
+
+    public int getSize() {
+        return file.size();
+    }
+
+    // False while a generation is still running or was interrupted.
+    public boolean isComplete() {
+        return file.isComplete();
+    }
+
+    public long entries() {
+        return file.entries();
+    }
+
+    public boolean covers(GameState state) {
+        return state.getBoard().getSize() == file.size() && state.isInProgress();
+    }
+
+    public SolverResult.Outcome probe(GameState state) {
+        if (!state.isInProgress()) {
+            throw new IllegalStateException("Cannot probe a finished game");
+        }
+        Board board = state.getBoard();
+        if (board.getSize() != file.size()) {
+            throw new IllegalArgumentException("Tablebase is for " + file.size() + "x" + file.size()
+                + " boards, not " + board.getSize() + "x" + board.getSize());
+        }
+
+        int black = mask(board, Stone.BLACK);
+        int white = mask(board, Stone.WHITE);
+        if (state.getCurrentPlayer() == Stone.BLACK) {
+            return toOutcome(value(black, white));
+        }
+        // White to move is stored as its transposed, colour-swapped twin
+        int value = value(index.transpose(white), index.transpose(black));
+        if (state.isPieRuleAvailable()) {
+            // Swapping hands Black the position with the first stone recoloured
+            int swapped = value(0, black);
+            value = value == TablebaseFile.UNKNOWN || swapped == TablebaseFile.UNKNOWN
+                  ? TablebaseFile.UNKNOWN
+                  : TablebaseGenerator.better(value, TablebaseGenerator.negate(swapped));
+        }
+        return toOutcome(value);
+    }
+
+    // Best action for the player to move: a win if there is one, else a draw, else any
+    // move. Returns null when the position is not in the table.
+    public BotAction bestAction(GameState state) {
+        if (probe(state) == SolverResult.Outcome.UNKNOWN) {
+            return null;
+        }
+
+        int size = file.size();
+        BotAction best = null;
+        int bestValue = 0;
+        for (int cell = 0; cell < size * size; cell++) {
+            Position pos = Position.of(cell / size, cell % size);
+            if (state.getBoard().getStone(pos) != Stone.EMPTY) {
+                continue;
+            }
+            GameState child = state.copy();
+            MoveExecutor.play(child, rules, pos);
+            if (!child.isInProgress()) {
+                return BotAction.place(pos);
+            }
+            int value = rankForMover(probe(child));
+            if (best == null || value > bestValue) {
+                best = BotAction.place(pos);
+                bestValue = value;
+            }
+        }
+        if (state.isPieRuleAvailable() && state.getCurrentPlayer() == Stone.WHITE) {
+            GameState child = state.copy();
+            child.applyPieRule();
+            if (best == null || rankForMover(probe(child)) > bestValue) {
+                best = BotAction.swap();
+            }
+        }
+        return best;
+    }
+
+    // Orders a child's result from the mover's side: opponent lost > draw > anything else
+    private static int rankForMover(SolverResult.Outcome child) {
+        switch (child) {
+            case LOSS: return 3;
+            case DRAW: return 2;
+            case WIN:  return 1;
+            default:   return 0;
+        }
+    }
+
+    private int value(int black, int white) {
+        long rank = index.rank(black, white);
+        return rank < 0 ? TablebaseFile.UNKNOWN : file.get(rank);
+    }
+
+    private static SolverResult.Outcome toOutcome(int value) {
+        switch (value) {
+            case TablebaseFile.WIN:  return SolverResult.Outcome.WIN;
+            case TablebaseFile.LOSS: return SolverResult.Outcome.LOSS;
+            case TablebaseFile.DRAW: return SolverResult.Outcome.DRAW;
+            default:                 return SolverResult.Outcome.UNKNOWN;
+        }
+    }
+
+    private static int mask(Board board, Stone stone) {
+        int size = board.getSize();
+        int mask = 0;
+        for (int cell = 0; cell < size * size; cell++) {
+            if (board.getStone(Position.of(cell / size, cell % size)) == stone) {
+                mask |= 1 << cell;
+            }
+        }
+        return mask;
+    }
+}
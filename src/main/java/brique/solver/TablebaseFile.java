@@ -0,0 +1,161 @@
+package brique.solver;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Memory-mapped tablebase file: a 64-byte header followed by 2-bit entries, four per byte.
+// The file is mapped in 1 GB segments, so 5x5 tables (about 19 GB) can be mapped too.
+// Writers update an entry with a compare-and-set on the int holding it, so generator
+// threads can share the mapping; an entry is only written once its value is final,
+// which is what makes an interrupted generation resumable from the file itself.
+final class TablebaseFile {
+
+    static final int UNKNOWN = 0;
+    static final int LOSS = 1;
+    static final int WIN = 2;
+    static final int DRAW = 3;
+
+    private static final int MAGIC = 0x42525442; // "BRTB"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int SEGMENT_SHIFT = 30;
+    private static final long SEGMENT_BYTES = 1L << SEGMENT_SHIFT;
+
+    // header layout: magic, version, board size, complete flag, entry count
+    private static final int SIZE_OFFSET = 8;
+    private static final int COMPLETE_OFFSET = 12;
+    private static final int ENTRIES_OFFSET = 16;
+
+    private static final VarHandle INT =
+        MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final MappedByteBuffer header;
+    private final MappedByteBuffer[] segments;
+    private final int size;
+    private final long entries;
+
+    private TablebaseFile(MappedByteBuffer header, MappedByteBuffer[] segments, int size, long entries) {
+        this.header = header;
+        this.segments = segments;
+        this.size = size;
+        this.entries = entries;
+    }
+
+    // Opens the file for writing, creating it when missing. An existing file must describe
+    // the same board size and index; its entries are kept so generation can resume.
+    static TablebaseFile openForWriting(Path path, int size, long entries) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            boolean fresh = channel.size() == 0;
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            if (fresh) {
+                header.putInt(0, MAGIC);
+                header.putInt(4, VERSION);
+                header.putInt(SIZE_OFFSET, size);
+                header.putInt(COMPLETE_OFFSET, 0);
+                header.putLong(ENTRIES_OFFSET, entries);
+            } else {
+                checkHeader(header, path);
+                if (header.getInt(SIZE_OFFSET) != size || header.getLong(ENTRIES_OFFSET) != entries) {
+                    throw new IOException(path + " holds a different tablebase (size "
+                        + header.getInt(SIZE_OFFSET) + ")");
+                }
+            }
+            return new TablebaseFile(header, map(channel, FileChannel.MapMode.READ_WRITE, entries), size, entries);
+        }
+    }
+
+    static TablebaseFile openForReading(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES) {
+                throw new IOException(path + " is not a tablebase file");
+            }
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            checkHeader(header, path);
+            long entries = header.getLong(ENTRIES_OFFSET);
+            if (channel.size() < HEADER_BYTES + dataBytes(entries)) {
+                throw new IOException(path + " is truncated");
+            }
+            return new TablebaseFile(header, map(channel, FileChannel.MapMode.READ_ONLY, entries),
+                                     header.getInt(SIZE_OFFSET), entries);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    long entries() {
+        return entries;
+    }
+
+    boolean isComplete() {
+        return header.getInt(COMPLETE_OFFSET) != 0;
+    }
+
+    void markComplete() {
+        force();
+        header.putInt(COMPLETE_OFFSET, 1);
+        header.force();
+    }
+
+    int get(long index) {
+        long byteIndex = index >>> 2;
+        MappedByteBuffer segment = segments[(int) (byteIndex >>> SEGMENT_SHIFT)];
+        int b = segment.get((int) (byteIndex & (SEGMENT_BYTES - 1)));
+        return (b >>> ((int) (index & 3) << 1)) & 3;
+    }
+
+    void set(long index, int value) {
+        long byteIndex = (index >>> 2) & ~3L;
+        MappedByteBuffer segment = segments[(int) (byteIndex >>> SEGMENT_SHIFT)];
+        int offset = (int) (byteIndex & (SEGMENT_BYTES - 1));
+        int shift = (int) (index & 15) << 1;
+        while (true) {
+            int word = (int) INT.getVolatile(segment, offset);
+            int updated = (word & ~(3 << shift)) | (value << shift);
+            if (word == updated || INT.compareAndSet(segment, offset, word, updated)) {
+                return;
+            }
+        }
+    }
+
+    // Flushes written entries to disk (a checkpoint for resuming).
+    void force() {
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+        header.force();
+    }
+
+    private static void checkHeader(MappedByteBuffer header, Path path) throws IOException {
+        if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            throw new IOException(path + " is not a version " + VERSION + " tablebase file");
+        }
+    }
+
+    // Entries are packed into whole ints so every CAS stays inside one segment
+    private static long dataBytes(long entries) {
+        return ((entries + 15) >>> 4) << 2;
+    }
+
+    private static MappedByteBuffer[] map(FileChannel channel, FileChannel.MapMode mode, long entries)
+            throws IOException {
+        long bytes = dataBytes(entries);
+        int count = (int) ((bytes + SEGMENT_BYTES - 1) >>> SEGMENT_SHIFT);
+        MappedByteBuffer[] segments = new MappedByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            long start = i * SEGMENT_BYTES;
+            segments[i] = channel.map(mode, HEADER_BYTES + start, Math.min(SEGMENT_BYTES, bytes - start));
+        }
+        return segments;
+    }
+}
@@ -0,0 +1,236 @@
+package brique.solver;
+
+import brique.core.GameState;
+import brique.rules.GameRules;
+import brique.rules.RuleType;
+import brique.rules.RulesFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Offline generator of the tablebase for one board size (up to 5x5).
+// Every position reachable from the empty board under the standard rules (fills, captures
+// and the pie rule included) is solved exactly, children first: each move adds a stone, so
+// the game graph is acyclic and a position's result is final once all its children have one.
+// The mapped file doubles as the memo table, which makes the run resumable: restarting
+// on the same file skips every position already written.
+//
+// Work is split over threads by the subtrees two plies below the opening swap decision;
+// threads share the file and may occasionally solve the same position twice, which is
+// harmless because they write the same value.
+public final class TablebaseGenerator {
+
+    private static final long DEFAULT_CHECKPOINT_MILLIS = 10_000;
+
+    private final int size;
+    private final TablebaseIndex index;
+    private final BitboardRules moves;
+
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private TablebaseProgress progress;
+    private long checkpointMillis = DEFAULT_CHECKPOINT_MILLIS;
+    private volatile boolean interrupted;
+
+    // Per-run state
+    private TablebaseFile table;
+    private final LongAdder solved = new LongAdder();
+
+    public TablebaseGenerator(int size) {
+        this(size, RulesFactory.createRules(RuleType.STANDARD));
+    }
+
+    public TablebaseGenerator(int size, GameRules rules) {
+        this.size = size;
+        this.index = new TablebaseIndex(size);
+        this.moves = new BitboardRules(size, rules);
+    }
+
+    public void setThreads(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    // Progress is reported, and the file flushed to disk, every intervalMillis.
+    public void setProgress(TablebaseProgress progress, long intervalMillis) {
+        this.progress = progress;
+        this.checkpointMillis = Math.max(1, intervalMillis);
+    }
+
+    // Stops a running generate(); everything solved so far stays in the file.
+    public void interrupt() {
+        interrupted = true;
+    }
+
+    // Number of entries (and four times the data bytes) of a table for this size.
+    public long entries() {
+        return index.count();
+    }
+
+    // Generates (or finishes) the table in the given file and returns the result of the
+    // empty board for Black. Throws InterruptedException if stopped before completion.
+    public SolverResult.Outcome generate(Path path) throws IOException, InterruptedException {
+        interrupted = false;
+        solved.reset();
+        table = TablebaseFile.openForWriting(path, size, index.count());
+        if (table.isComplete()) {
+            return Tablebase.open(path).probe(new GameState(size));
+        }
+
+        long[] tasks = seedPositions();
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger done = new AtomicInteger();
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                for (int i = next.getAndIncrement(); i < tasks.length && !interrupted; i = next.getAndIncrement()) {
+                    solve((int) (tasks[i] >>> 32), (int) tasks[i]);
+                    done.incrementAndGet();
+                }
+            }, "brique-tablebase-" + t);
+            workers[t].setDaemon(true);
+            workers[t].start();
+        }
+
+        try {
+            for (Thread worker : workers) {
+                while (worker.isAlive()) {
+                    worker.join(checkpointMillis);
+                    if (worker.isAlive()) {
+                        table.force();
+                        report(done.get(), tasks.length);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            interrupted = true;
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        }
+        stopIfInterrupted();
+
+        // The opening: Black's first stone leaves White the swap decision
+        int root = TablebaseFile.LOSS;
+        for (int cell = 0; cell < size * size && !interrupted; cell++) {
+            int stone = 1 << cell;
+            int value = moves.connectsTopBottom(stone) ? TablebaseFile.WIN : negate(pieDecision(stone));
+            root = better(root, value);
+        }
+        stopIfInterrupted();
+        table.set(index.rank(0, 0), root);
+        table.markComplete();
+        report(tasks.length, tasks.length);
+        return Tablebase.open(path).probe(new GameState(size));
+    }
+
+    private void stopIfInterrupted() throws InterruptedException {
+        if (interrupted) {
+            table.force();
+            throw new InterruptedException("Tablebase generation interrupted; run again on the same file to resume");
+        }
+    }
+
+    // White to move after Black's first stone, pie rule available: either play on or swap,
+    // which hands Black the board with that stone turned White.
+    private int pieDecision(int blackStone) {
+        int playOn = solve(0, index.transpose(blackStone));
+        int swap = solve(0, blackStone);
+        if (playOn == TablebaseFile.UNKNOWN || swap == TablebaseFile.UNKNOWN) {
+            return TablebaseFile.UNKNOWN;
+        }
+        return better(playOn, negate(swap));
+    }
+
+    // Black to move (White-to-move positions are passed as their transposed twin).
+    // Returns UNKNOWN, without storing anything, when interrupted.
+    private int solve(int black, int white) {
+        long rank = index.rank(black, white);
+        if (rank < 0) {
+            throw new IllegalStateException("Position breaks the escort closure: not reachable");
+        }
+        int stored = table.get(rank);
+        if (stored != TablebaseFile.UNKNOWN) {
+            return stored;
+        }
+        if (interrupted) {
+            return TablebaseFile.UNKNOWN;
+        }
+
+        int empty = moves.full() & ~(black | white);
+        int best = empty == 0 ? TablebaseFile.DRAW : TablebaseFile.LOSS;
+        for (int remaining = empty; remaining != 0; remaining &= remaining - 1) {
+            int placed = black | (remaining & -remaining);
+            int fill = moves.fills(placed);
+            int afterBlack = placed | fill;
+            int afterWhite = white & ~fill;
+
+            int value;
+            if (moves.connectsTopBottom(afterBlack)) {
+                value = TablebaseFile.WIN;
+            } else {
+                int child = solve(index.transpose(afterWhite), index.transpose(afterBlack));
+                if (child == TablebaseFile.UNKNOWN) {
+                    return TablebaseFile.UNKNOWN;
+                }
+                value = negate(child);
+            }
+            best = better(best, value);
+        }
+
+        table.set(rank, best);
+        solved.increment();
+        return best;
+    }
+
+    // Positions two plies after the swap decision, deduplicated: the parallel work items.
+    private long[] seedPositions() {
+        Set<Long> seeds = new LinkedHashSet<>();
+        for (int cell = 0; cell < size * size; cell++) {
+            int white = 1 << cell;
+            for (int reply = 0; reply < size * size; reply++) {
+                int placed = 1 << reply;
+                if ((placed & white) != 0) {
+                    continue;
+                }
+                int fill = moves.fills(placed);
+                int afterBlack = placed | fill;
+                if (!moves.connectsTopBottom(afterBlack)) {
+                    long b = index.transpose(white & ~fill);
+                    long w = index.transpose(afterBlack);
+                    seeds.add(b << 32 | w);
+                }
+            }
+        }
+        return seeds.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private void report(int tasksDone, int tasksTotal) {
+        if (progress != null) {
+            progress.onProgress(solved.sum(), tasksDone, tasksTotal);
+        }
+    }
+
+    static int negate(int value) {
+        switch (value) {
+            case TablebaseFile.WIN:  return TablebaseFile.LOSS;
+            case TablebaseFile.LOSS: return TablebaseFile.WIN;
+            default:                 return value;
+        }
+    }
+
+    // Preference for the player choosing: WIN over DRAW over LOSS
+    static int better(int a, int b) {
+        return preference(a) >= preference(b) ? a : b;
+    }
+
+    private static int preference(int value) {
+        switch (value) {
+            case TablebaseFile.WIN:  return 2;
+            case TablebaseFile.DRAW: return 1;
+            default:                 return 0;
+        }
+    }
+}
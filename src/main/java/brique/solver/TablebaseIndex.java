@@ -0,0 +1,173 @@
+package brique.solver;
+
+// Perfect index of Brique boards for the tablebase, plus the board symmetry it relies on.
+//
+// Boards are int bitmasks (bit row*size+col), one for each colour. The escort rule keeps
+// every reachable board "closed": a square whose two escorts hold the same colour holds
+// that colour too. Escorts are the up/left or down/right neighbours, so every constraint
+// links two consecutive rows, and closed boards can be ranked row by row from a transfer
+// table of base-3 row values. The rank is dense (0 .. count-1) and costs one lookup per row.
+//
+// Transposing the board and swapping the colours maps the escort structure onto itself and
+// Black's top-bottom goal onto White's left-right goal, so a position with White to move is
+// stored as its transposed, colour-swapped twin with Black to move. Only Black-to-move
+// positions get an index.
+final class TablebaseIndex {
+
+    static final int MAX_SIZE = 5;
+
+    private final int size;
+    private final int rowMask;
+    private final int rowStates;
+    // Base-3 value of a row (0 empty, 1 Black, 2 White) from its black and white bits
+    private final int[] rowValue;
+    // Rank offset of the first row's value
+    private final long[] firstRow;
+    // Rank offset of row r's value given row r-1's value; -1 when the pair breaks closure
+    private final long[][] nextRow;
+    // Bits of row r moved to column r, for transposition
+    private final int[][] spread;
+    private final long count;
+
+    TablebaseIndex(int size) {
+        if (size < 1 || size > MAX_SIZE) {
+            throw new IllegalArgumentException("Tablebase boards must be 1 to " + MAX_SIZE + " wide: " + size);
+        }
+        this.size = size;
+        this.rowMask = (1 << size) - 1;
+
+        int states = 1;
+        for (int c = 0; c < size; c++) {
+            states *= 3;
+        }
+        this.rowStates = states;
+
+        int[][] digits = new int[states][size];
+        for (int v = 0; v < states; v++) {
+            for (int c = 0, rest = v; c < size; c++, rest /= 3) {
+                digits[v][c] = rest % 3;
+            }
+        }
+
+        this.rowValue = new int[1 << (2 * size)];
+        for (int v = 0; v < states; v++) {
+            int black = 0;
+            int white = 0;
+            for (int c = 0; c < size; c++) {
+                if (digits[v][c] == 1) black |= 1 << c;
+                if (digits[v][c] == 2) white |= 1 << c;
+            }
+            rowValue[(black << size) | white] = v;
+        }
+
+        // completions[r][v]: closed fillings of rows r..size-1 when row r has value v
+        long[][] completions = new long[size][states];
+        java.util.Arrays.fill(completions[size - 1], 1);
+        for (int r = size - 2; r >= 0; r--) {
+            for (int v = 0; v < states; v++) {
+                long sum = 0;
+                for (int w = 0; w < states; w++) {
+                    if (compatible(digits[v], digits[w], r + 1)) {
+                        sum += completions[r + 1][w];
+                    }
+                }
+                completions[r][v] = sum;
+            }
+        }
+
+        this.firstRow = new long[states];
+        long total = 0;
+        for (int v = 0; v < states; v++) {
+            firstRow[v] = total;
+            total += completions[0][v];
+        }
+        this.count = total;
+
+        this.nextRow = new long[size][];
+        for (int r = 1; r < size; r++) {
+            nextRow[r] = new long[states * states];
+            for (int prev = 0; prev < states; prev++) {
+                long offset = 0;
+                for (int v = 0; v < states; v++) {
+                    boolean ok = compatible(digits[prev], digits[v], r);
+                    nextRow[r][prev * states + v] = ok ? offset : -1;
+                    if (ok) {
+                        offset += completions[r][v];
+                    }
+                }
+            }
+        }
+
+        this.spread = new int[size][1 << size];
+        for (int r = 0; r < size; r++) {
+            for (int bits = 0; bits <= rowMask; bits++) {
+                int out = 0;
+                for (int c = 0; c < size; c++) {
+                    if ((bits & (1 << c)) != 0) {
+                        out |= 1 << (c * size + r);
+                    }
+                }
+                spread[r][bits] = out;
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    // Number of closed boards, i.e. the number of table entries.
+    long count() {
+        return count;
+    }
+
+    // Dense rank of a closed board, or -1 when the board breaks the escort closure.
+    long rank(int black, int white) {
+        long index = 0;
+        int prev = 0;
+        for (int r = 0; r < size; r++) {
+            int shift = r * size;
+            int v = rowValue[(((black >>> shift) & rowMask) << size) | ((white >>> shift) & rowMask)];
+            long offset = r == 0 ? firstRow[v] : nextRow[r][prev * rowStates + v];
+            if (offset < 0) {
+                return -1;
+            }
+            index += offset;
+            prev = v;
+        }
+        return index;
+    }
+
+    int transpose(int mask) {
+        int out = 0;
+        for (int r = 0; r < size; r++) {
+            out |= spread[r][(mask >>> (r * size)) & rowMask];
+        }
+        return out;
+    }
+
+    // Closure constraints between row r-1 (above) and row r (below). Light squares
+    // ((row+col) even) are escorted from above and the left, dark squares from below
+    // and the right; the first column and the last row never have both escorts.
+    private boolean compatible(int[] above, int[] below, int r) {
+        // Light squares of row r: escorts (r-1, c) and (r, c-1)
+        for (int c = 1; c < size; c++) {
+            if ((r + c) % 2 == 0) {
+                int escort = above[c];
+                if (escort != 0 && escort == below[c - 1] && below[c] != escort) {
+                    return false;
+                }
+            }
+        }
+        // Dark squares of row r-1: escorts (r, c) and (r-1, c+1)
+        for (int c = 0; c + 1 < size; c++) {
+            if ((r - 1 + c) % 2 == 1) {
+                int escort = below[c];
+                if (escort != 0 && escort == above[c + 1] && above[c] != escort) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,9 @@
+package brique.solver;
+
+// Callback for tablebase generation: positions solved in this run, and how many of the
+// generator's parallel work items (subtrees two plies deep) are finished.
+@FunctionalInterface
+public interface TablebaseProgress {
+
+    void onProgress(long positions, int tasksDone, int tasksTotal);
+}
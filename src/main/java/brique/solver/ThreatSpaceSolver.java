@@ -0,0 +1,502 @@
+package brique.solver;
+
+import brique.bot.BotAction;
+import brique.core.Board;
+import brique.core.GameState;
+import brique.core.Position;
+import brique.core.Stone;
+import brique.rules.GameRules;
+import brique.rules.RuleType;
+import brique.rules.RulesFactory;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+// Threat-space search: looks for a forced connection in which every move of the attacker
+// (the player to move) threatens to connect on the next move. The attacker only tries
+// threats, so the tree stays narrow, and the defender only tries the moves that stop every
+// threat: taking a winning cell or capturing, through its own escort fill, a stone the
+// attacker needs. Any other defence loses on the spot, so a win found this way is a proof.
+// Winning cells come from one labelling of the attacker's groups: a cell wins when it and
+// the cells its stone would fill (escorts from GameRules.getEscorts) touch groups that
+// reach both edges. A move that leaves several winning cells no single defence covers is
+// a double threat and wins at once. Failing to find a win within maxThreats threats
+// proves nothing, except when the opponent already has such a double threat: then the
+// result is a loss. Works on flat arrays like Playout and ignores the pie rule.
+// Not thread-safe: use one instance per thread.
+public final class ThreatSpaceSolver {
+
+    public static final int DEFAULT_MAX_THREATS = 6;
+    public static final long DEFAULT_NODE_LIMIT = 100_000;
+
+    private static final byte EMPTY = 0;
+    private static final byte BLACK = 1;
+    private static final byte WHITE = 2;
+    private static final int FIRST_EDGE = 1;
+    private static final int LAST_EDGE = 2;
+    private static final int BOTH_EDGES = FIRST_EDGE | LAST_EDGE;
+
+    private final GameRules rules;
+    private long nodeLimit = DEFAULT_NODE_LIMIT;
+    private int maxThreats = DEFAULT_MAX_THREATS;
+    private volatile boolean interrupted;
+
+    // Geometry of the last board size
+    private int size;
+    private int cells;
+    private int[][] orthogonal;
+    private int[] escortA;
+    private int[] escortB;
+    private int[][] escorted;
+    private long[] zobrist;
+
+    // Per-search state
+    private byte[] stones;
+    private long key;
+    private byte attacker;
+    private byte defender;
+    private long nodes;
+    private int winningCell;
+    private int proofThreats;
+    // Attack nodes already searched: threats that failed (>= 0) or -threats that won
+    private final Map<Long, Integer> results = new HashMap<>();
+
+    // Group labels of one side, rebuilt by label()
+    private int[] group;
+    private int[] groupReach;
+    private int[] stack;
+    // Undo log of play(): cells and the stones they held
+    private int[] undoCells;
+    private byte[] undoStones;
+    private int undoTop;
+    // Candidate moves per ply
+    private int[][] candidates;
+    private int[][] candidateScores;
+    private int[] winning;
+    private int[] marks;
+    private int stamp;
+
+    public ThreatSpaceSolver() {
+        this(RulesFactory.createRules(RuleType.STANDARD));
+    }
+
+    public ThreatSpaceSolver(GameRules rules) {
+        this.rules = rules;
+    }
+
+    public void setNodeLimit(long nodeLimit) {
+        this.nodeLimit = nodeLimit > 0 ? nodeLimit : Long.MAX_VALUE;
+    }
+
+    // Most threats the attacker may make before the connecting move
+    public void setMaxThreats(int maxThreats) {
+        if (maxThreats < 0) {
+            throw new IllegalArgumentException("Threat count cannot be negative: " + maxThreats);
+        }
+        this.maxThreats = maxThreats;
+    }
+
+    // Asks a running solve() to stop; it returns an UNKNOWN result shortly after.
+    public void interrupt() {
+        interrupted = true;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    // Threats the attacker needed before connecting in the last proven win (0: it connects now)
+    public int getProofThreats() {
+        return proofThreats;
+    }
+
+    public SolverResult solve(GameState position) {
+        if (!position.isInProgress()) {
+            throw new IllegalStateException("Cannot solve a finished game");
+        }
+
+        long start = System.nanoTime();
+        interrupted = false;
+        nodes = 0;
+        proofThreats = -1;
+        results.clear();
+        load(position.getBoard());
+        attacker = position.getCurrentPlayer() == Stone.BLACK ? BLACK : WHITE;
+        defender = attacker == BLACK ? WHITE : BLACK;
+
+        // Shortest proofs first; each round reuses what the shallower ones refuted
+        for (int threats = 0; threats <= maxThreats && !isStopped(); threats++) {
+            if (attack(threats, 0)) {
+                proofThreats = threats;
+                return new SolverResult(SolverResult.Outcome.WIN, toAction(winningCell),
+                                        nodes, System.nanoTime() - start);
+            }
+        }
+
+        // A swap would change sides, so a loss is only claimed without one
+        boolean canSwap = position.isPieRuleAvailable() && position.getCurrentPlayer() == Stone.WHITE
+            && position.getMoveHistory().size() == 1;
+        SolverResult.Outcome outcome = !isStopped() && !canSwap && cannotStop(defender, attacker)
+            ? SolverResult.Outcome.LOSS : SolverResult.Outcome.UNKNOWN;
+        return new SolverResult(outcome, null, nodes, System.nanoTime() - start);
+    }
+
+    // --- Search --------------------------------------------------
+
+    // Attacker to move: connects now, or makes a threat every defence of which is won
+    // with one threat fewer.
+    private boolean attack(int threats, int ply) {
+        nodes++;
+        if (isStopped()) {
+            return false;
+        }
+        int immediate = firstWinningCell(attacker);
+        if (immediate >= 0) {
+            if (ply == 0) {
+                winningCell = immediate;
+            }
+            return true;
+        }
+        if (threats == 0) {
+            return false;
+        }
+        Integer known = ply == 0 ? null : results.get(key);
+        if (known != null && (known < 0 ? -known <= threats : known >= threats)) {
+            return known < 0;
+        }
+
+        // Threats that do not hand the defender a connection, most winning cells first
+        int[] moves = candidates[ply];
+        int[] scores = candidateScores[ply];
+        int count = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            if (stones[cell] != EMPTY) {
+                continue;
+            }
+            int mark = play(cell, attacker);
+            int threat = winningCells(attacker, winning);
+            if (threat > 0 && firstWinningCell(defender) < 0) {
+                int slot = count++;
+                while (slot > 0 && scores[slot - 1] < threat) {
+                    moves[slot] = moves[slot - 1];
+                    scores[slot] = scores[slot - 1];
+                    slot--;
+                }
+                moves[slot] = cell;
+                scores[slot] = threat;
+            }
+            undo(mark);
+        }
+
+        for (int i = 0; i < count; i++) {
+            int mark = play(moves[i], attacker);
+            boolean won = defend(threats, ply + 1);
+            undo(mark);
+            if (won) {
+                results.put(key, -threats);
+                if (ply == 0) {
+                    winningCell = moves[i];
+                }
+                return true;
+            }
+            if (isStopped()) {
+                return false;
+            }
+        }
+        results.put(key, threats);
+        return false;
+    }
+
+    // Defender to move after a threat: the attacker wins when every defence that stops
+    // all of its winning cells still loses to a shorter attack.
+    private boolean defend(int threats, int ply) {
+        nodes++;
+        if (isStopped() || firstWinningCell(defender) >= 0) {
+            return false;
+        }
+        int[] defences = candidates[ply];
+        int count = 0;
+        for (int cell : relevantDefences(ply)) {
+            if (cell < 0) {
+                break;
+            }
+            int mark = play(cell, defender);
+            if (firstWinningCell(attacker) < 0) {
+                defences[count++] = cell;
+            }
+            undo(mark);
+        }
+        for (int i = 0; i < count; i++) {
+            int mark = play(defences[i], defender);
+            boolean won = attack(threats - 1, ply + 1);
+            undo(mark);
+            if (!won) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Cells that can stop the attacker's threats: its winning cells and the empty cells
+    // whose fill would take one of them or capture one of its stones. Ends with -1.
+    private int[] relevantDefences(int ply) {
+        int[] relevant = candidateScores[ply];
+        int count = 0;
+        nextStamp();
+        int winners = winningCells(attacker, winning);
+        for (int i = 0; i < winners; i++) {
+            marks[winning[i]] = stamp;
+            relevant[count++] = winning[i];
+        }
+        for (int cell = 0; cell < cells; cell++) {
+            if (stones[cell] != EMPTY || marks[cell] == stamp) {
+                continue;
+            }
+            for (int square : escorted[cell]) {
+                int other = escortA[square] == cell ? escortB[square] : escortA[square];
+                if ((stones[square] == attacker || marks[square] == stamp) && stones[other] == defender) {
+                    marks[cell] = stamp;
+                    relevant[count++] = cell;
+                    break;
+                }
+            }
+        }
+        if (count < cells) {
+            relevant[count] = -1;
+        }
+        return relevant;
+    }
+
+    // Whether every move of `side` leaves `opponent` a connecting cell
+    private boolean cannotStop(byte opponent, byte side) {
+        if (firstWinningCell(opponent) < 0) {
+            return false;
+        }
+        for (int cell = 0; cell < cells; cell++) {
+            if (stones[cell] != EMPTY) {
+                continue;
+            }
+            int mark = play(cell, side);
+            boolean stopped = firstWinningCell(opponent) < 0;
+            undo(mark);
+            if (stopped) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // --- Winning cells -------------------------------------------
+
+    private int firstWinningCell(byte side) {
+        return winningCells(side, null) > 0 ? winning[0] : -1;
+    }
+
+    // Empty cells where a stone of `side` connects its edges, into `out` (or only the first
+    // one, kept in winning[0], when out is null); returns how many there are.
+    private int winningCells(byte side, int[] out) {
+        label(side);
+        int count = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            if (stones[cell] != EMPTY) {
+                continue;
+            }
+            int reach = edges(cell, side) | touching(cell, side);
+            for (int square : escorted[cell]) {
+                int other = escortA[square] == cell ? escortB[square] : escortA[square];
+                if (stones[square] != side && stones[other] == side) {
+                    reach |= edges(square, side) | touching(square, side);
+                }
+            }
+            if (reach == BOTH_EDGES) {
+                if (out == null) {
+                    winning[0] = cell;
+                    return 1;
+                }
+                out[count++] = cell;
+            }
+        }
+        return count;
+    }
+
+    // Labels the groups of `side` with the edges each one reaches
+    private void label(byte side) {
+        Arrays.fill(group, -1);
+        int groups = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            if (stones[cell] != side || group[cell] >= 0) {
+                continue;
+            }
+            int reach = 0;
+            int top = 0;
+            stack[top++] = cell;
+            group[cell] = groups;
+            while (top > 0) {
+                int current = stack[--top];
+                reach |= edges(current, side);
+                for (int n : orthogonal[current]) {
+                    if (stones[n] == side && group[n] < 0) {
+                        group[n] = groups;
+                        stack[top++] = n;
+                    }
+                }
+            }
+            groupReach[groups++] = reach;
+        }
+    }
+
+    private int touching(int cell, byte side) {
+        int reach = 0;
+        for (int n : orthogonal[cell]) {
+            if (stones[n] == side) {
+                reach |= groupReach[group[n]];
+            }
+        }
+        return reach;
+    }
+
+    private int edges(int cell, byte side) {
+        int line = side == BLACK ? cell / size : cell % size;
+        return (line == 0 ? FIRST_EDGE : 0) | (line == size - 1 ? LAST_EDGE : 0);
+    }
+
+    // --- Board ---------------------------------------------------
+
+    // Places a stone with its escort fills; returns the undo mark
+    private int play(int cell, byte side) {
+        int mark = undoTop;
+        set(cell, side);
+        int fillsFrom = undoTop;
+        for (int square : escorted[cell]) {
+            int other = escortA[square] == cell ? escortB[square] : escortA[square];
+            if (stones[square] != side && stones[other] == side) {
+                undoCells[undoTop] = square;
+                undoStones[undoTop++] = stones[square];
+            }
+        }
+        // Fills are decided on the board with the stone placed, then applied together
+        for (int i = fillsFrom; i < undoTop; i++) {
+            int square = undoCells[i];
+            key ^= hash(square, stones[square]) ^ hash(square, side);
+            stones[square] = side;
+        }
+        return mark;
+    }
+
+    private void set(int cell, byte side) {
+        undoCells[undoTop] = cell;
+        undoStones[undoTop++] = stones[cell];
+        key ^= hash(cell, stones[cell]) ^ hash(cell, side);
+        stones[cell] = side;
+    }
+
+    private void undo(int mark) {
+        while (undoTop > mark) {
+            int cell = undoCells[--undoTop];
+            key ^= hash(cell, stones[cell]) ^ hash(cell, undoStones[undoTop]);
+            stones[cell] = undoStones[undoTop];
+        }
+    }
+
+    private long hash(int cell, byte stone) {
+        return stone == EMPTY ? 0L : zobrist[2 * cell + stone - 1];
+    }
+
+    private void load(Board board) {
+        if (board.getSize() != size) {
+            prepare(board.getSize());
+        }
+        key = 0;
+        undoTop = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            Stone stone = board.getStone(Position.of(cell / size, cell % size));
+            stones[cell] = stone == Stone.BLACK ? BLACK : stone == Stone.WHITE ? WHITE : EMPTY;
+            key ^= hash(cell, stones[cell]);
+        }
+    }
+
+    private void prepare(int newSize) {
+        size = newSize;
+        cells = size * size;
+        Board board = new Board(size);
+        orthogonal = new int[cells][];
+        escortA = new int[cells];
+        escortB = new int[cells];
+        int[] escortedCount = new int[cells];
+        for (int cell = 0; cell < cells; cell++) {
+            int row = cell / size;
+            int col = cell % size;
+            int[] around = new int[4];
+            int count = 0;
+            if (row > 0) around[count++] = cell - size;
+            if (row < size - 1) around[count++] = cell + size;
+            if (col > 0) around[count++] = cell - 1;
+            if (col < size - 1) around[count++] = cell + 1;
+            orthogonal[cell] = Arrays.copyOf(around, count);
+
+            List<Position> pair = rules.getEscorts(Position.of(row, col), board);
+            escortA[cell] = pair.size() == 2 ? index(pair.get(0)) : -1;
+            escortB[cell] = pair.size() == 2 ? index(pair.get(1)) : -1;
+            if (pair.size() == 2) {
+                escortedCount[escortA[cell]]++;
+                escortedCount[escortB[cell]]++;
+            }
+        }
+        escorted = new int[cells][];
+        for (int cell = 0; cell < cells; cell++) {
+            escorted[cell] = new int[escortedCount[cell]];
+            escortedCount[cell] = 0;
+        }
+        for (int cell = 0; cell < cells; cell++) {
+            if (escortA[cell] >= 0) {
+                escorted[escortA[cell]][escortedCount[escortA[cell]]++] = cell;
+                escorted[escortB[cell]][escortedCount[escortB[cell]]++] = cell;
+            }
+        }
+
+        // Fixed seed: the keys only need to be consistent within a search
+        Random random = new Random(0x7155L + size);
+        zobrist = new long[2 * cells];
+        for (int i = 0; i < zobrist.length; i++) {
+            zobrist[i] = random.nextLong();
+        }
+
+        stones = new byte[cells];
+        group = new int[cells];
+        groupReach = new int[cells];
+        stack = new int[cells];
+        // A play changes at most three cells
+        undoCells = new int[3 * cells + 3];
+        undoStones = new byte[3 * cells + 3];
+        candidates = new int[cells + 2][cells];
+        candidateScores = new int[cells + 2][cells];
+        winning = new int[cells];
+        marks = new int[cells];
+        stamp = 0;
+    }
+
+    private void nextStamp() {
+        if (++stamp == Integer.MAX_VALUE) {
+            Arrays.fill(marks, 0);
+            stamp = 1;
+        }
+    }
+
+    private boolean isStopped() {
+        if (Thread.currentThread().isInterrupted()) {
+            interrupted = true;
+        }
+        return interrupted || nodes >= nodeLimit;
+    }
+
+    private int index(Position pos) {
+        return pos.row() * size + pos.col();
+    }
+
+    private BotAction toAction(int cell) {
+        return BotAction.place(Position.of(cell / size, cell % size));
+    }
+}
@@ -0,0 +1,36 @@
+package brique.tools;
+
+import brique.bot.AlphaBetaBot;
+import brique.bot.OpeningBookBuilder;
+import brique.bot.SearchLimits;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Builds an opening book from self-play of depth-limited alpha-beta bots.
+// Usage: BuildOpeningBook [size=13] [maxPly=8] [games=2000] [file=book-<size>x<size>.bin]
+//                         [threads=all cores] [searchDepth=2]
+public final class BuildOpeningBook {
+
+    private static final int TABLE_MB = 16;
+
+    private BuildOpeningBook() { }
+
+    public static void main(String[] args) throws Exception {
+        int size    = args.length > 0 ? Integer.parseInt(args[0]) : 13;
+        int maxPly  = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int games   = args.length > 2 ? Integer.parseInt(args[2]) : 2000;
+        Path file   = Path.of(args.length > 3 ? args[3] : "book-" + size + "x" + size + ".bin");
+        int threads = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+        int depth   = args.length > 5 ? Integer.parseInt(args[5]) : 2;
+
+        OpeningBookBuilder builder = new OpeningBookBuilder(size, maxPly,
+            () -> new AlphaBetaBot(1, TABLE_MB, SearchLimits.depth(depth)));
+        builder.setThreads(threads);
+
+        long start = System.nanoTime();
+        int entries = builder.build(games, file);
+        System.out.printf("%d games on %dx%d to ply %d: %,d positions, %,d bytes, %.1f s%n",
+            games, size, size, maxPly, entries, Files.size(file), (System.nanoTime() - start) / 1e9);
+    }
+}
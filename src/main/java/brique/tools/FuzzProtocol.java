@@ -0,0 +1,25 @@
+package brique.tools;
+
+import brique.server.ProtocolFuzzer;
+
+// Runs the protocol fuzzer for a number of inputs and prints how they were handled and
+// the failures (a decoder exception other than a rejection), with their inputs in hex.
+// Usage: FuzzProtocol [inputs=10000000] [seed=1]
+public final class FuzzProtocol {
+
+    private FuzzProtocol() { }
+
+    public static void main(String[] args) {
+        long inputs = args.length > 0 ? Long.parseLong(args[0]) : 10_000_000L;
+        long seed   = args.length > 1 ? Long.parseLong(args[1]) : 1L;
+
+        ProtocolFuzzer fuzzer = new ProtocolFuzzer(seed);
+        long start = System.nanoTime();
+        ProtocolFuzzer.Report report = fuzzer.run(inputs);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%,d inputs from a corpus of %,d frames in %.1f s: %,d frames decoded, %,d incomplete, %,d rejected, %d failures%n",
+            report.inputs(), fuzzer.corpus().size(), seconds, report.decoded(), report.incomplete(), report.rejected(),
+            report.failures().size());
+        report.failures().forEach(System.out::println);
+    }
+}
@@ -0,0 +1,34 @@
+package brique.tools;
+
+import brique.bot.SwapTable;
+import brique.bot.SwapTableGenerator;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+
+// Estimates Black's winning rate for every first move and writes the pie-rule swap table.
+// Usage: GenerateSwapTable [file=swap-table.bin] [playouts=200] [sizes=5 7 9 11 13]
+// The bundled table is src/main/resources/brique/bot/swap-table.bin.
+public final class GenerateSwapTable {
+
+    private GenerateSwapTable() { }
+
+    public static void main(String[] args) throws Exception {
+        Path file    = Path.of(args.length > 0 ? args[0] : "swap-table.bin");
+        int playouts = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int[] sizes  = args.length > 2
+                     ? Arrays.stream(args, 2, args.length).mapToInt(Integer::parseInt).toArray()
+                     : new int[] {5, 7, 9, 11, 13};
+
+        SwapTableGenerator generator = new SwapTableGenerator(playouts);
+        SwapTable table = new SwapTable();
+        for (int size : sizes) {
+            long start = System.nanoTime();
+            table.put(size, generator.winRates(size));
+            System.out.printf("%dx%d: %d playouts per first move in %.1f s, best opening %s, %d swap-worthy moves%n",
+                size, size, playouts, (System.nanoTime() - start) / 1e9,
+                table.bestOpening(size), table.swapWorthyMoves(size).size());
+        }
+        table.save(file);
+    }
+}
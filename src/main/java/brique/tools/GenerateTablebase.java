@@ -0,0 +1,48 @@
+package brique.tools;
+
+import brique.solver.SolverResult;
+import brique.solver.TablebaseGenerator;
+
+import java.nio.file.Path;
+
+// Writes the tablebase of one board size. Rerunning on an unfinished file resumes it.
+// Usage: GenerateTablebase [size=4] [file=tablebase-<size>x<size>.bin] [threads=all cores]
+// Ctrl-C stops the run after flushing what was solved so far.
+public final class GenerateTablebase {
+
+    private static final long PROGRESS_MILLIS = 10_000;
+
+    private GenerateTablebase() { }
+
+    public static void main(String[] args) throws Exception {
+        int size    = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        Path file   = Path.of(args.length > 1 ? args[1] : "tablebase-" + size + "x" + size + ".bin");
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        TablebaseGenerator generator = new TablebaseGenerator(size);
+        generator.setThreads(threads);
+        generator.setProgress((positions, done, total) ->
+            System.out.printf("  %,d positions solved, %d/%d subtrees%n", positions, done, total), PROGRESS_MILLIS);
+
+        Thread main = Thread.currentThread();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            generator.interrupt();
+            try {
+                main.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+
+        System.out.printf("%dx%d tablebase: %,d entries (%,d bytes) in %s, %d threads%n",
+            size, size, generator.entries(), (generator.entries() + 3) / 4, file, threads);
+        long start = System.nanoTime();
+        try {
+            SolverResult.Outcome outcome = generator.generate(file);
+            System.out.printf("Done in %.1f s: empty board is a %s for Black%n",
+                (System.nanoTime() - start) / 1e9, outcome);
+        } catch (InterruptedException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+}
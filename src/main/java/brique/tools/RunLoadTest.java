@@ -0,0 +1,365 @@
+package brique.tools;
+
+import brique.core.GameEnd;
+import brique.core.Stone;
+import brique.server.GameServer;
+import brique.server.Protocol;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+// Load generator for the GameServer: each simulated player is a virtual thread with its own
+// connection that asks for a game, thinks for a time drawn from the think distribution on
+// each of its turns, plays a random empty cell and asks for another game when one ends.
+// The round trip of a move runs from sending MOVE to reading the delta with it, into one
+// shared histogram. The load goes up in steps (players are added, never restarted); after
+// a warm-up each step is measured for stepSeconds. A step is saturated when its p99 passes
+// sloMillis, or, with think times, when moves per second fall under 90% of what the
+// players would make if every move took the step's mean think time (as slept, which
+// overshoots the drawn time) and its median round trip: a game has one player thinking or
+// waiting at a time. A refused move is counted and another cell is sent.
+// The ramp stops at the first saturated step. Think distributions: exp:MEAN, fixed:MILLIS or
+// uniform:MIN-MAX, in milliseconds. The server runs in this process unless host:port is
+// given; each player then takes two file descriptors.
+// Usage: RunLoadTest [players=250,500,1000,2000,4000,8000] [stepSeconds=10] [think=exp:100] [sloMillis=50] [boardSize=9] [shards=cores] [server=host:port]
+public final class RunLoadTest {
+
+    private static final long WARM_UP_MILLIS = 2_000;
+
+    private RunLoadTest() { }
+
+    public static void main(String[] args) throws Exception {
+        String steps     = args.length > 0 ? args[0] : "250,500,1000,2000,4000,8000";
+        int stepSeconds  = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        Think think      = Think.parse(args.length > 2 ? args[2] : "exp:100");
+        double sloMillis = args.length > 3 ? Double.parseDouble(args[3]) : 50;
+        int size         = args.length > 4 ? Integer.parseInt(args[4]) : 9;
+        int shards       = args.length > 5 ? Integer.parseInt(args[5]) : Runtime.getRuntime().availableProcessors();
+
+        GameServer server = null;
+        InetSocketAddress address;
+        if (args.length > 6) {
+            String[] hostPort = args[6].split(":");
+            address = new InetSocketAddress(hostPort[0], Integer.parseInt(hostPort[1]));
+        } else {
+            server = new GameServer(0);
+            server.setShards(shards);
+            server.start();
+            address = new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort());
+        }
+        Load load = new Load(address, size, think);
+        System.out.printf("Think %s, board %dx%d, p99 objective %.0f ms%s%n", think, size, size, sloMillis,
+            server == null ? ", server at " + address : ", " + shards + " shards in this process");
+        try {
+            String saturation = null;
+            for (String step : steps.split(",")) {
+                int players = Integer.parseInt(step.trim());
+                if (!load.grow(players)) {
+                    saturation = String.format("%,d players: could not connect (%s)", players, load.failure);
+                    break;
+                }
+                Thread.sleep(WARM_UP_MILLIS);
+                load.reset();
+                long start = System.nanoTime();
+                Thread.sleep(stepSeconds * 1_000L);
+                double seconds = (System.nanoTime() - start) / 1e9;
+                Histogram latencies = load.latencies;
+                double rate = load.moves.get() / seconds;
+                double p50 = latencies.percentile(0.50);
+                double thought = load.thinkNanos.get() / 1e6 / Math.max(1, load.thinks.get());
+                double bound = think.meanMillis() > 0 ? bound(players, thought, p50) : Double.NaN;
+                double p99 = latencies.percentile(0.99);
+                System.out.printf("%,7d players: %,.0f moves/s%s, round trip p50 %.2f ms, p99 %.2f ms, p999 %.2f ms, max %.1f ms%s%s%n",
+                    players, rate, Double.isNaN(bound) ? ""
+                        : String.format(" (%.0f%% of the bound for %.2f ms thinking)", 100 * rate / bound, thought),
+                    p50, p99, latencies.percentile(0.999), latencies.percentile(1.0),
+                    load.errors.get() == 0 ? "" : String.format(", %,d errors", load.errors.get()),
+                    server == null ? "" : String.format(", %,d games hosted", server.getActiveGames()));
+                if (p99 > sloMillis || rate < 0.9 * bound) {
+                    saturation = String.format("%,d players: %s", players,
+                        p99 > sloMillis ? String.format("p99 %.2f ms over %.0f ms", p99, sloMillis)
+                                        : String.format("%,.0f moves/s against %,.0f", rate, bound));
+                    break;
+                }
+            }
+            System.out.println(saturation == null ? "Not saturated at the last step" : "Saturated at " + saturation);
+        } finally {
+            load.stop();
+            if (server != null) {
+                server.close();
+            }
+        }
+    }
+
+    // Moves per second when each game's two players take turns, every move costing the think
+    // time and then the round trip
+    static double bound(int players, double thinkMillis, double roundTripMillis) {
+        return players / 2.0 * 1_000 / (thinkMillis + roundTripMillis);
+    }
+
+    // How long a player thinks before each move
+    record Think(String kind, double a, double b) {
+
+        static Think parse(String text) {
+            String[] parts = text.split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Think time is exp:MEAN, fixed:MILLIS or uniform:MIN-MAX: " + text);
+            }
+            String[] range = parts[1].split("-");
+            double a = Double.parseDouble(range[0]);
+            double b = range.length > 1 ? Double.parseDouble(range[1]) : a;
+            if (!List.of("exp", "fixed", "uniform").contains(parts[0]) || a < 0 || b < a) {
+                throw new IllegalArgumentException("Think time is exp:MEAN, fixed:MILLIS or uniform:MIN-MAX: " + text);
+            }
+            return new Think(parts[0], a, b);
+        }
+
+        long sampleNanos(Random random) {
+            double millis = switch (kind) {
+                case "exp" -> -a * Math.log(1 - random.nextDouble());
+                case "uniform" -> a + (b - a) * random.nextDouble();
+                default -> a;
+            };
+            return (long) (millis * 1e6);
+        }
+
+        double meanMillis() {
+            return kind.equals("uniform") ? (a + b) / 2 : a;
+        }
+
+        @Override
+        public String toString() {
+            return kind + ":" + (kind.equals("uniform") ? (long) a + "-" + (long) b : String.valueOf((long) a)) + " ms";
+        }
+    }
+
+    // Log-linear latency histogram, safe to record into from any thread: microseconds in
+    // buckets 1/32 of a power of two wide (about 3% precision), linear below 32 us
+    static final class Histogram {
+
+        private static final int SUB_BUCKETS = 32;
+        private final AtomicLongArray counts = new AtomicLongArray(60 * SUB_BUCKETS);
+
+        void record(long nanos) {
+            long micros = Math.max(0, nanos >> 10);
+            int bucket;
+            if (micros < SUB_BUCKETS) {
+                bucket = (int) micros;
+            } else {
+                int power = 63 - Long.numberOfLeadingZeros(micros);
+                bucket = (power - 4) * SUB_BUCKETS + (int) (micros >> (power - 5)) - SUB_BUCKETS;
+            }
+            counts.incrementAndGet(Math.min(bucket, counts.length() - 1));
+        }
+
+        // In milliseconds, the upper bound of the bucket that holds the fraction
+        double percentile(double fraction) {
+            long total = 0;
+            for (int i = 0; i < counts.length(); i++) {
+                total += counts.get(i);
+            }
+            long target = Math.max(1, (long) Math.ceil(total * fraction));
+            long seen = 0;
+            for (int bucket = 0; bucket < counts.length(); bucket++) {
+                seen += counts.get(bucket);
+                if (seen >= target) {
+                    return upperMicros(bucket) * 1.024 / 1e3;
+                }
+            }
+            return Double.NaN;
+        }
+
+        private static long upperMicros(int bucket) {
+            if (bucket < SUB_BUCKETS) {
+                return bucket + 1;
+            }
+            int power = bucket / SUB_BUCKETS + 4;
+            long sub = bucket % SUB_BUCKETS + SUB_BUCKETS;
+            return (sub + 1) << (power - 5);
+        }
+    }
+
+    // The players, each on its own virtual thread
+    private static final class Load {
+
+        private final InetSocketAddress address;
+        private final int size;
+        private final Think think;
+        private final List<Socket> sockets = new ArrayList<>();
+        private final List<Thread> threads = new ArrayList<>();
+        private volatile boolean stopping;
+        volatile Histogram latencies = new Histogram();
+        final AtomicLong moves = new AtomicLong();
+        final AtomicLong errors = new AtomicLong();
+        // Time actually spent thinking, which a sleep overshoots
+        final AtomicLong thinkNanos = new AtomicLong();
+        final AtomicLong thinks = new AtomicLong();
+        String failure;
+
+        Load(InetSocketAddress address, int size, Think think) {
+            this.address = address;
+            this.size = size;
+            this.think = think;
+        }
+
+        // Adds players up to the count; false when a connection fails
+        boolean grow(int players) {
+            while (sockets.size() < players) {
+                Socket socket;
+                try {
+                    socket = new Socket(address.getAddress(), address.getPort());
+                    socket.setTcpNoDelay(true);
+                } catch (IOException e) {
+                    failure = e.getMessage();
+                    return false;
+                }
+                sockets.add(socket);
+                long seed = sockets.size();
+                threads.add(Thread.ofVirtual().name("load-player-", sockets.size()).start(() -> play(socket, seed)));
+            }
+            return true;
+        }
+
+        void reset() {
+            latencies = new Histogram();
+            moves.set(0);
+            errors.set(0);
+            thinkNanos.set(0);
+            thinks.set(0);
+        }
+
+        void stop() throws InterruptedException {
+            stopping = true;
+            for (Socket socket : sockets) {
+                try {
+                    socket.close();
+                } catch (IOException e) {
+                    // Closing anyway
+                }
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        }
+
+        // One player: a game at a time, one seat, never the swap
+        private void play(Socket socket, long seed) {
+            Random random = new Random(seed ^ ThreadLocalRandom.current().nextLong());
+            ByteBuffer frame = ByteBuffer.allocate(Protocol.MAX_FRAME_BYTES);
+            boolean[] taken = new boolean[size * size];
+            try {
+                InputStream in = new BufferedInputStream(socket.getInputStream());
+                OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+                send(out, frame, f -> Protocol.writePlay(f, size));
+                long game = 0;
+                Stone colour = null;
+                long sentAt = 0;
+                // The cell of the move waiting for an answer, -1 for none
+                int sent = -1;
+                while (true) {
+                    Protocol.Message message = Protocol.read(in);
+                    Stone toMove;
+                    GameEnd status;
+                    if (message instanceof Protocol.Start start) {
+                        game = start.game();
+                        colour = start.colour();
+                        Arrays.fill(taken, false);
+                        continue;
+                    } else if (message instanceof Protocol.Snapshot snapshot) {
+                        for (int cell = 0; cell < taken.length; cell++) {
+                            taken[cell] = snapshot.cells()[cell] != Stone.EMPTY;
+                        }
+                        toMove = snapshot.toMove();
+                        status = snapshot.status();
+                    } else if (message instanceof Protocol.Delta delta) {
+                        if (delta.change() == Protocol.Change.MOVE) {
+                            taken[delta.placed()] = true;
+                            for (int cell : delta.filled()) {
+                                taken[cell] = true;
+                            }
+                        }
+                        toMove = delta.toMove();
+                        status = delta.status();
+                    } else {
+                        // A refused move: count it and try another cell, or wait for the
+                        // opponent or the end when it was not about the move just sent
+                        errors.incrementAndGet();
+                        if (message instanceof Protocol.Error error && error.game() == game && sent >= 0) {
+                            taken[sent] = true;
+                            sent = send(out, frame, game, taken, random);
+                            sentAt = sent < 0 ? 0 : System.nanoTime();
+                        } else {
+                            sentAt = 0;
+                        }
+                        continue;
+                    }
+                    if (sentAt != 0) {
+                        latencies.record(System.nanoTime() - sentAt);
+                        moves.incrementAndGet();
+                        sentAt = 0;
+                    }
+                    sent = -1;
+                    if (status != GameEnd.IN_PROGRESS) {
+                        send(out, frame, f -> Protocol.writePlay(f, size));
+                        continue;
+                    }
+                    if (toMove != colour) {
+                        continue;
+                    }
+                    long thinking = System.nanoTime();
+                    Thread.sleep(Duration.ofNanos(think.sampleNanos(random)));
+                    sentAt = System.nanoTime();
+                    thinkNanos.addAndGet(sentAt - thinking);
+                    thinks.incrementAndGet();
+                    sent = send(out, frame, game, taken, random);
+                }
+            } catch (IOException | InterruptedException e) {
+                if (!stopping) {
+                    errors.incrementAndGet();
+                }
+            }
+        }
+
+        // Sends a move on a random empty cell and returns the cell; -1 when none is left
+        private static int send(OutputStream out, ByteBuffer frame, long game, boolean[] taken, Random random)
+                throws IOException {
+            int free = 0;
+            for (boolean cell : taken) {
+                free += cell ? 0 : 1;
+            }
+            if (free == 0) {
+                return -1;
+            }
+            int cell;
+            do {
+                cell = random.nextInt(taken.length);
+            } while (taken[cell]);
+            int chosen = cell;
+            send(out, frame, f -> Protocol.writeMove(f, game, chosen));
+            return chosen;
+        }
+
+        private static void send(OutputStream out, ByteBuffer frame, Consumer<ByteBuffer> writer)
+                throws IOException {
+            writer.accept(frame.clear());
+            out.write(frame.array(), 0, frame.position());
+            out.flush();
+        }
+    }
+}
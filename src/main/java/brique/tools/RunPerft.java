@@ -0,0 +1,31 @@
+package brique.tools;
+
+import brique.core.GameState;
+import brique.solver.Perft;
+
+// Counts the positions 1..maxDepth plies from the empty board (pie rule included) and
+// prints each count with the time taken and moves made per second.
+// Usage: RunPerft [boardSize=5] [maxDepth=5] [threads=cores] [tableMb=64]
+public final class RunPerft {
+
+    private RunPerft() { }
+
+    public static void main(String[] args) {
+        int size     = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        int maxDepth = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int threads  = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        int tableMb  = args.length > 3 ? Integer.parseInt(args[3]) : 64;
+
+        Perft perft = new Perft();
+        perft.setThreads(threads);
+        perft.setTableSizeMb(tableMb);
+        GameState start = new GameState(size);
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            long begin = System.nanoTime();
+            long count = perft.perft(start, depth);
+            double seconds = (System.nanoTime() - begin) / 1e9;
+            System.out.printf("perft(%d) on %dx%d = %,d  (%.3f s, %,d moves made, %,.0f moves/s, %,d table hits)%n",
+                depth, size, size, count, seconds, perft.getNodes(), perft.getNodes() / seconds, perft.getTableHits());
+        }
+    }
+}
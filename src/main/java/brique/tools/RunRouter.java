@@ -0,0 +1,92 @@
+package brique.tools;
+
+import brique.server.ClusterRouter;
+import brique.server.Protocol;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+
+// Runs a ClusterRouter on all interfaces in front of RunServer nodes started with the same
+// cluster key (hex). Clients connect to the router as to one server. Nodes join and leave
+// with lines on standard input, their games moving live: "add host:port",
+// "remove host:port" and "status"; the router reports every few seconds as well.
+// Usage: RunRouter clusterKey [port=4747] [nodes=host:port,...] [reportSeconds=10] [matchers=1]
+public final class RunRouter {
+
+    private RunRouter() { }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: RunRouter clusterKey [port=4747] [nodes=host:port,...] [reportSeconds=10] [matchers=1]");
+            System.exit(2);
+        }
+        long key          = Long.parseUnsignedLong(args[0], 16);
+        int port          = args.length > 1 ? Integer.parseInt(args[1]) : Protocol.DEFAULT_PORT;
+        String nodes      = args.length > 2 ? args[2] : "";
+        int reportSeconds = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+        int matchers      = args.length > 4 ? Integer.parseInt(args[4]) : 1;
+
+        ClusterRouter router = new ClusterRouter(new InetSocketAddress(port), key);
+        router.setMatchers(matchers);
+        router.start();
+        for (String node : nodes.split(",")) {
+            if (!node.isBlank()) {
+                router.addNode(address(node));
+            }
+        }
+        System.out.println("Listening on port " + router.getPort() + " in front of " + router.getNodes());
+        Thread.ofPlatform().daemon().start(() -> {
+            while (true) {
+                try {
+                    Thread.sleep(reportSeconds * 1_000L);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                report(router);
+            }
+        });
+
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in));
+        String line;
+        while ((line = in.readLine()) != null) {
+            String[] words = line.trim().split("\\s+");
+            try {
+                switch (words[0]) {
+                    case "add" -> {
+                        router.addNode(address(words[1]));
+                        report(router);
+                    }
+                    case "remove" -> {
+                        router.removeNode(address(words[1]));
+                        report(router);
+                    }
+                    case "status" -> report(router);
+                    case "" -> { }
+                    default -> System.out.println("Commands: add host:port, remove host:port, status");
+                }
+            } catch (RuntimeException | IOException e) {
+                System.out.println(line + ": " + e.getMessage());
+            }
+        }
+        router.close();
+    }
+
+    private static void report(ClusterRouter router) {
+        long[] pauses = router.getMigrationPauses();
+        Arrays.sort(pauses);
+        System.out.printf("%s: %,d clients, %,d games, %,d waiting, %,d games moved (%,d failed), max pause %.1f ms%n",
+            router.getNodes(), router.getClients(), router.getGames(), router.getWaitingPlayers(), router.getMigrations(),
+            router.getFailedMigrations(), pauses.length == 0 ? 0 : pauses[pauses.length - 1] / 1e6);
+    }
+
+    private static InetSocketAddress address(String node) {
+        int colon = node.lastIndexOf(':');
+        if (colon < 0) {
+            throw new IllegalArgumentException("Expected host:port, got " + node);
+        }
+        return new InetSocketAddress(node.substring(0, colon), Integer.parseInt(node.substring(colon + 1)));
+    }
+}
@@ -0,0 +1,65 @@
+package brique.tools;
+
+import brique.core.TimeControl;
+import brique.server.GameServer;
+import brique.server.Protocol;
+
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+
+// Runs a GameServer on all interfaces until the process is stopped, printing the number of
+// connections, hosted games and actions played every few seconds; a server stopped by a
+// failed move log ends the process with status 1. Clients connect with
+// OnlineGameEngine (-Dbrique.server=host:port). With a log directory every action is
+// logged before it is announced, and the games in progress there are recovered on start.
+// With idleSeconds, games idle that long are kept on disk in the system temporary directory.
+// With a time control ("300+5" or "600/30x5", see TimeControl.parse) players lose on time.
+// With a cluster key (hex) the server is a node behind RunRouter, which must use the same key.
+// Usage: RunServer [port=4747] [reportSeconds=10] [shards=cores] [logDirectory=none] [idleSeconds=0] [timeControl=none] [clusterKey=none]
+public final class RunServer {
+
+    private RunServer() { }
+
+    public static void main(String[] args) throws Exception {
+        int port          = args.length > 0 ? Integer.parseInt(args[0]) : Protocol.DEFAULT_PORT;
+        int reportSeconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int shards        = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        String log        = args.length > 3 ? args[3] : "none";
+        int idleSeconds   = args.length > 4 ? Integer.parseInt(args[4]) : 0;
+        String clocks     = args.length > 5 ? args[5] : "none";
+        String clusterKey = args.length > 6 ? args[6] : "none";
+
+        GameServer server = new GameServer(new InetSocketAddress(port));
+        server.setShards(shards);
+        if (!log.equals("none")) {
+            server.setMoveLog(Path.of(log));
+        }
+        if (idleSeconds > 0) {
+            server.setPassivation(Path.of(System.getProperty("java.io.tmpdir"), "brique-idle-" + ProcessHandle.current().pid()),
+                                  idleSeconds * 1_000L);
+        }
+        if (!clocks.equals("none")) {
+            server.setTimeControl(TimeControl.parse(clocks));
+        }
+        if (!clusterKey.equals("none")) {
+            server.setClusterKey(Long.parseUnsignedLong(clusterKey, 16));
+        }
+        server.start();
+        System.out.println("Listening on port " + server.getPort() + " with " + shards + " shards");
+        if (!log.equals("none")) {
+            System.out.printf("Recovered %,d games from %s%n", server.getRecoveredGames(), log);
+        }
+        long lastActions = 0;
+        while (server.isRunning()) {
+            Thread.sleep(reportSeconds * 1_000L);
+            long actions = server.getActionsPlayed();
+            System.out.printf("%,d connections, %,d games (%,d idle), %,d lost on time, %,d actions (%,.0f/s), %,d handed off, %,d imported%n",
+                server.getConnections(), server.getActiveGames(), server.getIdleGames(), server.getFlagFalls(), actions,
+                (actions - lastActions) / (double) reportSeconds, server.getHandoffs(), server.getImports());
+            lastActions = actions;
+        }
+        server.close();
+        System.err.println("Stopped: the move log failed");
+        System.exit(1);
+    }
+}
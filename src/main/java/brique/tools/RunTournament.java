@@ -0,0 +1,59 @@
+package brique.tools;
+
+import brique.bot.BotConfig;
+import brique.bot.SearchLimits;
+import brique.tournament.Entrant;
+import brique.tournament.Sprt;
+import brique.tournament.Tournament;
+import brique.tournament.TournamentReport;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+// Plays a tournament between bot configuration files (see BotConfig) on all cores and writes
+// a JSON report. Each file is an entrant named after it; a gauntlet matches the first file
+// against the others. With sprtElo1 above 0, each match stops once an SPRT of 0 Elo
+// against sprtElo1 (5% error each way) decides it. Alpha-beta entrants search on one
+// thread unless their file says otherwise, since the games already run in parallel.
+// Usage: RunTournament boardSize round-robin|gauntlet maxPairs moveMillis sprtElo1 report.json first.conf second.conf...
+public final class RunTournament {
+
+    private static final double SPRT_ERROR = 0.05;
+
+    private RunTournament() { }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 8) {
+            System.err.println("Usage: RunTournament boardSize round-robin|gauntlet maxPairs moveMillis sprtElo1 report.json first.conf second.conf...");
+            System.exit(2);
+        }
+        int size        = Integer.parseInt(args[0]);
+        Tournament.Format format = "gauntlet".equals(args[1]) ? Tournament.Format.GAUNTLET : Tournament.Format.ROUND_ROBIN;
+        int maxPairs    = Integer.parseInt(args[2]);
+        long moveMillis = Long.parseLong(args[3]);
+        double elo1     = Double.parseDouble(args[4]);
+        Path report     = Path.of(args[5]);
+
+        List<Entrant> entrants = new ArrayList<>();
+        for (int i = 6; i < args.length; i++) {
+            Path file = Path.of(args[i]);
+            BotConfig config = BotConfig.load(file);
+            if (config.get(BotConfig.ALPHA_BETA_THREADS) == null) {
+                config.set(BotConfig.ALPHA_BETA_THREADS, 1);
+            }
+            String name = file.getFileName().toString().replaceFirst("\\.[^.]*$", "");
+            entrants.add(new Entrant(name, config, SearchLimits.time(moveMillis)));
+        }
+
+        Tournament tournament = new Tournament(size, entrants, format);
+        tournament.setMaxPairs(maxPairs);
+        if (elo1 > 0) {
+            tournament.setSprt(new Sprt(0, elo1, SPRT_ERROR, SPRT_ERROR));
+        }
+        TournamentReport result = tournament.run();
+        Files.writeString(report, result.toJson());
+        System.out.printf("%d games in %.1f s, report written to %s%n", result.games(), result.elapsedNanos() / 1e9, report);
+    }
+}
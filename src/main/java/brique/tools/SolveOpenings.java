@@ -0,0 +1,39 @@
+package brique.tools;
+
+import brique.core.GameState;
+import brique.core.Stone;
+import brique.solver.DfpnSolver;
+import brique.solver.SolverResult;
+
+// Proves the result of the empty board (Black to move, pie rule on) for a range of sizes.
+// Usage: SolveOpenings [minSize=4] [maxSize=7] [tableMb=256] [nodeLimit=0 (none)]
+// Ctrl-C interrupts the current size and prints whatever was reached.
+public final class SolveOpenings {
+
+    private static final long PROGRESS_INTERVAL = 1_000_000;
+
+    private SolveOpenings() { }
+
+    public static void main(String[] args) {
+        int minSize    = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int maxSize    = args.length > 1 ? Integer.parseInt(args[1]) : 7;
+        int tableMb    = args.length > 2 ? Integer.parseInt(args[2]) : 256;
+        long nodeLimit = args.length > 3 ? Long.parseLong(args[3]) : 0;
+
+        DfpnSolver solver = new DfpnSolver(tableMb);
+        solver.setNodeLimit(nodeLimit);
+        solver.setProgress((nodes, proof, disproof) ->
+            System.out.printf("  %,d nodes, root pn=%d dn=%d%n", nodes, proof, disproof), PROGRESS_INTERVAL);
+        Runtime.getRuntime().addShutdownHook(new Thread(solver::interrupt));
+
+        for (int size = minSize; size <= maxSize; size++) {
+            System.out.printf("%dx%d:%n", size, size);
+            // A fresh solver per size would drop nothing useful: keys include the board size
+            SolverResult result = solver.solve(new GameState(size));
+            System.out.printf("  %s in %.1f s%n", result.describe(Stone.BLACK), result.elapsedNanos() / 1e9);
+            if (!result.isProven()) {
+                break;
+            }
+        }
+    }
+}
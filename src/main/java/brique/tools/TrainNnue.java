@@ -0,0 +1,35 @@
+package brique.tools;
+
+import brique.bot.NnueNetwork;
+import brique.bot.NnueTrainer;
+import brique.bot.PatternTable;
+
+import java.nio.file.Path;
+
+// Trains an NNUE evaluator network on self-play games and writes it to a file.
+// Usage: TrainNnue [boardSize=9] [file=nnue-9x9.bin] [games=20000] [epochs=4] [patternFile]
+// With a pattern file (see TrainPatterns) the self-play games use pattern-weighted playouts.
+public final class TrainNnue {
+
+    private TrainNnue() { }
+
+    public static void main(String[] args) throws Exception {
+        int size   = args.length > 0 ? Integer.parseInt(args[0]) : 9;
+        Path file  = Path.of(args.length > 1 ? args[1] : "nnue-" + size + "x" + size + ".bin");
+        int games  = args.length > 2 ? Integer.parseInt(args[2]) : 20_000;
+        int epochs = args.length > 3 ? Integer.parseInt(args[3]) : 4;
+
+        NnueTrainer trainer = new NnueTrainer(size);
+        trainer.setGames(games);
+        trainer.setEpochs(epochs);
+        if (args.length > 4) {
+            trainer.setPatterns(PatternTable.load(Path.of(args[4])));
+        }
+
+        long start = System.nanoTime();
+        NnueNetwork network = trainer.train();
+        network.save(file);
+        System.out.printf("%d games, %d epochs on %dx%d in %.1f s, final loss %.4f, written to %s%n",
+            games, epochs, size, size, (System.nanoTime() - start) / 1e9, trainer.getLastLoss(), file);
+    }
+}
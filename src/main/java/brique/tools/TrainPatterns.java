@@ -0,0 +1,33 @@
+package brique.tools;
+
+import brique.bot.PatternTable;
+import brique.bot.PatternTrainer;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Trains playout pattern weights by self-play and writes them to a file; an existing file
+// is used as the starting point, so training can continue where it stopped.
+// Usage: TrainPatterns [boardSize=9] [file=patterns.bin] [generations=4] [gamesPerGeneration=20000]
+public final class TrainPatterns {
+
+    private TrainPatterns() { }
+
+    public static void main(String[] args) throws Exception {
+        int size        = args.length > 0 ? Integer.parseInt(args[0]) : 9;
+        Path file       = Path.of(args.length > 1 ? args[1] : "patterns.bin");
+        int generations = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        int games       = args.length > 3 ? Integer.parseInt(args[3]) : 20_000;
+
+        PatternTrainer trainer = new PatternTrainer(size);
+        trainer.setGenerations(generations);
+        trainer.setGames(games);
+        PatternTable start = Files.exists(file) ? PatternTable.load(file) : new PatternTable();
+
+        long begin = System.nanoTime();
+        PatternTable table = trainer.train(start);
+        table.save(file);
+        System.out.printf("%d generations of %d games on %dx%d in %.1f s, written to %s%n",
+            generations, games, size, size, (System.nanoTime() - begin) / 1e9, file);
+    }
+}
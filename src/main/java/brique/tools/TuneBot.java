@@ -0,0 +1,48 @@
+package brique.tools;
+
+import brique.bot.BotConfig;
+import brique.bot.MctsBot;
+import brique.bot.SearchLimits;
+import brique.bot.SpsaTuner;
+import brique.bot.TunableParameter;
+
+import java.nio.file.Path;
+import java.util.List;
+
+// Tunes the MCTS bot's exploration constant and RAVE equivalence by SPSA self-play on all
+// cores and writes them to a bot configuration file, checkpointed as it goes: running
+// again on the same file resumes. Copy the file to ~/.brique/bot.conf (or point the
+// brique.botConfig property at it) to make it the engine's bot.
+// Usage: TuneBot [boardSize=9] [file=bot.conf] [iterations=2000] [playoutsPerMove=1000]
+public final class TuneBot {
+
+    private TuneBot() { }
+
+    public static void main(String[] args) throws Exception {
+        int size       = args.length > 0 ? Integer.parseInt(args[0]) : 9;
+        Path file      = Path.of(args.length > 1 ? args[1] : "bot.conf");
+        int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 2_000;
+        long playouts  = args.length > 3 ? Long.parseLong(args[3]) : 1_000;
+
+        BotConfig base = new BotConfig();
+        base.set(BotConfig.BOT, BotConfig.MCTS);
+        List<TunableParameter> parameters = List.of(
+            new TunableParameter(BotConfig.MCTS_EXPLORATION, MctsBot.DEFAULT_EXPLORATION, 0, 2, 0.05),
+            new TunableParameter(BotConfig.MCTS_RAVE_EQUIVALENCE, MctsBot.DEFAULT_RAVE_EQUIVALENCE, 0, 20_000, 300));
+
+        SpsaTuner tuner = new SpsaTuner(size, base, parameters, new SearchLimits(0, 0, playouts));
+        tuner.setIterations(iterations);
+        tuner.setCheckpoint(file, 20);
+        tuner.setProgress((done, current, gamesPerHour) -> System.out.printf(
+            "%d/%d iterations, exploration %.4f, RAVE equivalence %.0f, %.0f games/hour%n",
+            done, iterations, current.getDouble(BotConfig.MCTS_EXPLORATION, 0),
+            current.getDouble(BotConfig.MCTS_RAVE_EQUIVALENCE, 0), gamesPerHour));
+
+        long begin = System.nanoTime();
+        BotConfig result = tuner.tune();
+        System.out.printf("Tuned on %dx%d in %.1f s, written to %s:%n", size, size, (System.nanoTime() - begin) / 1e9, file);
+        for (String key : result.keys()) {
+            System.out.println("  " + key + " = " + result.get(key));
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package brique.tournament;
+
+import brique.bot.Bot;
+import brique.bot.BotConfig;
+import brique.bot.SearchLimits;
+
+import java.util.Random;
+
+// One engine configuration of a tournament: the bot its BotConfig names, searching with
+// the given limits. A fresh bot is built for every game.
+public record Entrant(String name, BotConfig config, SearchLimits limits) {
+
+    public Entrant {
+        if (name.isBlank()) {
+            throw new IllegalArgumentException("An entrant needs a name");
+        }
+        config = new BotConfig(config);
+    }
+
+    Bot createBot(Random random) {
+        return config.createBot(limits, random);
+    }
+}
@@ -0,0 +1,50 @@
+package brique.tournament;
+
+// Result of one pairing, from the first entrant's side. pairs counts the colour-swapped game
+// pairs by their score in quarter points (see Sprt); elo is the estimated difference and
+// eloError the half-width of its 95% confidence interval, both infinite or NaN while the
+// first entrant has won or lost everything. decision is null for fixed-length matches.
+public record MatchResult(String first, String second, int wins, int draws, int losses,
+                          long[] pairs, double llr, Sprt.Decision decision) {
+
+    private static final double Z_95 = 1.959964;
+
+    public MatchResult {
+        pairs = pairs.clone();
+    }
+
+    public int games() {
+        return wins + draws + losses;
+    }
+
+    public long pairCount() {
+        long n = 0;
+        for (long count : pairs) {
+            n += count;
+        }
+        return n;
+    }
+
+    public double score() {
+        return games() == 0 ? Double.NaN : (wins + 0.5 * draws) / games();
+    }
+
+    public double elo() {
+        return Sprt.eloOf(score());
+    }
+
+    public double eloError() {
+        long n = pairCount();
+        if (n < 2) {
+            return Double.NaN;
+        }
+        double mean = score();
+        double variance = 0;
+        for (int i = 0; i < Sprt.OUTCOMES; i++) {
+            double d = i / 4.0 - mean;
+            variance += pairs[i] * d * d;
+        }
+        double error = Z_95 * Math.sqrt(variance / (n - 1) / n);
+        return (Sprt.eloOf(mean + error) - Sprt.eloOf(mean - error)) / 2;
+    }
+}
@@ -0,0 +1,89 @@
+package brique.tournament;
+
+// Sequential probability ratio test between two Elo hypotheses: H0 "the first engine is
+// elo0 stronger" against H1 "it is elo1 stronger". Games come in colour-swapped pairs, so
+// the samples are pair scores (0, 1/4, 1/2, 3/4 or 1, the pentanomial model), which also
+// absorbs the colour advantage. The log-likelihood ratio uses the generalised SPRT
+// approximation LLR = n ((m - s0)^2 - (m - s1)^2) / (2 var), with m and var the mean and
+// variance of the pair scores and s0, s1 the expected scores of the two hypotheses. The
+// test accepts H1 above log((1 - beta) / alpha) and H0 below log(beta / (1 - alpha)).
+public final class Sprt {
+
+    public enum Decision { CONTINUE, ACCEPT_H0, ACCEPT_H1 }
+
+    // Pair scores in quarter points: index i is a pair worth i / 4
+    public static final int OUTCOMES = 5;
+
+    // Half a pair added to every outcome: without it the first few pairs, often all alike,
+    // have almost no variance and would decide the test on their own
+    private static final double PRIOR = 0.5;
+
+    private final double elo0;
+    private final double elo1;
+    private final double lower;
+    private final double upper;
+
+    public Sprt(double elo0, double elo1, double alpha, double beta) {
+        if (!(elo0 < elo1)) {
+            throw new IllegalArgumentException("elo0 must be below elo1: " + elo0 + " >= " + elo1);
+        }
+        if (!(alpha > 0 && alpha < 1 && beta > 0 && beta < 1)) {
+            throw new IllegalArgumentException("Error rates must be in (0, 1): " + alpha + ", " + beta);
+        }
+        this.elo0 = elo0;
+        this.elo1 = elo1;
+        this.lower = Math.log(beta / (1 - alpha));
+        this.upper = Math.log((1 - beta) / alpha);
+    }
+
+    public double elo0() {
+        return elo0;
+    }
+
+    public double elo1() {
+        return elo1;
+    }
+
+    public double lowerBound() {
+        return lower;
+    }
+
+    public double upperBound() {
+        return upper;
+    }
+
+    public double llr(long[] pairs) {
+        double n = 0;
+        double mean = 0;
+        for (int i = 0; i < OUTCOMES; i++) {
+            double count = pairs[i] + PRIOR;
+            n += count;
+            mean += count * i / 4.0;
+        }
+        mean /= n;
+        double variance = 0;
+        for (int i = 0; i < OUTCOMES; i++) {
+            double d = i / 4.0 - mean;
+            variance += (pairs[i] + PRIOR) * d * d;
+        }
+        variance /= n;
+        double s0 = expectedScore(elo0);
+        double s1 = expectedScore(elo1);
+        return n * ((mean - s0) * (mean - s0) - (mean - s1) * (mean - s1)) / (2 * variance);
+    }
+
+    public Decision decide(long[] pairs) {
+        double llr = llr(pairs);
+        return llr >= upper ? Decision.ACCEPT_H1 : llr <= lower ? Decision.ACCEPT_H0 : Decision.CONTINUE;
+    }
+
+    // Score expected by the side that is elo stronger under the logistic model
+    public static double expectedScore(double elo) {
+        return 1 / (1 + Math.pow(10, -elo / 400));
+    }
+
+    // Elo difference that gives the expected score; infinite at 0 and 1
+    public static double eloOf(double score) {
+        return -400 * Math.log10(1 / score - 1);
+    }
+}
@@ -0,0 +1,220 @@
+package brique.tournament;
+
+import brique.bot.Bot;
+import brique.bot.BotAction;
+import brique.core.GameEngine;
+import brique.core.GameEngineFactory;
+import brique.core.GameMode;
+import brique.core.GameState;
+import brique.core.Position;
+import brique.core.Stone;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntFunction;
+
+// Plays matches between engine configurations on all threads. Round robin pairs every two
+// entrants; a gauntlet pairs the first entrant with each of the others. Games come in pairs
+// from the empty board with colours swapped, and the bots decide the pie rule themselves.
+// Every game runs in a GameEngine, by default the local two-player one from
+// GameEngineFactory (setEngines can supply one built on other rules).
+// Each match plays up to maxPairs pairs; with an Sprt it stops as soon as the test decides,
+// and the pairs already being played when it does are still counted. The threads take
+// pairs from whichever undecided match has started the fewest, so short matches free their
+// threads for the others.
+public final class Tournament {
+
+    public enum Format { ROUND_ROBIN, GAUNTLET }
+
+    private final int size;
+    private final List<Entrant> entrants;
+    private final Format format;
+
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int maxPairs = 100;
+    private Sprt sprt;
+    private long seed = 1;
+    private IntFunction<GameEngine> engines = size -> GameEngineFactory.create(GameMode.LOCAL_1V1, size);
+
+    public Tournament(int size, List<Entrant> entrants, Format format) {
+        if (entrants.size() < 2) {
+            throw new IllegalArgumentException("A tournament needs at least two entrants");
+        }
+        this.size = size;
+        this.entrants = List.copyOf(entrants);
+        this.format = format;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    // Game pairs per match when no test decides it earlier
+    public void setMaxPairs(int maxPairs) {
+        this.maxPairs = Math.max(1, maxPairs);
+    }
+
+    // Stops each match early once the test decides; null plays every match to maxPairs
+    public void setSprt(Sprt sprt) {
+        this.sprt = sprt;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    public void setEngines(IntFunction<GameEngine> engines) {
+        this.engines = engines;
+    }
+
+    public TournamentReport run() throws InterruptedException {
+        List<Match> matches = new ArrayList<>();
+        for (int i = 0; i < entrants.size(); i++) {
+            for (int j = i + 1; j < entrants.size(); j++) {
+                if (format == Format.ROUND_ROBIN || i == 0) {
+                    matches.add(new Match(matches.size(), entrants.get(i), entrants.get(j)));
+                }
+            }
+        }
+
+        long start = System.nanoTime();
+        Thread[] workers = new Thread[threads];
+        RuntimeException[] failure = new RuntimeException[1];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                try {
+                    work(matches);
+                } catch (RuntimeException e) {
+                    synchronized (matches) {
+                        failure[0] = e;
+                        matches.forEach(match -> match.stopped = true);
+                    }
+                }
+            }, "brique-tournament-" + t);
+            workers[t].setDaemon(true);
+            workers[t].start();
+        }
+        try {
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        } catch (InterruptedException e) {
+            synchronized (matches) {
+                matches.forEach(match -> match.stopped = true);
+            }
+            throw e;
+        }
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+
+        List<MatchResult> results = new ArrayList<>();
+        for (Match match : matches) {
+            results.add(match.result());
+        }
+        return new TournamentReport(size, format, maxPairs, sprt, results, System.nanoTime() - start);
+    }
+
+    private void work(List<Match> matches) {
+        while (true) {
+            Match match = null;
+            int pair;
+            synchronized (matches) {
+                for (Match candidate : matches) {
+                    if (!candidate.stopped && candidate.started < maxPairs
+                        && (match == null || candidate.started < match.started)) {
+                        match = candidate;
+                    }
+                }
+                if (match == null) {
+                    return;
+                }
+                pair = match.started++;
+            }
+
+            // Seeded by match and pair, so a result does not depend on which thread played it
+            Random random = new Random((seed * 1_000_003 + match.index) * 1_000_003 + pair);
+            Stone firstAsBlack = play(match.first.createBot(random), match.second.createBot(random));
+            Stone firstAsWhite = play(match.second.createBot(random), match.first.createBot(random));
+
+            synchronized (matches) {
+                match.record(firstAsBlack == null ? 0.5 : firstAsBlack == Stone.BLACK ? 1 : 0,
+                             firstAsWhite == null ? 0.5 : firstAsWhite == Stone.WHITE ? 1 : 0);
+                if (sprt != null && match.decision == null) {
+                    Sprt.Decision decision = sprt.decide(match.pairs);
+                    if (decision != Sprt.Decision.CONTINUE) {
+                        match.decision = decision;
+                        match.stopped = true;
+                    }
+                }
+            }
+        }
+    }
+
+    // Winner of one game, or null when the board fills up without a connection
+    private Stone play(Bot black, Bot white) {
+        GameEngine engine = engines.apply(size);
+        GameState state = engine.getState();
+        while (!engine.isGameOver() && hasEmptyCell(state)) {
+            BotAction action = (state.getCurrentPlayer() == Stone.BLACK ? black : white).chooseAction(state);
+            if (action.isSwap()) {
+                engine.applyPieRule();
+            } else if (!engine.playMove(action.position())) {
+                throw new IllegalStateException("Bot chose an illegal move: " + action);
+            }
+        }
+        return state.getWinner();
+    }
+
+    private static boolean hasEmptyCell(GameState state) {
+        int n = state.getBoard().getSize();
+        for (int cell = 0; cell < n * n; cell++) {
+            if (state.getBoard().getStone(Position.of(cell / n, cell % n)) == Stone.EMPTY) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Progress of one pairing, guarded by the tournament's match list
+    private final class Match {
+
+        final int index;
+        final Entrant first;
+        final Entrant second;
+        final long[] pairs = new long[Sprt.OUTCOMES];
+        int started;
+        boolean stopped;
+        Sprt.Decision decision;
+        int wins;
+        int draws;
+        int losses;
+
+        Match(int index, Entrant first, Entrant second) {
+            this.index = index;
+            this.first = first;
+            this.second = second;
+        }
+
+        // The first entrant's score in each game of a pair
+        void record(double game1, double game2) {
+            for (double score : new double[] {game1, game2}) {
+                if (score == 1) {
+                    wins++;
+                } else if (score == 0) {
+                    losses++;
+                } else {
+                    draws++;
+                }
+            }
+            pairs[(int) Math.round((game1 + game2) * 2)]++;
+        }
+
+        MatchResult result() {
+            double llr = sprt == null ? Double.NaN : sprt.llr(pairs);
+            return new MatchResult(first.name(), second.name(), wins, draws, losses, pairs, llr,
+                                   sprt == null ? null : decision == null ? Sprt.Decision.CONTINUE : decision);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package brique.tournament;
+
+import java.util.List;
+import java.util.Locale;
+
+// Everything a tournament measured, with a JSON form for scripts. Numbers JSON cannot hold
+// (an infinite Elo after a clean sweep, a NaN error margin) are written as null.
+public record TournamentReport(int boardSize, Tournament.Format format, int maxPairs, Sprt sprt,
+                               List<MatchResult> matches, long elapsedNanos) {
+
+    public TournamentReport {
+        matches = List.copyOf(matches);
+    }
+
+    public int games() {
+        int games = 0;
+        for (MatchResult match : matches) {
+            games += match.games();
+        }
+        return games;
+    }
+
+    public String toJson() {
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append("  \"boardSize\": ").append(boardSize).append(",\n");
+        json.append("  \"format\": \"").append(format).append("\",\n");
+        json.append("  \"maxPairs\": ").append(maxPairs).append(",\n");
+        if (sprt == null) {
+            json.append("  \"sprt\": null,\n");
+        } else {
+            json.append("  \"sprt\": {\"elo0\": ").append(number(sprt.elo0()))
+                .append(", \"elo1\": ").append(number(sprt.elo1()))
+                .append(", \"lowerBound\": ").append(number(sprt.lowerBound()))
+                .append(", \"upperBound\": ").append(number(sprt.upperBound())).append("},\n");
+        }
+        json.append("  \"games\": ").append(games()).append(",\n");
+        json.append("  \"elapsedSeconds\": ").append(number(elapsedNanos / 1e9)).append(",\n");
+        json.append("  \"matches\": [");
+        for (int i = 0; i < matches.size(); i++) {
+            MatchResult match = matches.get(i);
+            json.append(i == 0 ? "\n" : ",\n");
+            json.append("    {\"first\": ").append(string(match.first()))
+                .append(", \"second\": ").append(string(match.second()))
+                .append(", \"games\": ").append(match.games())
+                .append(", \"wins\": ").append(match.wins())
+                .append(", \"draws\": ").append(match.draws())
+                .append(", \"losses\": ").append(match.losses())
+                .append(", \"pairs\": [");
+            for (int p = 0; p < Sprt.OUTCOMES; p++) {
+                json.append(p == 0 ? "" : ", ").append(match.pairs()[p]);
+            }
+            json.append("], \"score\": ").append(number(match.score()))
+                .append(", \"elo\": ").append(number(match.elo()))
+                .append(", \"eloError95\": ").append(number(match.eloError()))
+                .append(", \"llr\": ").append(number(match.llr()))
+                .append(", \"decision\": ").append(match.decision() == null ? "null" : string(match.decision().name()))
+                .append('}');
+        }
+        json.append(matches.isEmpty() ? "]\n" : "\n  ]\n");
+        json.append("}\n");
+        return json.toString();
+    }
+
+    private static String number(double value) {
+        return Double.isFinite(value) ? String.format(Locale.ROOT, "%.4f", value) : "null";
+    }
+
+    private static String string(String value) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
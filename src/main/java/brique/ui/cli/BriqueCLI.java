@@ -6,10 +6,14 @@ import brique.ui.gui.controller.ActionCommand;
 import brique.core.GameEngine;
 import brique.core.GameEngineFactory;
 import brique.core.GameMode;
+import brique.solver.DfpnSolver;
 
 
 public class BriqueCLI {
 
+    private static final int SOLVER_TABLE_MB = 64;
+    private static final long SOLVER_NODE_LIMIT = 2_000_000;
+
     // Core game engine that manages rules and state
     private final GameEngine engine;
     // Abstraction for input/output (console, mock, file, etc.)
@@ -65,10 +69,10 @@ public class BriqueCLI {
             Stone current = engine.getState().getCurrentPlayer();
             if (current == Stone.WHITE && engine.getState().isPieRuleAvailable()) {
                 io.writeLine("Current player: WHITE (swap available)");
-                io.writeLine("Enter 'swap' to apply pie rule or specify move as 'row col', or 'quit' to exit:");
+                io.writeLine("Enter 'swap' to apply pie rule or specify move as 'row col', 'solve', or 'quit' to exit:");
             } else {
                 io.writeLine("Current player: " + current);
-                io.writeLine("Enter move as 'row col', or 'quit' to exit:");
+                io.writeLine("Enter move as 'row col', 'solve', or 'quit' to exit:");
             }
 
             // Read user input
@@ -91,11 +95,18 @@ public class BriqueCLI {
                 break;
             } else if (cmd instanceof ActionCommand.Swap) {
                 try {
-                    engine.getState().applyPieRule();
+                    engine.applyPieRule();
                     io.writeLine("Pie rule applied.");
                 } catch (IllegalStateException e) {
                     io.writeLine("Cannot apply pie rule: " + e.getMessage());
                 }
+            } else if (cmd instanceof ActionCommand.Solve) {
+                // Node budget keeps the prompt responsive on boards too big to solve
+                DfpnSolver solver = new DfpnSolver(SOLVER_TABLE_MB);
+                solver.setNodeLimit(SOLVER_NODE_LIMIT);
+                io.writeLine("Solving...");
+                io.writeLine(solver.solve(engine.getState())
+                                   .describe(engine.getState().getCurrentPlayer()));
             } else if (cmd instanceof ActionCommand.PlaceStone place) {
                 boolean success = engine.playMove(place.getPosition());
                 if (!success) {
@@ -1,5 +1,6 @@
 package brique.ui.gui;
 
+import brique.bot.SwapTable;
 import brique.core.GameState;
 import brique.core.Position;
 import brique.core.Stone;
@@ -20,12 +21,16 @@ public class BriqueGameView extends JPanel implements GameStateObserver {
     // UI components
     private final BoardPanel boardPanel;
     private final JLabel statusLabel;
+    // Shown while the threat-space solver sees a forced connection
+    private final JLabel forcedWinLabel;
     private final JLabel turnIndicator;
     private final JTextArea logArea;
     private final JButton swapButton;
     private final JButton newGameButton;
     private final JButton quitButton;
     private final StonePreviewPanel stonePreview;
+    // Bundled pie-rule table, used to shade swap-worthy first moves
+    private final transient SwapTable swapTable = SwapTable.loadDefault();
 
     private int currentBoardSize = 11;
 
@@ -43,6 +48,7 @@ public class BriqueGameView extends JPanel implements GameStateObserver {
         boardPanel    = new BoardPanel(theme);
         logArea       = factory.createLogArea();
         statusLabel   = factory.createStatusLabel("Welcome to Brique!");
+        forcedWinLabel = factory.createStatusLabel("");
         turnIndicator = factory.createTurnIndicator();
         stonePreview  = factory.createStonePreview();
         swapButton    = factory.createStyledButton(
@@ -87,8 +93,9 @@ public class BriqueGameView extends JPanel implements GameStateObserver {
         left.add(stonePreview);
         left.add(turnIndicator);
 
-        JPanel right = new JPanel(new FlowLayout(FlowLayout.RIGHT, 0, 0));
+        JPanel right = new JPanel(new FlowLayout(FlowLayout.RIGHT, 12, 0));
         right.setOpaque(false);
+        right.add(forcedWinLabel);
         right.add(statusLabel);
 
         top.add(left, BorderLayout.WEST);
@@ -188,6 +195,12 @@ public void onGameStarted(int boardSize, GameState state) {
             swapButton.setEnabled(showSwap);
             swapButton.setVisible(showSwap);
 
+            // Before Black's first move, shade the openings White would swap
+            boolean firstMove = inProgress && moveCount == 0 && currentPlayer == Stone.BLACK
+                && swapTable.covers(currentBoardSize);
+            boardPanel.setSwapWorthyPositions(
+                firstMove ? swapTable.swapWorthyMoves(currentBoardSize) : Set.of());
+
             if (inProgress) {
                 statusLabel.setText("Move #" + (moveCount + 1)
                     + "  |  Board: " + currentBoardSize + "\u00D7"
@@ -211,9 +224,16 @@ public void onGameStarted(int boardSize, GameState state) {
         SwingUtilities.invokeLater(() -> boardPanel.clearHighlights());
     }
 
+    @Override
+    public void onForcedWin(Stone player) {
+        SwingUtilities.invokeLater(() -> forcedWinLabel.setText(
+            player != Stone.EMPTY ? "\u26A1 Forced win for " + player : ""));
+    }
+
     @Override
     public void onGameOver(Stone winner) {
         SwingUtilities.invokeLater(() -> {
+            forcedWinLabel.setText("");
             String msg;
             if (winner != Stone.EMPTY) {
                 msg = "\uD83C\uDF89 Game Over \u2014 " + winner + " wins!";
@@ -23,5 +23,8 @@ public interface GameStateObserver {
 
     default void onGameOver(Stone winner) { }
 
+    // Player with a proven forced connection from the current position, or Stone.EMPTY
+    default void onForcedWin(Stone player) { }
+
     default void onMessage(String message) { }
 }
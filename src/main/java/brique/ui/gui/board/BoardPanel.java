@@ -33,6 +33,7 @@ public class BoardPanel extends JPanel {
     private transient Position lastMovePosition;
     private final Set<Position> lastFilledPositions   = new HashSet<>();
     private final Set<Position> lastCapturedPositions  = new HashSet<>();
+    private final transient Set<Position> swapWorthyPositions = new HashSet<>();
     private final List<CellClickListener> listeners    = new ArrayList<>();
 
     // --- Delegates --------------------------------------------
@@ -80,6 +81,13 @@ public class BoardPanel extends JPanel {
         repaint();
     }
 
+    // Shades first moves that White would answer with the pie rule (empty set clears).
+    public void setSwapWorthyPositions(Set<Position> positions) {
+        swapWorthyPositions.clear();
+        swapWorthyPositions.addAll(positions);
+        repaint();
+    }
+
     public void clearHighlights() {
         lastFilledPositions.clear();
         lastCapturedPositions.clear();
@@ -164,6 +172,7 @@ public class BoardPanel extends JPanel {
         renderer.drawEdgeIndicators(g2, cell, ox, oy, boardSize);
         renderer.drawGrid(g2, cell, ox, oy, boardSize,
                           hoveredCell, lastFilledPositions, lastCapturedPositions);
+        renderer.drawSwapHints(g2, cell, ox, oy, swapWorthyPositions);
         renderer.drawLabels(g2, cell, ox, oy, boardSize);
         renderer.drawStones(g2, cell, ox, oy, board, boardSize, lastMovePosition);
         renderer.drawHoverPreview(g2, cell, ox, oy, board, hoveredCell, currentPlayer);
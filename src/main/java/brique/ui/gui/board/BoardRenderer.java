@@ -72,6 +72,15 @@ public class BoardRenderer {
         }
     }
 
+    // --- First moves the opponent would swap ------------------
+
+    public void drawSwapHints(Graphics2D g2, int cs, int ox, int oy, Set<Position> swapWorthy) {
+        g2.setColor(theme.highlights().swapWorthy());
+        for (Position pos : swapWorthy) {
+            g2.fillRect(ox + pos.col() * cs, oy + pos.row() * cs, cs, cs);
+        }
+    }
+
     // --- Row / column labels ----------------------------------
 
     public void drawLabels(Graphics2D g2, int cs, int ox, int oy, int boardSize) {
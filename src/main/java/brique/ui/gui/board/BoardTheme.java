@@ -18,7 +18,7 @@ public final class BoardTheme {
 
     public record GridColors(Color line, Color label) {}
 
-    public record HighlightColors(Color filled, Color captured, Color lastMove) {}
+    public record HighlightColors(Color filled, Color captured, Color lastMove, Color swapWorthy) {}
 
     public record EdgeColors(Color black, Color white) {}
 
@@ -76,7 +76,7 @@ public final class BoardTheme {
                                            b.stonePreviewBorderColor);
         this.grid        = new GridColors(b.gridLine, b.labelColor);
         this.highlights  = new HighlightColors(b.filledHighlight, b.capturedHighlight,
-                                               b.lastMoveMarker);
+                                               b.lastMoveMarker, b.swapWorthyHighlight);
         this.edges       = new EdgeColors(b.edgeBlack, b.edgeWhite);
         this.backgrounds = new BackgroundColors(b.background, b.panelBackground,
                                                 b.statusBackground, b.statusForeground,
@@ -161,6 +161,7 @@ public final class BoardTheme {
         private Color filledHighlight           = new Color(100, 200, 100, 80);
         private Color capturedHighlight         = new Color(200, 80, 80, 80);
         private Color lastMoveMarker            = new Color(255, 215, 0, 180);
+        private Color swapWorthyHighlight       = new Color(230, 150, 40, 60);
 
         // Edge indicators
         private Color edgeBlack                 = new Color(50, 50, 50, 120);
@@ -212,6 +213,7 @@ public final class BoardTheme {
         public Builder filledHighlight(Color c)             { this.filledHighlight = c; return this; }
         public Builder capturedHighlight(Color c)           { this.capturedHighlight = c; return this; }
         public Builder lastMoveMarker(Color c)              { this.lastMoveMarker = c; return this; }
+        public Builder swapWorthyHighlight(Color c)         { this.swapWorthyHighlight = c; return this; }
         public Builder edgeBlack(Color c)                   { this.edgeBlack = c; return this; }
         public Builder edgeWhite(Color c)                   { this.edgeWhite = c; return this; }
         public Builder background(Color c)                  { this.background = c; return this; }
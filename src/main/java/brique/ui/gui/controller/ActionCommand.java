@@ -24,6 +24,11 @@ public abstract class ActionCommand {
         public static final Swap INSTANCE = new Swap();
     }
 
+    // ask the solver whether the player to move has a forced win
+    public static final class Solve extends ActionCommand {
+        public static final Solve INSTANCE = new Solve();
+    }
+
     
     public static final class Quit extends ActionCommand {
         public static final Quit INSTANCE = new Quit();
@@ -39,6 +44,9 @@ public abstract class ActionCommand {
         if (trimmed.equalsIgnoreCase("swap")) {
             return Swap.INSTANCE;
         }
+        if (trimmed.equalsIgnoreCase("solve")) {
+            return Solve.INSTANCE;
+        }
 
         String[] parts = trimmed.split("\\s+");
         if (parts.length == 2) {
@@ -6,6 +6,9 @@ import brique.core.GameMode;
 import brique.exceptions.ActionInputException;
 import brique.ui.gui.GameStateObserver;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 
@@ -44,7 +47,13 @@ public class GameController {
 
     public void startNewGame(int boardSize) {
         stopGame(); // Ensure any existing game is stopped before starting a new one
-        engine = GameEngineFactory.create(currentMode, boardSize); // Create a new game engine with the specified board size and depending on the gameplay mode selected
+        try {
+            engine = GameEngineFactory.create(currentMode, boardSize); // Create a new game engine with the specified board size and depending on the gameplay mode selected
+        } catch (UncheckedIOException e) { // No server to play online with
+            engine = null;
+            notifier.notifyMessage(e.getMessage());
+            return;
+        }
         inputQueue.clear(); // Clear any pending input from previous games
 
         gameLoop = new GameLoop(engine, inputQueue, notifier);
@@ -58,9 +67,13 @@ public class GameController {
     }
 
     public void stopGame() {
-        if (gameLoop == null || !gameLoop.isRunning()) return;
+        if (gameLoop == null || !gameLoop.isRunning()) {
+            closeEngine();
+            return;
+        }
         gameLoop.stop();
         if(!inputQueue.offer(ActionCommand.Quit.INSTANCE)){throw new ActionInputException("quit action failed");} // unblock
+        closeEngine(); // An online game may be waiting for the server: closing its connection ends the wait
 
         if (gameThread != null) { // Interrupt the game thread to ensure it stops promptly
             gameThread.interrupt();
@@ -69,6 +82,17 @@ public class GameController {
         }
     }
 
+    // An online game leaves the server with its connection, freeing its seat there
+    private void closeEngine() {
+        if (engine instanceof Closeable closeable) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                // Gone either way
+            }
+        }
+    }
+
     // Returns whether a game is currently running. Useful for the GUI to enable/disable controls accordingly.
     public boolean isRunning() {
         return gameLoop != null && gameLoop.isRunning();
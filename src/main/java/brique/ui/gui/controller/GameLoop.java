@@ -1,6 +1,10 @@
 package brique.ui.gui.controller;
 
 import brique.core.*;
+import brique.solver.DfpnSolver;
+import brique.solver.SolverResult;
+import brique.solver.ThreatSpaceSolver;
+import java.io.UncheckedIOException;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -10,9 +14,15 @@ import java.util.concurrent.BlockingQueue;
 // Owns the blocking queue and command dispatch — nothing else.
 public class GameLoop implements Runnable {
 
+    private static final int SOLVER_TABLE_MB = 64;
+    private static final long SOLVER_NODE_LIMIT = 2_000_000;
+    // Small enough to run after every move without delaying the game
+    private static final long THREAT_NODE_LIMIT = 2_000;
+
     private final GameEngine engine;
     private final BlockingQueue<ActionCommand> inputQueue;
     private final GameNotifier notifier;
+    private final ThreatSpaceSolver threats = new ThreatSpaceSolver();
     private volatile boolean running = true;
 
     public GameLoop(GameEngine engine,
@@ -21,6 +31,7 @@ public class GameLoop implements Runnable {
         this.engine     = engine;
         this.inputQueue = inputQueue;
         this.notifier   = notifier;
+        threats.setNodeLimit(THREAT_NODE_LIMIT);
     }
 
     public void stop() { running = false; }
@@ -28,8 +39,12 @@ public class GameLoop implements Runnable {
 
     @Override
     public void run() {
+        if (engine instanceof OnlineGameEngine online) {
+            awaitOpponent(online);
+        }
         while (running && !engine.isGameOver()) {
             notifier.notifyStateChanged(engine.getState());
+            reportForcedWin();
 
             ActionCommand command;
             try {
@@ -49,6 +64,20 @@ public class GameLoop implements Runnable {
         }
     }
 
+    // Pairing takes as long as it takes, so it is waited for here and not on the UI thread
+    private void awaitOpponent(OnlineGameEngine online) {
+        notifier.notifyMessage("Waiting for an opponent...");
+        try {
+            online.awaitStart();
+            notifier.notifyMessage("Opponent found: you play " + online.getColour());
+        } catch (UncheckedIOException e) {
+            if (running) {
+                notifier.notifyMessage("Cannot play online: " + e.getCause().getMessage());
+            }
+            running = false;
+        }
+    }
+
     private void processCommand(ActionCommand cmd) {
         if (cmd == null) {
             notifier.notifyMessage("Invalid input.");
@@ -61,6 +90,8 @@ public class GameLoop implements Runnable {
             running = false;
         } else if (cmd instanceof ActionCommand.Swap) {
             handleSwap();
+        } else if (cmd instanceof ActionCommand.Solve) {
+            handleSolve();
         } else if (cmd instanceof ActionCommand.PlaceStone place) {
             handlePlaceStone(place);
         }
@@ -68,7 +99,7 @@ public class GameLoop implements Runnable {
 
     private void handleSwap() {
         try {
-            engine.getState().applyPieRule();
+            engine.applyPieRule();
             notifier.notifyMessage("\u21C4 Pie rule applied! Colors swapped.");
             notifier.notifyPieRuleApplied();
             notifier.notifyBoardUpdated();
@@ -77,6 +108,26 @@ public class GameLoop implements Runnable {
         }
     }
 
+    private void handleSolve() {
+        DfpnSolver solver = new DfpnSolver(SOLVER_TABLE_MB);
+        solver.setNodeLimit(SOLVER_NODE_LIMIT);
+        GameState state = engine.getState();
+        notifier.notifyMessage(solver.solve(state).describe(state.getCurrentPlayer()));
+    }
+
+    private void reportForcedWin() {
+        GameState state = engine.getState();
+        if (!state.isInProgress()) {
+            return;
+        }
+        SolverResult result = threats.solve(state);
+        Stone player = state.getCurrentPlayer();
+        notifier.notifyForcedWin(
+            result.outcome() == SolverResult.Outcome.WIN  ? player
+          : result.outcome() == SolverResult.Outcome.LOSS ? player.opposite()
+          : Stone.EMPTY);
+    }
+
     private void handlePlaceStone(ActionCommand.PlaceStone cmd) {
         try {
             Position pos    = cmd.getPosition();
@@ -92,7 +143,7 @@ public class GameLoop implements Runnable {
                 reportMoveEffects(pos, player);
                 notifier.notifyBoardUpdated();
             }
-        } catch (IllegalStateException e) {
+        } catch (IllegalStateException | UncheckedIOException e) {
             notifier.notifyMessage("Error: " + e.getMessage());
             running = false;
         }
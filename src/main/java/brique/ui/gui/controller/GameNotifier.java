@@ -51,6 +51,10 @@ public class GameNotifier {
         for (GameStateObserver o : observers) o.onPieRuleApplied();
     }
 
+    public void notifyForcedWin(Stone player) {
+        for (GameStateObserver o : observers) o.onForcedWin(player);
+    }
+
     public void notifyGameOver(Stone winner) {
         for (GameStateObserver o : observers) o.onGameOver(winner);
     }
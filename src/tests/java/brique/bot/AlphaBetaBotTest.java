@@ -0,0 +1,92 @@
+package brique.bot;
+
+import brique.core.GameState;
+import brique.core.MoveExecutor;
+import brique.core.Position;
+import brique.core.Stone;
+import brique.core.ZobristHash;
+import brique.rules.GameRules;
+import brique.rules.StandardBriqueRules;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+class AlphaBetaBotTest {
+
+    private final GameRules rules = new StandardBriqueRules();
+
+    @Test
+    @DisplayName("Should find an immediate winning move")
+    void shouldFindImmediateWinningMove() {
+        GameState state = new GameState(5);
+        for (int row = 0; row < 4; row++) {
+            state.getBoard().setStone(Position.of(row, 2), Stone.BLACK);
+        }
+
+        AlphaBetaBot bot = new AlphaBetaBot(1, 1, SearchLimits.depth(2));
+        SearchResult result = bot.search(state);
+
+        assertThat(result.action().isSwap()).isFalse();
+        assertThat(result.score()).isGreaterThanOrEqualTo(SearchWorker.WIN - 10);
+        MoveExecutor.play(state, rules, result.action().position());
+        assertThat(state.getWinner()).isEqualTo(Stone.BLACK);
+    }
+
+    @Test
+    @DisplayName("Should block the opponent's only winning cell")
+    void shouldBlockOpponentsOnlyWinningCell() {
+        GameState state = new GameState(5);
+        for (int col = 0; col < 4; col++) {
+            state.getBoard().setStone(Position.of(4, col), Stone.WHITE);
+        }
+
+        AlphaBetaBot bot = new AlphaBetaBot(1, 1, SearchLimits.depth(2));
+        BotAction action = bot.chooseAction(state);
+
+        assertThat(action.position()).isEqualTo(Position.of(4, 4));
+    }
+
+    @Test
+    @DisplayName("Should return a legal move with several threads and leave the state untouched")
+    void shouldReturnLegalMoveWithSeveralThreads() {
+        GameState state = new GameState(6);
+        MoveExecutor.play(state, rules, Position.of(2, 2));
+        MoveExecutor.play(state, rules, Position.of(3, 3));
+        long hashBefore = ZobristHash.of(state);
+
+        AlphaBetaBot bot = new AlphaBetaBot(4, 4, SearchLimits.depth(3));
+        SearchResult result = bot.search(state);
+
+        assertThat(result.depth()).isGreaterThanOrEqualTo(3);
+        assertThat(result.nodes()).isGreaterThan(0);
+        assertThat(state.getBoard().getStone(result.action().position())).isEqualTo(Stone.EMPTY);
+        assertThat(ZobristHash.of(state)).isEqualTo(hashBefore);
+        assertThat(state.getMoveHistory()).hasSize(2);
+    }
+
+    @Test
+    @DisplayName("Should consider the pie rule as White on the first turn")
+    void shouldConsiderPieRuleOnFirstTurn() {
+        GameState state = new GameState(5);
+        MoveExecutor.play(state, rules, Position.of(2, 2));
+
+        AlphaBetaBot bot = new AlphaBetaBot(1, 1, SearchLimits.depth(2));
+        BotAction action = bot.chooseAction(state);
+
+        // Either answer is legal; the search must not have consumed the swap itself
+        assertThat(action.isSwap() || state.getBoard().getStone(action.position()) == Stone.EMPTY).isTrue();
+        assertThat(state.isPieRuleAvailable()).isTrue();
+        assertThat(state.getBoard().getStone(Position.of(2, 2))).isEqualTo(Stone.BLACK);
+    }
+
+    @Test
+    @DisplayName("Should stop within the time budget")
+    void shouldStopWithinTimeBudget() {
+        AlphaBetaBot bot = new AlphaBetaBot(2, 4, SearchLimits.time(200));
+        SearchResult result = bot.search(new GameState(9));
+
+        assertThat(result.action()).isNotNull();
+        assertThat(result.elapsedNanos()).isLessThan(2_000_000_000L);
+    }
+}
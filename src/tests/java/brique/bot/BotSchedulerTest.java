@@ -0,0 +1,97 @@
+package brique.bot;
+
+import brique.core.GameState;
+import brique.core.MoveExecutor;
+import brique.core.Position;
+import brique.core.Stone;
+import brique.rules.StandardBriqueRules;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.*;
+
+class BotSchedulerTest {
+
+    private final BotScheduler scheduler = new BotScheduler(1, 1);
+
+    @AfterEach
+    void closeScheduler() {
+        scheduler.close();
+    }
+
+    @Test
+    @DisplayName("Should search a move to the requested depth")
+    void shouldSearchToRequestedDepth() {
+        GameState state = new GameState(5);
+        for (int row = 0; row < 4; row++) {
+            state.getBoard().setStone(Position.of(row, 2), Stone.BLACK);
+        }
+
+        SearchResult result = scheduler.submit(state, SearchLimits.depth(2), BotScheduler.Priority.NORMAL).join();
+
+        assertThat(result.action().isSwap()).isFalse();
+        MoveExecutor.play(state, new StandardBriqueRules(), result.action().position());
+        assertThat(state.getWinner()).isEqualTo(Stone.BLACK);
+    }
+
+    @Test
+    @DisplayName("Should answer every move by its due time when the threads are oversubscribed")
+    void shouldBoundResponseTime() {
+        scheduler.setLatencyFactor(2);
+        List<CompletableFuture<SearchResult>> futures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            futures.add(scheduler.submit(new GameState(9), SearchLimits.time(100), BotScheduler.Priority.NORMAL));
+        }
+
+        // A second of work on one thread, but each answer is due 200 ms after it was asked for
+        for (CompletableFuture<SearchResult> future : futures) {
+            SearchResult result = future.join();
+            assertThat(result.action()).isNotNull();
+            assertThat(result.elapsedNanos()).isLessThan(600_000_000L);
+        }
+    }
+
+    @Test
+    @DisplayName("Should answer urgent moves before background ones")
+    void shouldServeUrgentFirst() {
+        List<CompletableFuture<SearchResult>> background = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            background.add(scheduler.submit(new GameState(9), SearchLimits.time(200), BotScheduler.Priority.BACKGROUND));
+        }
+        SearchResult urgent = scheduler.submit(new GameState(9), SearchLimits.time(20), BotScheduler.Priority.URGENT).join();
+
+        assertThat(urgent.action()).isNotNull();
+        assertThat(background.stream().anyMatch(CompletableFuture::isDone)).isFalse();
+        background.forEach(CompletableFuture::join);
+    }
+
+    @Test
+    @DisplayName("Should report completed moves and response times")
+    void shouldReportMetrics() {
+        Bot bot = scheduler.bot(SearchLimits.depth(1), BotScheduler.Priority.NORMAL);
+        for (int i = 0; i < 5; i++) {
+            assertThat(bot.chooseAction(new GameState(5))).isNotNull();
+        }
+
+        SchedulerMetrics metrics = scheduler.metrics();
+        assertThat(metrics.completed()).isEqualTo(5L);
+        assertThat(metrics.queued()).isZero();
+        assertThat(metrics.slices()).isGreaterThanOrEqualTo(5L);
+        assertThat(metrics.p99Millis()).isGreaterThanOrEqualTo(metrics.p50Millis());
+        assertThat(metrics.p50Millis()).isPositive();
+    }
+
+    @Test
+    @DisplayName("Should refuse work after closing")
+    void shouldRefuseWorkAfterClosing() {
+        scheduler.close();
+
+        assertThatThrownBy(() -> scheduler.submit(new GameState(5), SearchLimits.depth(1), BotScheduler.Priority.NORMAL))
+            .isInstanceOf(IllegalStateException.class);
+    }
+}
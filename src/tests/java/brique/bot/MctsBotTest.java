@@ -0,0 +1,90 @@
+package brique.bot;
+
+import brique.core.GameState;
+import brique.core.MoveExecutor;
+import brique.core.Position;
+import brique.core.Stone;
+import brique.rules.StandardBriqueRules;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+class MctsBotTest {
+
+    @Test
+    @DisplayName("Should count escort fills and captures as owned cells")
+    void shouldReportOwnersAfterFills() {
+        GameState state = new GameState(7);
+        state.turnOffPieRule();
+        Playout playout = new Playout(7, null);
+        playout.load(state);
+        Random random = new Random(5);
+        for (int move = 0; move < 30 && state.isInProgress(); move++) {
+            int cell;
+            do {
+                cell = random.nextInt(49);
+            } while (!playout.isEmpty(cell));
+            boolean connected = playout.place(cell);
+            MoveExecutor.play(state, new StandardBriqueRules(), Position.of(cell / 7, cell % 7));
+            assertThat(connected).isEqualTo(!state.isInProgress());
+            for (int c = 0; c < 49; c++) {
+                assertThat(playout.owner(c)).isEqualTo(state.getBoard().getStone(Position.of(c / 7, c % 7)));
+            }
+        }
+
+        // restart() goes back to the loaded position
+        playout.restart();
+        for (int c = 0; c < 49; c++) {
+            assertThat(playout.owner(c)).isEqualTo(Stone.EMPTY);
+        }
+    }
+
+    @Test
+    @DisplayName("Should play the connecting move without playouts")
+    void shouldPlayImmediateWin() {
+        GameState state = new GameState(5);
+        for (int row = 0; row < 4; row++) {
+            state.getBoard().setStone(Position.of(row, 2), Stone.BLACK);
+        }
+        MctsBot bot = new MctsBot(new SearchLimits(0, 0, 500), null, new Random(1));
+
+        BotAction action = bot.chooseAction(state);
+
+        assertThat(bot.getLastPlayouts()).isZero();
+        MoveExecutor.play(state, new StandardBriqueRules(), action.position());
+        assertThat(state.getWinner()).isEqualTo(Stone.BLACK);
+    }
+
+    @Test
+    @DisplayName("Should block the opponent's only winning cell with and without RAVE")
+    void shouldBlockOpponentsWinningCell() {
+        for (double k : new double[] {MctsBot.DEFAULT_RAVE_EQUIVALENCE, 0}) {
+            GameState state = new GameState(5);
+            for (int col = 0; col < 4; col++) {
+                state.getBoard().setStone(Position.of(4, col), Stone.WHITE);
+            }
+            MctsBot bot = new MctsBot(new SearchLimits(0, 0, 3_000), null, new Random(2));
+            bot.setRaveEquivalence(k);
+
+            assertThat(bot.chooseAction(state).position()).isEqualTo(Position.of(4, 4));
+            assertThat(bot.getLastPlayouts()).isEqualTo(3_000L);
+        }
+    }
+
+    @Test
+    @DisplayName("Should take the pie rule when Black's first stone completes White's row")
+    void shouldConsiderSwap() {
+        GameState state = new GameState(5);
+        for (int col = 0; col < 3; col++) {
+            state.getBoard().setStone(Position.of(2, col), Stone.WHITE);
+        }
+        MoveExecutor.play(state, new StandardBriqueRules(), Position.of(2, 3));
+        MctsBot bot = new MctsBot(new SearchLimits(0, 0, 2_000), null, new Random(1));
+
+        // Recoloured, (2,3) leaves White one cell short with Black unable to cover every way in
+        assertThat(bot.chooseAction(state).isSwap()).isTrue();
+    }
+}
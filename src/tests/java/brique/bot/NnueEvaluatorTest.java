@@ -0,0 +1,117 @@
+package brique.bot;
+
+import brique.core.GameState;
+import brique.core.Move;
+import brique.core.MoveExecutor;
+import brique.core.Position;
+import brique.core.Stone;
+import brique.rules.StandardBriqueRules;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+class NnueEvaluatorTest {
+
+    private NnueTrainer trainer;
+    private NnueNetwork network;
+
+    @BeforeEach
+    void train() throws InterruptedException {
+        trainer = new NnueTrainer(5);
+        trainer.setThreads(2);
+        trainer.setGames(2_000);
+        trainer.setEpochs(3);
+        network = trainer.train();
+    }
+
+    private static Position randomEmpty(GameState state, Random random) {
+        List<Position> empty = new ArrayList<>();
+        for (int cell = 0; cell < 25; cell++) {
+            Position pos = Position.of(cell / 5, cell % 5);
+            if (state.getBoard().getStone(pos) == Stone.EMPTY) {
+                empty.add(pos);
+            }
+        }
+        return empty.isEmpty() ? null : empty.get(random.nextInt(empty.size()));
+    }
+
+    @Test
+    @DisplayName("Should learn something from self-play")
+    void shouldReduceTheLoss() {
+        assertThat(trainer.getLastLoss()).isLessThan(Math.log(2));
+        assertThat(network.getSize()).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("Should keep incremental accumulators equal to rebuilt ones through moves, swaps and undos")
+    void shouldMatchRefreshedEvaluation() {
+        StandardBriqueRules rules = new StandardBriqueRules();
+        Random random = new Random(4);
+        for (int game = 0; game < 30; game++) {
+            GameState state = new GameState(5);
+            NnueEvaluator incremental = new NnueEvaluator(network);
+            incremental.reset(state);
+            int start = incremental.evaluate(state);
+
+            List<Move> moves = new ArrayList<>();
+            Position first = null;
+            boolean swapped = false;
+            while (state.isInProgress()) {
+                if (state.getMoveHistory().size() == 1 && game % 2 == 0 && !swapped) {
+                    first = state.getMoveHistory().get(0).getPosition();
+                    state.applyPieRule();
+                    incremental.swapMade(first);
+                    swapped = true;
+                } else {
+                    Position pos = randomEmpty(state, random);
+                    if (pos == null) {
+                        break;
+                    }
+                    Move move = MoveExecutor.play(state, rules, pos);
+                    incremental.moveMade(move);
+                    moves.add(move);
+                }
+                assertThat(incremental.evaluate(state)).isEqualTo(new NnueEvaluator(network).evaluate(state.copy()));
+            }
+
+            // Take everything back: the accumulators return to the empty board
+            for (int i = moves.size() - 1; i >= 0; i--) {
+                if (i == 0 && swapped) {
+                    state.undoPieRule();
+                    incremental.swapUndone(first);
+                }
+                incremental.moveUndone(state.undoLastMove());
+            }
+            assertThat(incremental.evaluate(state)).isEqualTo(start);
+        }
+    }
+
+    @Test
+    @DisplayName("Should search with the incremental evaluator and round-trip the network")
+    void shouldSearchAndRoundTrip() throws IOException {
+        AlphaBetaBot bot = new AlphaBetaBot(1, 4, SearchLimits.depth(3), () -> new NnueEvaluator(network));
+        GameState state = new GameState(5);
+        BotAction action = bot.chooseAction(state);
+        assertThat(action.isSwap()).isFalse();
+        assertThat(MoveExecutor.play(state, new StandardBriqueRules(), action.position())).isNotNull();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        network.write(out);
+        NnueNetwork read = NnueNetwork.read(new ByteArrayInputStream(out.toByteArray()));
+        assertThat(new NnueEvaluator(read).evaluate(state)).isEqualTo(new NnueEvaluator(network).evaluate(state));
+
+        assertThatThrownBy(() -> new NnueEvaluator(network).evaluate(new GameState(7)))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> NnueNetwork.read(new ByteArrayInputStream(new byte[20])))
+            .isInstanceOf(IOException.class);
+    }
+}
@@ -0,0 +1,126 @@
+package brique.bot;
+
+import brique.core.BotGameEngine;
+import brique.core.GameState;
+import brique.core.MoveExecutor;
+import brique.core.Position;
+import brique.core.Stone;
+import brique.core.ZobristHash;
+import brique.rules.StandardBriqueRules;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+class OpeningBookTest {
+
+    private static final int GAMES = 300;
+
+    @TempDir
+    Path dir;
+
+    private Path file;
+
+    // Plays a random empty cell: fast, and every game takes a different path
+    private static Bot randomBot(long seed) {
+        Random random = new Random(seed);
+        return state -> {
+            int size = state.getBoard().getSize();
+            while (true) {
+                Position pos = Position.of(random.nextInt(size), random.nextInt(size));
+                if (state.getBoard().getStone(pos) == Stone.EMPTY) {
+                    return BotAction.place(pos);
+                }
+            }
+        };
+    }
+
+    @BeforeEach
+    void buildBook() throws Exception {
+        file = dir.resolve("book.bin");
+        OpeningBookBuilder builder = new OpeningBookBuilder(5, 3, () -> randomBot(42));
+        builder.setThreads(2);
+        builder.setMinGames(1);
+        assertThat(builder.build(GAMES, file)).isPositive();
+    }
+
+    @Test
+    @DisplayName("Should count every game through the empty board")
+    void shouldCountEveryGameThroughRoot() throws Exception {
+        OpeningBook book = OpeningBook.open(file);
+        int stats = book.probe(ZobristHash.of(new GameState(5)));
+
+        assertThat(stats).isNotEqualTo(OpeningBook.NOT_FOUND);
+        assertThat(OpeningBook.games(stats)).isEqualTo(GAMES);
+        assertThat(OpeningBook.wins(stats)).isBetween(0, GAMES);
+        assertThat(book.getSize()).isEqualTo(5);
+        assertThat(book.getMaxPly()).isEqualTo(3);
+        assertThat(book.probe(0x1234_5678L)).isEqualTo(OpeningBook.NOT_FOUND);
+    }
+
+    @Test
+    @DisplayName("Should find every stored position by binary search")
+    void shouldFindStoredPositions() throws Exception {
+        OpeningBook book = OpeningBook.open(file);
+        GameState state = new GameState(5);
+        int found = 0;
+        for (int cell = 0; cell < 25; cell++) {
+            GameState child = state.copy();
+            MoveExecutor.play(child, new StandardBriqueRules(), Position.of(cell / 5, cell % 5));
+            if (book.probe(ZobristHash.of(child)) != OpeningBook.NOT_FOUND) {
+                found++;
+            }
+        }
+        // 300 games over 25 first moves: every first move is in the book
+        assertThat(found).isEqualTo(25);
+    }
+
+    @Test
+    @DisplayName("Should choose a legal book action and leave the book past its depth")
+    void shouldChooseBookActionsWithinDepth() throws Exception {
+        OpeningBook book = OpeningBook.open(file);
+        GameState state = new GameState(5);
+
+        BotAction first = book.choose(state);
+        assertThat(first).isNotNull();
+        assertThat(MoveExecutor.play(state, new StandardBriqueRules(), first.position())).isNotNull();
+
+        for (int cell = 0; state.getMoveHistory().size() < 3; cell++) {
+            MoveExecutor.play(state, new StandardBriqueRules(), Position.of(cell / 5, cell % 5));
+        }
+        assertThat(book.choose(state)).isNull();
+        assertThat(book.choose(new GameState(7))).isNull();
+    }
+
+    @Test
+    @DisplayName("Should let the bot engine open from the book without searching")
+    void shouldOpenFromBook() throws Exception {
+        OpeningBook book = OpeningBook.open(file);
+        Bot searchingBot = state -> {
+            throw new AssertionError("the book should have answered");
+        };
+
+        BotGameEngine engine = new BotGameEngine(5, Stone.WHITE, searchingBot, book);
+
+        assertThat(engine.getState().getMoveHistory()).hasSize(1);
+        assertThat(engine.getState().getCurrentPlayer()).isEqualTo(Stone.WHITE);
+    }
+
+    @Test
+    @DisplayName("Should reject files that are not books")
+    void shouldRejectOtherFiles() throws Exception {
+        Path other = dir.resolve("other.bin");
+        Files.write(other, new byte[64]);
+
+        assertThatThrownBy(() -> OpeningBook.open(other)).isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> new OpeningBookBuilder(5, 0, () -> randomBot(1)))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,120 @@
+package brique.bot;
+
+import brique.core.GameState;
+import brique.core.MoveExecutor;
+import brique.core.Position;
+import brique.core.Stone;
+import brique.rules.StandardBriqueRules;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+class PatternPlayoutTest {
+
+    // Replays the moves of the last playout through the real rules
+    private static GameState replay(Playout playout, int size) {
+        GameState state = new GameState(size);
+        state.turnOffPieRule();
+        for (int move = 0; move < playout.playedMoves(); move++) {
+            int cell = playout.playedCell(move);
+            assertThat(state.getCurrentPlayer() == Stone.BLACK).isEqualTo(playout.playedByBlack(move));
+            assertThat(MoveExecutor.play(state, new StandardBriqueRules(), Position.of(cell / size, cell % size)))
+                .isNotNull();
+        }
+        return state;
+    }
+
+    @Test
+    @DisplayName("Should follow the rules in uniform and pattern playouts")
+    void shouldMatchTheRules() {
+        PatternTable skewed = new PatternTable();
+        Random levels = new Random(9);
+        for (int code = 0; code < PatternTable.CODES; code++) {
+            skewed.setLevel(code, levels.nextInt(256) - 128);
+        }
+
+        for (PatternTable table : new PatternTable[] {null, skewed}) {
+            Playout playout = new Playout(7, table);
+            Random random = new Random(3);
+            for (int game = 0; game < 200; game++) {
+                Stone winner = playout.run(new GameState(7), random);
+                GameState replayed = replay(playout, 7);
+                assertThat(replayed.getWinner()).isEqualTo(winner == Stone.EMPTY ? null : winner);
+                assertThat(replayed.isInProgress()).isEqualTo(winner == Stone.EMPTY);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should only play patterns with a non-negligible weight")
+    void shouldSampleByWeight() {
+        // Only moves with no neighbour on the board are allowed: the first move of
+        // every playout is then never next to an edge
+        PatternTable table = new PatternTable();
+        for (int code = 0; code < PatternTable.CODES; code++) {
+            table.setLevel(code, -128);
+        }
+        table.setLevel(0, 127);
+        table.setLevel(1 << 16, 127);
+
+        Playout playout = new Playout(5, table);
+        Random random = new Random(1);
+        for (int game = 0; game < 100; game++) {
+            playout.run(new GameState(5), random);
+            int first = playout.playedCell(0);
+            assertThat(first / 5).isBetween(1, 3);
+            assertThat(first % 5).isBetween(1, 3);
+            assertThat(playout.playedCode(0) & 0xFFFF).isZero();
+        }
+    }
+
+    @Test
+    @DisplayName("Should train weights and round-trip them")
+    void shouldTrainAndRoundTrip() throws Exception {
+        PatternTrainer trainer = new PatternTrainer(5);
+        trainer.setThreads(2);
+        trainer.setGames(500);
+        trainer.setGenerations(2);
+        PatternTable trained = trainer.train();
+
+        boolean changed = false;
+        for (int code = 0; code < PatternTable.CODES && !changed; code++) {
+            changed = trained.level(code) != 0;
+        }
+        assertThat(changed).isTrue();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        trained.write(out);
+        PatternTable read = PatternTable.read(new ByteArrayInputStream(out.toByteArray()));
+        for (int code = 0; code < PatternTable.CODES; code += 97) {
+            assertThat(read.weight(code)).isEqualTo(trained.weight(code));
+        }
+        assertThatThrownBy(() -> PatternTable.read(new ByteArrayInputStream(new byte[8])))
+            .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    @DisplayName("Should take an immediate win and respect its playout budget")
+    void shouldPlayMonteCarloMoves() {
+        GameState state = new GameState(3);
+        StandardBriqueRules rules = new StandardBriqueRules();
+        MoveExecutor.play(state, rules, Position.of(0, 1));
+        state.turnOffPieRule();
+        MoveExecutor.play(state, rules, Position.of(0, 0));
+        MoveExecutor.play(state, rules, Position.of(1, 1));
+        MoveExecutor.play(state, rules, Position.of(1, 0));
+
+        Bot bot = new MonteCarloBot(new SearchLimits(0, 0, 200), new PatternTable(), new Random(2));
+        // (2,0) wins too: it captures (1,0) by escorting it with (1,1)
+        assertThat(bot.chooseAction(state))
+            .isIn(BotAction.place(Position.of(2, 0)), BotAction.place(Position.of(2, 1)));
+        assertThatThrownBy(() -> new MonteCarloBot(SearchLimits.depth(3), null))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
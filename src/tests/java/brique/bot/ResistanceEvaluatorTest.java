@@ -0,0 +1,110 @@
+package brique.bot;
+
+import brique.core.GameState;
+import brique.core.MoveExecutor;
+import brique.core.Position;
+import brique.core.Stone;
+import brique.rules.StandardBriqueRules;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ResistanceEvaluatorTest {
+
+    private ResistanceEvaluator evaluator;
+
+    @BeforeEach
+    void setUp() {
+        evaluator = new ResistanceEvaluator();
+    }
+
+    @Test
+    @DisplayName("Should score the empty board as even")
+    void shouldScoreEmptyBoardAsEven() {
+        assertThat(Math.abs(evaluator.evaluate(new GameState(7)))).isLessThanOrEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should compute the resistance of a single cell between both edges")
+    void shouldComputeKnownResistance() {
+        // On a 1x1 board the empty cell is wired to the source and to the goal edge in series
+        GameState state = new GameState(1);
+        assertThat(evaluator.resistance(state.getBoard(), Stone.BLACK)).isCloseTo(2.0, within(1e-3));
+
+        state.getBoard().setStone(Position.of(0, 0), Stone.BLACK);
+        assertThat(evaluator.resistance(state.getBoard(), Stone.BLACK)).isCloseTo(0.02, within(1e-4));
+    }
+
+    @Test
+    @DisplayName("Should favour the player with a stronger connection")
+    void shouldFavourStrongerConnection() {
+        GameState state = new GameState(7);
+        for (int row = 0; row < 5; row++) {
+            state.getBoard().setStone(Position.of(row, 3), Stone.BLACK);
+        }
+
+        int blackView = evaluator.evaluate(state);
+        state.switchPlayer();
+        int whiteView = evaluator.evaluate(state);
+
+        assertThat(blackView).isGreaterThan(0);
+        assertThat(whiteView).isEqualTo(-blackView);
+        assertThat(evaluator.resistance(state.getBoard(), Stone.BLACK))
+            .isLessThan(evaluator.resistance(state.getBoard(), Stone.WHITE));
+    }
+
+    @Test
+    @DisplayName("Should wire escorts together so a diagonal pair conducts")
+    void shouldWireEscortsTogether() {
+        GameState withEscorts = new GameState(5);
+        // (2,2) is light: its escorts (1,2) and (2,1) are wired to each other
+        withEscorts.getBoard().setStone(Position.of(1, 2), Stone.BLACK);
+        withEscorts.getBoard().setStone(Position.of(2, 1), Stone.BLACK);
+        withEscorts.getBoard().setStone(Position.of(2, 2), Stone.WHITE);
+
+        GameState withoutEscorts = new GameState(5);
+        withoutEscorts.getBoard().setStone(Position.of(1, 2), Stone.BLACK);
+        withoutEscorts.getBoard().setStone(Position.of(2, 0), Stone.BLACK);
+        withoutEscorts.getBoard().setStone(Position.of(2, 2), Stone.WHITE);
+
+        assertThat(evaluator.resistance(withEscorts.getBoard(), Stone.BLACK))
+            .isLessThan(evaluator.resistance(withoutEscorts.getBoard(), Stone.BLACK));
+    }
+
+    @Test
+    @DisplayName("Should need fewer iterations when warm-started from the previous move")
+    void shouldNeedFewerIterationsWhenWarmStarted() {
+        GameState state = new GameState(9);
+        StandardBriqueRules rules = new StandardBriqueRules();
+        MoveExecutor.play(state, rules, Position.of(4, 4));
+        MoveExecutor.play(state, rules, Position.of(3, 5));
+
+        int cold = evaluator.evaluate(state);
+        int coldIterations = evaluator.lastIterations();
+        MoveExecutor.play(state, rules, Position.of(5, 3));
+        evaluator.evaluate(state);
+        int warmIterations = evaluator.lastIterations();
+
+        evaluator.reset();
+        state.undoLastMove();
+        assertThat(evaluator.evaluate(state)).isCloseTo(cold, within(1));
+        assertThat(warmIterations).isLessThan(coldIterations);
+    }
+
+    @Test
+    @DisplayName("Should plug into the alpha-beta bot")
+    void shouldPlugIntoAlphaBetaBot() {
+        GameState state = new GameState(5);
+        for (int row = 0; row < 4; row++) {
+            state.getBoard().setStone(Position.of(row, 1), Stone.BLACK);
+        }
+
+        AlphaBetaBot bot = new AlphaBetaBot(1, 1, SearchLimits.depth(2), ResistanceEvaluator::new);
+        BotAction action = bot.chooseAction(state);
+
+        MoveExecutor.play(state, new StandardBriqueRules(), action.position());
+        assertThat(state.getWinner()).isEqualTo(Stone.BLACK);
+    }
+}
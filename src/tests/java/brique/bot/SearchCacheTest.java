@@ -0,0 +1,128 @@
+package brique.bot;
+
+import brique.core.GameState;
+import brique.core.MoveExecutor;
+import brique.core.Position;
+import brique.rules.StandardBriqueRules;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.assertj.core.api.Assertions.*;
+
+class SearchCacheTest {
+
+    // The default alpha-beta bot's evaluator
+    private static final long FINGERPRINT = new ShortestPathEvaluator().fingerprint();
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("Should keep stored results across reopening")
+    void shouldPersistResults() throws Exception {
+        Path file = dir.resolve("cache.bin");
+        SearchCache cache = SearchCache.open(file, 1, FINGERPRINT);
+        cache.store(42L, 7, -120, 5, TranspositionTable.BOUND_LOWER);
+        assertThat(cache.probe(43L)).isZero();
+
+        // A new file keeps its size whatever size is asked for later
+        SearchCache reopened = SearchCache.open(file, 8, FINGERPRINT);
+        long data = reopened.probe(42L);
+        assertThat(reopened.capacity()).isEqualTo(cache.capacity());
+        assertThat(TranspositionTable.move(data)).isEqualTo(7);
+        assertThat(TranspositionTable.score(data)).isEqualTo(-120);
+        assertThat(TranspositionTable.depth(data)).isEqualTo(5);
+        assertThat(TranspositionTable.bound(data)).isEqualTo(TranspositionTable.BOUND_LOWER);
+        assertThat(reopened.occupied()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should keep the deepest results of a full bucket")
+    void shouldPreferDeepResults() throws Exception {
+        // Four entries: every key lands in the same bucket
+        SearchCache cache = SearchCache.open(dir.resolve("small.bin"), 4L, FINGERPRINT);
+        for (int key = 1; key <= 4; key++) {
+            cache.store(key, key, 0, 3 + key, TranspositionTable.BOUND_EXACT);
+        }
+        cache.store(5L, 5, 0, 3, TranspositionTable.BOUND_EXACT);
+        assertThat(cache.probe(5L)).isZero();
+
+        cache.store(6L, 6, 0, 9, TranspositionTable.BOUND_EXACT);
+        assertThat(TranspositionTable.move(cache.probe(6L))).isEqualTo(6);
+        assertThat(cache.probe(1L)).isZero(); // the shallowest one made room
+
+        cache.store(4L, 0, 0, 2, TranspositionTable.BOUND_EXACT);
+        assertThat(TranspositionTable.depth(cache.probe(4L))).isEqualTo(7);
+    }
+
+    @Test
+    @DisplayName("Should reject torn entries and recreate a file with a broken header")
+    void shouldSurviveDamage() throws Exception {
+        Path file = dir.resolve("cache.bin");
+        SearchCache cache = SearchCache.open(file, 4L, FINGERPRINT);
+        cache.store(99L, 1, 10, 4, TranspositionTable.BOUND_EXACT);
+        cache.force();
+
+        // Overwrite the data word of the only entry, as if the key word never made it to disk
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            for (long offset = SearchCache.HEADER_BYTES; offset < channel.size(); offset += SearchCache.ENTRY_BYTES) {
+                ByteBuffer data = ByteBuffer.allocate(Long.BYTES);
+                channel.read(data, offset + Long.BYTES);
+                if (data.getLong(0) != 0) {
+                    channel.write(ByteBuffer.wrap(new byte[] {1, 2, 3, 4, 5, 6, 7, 8}), offset + Long.BYTES);
+                }
+            }
+        }
+        assertThat(SearchCache.open(file, 4L, FINGERPRINT).probe(99L)).isZero();
+
+        Files.write(file, new byte[100]);
+        SearchCache recreated = SearchCache.open(file, 4L, FINGERPRINT);
+        assertThat(recreated.occupied()).isZero();
+        assertThat(Files.size(file)).isEqualTo(SearchCache.HEADER_BYTES + 4L * SearchCache.ENTRY_BYTES);
+    }
+
+    @Test
+    @DisplayName("Should discard the results of another evaluator")
+    void shouldDiscardOtherEvaluatorsResults() throws Exception {
+        Path file = dir.resolve("cache.bin");
+        SearchCache cache = SearchCache.open(file, 4L, FINGERPRINT);
+        cache.store(99L, 1, 10, 4, TranspositionTable.BOUND_EXACT);
+
+        long resistance = new ResistanceEvaluator().fingerprint();
+        assertThat(resistance).isNotEqualTo(FINGERPRINT);
+        SearchCache other = SearchCache.open(file, 4L, resistance);
+        assertThat(other.probe(99L)).isZero();
+        assertThat(other.fingerprint()).isEqualTo(resistance);
+
+        AlphaBetaBot bot = new AlphaBetaBot(1, 4, SearchLimits.depth(4));
+        assertThatThrownBy(() -> bot.setCache(other)).isInstanceOf(IllegalArgumentException.class);
+        bot.setCache(SearchCache.open(file, 4L, FINGERPRINT));
+    }
+
+    @Test
+    @DisplayName("Should let a new bot reuse what an earlier one searched")
+    void shouldWarmNewBots() throws Exception {
+        Path file = dir.resolve("cache.bin");
+        GameState state = new GameState(5);
+        MoveExecutor.play(state, new StandardBriqueRules(), Position.of(2, 2));
+        state.turnOffPieRule();
+
+        AlphaBetaBot first = new AlphaBetaBot(1, 4, SearchLimits.depth(4));
+        first.setCache(SearchCache.open(file, 16, FINGERPRINT));
+        SearchResult cold = first.search(state.copy());
+
+        AlphaBetaBot second = new AlphaBetaBot(1, 4, SearchLimits.depth(4));
+        second.setCache(SearchCache.open(file, 16, FINGERPRINT));
+        SearchResult warm = second.search(state.copy());
+
+        assertThat(warm.nodes()).isLessThan(cold.nodes());
+        assertThat(warm.score()).isEqualTo(cold.score());
+    }
+}
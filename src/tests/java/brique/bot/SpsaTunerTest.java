@@ -0,0 +1,94 @@
+package brique.bot;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+class SpsaTunerTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("Should read back what it writes, skipping comments")
+    void shouldRoundTripConfig() throws Exception {
+        BotConfig config = BotConfig.read(new StringReader("""
+            # tuned on 9x9
+            bot = mcts
+            mcts.exploration=0.25   # after 2000 iterations
+
+            mcts.rave_equivalence = 1500
+            """));
+        StringWriter out = new StringWriter();
+        config.write(out);
+        BotConfig copy = BotConfig.read(new StringReader(out.toString()));
+
+        assertThat(copy.get(BotConfig.BOT)).isEqualTo(BotConfig.MCTS);
+        assertThat(copy.getDouble(BotConfig.MCTS_EXPLORATION, 0)).isEqualTo(0.25);
+        assertThat(copy.getDouble(BotConfig.MCTS_RAVE_EQUIVALENCE, 0)).isEqualTo(1500.0);
+        assertThat(copy.getDouble("mcts.missing", 7)).isEqualTo(7.0);
+        assertThatThrownBy(() -> BotConfig.read(new StringReader("no value here")))
+            .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    @DisplayName("Should build the bot the configuration names")
+    void shouldCreateConfiguredBot() {
+        SearchLimits limits = new SearchLimits(0, 0, 100);
+        assertThat(new BotConfig().createBot(limits, new Random(1))).isInstanceOf(AlphaBetaBot.class);
+
+        BotConfig mcts = new BotConfig();
+        mcts.set(BotConfig.BOT, BotConfig.MCTS);
+        assertThat(mcts.createBot(limits, new Random(1))).isInstanceOf(MctsBot.class);
+
+        mcts.set(BotConfig.MCTS_EXPLORATION, -1);
+        assertThatThrownBy(() -> mcts.createBot(limits, new Random(1))).isInstanceOf(IllegalArgumentException.class);
+        mcts.set(BotConfig.BOT, "random");
+        assertThatThrownBy(() -> mcts.createBot(limits, new Random(1))).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("Should checkpoint its parameters and resume from the checkpoint")
+    void shouldResumeFromCheckpoint() throws Exception {
+        Path file = dir.resolve("bot.conf");
+        BotConfig base = new BotConfig();
+        base.set(BotConfig.BOT, BotConfig.MCTS);
+        List<TunableParameter> parameters = List.of(
+            new TunableParameter(BotConfig.MCTS_EXPLORATION, 0.1, 0, 0.2, 0.15),
+            new TunableParameter(BotConfig.MCTS_RAVE_EQUIVALENCE, 1_000, 500, 2_000, 400));
+        List<Integer> reported = new ArrayList<>();
+
+        SpsaTuner tuner = new SpsaTuner(5, base, parameters, new SearchLimits(0, 0, 50));
+        tuner.setThreads(2);
+        tuner.setIterations(6);
+        tuner.setLearningRate(2);
+        tuner.setCheckpoint(file, 2);
+        tuner.setProgress((iterations, current, gamesPerHour) -> reported.add(iterations));
+        BotConfig first = tuner.tune();
+
+        assertThat(reported.size()).isEqualTo(2);
+        assertThat(first.getDouble(SpsaTuner.ITERATIONS_KEY, 0)).isEqualTo(6.0);
+        assertThat(first.getDouble(BotConfig.MCTS_EXPLORATION, -1)).isBetween(0.0, 0.2);
+        assertThat(first.getDouble(BotConfig.MCTS_RAVE_EQUIVALENCE, -1)).isBetween(500.0, 2_000.0);
+        assertThat(BotConfig.load(file).get(BotConfig.MCTS_EXPLORATION)).isEqualTo(first.get(BotConfig.MCTS_EXPLORATION));
+        // The file is usable as the engine's configuration as it is
+        assertThat(BotConfig.load(file).createBot(new SearchLimits(0, 0, 10), new Random(1))).isInstanceOf(MctsBot.class);
+
+        // A finished run does no more work; a longer one continues from the file
+        assertThat(tuner.tune().get(BotConfig.MCTS_EXPLORATION)).isEqualTo(first.get(BotConfig.MCTS_EXPLORATION));
+        tuner.setIterations(8);
+        assertThat(tuner.tune().getDouble(SpsaTuner.ITERATIONS_KEY, 0)).isEqualTo(8.0);
+        assertThat(Files.exists(dir.resolve("bot.conf.tmp"))).isFalse();
+    }
+}
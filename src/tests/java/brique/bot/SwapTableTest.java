@@ -0,0 +1,111 @@
+package brique.bot;
+
+import brique.core.BotGameEngine;
+import brique.core.GameState;
+import brique.core.MoveExecutor;
+import brique.core.Position;
+import brique.core.Stone;
+import brique.rules.StandardBriqueRules;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.*;
+
+class SwapTableTest {
+
+    private SwapTable table;
+
+    // 3x3 rates: the corner (0,0) is strong for Black, (1,1) is the most balanced
+    private static double[] rates() {
+        return new double[] {
+            0.9, 0.2, 0.3,
+            0.4, 0.55, 0.1,
+            0.0, 0.7, 0.35
+        };
+    }
+
+    @BeforeEach
+    void setUp() {
+        table = new SwapTable();
+        table.put(3, rates());
+    }
+
+    @Test
+    @DisplayName("Should pick the opening closest to an even game and list swap-worthy moves")
+    void shouldPickBalancedOpening() {
+        assertThat(table.covers(3)).isTrue();
+        assertThat(table.covers(4)).isFalse();
+        assertThat(table.bestOpening(3)).isEqualTo(Position.of(1, 1));
+        assertThat(table.blackWinRate(3, Position.of(0, 0))).isCloseTo(0.9, within(0.01));
+        assertThat(table.swapWorthyMoves(3))
+            .containsExactlyInAnyOrder(Position.of(0, 0), Position.of(1, 1), Position.of(2, 1));
+        assertThatThrownBy(() -> table.bestOpening(4)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("Should swap only on White's first turn after a swap-worthy move")
+    void shouldSwapOnlyOnWhitesFirstTurn() {
+        GameState strong = new GameState(3);
+        assertThat(table.shouldSwap(strong)).isFalse();
+        MoveExecutor.play(strong, new StandardBriqueRules(), Position.of(0, 0));
+        assertThat(table.shouldSwap(strong)).isTrue();
+
+        GameState weak = new GameState(3);
+        MoveExecutor.play(weak, new StandardBriqueRules(), Position.of(0, 1));
+        assertThat(table.shouldSwap(weak)).isFalse();
+
+        strong.turnOffPieRule();
+        assertThat(table.shouldSwap(strong)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should round-trip through its file format")
+    void shouldRoundTrip() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        table.write(out);
+        SwapTable read = SwapTable.read(new ByteArrayInputStream(out.toByteArray()));
+
+        assertThat(read.covers(3)).isTrue();
+        assertThat(read.bestOpening(3)).isEqualTo(Position.of(1, 1));
+        assertThat(read.swapWorthyMoves(3)).isEqualTo(table.swapWorthyMoves(3));
+        assertThatThrownBy(() -> SwapTable.read(new ByteArrayInputStream(new byte[12])))
+            .isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> table.put(3, new double[4])).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("Should estimate a win rate for every first move")
+    void shouldGenerateRates() throws InterruptedException {
+        SwapTableGenerator generator = new SwapTableGenerator(20);
+        generator.setThreads(2);
+        double[] rates = generator.winRates(3);
+
+        assertThat(rates.length).isEqualTo(9);
+        for (double rate : rates) {
+            assertThat(rate).isBetween(0.0, 1.0);
+        }
+        assertThat(generator.generate(3, 4).covers(4)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should let the bot engine open and swap from the table without searching")
+    void shouldDecideFromTable() {
+        Bot searchingBot = state -> {
+            throw new AssertionError("the swap table should have answered");
+        };
+
+        BotGameEngine opening = new BotGameEngine(3, Stone.WHITE, searchingBot, null, table);
+        assertThat(opening.getState().getMoveHistory()).hasSize(1);
+        assertThat(opening.getState().getMoveHistory().get(0).getPosition()).isEqualTo(Position.of(1, 1));
+
+        BotGameEngine swapping = new BotGameEngine(3, Stone.BLACK, searchingBot, null, table);
+        assertThat(swapping.playMove(Position.of(0, 0))).isTrue();
+        assertThat(swapping.getState().isPieRuleAvailable()).isFalse();
+        assertThat(swapping.getState().getCurrentPlayer()).isEqualTo(Stone.BLACK);
+    }
+}
@@ -0,0 +1,88 @@
+package brique.bot;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+class TranspositionTableTest {
+
+    private TranspositionTable table;
+
+    @BeforeEach
+    void setUp() {
+        table = new TranspositionTable(1);
+    }
+
+    @Test
+    @DisplayName("Should size the table from megabytes")
+    void shouldSizeTableFromMegabytes() {
+        assertThat(table.capacity()).isEqualTo((1 << 20) / 16);
+        assertThat(table.sizeMb()).isEqualTo(1);
+        assertThatThrownBy(() -> new TranspositionTable(0))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("Should return stored data for the same key only")
+    void shouldReturnStoredDataForSameKeyOnly() {
+        long key = 0x1234_5678_9ABC_DEF0L;
+        table.store(key, 42, -150, 6, TranspositionTable.BOUND_LOWER);
+
+        long data = table.probe(key);
+        assertThat(data).isNotEqualTo(0L);
+        assertThat(TranspositionTable.move(data)).isEqualTo(42);
+        assertThat(TranspositionTable.score(data)).isEqualTo(-150);
+        assertThat(TranspositionTable.depth(data)).isEqualTo(6);
+        assertThat(TranspositionTable.bound(data)).isEqualTo(TranspositionTable.BOUND_LOWER);
+
+        assertThat(table.probe(key ^ 1L)).isEqualTo(0L);
+    }
+
+    @Test
+    @DisplayName("Should keep the deeper entry for the same position")
+    void shouldKeepDeeperEntryForSamePosition() {
+        long key = 77L;
+        table.store(key, 1, 10, 8, TranspositionTable.BOUND_UPPER);
+        table.store(key, 2, 20, 3, TranspositionTable.BOUND_UPPER);
+
+        assertThat(TranspositionTable.depth(table.probe(key))).isEqualTo(8);
+        assertThat(TranspositionTable.move(table.probe(key))).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should keep the previous best move when storing without one")
+    void shouldKeepPreviousMoveWhenStoringWithoutOne() {
+        long key = 99L;
+        table.store(key, 5, 0, 2, TranspositionTable.BOUND_EXACT);
+        table.store(key, TranspositionTable.NO_MOVE, 30, 4, TranspositionTable.BOUND_UPPER);
+
+        long data = table.probe(key);
+        assertThat(TranspositionTable.depth(data)).isEqualTo(4);
+        assertThat(TranspositionTable.move(data)).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("Should not confuse different keys sharing a bucket")
+    void shouldNotConfuseKeysSharingBucket() {
+        long first = 0x1111L;
+        long second = first ^ (1L << 40) ^ (1L << 8); // high and low halves fold to the same bucket
+        table.store(first, 3, 0, 1, TranspositionTable.BOUND_EXACT);
+
+        assertThat(table.probe(second)).isEqualTo(0L);
+
+        table.store(second, 4, 0, 1, TranspositionTable.BOUND_EXACT);
+        assertThat(TranspositionTable.move(table.probe(first))).isEqualTo(3);
+        assertThat(TranspositionTable.move(table.probe(second))).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Should forget everything on clear")
+    void shouldForgetEverythingOnClear() {
+        table.store(5L, 1, 1, 1, TranspositionTable.BOUND_EXACT);
+        table.clear();
+
+        assertThat(table.probe(5L)).isEqualTo(0L);
+    }
+}
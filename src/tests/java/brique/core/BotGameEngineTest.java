@@ -0,0 +1,105 @@
+package brique.core;
+
+import brique.bot.AlphaBetaBot;
+import brique.bot.BotAction;
+import brique.bot.BotConfig;
+import brique.bot.SearchLimits;
+import brique.bot.SwapTable;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.*;
+
+class BotGameEngineTest {
+
+    private static AlphaBetaBot quickBot() {
+        return new AlphaBetaBot(1, 1, SearchLimits.depth(1));
+    }
+
+    @Test
+    @DisplayName("Should answer a human move with a bot move")
+    void shouldAnswerHumanMoveWithBotMove() {
+        BotGameEngine engine = new BotGameEngine(5, Stone.BLACK, quickBot());
+
+        assertThat(engine.playMove(Position.of(2, 2))).isTrue();
+
+        GameState state = engine.getState();
+        assertThat(state.getCurrentPlayer()).isEqualTo(Stone.BLACK);
+        // The bot either swapped (one move in history) or answered with a White stone
+        assertThat(state.getMoveHistory().size() == 2 || !state.isPieRuleAvailable()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should let the bot open when the human plays White")
+    void shouldLetBotOpenWhenHumanPlaysWhite() {
+        BotGameEngine engine = new BotGameEngine(5, Stone.WHITE, quickBot());
+
+        assertThat(engine.getState().getMoveHistory()).hasSize(1);
+        assertThat(engine.getState().getCurrentPlayer()).isEqualTo(Stone.WHITE);
+    }
+
+    @Test
+    @DisplayName("Should reject moves out of turn and on occupied cells")
+    void shouldRejectInvalidHumanMoves() {
+        BotGameEngine engine = new BotGameEngine(5, Stone.BLACK, state -> BotAction.place(Position.of(4, 4)));
+
+        assertThat(engine.playMove(Position.of(0, 0))).isTrue();
+        assertThat(engine.getState().getMoveHistory()).hasSize(2);
+        assertThat(engine.playMove(Position.of(4, 4))).isFalse();
+        assertThat(engine.playMove(Position.of(9, 9))).isFalse();
+        assertThat(engine.getState().getMoveHistory()).hasSize(2);
+    }
+
+    @Test
+    @DisplayName("Should let the bot reply after the human swaps")
+    void shouldLetBotReplyAfterHumanSwaps() {
+        BotGameEngine engine = new BotGameEngine(5, Stone.WHITE, quickBot());
+
+        engine.applyPieRule();
+
+        GameState state = engine.getState();
+        assertThat(state.isPieRuleAvailable()).isFalse();
+        assertThat(state.getMoveHistory()).hasSize(2);
+        assertThat(state.getCurrentPlayer()).isEqualTo(Stone.WHITE);
+    }
+
+    @Test
+    @DisplayName("Should not let the bot swap when the swap table says not to")
+    void shouldKeepSwapTableDecision() {
+        SwapTable table = new SwapTable();
+        double[] rates = new double[25];
+        Arrays.fill(rates, 0.3);
+        table.put(5, rates);
+        BotGameEngine engine = new BotGameEngine(5, Stone.BLACK, state ->
+            state.isPieRuleAvailable() ? BotAction.swap() : BotAction.place(Position.of(4, 4)), null, table);
+
+        assertThat(engine.playMove(Position.of(0, 0))).isTrue();
+
+        GameState state = engine.getState();
+        assertThat(state.getMoveHistory()).hasSize(2);
+        assertThat(state.getBoard().getStone(Position.of(4, 4))).isEqualTo(Stone.WHITE);
+    }
+
+    @Test
+    @DisplayName("Should fall back to the default bot when the configuration file has a mistake")
+    void shouldIgnoreBrokenConfiguration(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("bot.conf");
+        try {
+            System.setProperty(BotConfig.DEFAULT_FILE_PROPERTY, file.toString());
+            for (String content : new String[] {"bot = alphabta", "alphabeta.threads = two", "alphabeta.threads 2",
+                                                "bot = mcts\nmcts.exploration = -1"}) {
+                Files.writeString(file, content);
+                BotGameEngine engine = new BotGameEngine(3, Stone.WHITE);
+
+                assertThat(engine.getState().getMoveHistory()).hasSize(1);
+            }
+        } finally {
+            System.clearProperty(BotConfig.DEFAULT_FILE_PROPERTY);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package brique.core;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+class GameClockTest {
+
+    @Test
+    @DisplayName("Should charge the side to move and add the increment after each action")
+    void shouldChargeTheSideToMoveWithIncrement() {
+        GameClock clock = new GameClock(TimeControl.fischer(10_000, 2_000));
+        clock.start(Stone.BLACK, 0);
+        assertThat(clock.deadline()).isEqualTo(10_000);
+
+        clock.press(Stone.WHITE, 3_000);
+        assertThat(clock.remaining(Stone.BLACK, 3_000)).isEqualTo(9_000);
+        assertThat(clock.running()).isEqualTo(Stone.WHITE);
+        assertThat(clock.deadline()).isEqualTo(13_000);
+        assertThat(clock.remaining(Stone.WHITE, 4_000)).isEqualTo(9_000);
+
+        assertThat(clock.flagged(12_999)).isFalse();
+        assertThat(clock.flagged(13_000)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should use up a byo-yomi period only when an action overruns it")
+    void shouldUseByoYomiPeriods() {
+        GameClock clock = new GameClock(TimeControl.byoYomi(1_000, 500, 3));
+        clock.start(Stone.BLACK, 0);
+        assertThat(clock.deadline()).isEqualTo(2_500);
+
+        // Main time and 300 ms of the first period: no period used
+        clock.press(Stone.WHITE, 1_300);
+        assertThat(clock.periodsLeft(Stone.BLACK)).isEqualTo(3);
+        assertThat(clock.remaining(Stone.BLACK, 1_300)).isEqualTo(1_500);
+
+        clock.press(Stone.BLACK, 1_300);
+        // Two periods overrun, the third is the last
+        clock.press(Stone.WHITE, 2_400);
+        assertThat(clock.periodsLeft(Stone.BLACK)).isEqualTo(1);
+        clock.press(Stone.BLACK, 2_400);
+        assertThat(clock.deadline()).isEqualTo(2_900);
+        assertThat(clock.flagged(2_900)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should parse increments and byo-yomi and refuse what is neither")
+    void shouldParseTimeControls() {
+        assertThat(TimeControl.parse("300+5")).isEqualTo(TimeControl.fischer(300_000, 5_000));
+        assertThat(TimeControl.parse("600/30x5")).isEqualTo(TimeControl.byoYomi(600_000, 30_000, 5));
+        assertThat(TimeControl.parse("0.5")).isEqualTo(TimeControl.fischer(500, 0));
+        assertThatThrownBy(() -> TimeControl.parse("600/30")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> TimeControl.parse("fast")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> TimeControl.parse("0+0")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new GameClock(TimeControl.fischer(1, 0)).press(Stone.WHITE, 0))
+            .isInstanceOf(IllegalStateException.class);
+    }
+}
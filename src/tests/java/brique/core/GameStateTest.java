@@ -100,4 +100,79 @@ class GameStateEngineTest {
                 .isInstanceOf(UnsupportedOperationException.class);
         }
     }
+
+    @Nested
+    @DisplayName("Undo Tests")
+    class UndoTests {
+        private final brique.rules.GameRules rules = new brique.rules.StandardBriqueRules();
+
+        @Test
+        @DisplayName("Should restore board, hash, player and pie rule after undoing moves")
+        void shouldRestoreEverythingAfterUndo() {
+            long initialHash = ZobristHash.of(state);
+            MoveExecutor.play(state, rules, Position.of(1, 2));
+            long afterFirst = ZobristHash.of(state);
+            Move second = MoveExecutor.play(state, rules, Position.of(2, 2));
+            assertThat(state.isPieRuleAvailable()).isFalse();
+
+            assertThat(state.undoLastMove()).isSameAs(second);
+            assertThat(state.getCurrentPlayer()).isEqualTo(Stone.WHITE);
+            assertThat(state.isPieRuleAvailable()).isTrue();
+            assertThat(ZobristHash.of(state)).isEqualTo(afterFirst);
+
+            state.undoLastMove();
+            assertThat(state.getMoveHistory()).isEmpty();
+            assertThat(state.getCurrentPlayer()).isEqualTo(Stone.BLACK);
+            assertThat(state.isPieRuleAvailable()).isTrue();
+            assertThat(ZobristHash.of(state)).isEqualTo(initialHash);
+        }
+
+        @Test
+        @DisplayName("Should give captured stones back when undoing a fill")
+        void shouldGiveCapturedStonesBack() {
+            state.getBoard().setStone(Position.of(2, 2), Stone.WHITE);
+            state.getBoard().setStone(Position.of(1, 2), Stone.BLACK);
+            long before = ZobristHash.of(state);
+
+            // (2,1) completes the escorts of (2,2), which is filled and captured
+            Move move = MoveExecutor.play(state, rules, Position.of(2, 1));
+            assertThat(move.getCapturedPositions()).contains(Position.of(2, 2));
+            assertThat(ZobristHash.boardHash(state.getBoard()))
+                .isEqualTo(ZobristHash.boardHash(state.copy().getBoard()));
+
+            state.undoLastMove();
+            assertThat(state.getBoard().getStone(Position.of(2, 2))).isEqualTo(Stone.WHITE);
+            assertThat(state.getBoard().getStone(Position.of(2, 1))).isEqualTo(Stone.EMPTY);
+            assertThat(ZobristHash.of(state)).isEqualTo(before);
+        }
+
+        @Test
+        @DisplayName("Should undo the pie rule and reopen the game after a win")
+        void shouldUndoPieRuleAndReopenGame() {
+            MoveExecutor.play(state, rules, Position.of(0, 0));
+            state.applyPieRule();
+            state.undoPieRule();
+            assertThat(state.getBoard().getStone(Position.of(0, 0))).isEqualTo(Stone.BLACK);
+            assertThat(state.getCurrentPlayer()).isEqualTo(Stone.WHITE);
+            assertThat(state.isPieRuleAvailable()).isTrue();
+
+            state.declareWinner(Stone.BLACK);
+            state.undoLastMove();
+            assertThat(state.isInProgress()).isTrue();
+            assertThatThrownBy(() -> state.undoLastMove())
+                .isInstanceOf(IllegalStateException.class);
+        }
+
+        @Test
+        @DisplayName("Should copy independently of the original")
+        void shouldCopyIndependently() {
+            MoveExecutor.play(state, rules, Position.of(3, 3));
+            GameState copy = state.copy();
+            MoveExecutor.play(copy, rules, Position.of(1, 1));
+
+            assertThat(state.getMoveHistory()).hasSize(1);
+            assertThat(state.getBoard().getStone(Position.of(1, 1))).isEqualTo(Stone.EMPTY);
+            assertThat(copy.getMoveHistory()).hasSize(2);
+        }
+    }
 }
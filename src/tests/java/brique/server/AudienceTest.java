@@ -0,0 +1,117 @@
+package brique.server;
+
+import brique.core.GameState;
+import brique.core.Move;
+import brique.core.MoveExecutor;
+import brique.core.Position;
+import brique.core.Stone;
+import brique.core.ZobristHash;
+import brique.rules.GameRules;
+import brique.rules.RuleType;
+import brique.rules.RulesFactory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+class AudienceTest {
+
+    private static final long GAME = 7;
+
+    @Test
+    @DisplayName("Should bring a spectator from any earlier update to the current position in one frame")
+    void shouldCatchUpFromAnyUpdate() {
+        GameRules rules = RulesFactory.createRules(RuleType.STANDARD);
+        Random random = new Random(3);
+        GameState state = new GameState(9);
+        Audience audience = new Audience(GAME, 9);
+        ByteBuffer out = ByteBuffer.allocate(Protocol.MAX_FRAME_BYTES);
+        Protocol.writeSnapshot(out, GAME, 0, state, ZobristHash.of(state));
+        audience.apply(new Audience.Update(Audience.position(GAME, 0, state, ZobristHash.of(state)), 9, Audience.shared(out.flip()), true));
+        // The board each spectator saw, by version
+        List<Stone[]> seen = new ArrayList<>(List.of(new Stone[0], cells(state)));
+
+        int actions = 0;
+        while (state.isInProgress() && actions < 60) {
+            Position position = Position.of(random.nextInt(9), random.nextInt(9));
+            if (state.getBoard().getStone(position) != Stone.EMPTY) {
+                continue;
+            }
+            Move move = MoveExecutor.play(state, rules, position);
+            if (move == null) {
+                continue;
+            }
+            actions++;
+            audience.apply(update(Audience.change(GAME, actions, state, Protocol.Change.MOVE, move, ZobristHash.of(state))));
+            seen.add(cells(state));
+            if (actions == 1) {
+                state.applyPieRule();
+                actions++;
+                audience.apply(update(Audience.change(GAME, actions, state, Protocol.Change.SWAP, null, ZobristHash.of(state))));
+                seen.add(cells(state));
+            }
+        }
+        assertThat(audience.version()).isGreaterThan(Audience.MAX_PATCH_LAG + 1);
+
+        for (int version = 1; version < audience.version(); version++) {
+            ByteBuffer frame = audience.catchUp(version);
+            // Encoded once, then shared by every spectator at that version
+            assertThat(audience.catchUp(version)).isSameAs(frame);
+            assertThat(frame.isReadOnly()).isTrue();
+            Protocol.Message message = Protocol.read(frame.duplicate());
+            Stone[] board;
+            long hash;
+            if (message instanceof Protocol.Patch patch) {
+                assertThat(audience.version() - version).isLessThanOrEqualTo(Audience.MAX_PATCH_LAG);
+                assertThat(patch.actions()).isEqualTo(actions);
+                assertThat(patch.toMove()).isEqualTo(state.getCurrentPlayer());
+                board = seen.get(version).clone();
+                for (int cell : patch.black()) {
+                    board[cell] = Stone.BLACK;
+                }
+                for (int cell : patch.white()) {
+                    board[cell] = Stone.WHITE;
+                }
+                hash = patch.hash();
+            } else {
+                Protocol.Snapshot snapshot = (Protocol.Snapshot) message;
+                assertThat(snapshot.actions()).isEqualTo(actions);
+                board = snapshot.cells();
+                hash = snapshot.hash();
+            }
+            assertThat(Arrays.asList(board)).isEqualTo(Arrays.asList(cells(state)));
+            assertThat(hash).isEqualTo(ZobristHash.of(state));
+        }
+        // One update behind: a patch of a few cells, far smaller than the whole board
+        assertThat(Protocol.read(audience.catchUp(audience.version() - 1).duplicate())).isInstanceOf(Protocol.Patch.class);
+        assertThat(audience.catchUp(audience.version() - 1).remaining()).isLessThan(audience.snapshot().remaining());
+        assertThat(Protocol.read(audience.catchUp(1).duplicate())).isInstanceOf(Protocol.Snapshot.class);
+
+        state.abort();
+        audience.apply(update(Audience.change(GAME, actions, state, Protocol.Change.STATUS, null, ZobristHash.of(state))));
+        assertThat(audience.isOver()).isTrue();
+        Protocol.Patch last = (Protocol.Patch) Protocol.read(audience.catchUp(audience.version() - 1).duplicate());
+        assertThat(last.black().length + last.white().length).isZero();
+        assertThat(last.status()).isEqualTo(state.getStatus());
+    }
+
+    private static Audience.Update update(Protocol.Patch change) {
+        // The delta frame itself only matters to spectators who keep up
+        return new Audience.Update(change, 9, ByteBuffer.allocate(0).asReadOnlyBuffer(), false);
+    }
+
+    private static Stone[] cells(GameState state) {
+        int size = state.getBoard().getSize();
+        Stone[] cells = new Stone[size * size];
+        for (int cell = 0; cell < cells.length; cell++) {
+            cells[cell] = state.getBoard().getStone(Protocol.position(cell, size));
+        }
+        return cells;
+    }
+}
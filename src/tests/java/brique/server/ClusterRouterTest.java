@@ -0,0 +1,226 @@
+package brique.server;
+
+import brique.core.GameEnd;
+import brique.core.OnlineGameEngine;
+import brique.core.Stone;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.EOFException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static brique.server.TestClients.*;
+import static org.assertj.core.api.Assertions.*;
+
+class ClusterRouterTest {
+
+    private static final long KEY = 0x5EC12E7B41C3L;
+
+    private final List<GameServer> nodes = new ArrayList<>();
+    private ClusterRouter router;
+
+    @BeforeEach
+    void startCluster() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            GameServer node = new GameServer(0);
+            node.setShards(2);
+            node.setClusterKey(KEY);
+            node.start();
+            nodes.add(node);
+        }
+        router = new ClusterRouter(0, KEY);
+        router.start();
+    }
+
+    @AfterEach
+    void stopCluster() throws Exception {
+        router.close();
+        for (GameServer node : nodes) {
+            node.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Should pair two online engines through the router and play a full game on one node")
+    void shouldPlayThroughRouter() throws Exception {
+        router.addNode(address(nodes.get(0)));
+        router.addNode(address(nodes.get(1)));
+        InetSocketAddress front = new InetSocketAddress(InetAddress.getLoopbackAddress(), router.getPort());
+        CompletableFuture<OnlineGameEngine> first = CompletableFuture.supplyAsync(() -> paired(5, front));
+        CompletableFuture<OnlineGameEngine> second = CompletableFuture.supplyAsync(() -> paired(5, front));
+        CompletableFuture<Stone[][]> firstGame = first.thenApplyAsync(engine -> playRandomly(engine, 1));
+        CompletableFuture<Stone[][]> secondGame = second.thenApplyAsync(engine -> playRandomly(engine, 2));
+        Stone[][] firstBoard = firstGame.get(30, TimeUnit.SECONDS);
+        Stone[][] secondBoard = secondGame.get(30, TimeUnit.SECONDS);
+
+        OnlineGameEngine a = first.get();
+        OnlineGameEngine b = second.get();
+        assertThat(a.getGameId()).isEqualTo(b.getGameId());
+        assertThat(a.getState().getStatus()).isEqualTo(b.getState().getStatus());
+        for (int row = 0; row < 5; row++) {
+            for (int col = 0; col < 5; col++) {
+                assertThat(firstBoard[row][col]).isEqualTo(secondBoard[row][col]);
+            }
+        }
+        // Hosted where the ring puts its id
+        HashRing ring = new HashRing(router.getNodes());
+        GameServer host = ring.owner(a.getGameId()).endsWith(":" + nodes.get(0).getPort()) ? nodes.get(0) : nodes.get(1);
+        assertThat(host.getImports()).isEqualTo(1L);
+        assertThat(host.getActionsPlayed()).isEqualTo((long) a.getState().getMoveHistory().size());
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (router.getGames() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(router.getGames()).isZero();
+        a.close();
+        b.close();
+    }
+
+    @Test
+    @DisplayName("Should leave pairing to the router and refuse cluster commands without the key")
+    void shouldGuardNodes() throws Exception {
+        try (RawClient client = new RawClient(nodes.get(0).getPort())) {
+            client.send(out -> Protocol.writePlay(out, 9));
+            assertThat(client.read()).isEqualTo(new Protocol.Error(0, "Play through the cluster's router"));
+            client.send(out -> Protocol.writeExport(out, KEY ^ 1, 1));
+            assertThatThrownBy(client::read).isInstanceOf(EOFException.class);
+        }
+        router.addNode(address(nodes.get(0)));
+        assertThatThrownBy(() -> router.removeNode(address(nodes.get(0)))).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> router.addNode(address(nodes.get(0)))).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("Should hand a game from node to node and send back the commands that still reach the old one")
+    void shouldHandOffBetweenNodes() throws Exception {
+        MoveLog.Batch start = MoveLog.records(64);
+        start.started(new HostedGame(42, 9, null, null, 1111, 2222));
+        try (RawClient control = new RawClient(nodes.get(0).getPort()); RawClient player = new RawClient(nodes.get(0).getPort())) {
+            control.send(out -> Protocol.writeImport(out, KEY, 42, start.contents()));
+            assertThat(control.read()).isEqualTo(new Protocol.Imported(42, 0));
+            for (long seat : new long[] {1111, 2222}) {
+                player.send(out -> Protocol.writeResume(out, 42, seat));
+                assertThat(player.read()).isInstanceOf(Protocol.Start.class);
+                assertThat(player.read()).isInstanceOf(Protocol.Snapshot.class);
+            }
+            player.send(out -> Protocol.writeMove(out, 42, 0));
+            assertThat(((Protocol.Delta) player.read()).actions()).isEqualTo(1);
+
+            // The checkpoint is taken while the game goes on, the tail once it stops
+            control.send(out -> Protocol.writeExport(out, KEY, 42));
+            byte[] checkpoint = ((Protocol.Exported) control.read()).records();
+            player.send(out -> Protocol.writeMove(out, 42, 80));
+            assertThat(((Protocol.Delta) player.read()).actions()).isEqualTo(2);
+            control.send(out -> Protocol.writeHandoff(out, KEY, 42));
+            byte[] tail = ((Protocol.Exported) control.read()).records();
+            assertThat(tail.length).isPositive();
+            assertThat(nodes.get(0).getHandoffs()).isEqualTo(1L);
+            assertThat(nodes.get(0).getActiveGames()).isZero();
+
+            player.send(out -> Protocol.writeMove(out, 42, 1));
+            Protocol.Moved moved = (Protocol.Moved) player.read();
+            assertThat(moved.game()).isEqualTo(42L);
+            assertThat(Protocol.read(ByteBuffer.wrap(moved.command()))).isEqualTo(new Protocol.Place(42, 1));
+
+            ByteBuffer records = ByteBuffer.allocate(checkpoint.length + tail.length).put(checkpoint).put(tail).flip();
+            try (RawClient other = new RawClient(nodes.get(1).getPort()); RawClient seated = new RawClient(nodes.get(1).getPort())) {
+                other.send(out -> Protocol.writeImport(out, KEY, 42, records.duplicate()));
+                assertThat(other.read()).isEqualTo(new Protocol.Imported(42, 2));
+                other.send(out -> Protocol.writeImport(out, KEY, 42, records.duplicate()));
+                assertThat(other.read()).isEqualTo(new Protocol.Error(42, "The game is hosted here already"));
+                seated.send(out -> Protocol.writeResume(out, 42, 1111));
+                assertThat(seated.read()).isEqualTo(new Protocol.Start(42, Stone.BLACK, 9, 1111));
+                assertThat(((Protocol.Snapshot) seated.read()).actions()).isEqualTo(2);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should move games live while nodes join and leave, without losing or repeating a move")
+    void shouldMigrateGamesLive() throws Exception {
+        router.addNode(address(nodes.get(0)));
+        try (Table table = new Table(router.getPort()); RawClient spectator = new RawClient(router.getPort())) {
+            List<Long> ids = table.open(13, 20);
+            Map<Long, boolean[]> boards = new HashMap<>();
+            for (long id : ids) {
+                boards.put(id, new boolean[169]);
+            }
+            assertThat(ids).hasSize(20);
+            long watched = ids.get(0);
+            spectator.send(out -> Protocol.writeWatch(out, watched));
+            assertThat(spectator.read()).isInstanceOf(Protocol.Snapshot.class);
+
+            // Plays round the games while the nodes change under them
+            Map<Long, Integer> actions = new HashMap<>();
+            List<String> failures = new ArrayList<>();
+            long[] played = new long[1];
+            Thread player = Thread.ofPlatform().start(() -> {
+                try {
+                    while (!Thread.currentThread().isInterrupted()) {
+                        for (long id : ids) {
+                            if (actions.getOrDefault(id, 0) < 0) {
+                                continue;
+                            }
+                            Protocol.Delta delta = table.play(id, boards.get(id));
+                            if (delta.actions() != actions.getOrDefault(id, 0) + 1) {
+                                failures.add("Game " + id + " went from " + actions.get(id) + " to " + delta.actions());
+                            }
+                            actions.put(id, delta.status() == GameEnd.IN_PROGRESS ? delta.actions() : -1);
+                            played[0]++;
+                        }
+                    }
+                } catch (Exception e) {
+                    failures.add(e.toString());
+                }
+            });
+            Thread.sleep(200);
+            router.addNode(address(nodes.get(1)));
+            Thread.sleep(200);
+            router.addNode(address(nodes.get(2)));
+            Thread.sleep(200);
+            router.removeNode(address(nodes.get(0)));
+            Thread.sleep(200);
+            player.interrupt();
+            player.join(10_000);
+
+            assertThat(failures).isEmpty();
+            assertThat(played[0]).isGreaterThan(100L);
+            assertThat(router.getNodes()).hasSize(2);
+            assertThat(router.getMigrations()).isPositive();
+            assertThat(router.getFailedMigrations()).isZero();
+            assertThat(nodes.get(0).getHandoffs()).isPositive();
+            assertThat(nodes.get(0).getActiveGames()).isZero();
+            int live = (int) actions.values().stream().filter(count -> count >= 0).count();
+            assertThat(nodes.get(1).getActiveGames() + nodes.get(2).getActiveGames()).isEqualTo(live);
+            for (long pause : router.getMigrationPauses()) {
+                assertThat(pause).isLessThan(TimeUnit.SECONDS.toNanos(1));
+            }
+
+            // The spectator followed the game wherever it went
+            int last = actions.get(watched) < 0 ? -1 : actions.get(watched);
+            int seen = 0;
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (seen != last && System.currentTimeMillis() < deadline) {
+                Protocol.Message update = spectator.read();
+                if (update instanceof Protocol.Delta delta) {
+                    seen = delta.status() == GameEnd.IN_PROGRESS ? delta.actions() : -1;
+                } else if (update instanceof Protocol.Patch patch) {
+                    seen = patch.status() == GameEnd.IN_PROGRESS ? patch.actions() : -1;
+                } else if (update instanceof Protocol.Snapshot snapshot) {
+                    seen = snapshot.status() == GameEnd.IN_PROGRESS ? snapshot.actions() : -1;
+                }
+            }
+            assertThat(seen).isEqualTo(last);
+        }
+    }
+}
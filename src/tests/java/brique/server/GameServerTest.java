@@ -0,0 +1,637 @@
+package brique.server;
+
+import brique.core.GameEnd;
+import brique.core.GameState;
+import brique.core.MoveExecutor;
+import brique.core.OnlineGameEngine;
+import brique.core.Position;
+import brique.core.Stone;
+import brique.core.TimeControl;
+import brique.core.ZobristHash;
+import brique.rules.RuleType;
+import brique.rules.RulesFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.EOFException;
+import java.io.UncheckedIOException;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static brique.server.TestClients.*;
+import static org.assertj.core.api.Assertions.*;
+
+class GameServerTest {
+
+    private GameServer server;
+
+    @TempDir
+    Path logDirectory;
+
+    @BeforeEach
+    void startServer() throws Exception {
+        server = new GameServer(0);
+        // Connections and games spread over several event loops even on one core
+        server.setShards(3);
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() throws Exception {
+        server.close();
+    }
+
+    @Test
+    @DisplayName("Should pair two online engines and play a full game with the same result on both sides")
+    void shouldPlayFullGame() throws Exception {
+        CompletableFuture<OnlineGameEngine> first = CompletableFuture.supplyAsync(() -> paired(5, address(server)));
+        CompletableFuture<OnlineGameEngine> second = CompletableFuture.supplyAsync(() -> paired(5, address(server)));
+        CompletableFuture<Stone[][]> firstGame = first.thenApplyAsync(engine -> playRandomly(engine, 1));
+        CompletableFuture<Stone[][]> secondGame = second.thenApplyAsync(engine -> playRandomly(engine, 2));
+        Stone[][] firstBoard = firstGame.get(30, TimeUnit.SECONDS);
+        Stone[][] secondBoard = secondGame.get(30, TimeUnit.SECONDS);
+
+        OnlineGameEngine a = first.get();
+        OnlineGameEngine b = second.get();
+        assertThat(a.getGameId()).isEqualTo(b.getGameId());
+        assertThat(a.getColour() == b.getColour()).isFalse();
+        assertThat(a.getState().getStatus()).isEqualTo(b.getState().getStatus());
+        assertThat(a.getState().getStatus()).isIn(GameEnd.BLACK_WON, GameEnd.WHITE_WON, GameEnd.ABORTED);
+        assertThat(a.getState().getMoveHistory().size()).isEqualTo(b.getState().getMoveHistory().size());
+        for (int row = 0; row < 5; row++) {
+            for (int col = 0; col < 5; col++) {
+                assertThat(firstBoard[row][col]).isEqualTo(secondBoard[row][col]);
+            }
+        }
+        assertThat(server.getActionsPlayed()).isEqualTo((long) a.getState().getMoveHistory().size());
+        assertThat(server.getActiveGames()).isZero();
+        a.close();
+        b.close();
+    }
+
+    @Test
+    @DisplayName("Should connect without waiting to be paired, and stop waiting when closed")
+    void shouldWaitForOpponentOnlyWhenAsked() throws Exception {
+        OnlineGameEngine engine = new OnlineGameEngine(5, address(server));
+        assertThat(engine.isStarted()).isFalse();
+        assertThatThrownBy(() -> engine.playMove(Position.of(0, 0))).isInstanceOf(IllegalStateException.class);
+
+        CompletableFuture<Void> waiting = CompletableFuture.runAsync(engine::awaitStart);
+        Thread.sleep(200);
+        assertThat(waiting).isNotDone();
+        engine.close();
+        assertThatThrownBy(() -> waiting.get(10, TimeUnit.SECONDS)).hasCauseInstanceOf(UncheckedIOException.class);
+        assertThat(engine.isGameOver()).isTrue();
+
+        // Once the server has seen the player leave, the next two are paired with each other
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (server.getConnections() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(server.getConnections()).isZero();
+        CompletableFuture<OnlineGameEngine> first = CompletableFuture.supplyAsync(() -> paired(5, address(server)));
+        CompletableFuture<OnlineGameEngine> second = CompletableFuture.supplyAsync(() -> paired(5, address(server)));
+        // Black has the first turn; White waits for it until Black leaves
+        OnlineGameEngine black = (OnlineGameEngine) CompletableFuture.anyOf(first, second).get(10, TimeUnit.SECONDS);
+        assertThat(black.getColour()).isEqualTo(Stone.BLACK);
+        assertThat(server.getActiveGames()).isEqualTo(1);
+        black.close();
+        OnlineGameEngine white = (black == first.get() ? second : first).get(10, TimeUnit.SECONDS);
+        assertThat(white.getGameId()).isEqualTo(black.getGameId());
+        assertThat(white.getState().getStatus()).isEqualTo(GameEnd.ABORTED);
+        white.close();
+    }
+
+    @Test
+    @DisplayName("Should resync an engine whose board drifted from the server's")
+    void shouldResyncAfterHashMismatch() throws Exception {
+        CompletableFuture<OnlineGameEngine> first = CompletableFuture.supplyAsync(() -> paired(5, address(server)));
+        // The first engine plays Black and opens in the corner
+        Thread.sleep(200);
+        CompletableFuture<OnlineGameEngine> second = CompletableFuture.supplyAsync(() -> paired(5, address(server)));
+        CompletableFuture<Stone[][]> drifting = first.thenApplyAsync(engine -> {
+            // Its own first stone disappears locally: the server's next hash cannot match
+            assertThat(engine.playMove(Position.of(0, 0))).isTrue();
+            engine.getState().getBoard().setStone(Position.of(0, 0), Stone.EMPTY);
+            return playRandomly(engine, 3);
+        });
+        CompletableFuture<Stone[][]> steady = second.thenApplyAsync(engine -> playRandomly(engine, 4));
+        Stone[][] drifted = drifting.get(30, TimeUnit.SECONDS);
+        Stone[][] reference = steady.get(30, TimeUnit.SECONDS);
+
+        assertThat(first.get().getResyncs()).isEqualTo(1);
+        assertThat(server.getResyncs()).isEqualTo(1L);
+        assertThat(first.get().getState().getStatus()).isEqualTo(second.get().getState().getStatus());
+        for (int row = 0; row < 5; row++) {
+            for (int col = 0; col < 5; col++) {
+                assertThat(drifted[row][col]).isEqualTo(reference[row][col]);
+            }
+        }
+        first.get().close();
+        second.get().close();
+    }
+
+    @Test
+    @DisplayName("Should refuse moves out of turn, on occupied cells and off the board")
+    void shouldRefuseBadCommands() throws Exception {
+        try (RawClient first = new RawClient(server.getPort()); RawClient second = new RawClient(server.getPort())) {
+            first.send(out -> Protocol.writePlay(out, 5));
+            second.send(out -> Protocol.writePlay(out, 5));
+            Protocol.Start firstStart = (Protocol.Start) first.read();
+            Protocol.Start secondStart = (Protocol.Start) second.read();
+            // Whichever request reached the server first waits for the other and plays Black
+            RawClient black = firstStart.colour() == Stone.BLACK ? first : second;
+            RawClient white = black == first ? second : first;
+            assertThat(firstStart.game()).isEqualTo(1L);
+            assertThat(secondStart.game()).isEqualTo(1L);
+            assertThat(firstStart.colour() == secondStart.colour()).isFalse();
+
+            Protocol.Snapshot initial = (Protocol.Snapshot) black.read();
+            assertThat(initial.toMove()).isEqualTo(Stone.BLACK);
+            assertThat(initial.pieOpen()).isTrue();
+            assertThat(List.of(initial.cells())).allMatch(cell -> cell == Stone.EMPTY);
+            assertThat(initial.hash()).isEqualTo(ZobristHash.of(new GameState(5)));
+            white.read();
+
+            white.send(out -> Protocol.writeMove(out, 1, 12));
+            assertThat(((Protocol.Error) white.read()).message()).isEqualTo("Not your turn");
+            black.send(out -> Protocol.writeMove(out, 1, 12));
+            Protocol.Delta played = (Protocol.Delta) white.read();
+            GameState expected = new GameState(5);
+            MoveExecutor.play(expected, RulesFactory.createRules(RuleType.STANDARD), Position.of(2, 2));
+            assertThat(played.actions()).isEqualTo(1);
+            assertThat(played.change()).isEqualTo(Protocol.Change.MOVE);
+            assertThat(played.placed()).isEqualTo(12);
+            assertThat(played.toMove()).isEqualTo(Stone.WHITE);
+            assertThat(played.hash()).isEqualTo(ZobristHash.of(expected));
+            black.read();
+
+            white.send(out -> Protocol.writeMove(out, 1, 12));
+            assertThat(((Protocol.Error) white.read()).message()).isEqualTo("Illegal move 12");
+            white.send(out -> Protocol.writeMove(out, 1, 25));
+            assertThat(((Protocol.Error) white.read()).message()).isEqualTo("Illegal move 25");
+            white.send(out -> Protocol.writeMove(out, 7, 0));
+            assertThat(white.read()).isEqualTo(new Protocol.Error(7, "No such game"));
+            white.send(out -> Protocol.writePlay(out, 99));
+            assertThat(white.read()).isEqualTo(new Protocol.Error(0, "Board size must be between 3 and 25"));
+
+            white.send(out -> Protocol.writeSwap(out, 1));
+            Protocol.Delta swapped = (Protocol.Delta) white.read();
+            expected.applyPieRule();
+            assertThat(swapped.change()).isEqualTo(Protocol.Change.SWAP);
+            assertThat(swapped.toMove()).isEqualTo(Stone.BLACK);
+            assertThat(swapped.pieOpen()).isFalse();
+            assertThat(swapped.status()).isEqualTo(GameEnd.IN_PROGRESS);
+            assertThat(swapped.hash()).isEqualTo(ZobristHash.of(expected));
+
+            white.send(out -> Protocol.writeResync(out, 1));
+            Protocol.Snapshot snapshot = (Protocol.Snapshot) white.read();
+            assertThat(snapshot.cells()[12]).isEqualTo(Stone.WHITE);
+            assertThat(snapshot.actions()).isEqualTo(2);
+            assertThat(snapshot.hash()).isEqualTo(swapped.hash());
+        }
+    }
+
+    @Test
+    @DisplayName("Should abort the games of a client that disconnects or sends a malformed frame")
+    void shouldAbortOnDisconnect() throws Exception {
+        CompletableFuture<Void> black = CompletableFuture.runAsync(() -> {
+            try (RawClient client = new RawClient(server.getPort())) {
+                client.send(out -> Protocol.writePlay(out, 4));
+                client.read();
+                client.read();
+                client.send(out -> Protocol.writeMove(out, 1, 0));
+                client.read();
+                // Leaves while the opponent is to move
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(200);
+        OnlineGameEngine engine = paired(4, address(server));
+        black.get(10, TimeUnit.SECONDS);
+        assertThat(engine.getColour()).isEqualTo(Stone.WHITE);
+
+        engine.playMove(Position.of(3, 3));
+        assertThat(engine.isGameOver()).isTrue();
+        assertThat(engine.getState().getStatus()).isEqualTo(GameEnd.ABORTED);
+        assertThat(server.getActiveGames()).isZero();
+        engine.close();
+
+        try (RawClient garbling = new RawClient(server.getPort()); RawClient opponent = new RawClient(server.getPort())) {
+            garbling.send(out -> Protocol.writePlay(out, 4));
+            opponent.send(out -> Protocol.writePlay(out, 4));
+            garbling.read();
+            garbling.read();
+            opponent.read();
+            opponent.read();
+            // A frame of an unknown type
+            garbling.send(out -> out.put((byte) 1).put((byte) 0x7F));
+            Protocol.Delta aborted = (Protocol.Delta) opponent.read();
+            assertThat(aborted.change()).isEqualTo(Protocol.Change.STATUS);
+            assertThat(aborted.status()).isEqualTo(GameEnd.ABORTED);
+        }
+    }
+
+    @Test
+    @DisplayName("Should stream a game to spectators on every shard, then its end")
+    void shouldStreamToSpectators() throws Exception {
+        try (Table players = new Table(server.getPort())) {
+            long id = players.open(9, 1).get(0);
+
+            List<RawClient> spectators = new ArrayList<>();
+            try {
+                // Connections go round robin over the 3 shards
+                for (int i = 0; i < 4; i++) {
+                    RawClient spectator = new RawClient(server.getPort());
+                    spectators.add(spectator);
+                    spectator.send(out -> Protocol.writeWatch(out, id));
+                    Protocol.Snapshot snapshot = (Protocol.Snapshot) spectator.read();
+                    assertThat(snapshot.game()).isEqualTo(id);
+                    assertThat(snapshot.actions()).isZero();
+                }
+                assertThat(server.getSpectators()).isEqualTo(4);
+
+                boolean[] taken = new boolean[81];
+                List<Protocol.Delta> played = new ArrayList<>();
+                for (int move = 0; move < 10; move++) {
+                    played.add(players.play(id, taken));
+                }
+                for (RawClient spectator : spectators) {
+                    for (Protocol.Delta delta : played) {
+                        Protocol.Delta seen = (Protocol.Delta) spectator.read();
+                        assertThat(seen.actions()).isEqualTo(delta.actions());
+                        assertThat(seen.placed()).isEqualTo(delta.placed());
+                        assertThat(seen.hash()).isEqualTo(delta.hash());
+                    }
+                }
+
+                // Watching again is how a spectator resyncs
+                RawClient again = spectators.get(1);
+                again.send(out -> Protocol.writeWatch(out, id));
+                Protocol.Snapshot current = (Protocol.Snapshot) again.read();
+                assertThat(current.actions()).isEqualTo(10);
+                assertThat(current.hash()).isEqualTo(played.get(9).hash());
+                assertThat(server.getSpectators()).isEqualTo(4);
+                again.send(out -> Protocol.writeWatch(out, 99));
+                assertThat(again.read()).isEqualTo(new Protocol.Error(99, "No such game"));
+                // Spectators cannot play
+                again.send(out -> Protocol.writeMove(out, id, 80));
+                assertThat(again.read()).isEqualTo(new Protocol.Error(id, "No such game"));
+
+                players.close();
+                for (RawClient spectator : spectators) {
+                    Protocol.Delta end = (Protocol.Delta) spectator.read();
+                    assertThat(end.change()).isEqualTo(Protocol.Change.STATUS);
+                    assertThat(end.status()).isEqualTo(GameEnd.ABORTED);
+                }
+                long deadline = System.currentTimeMillis() + 10_000;
+                while (server.getSpectators() > 0 && System.currentTimeMillis() < deadline) {
+                    Thread.sleep(10);
+                }
+                assertThat(server.getSpectators()).isZero();
+            } finally {
+                for (RawClient spectator : spectators) {
+                    spectator.close();
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should move busy games off a skewed shard and keep playing them")
+    void shouldRebalanceSkewedShards() throws Exception {
+        try (GameServer skewed = new GameServer(0)) {
+            skewed.setShards(2);
+            skewed.setRebalanceInterval(0);
+            skewed.start();
+            try (Table table = new Table(skewed.getPort())) {
+                List<Long> ids = table.open(9, 20);
+                // Only the games of the fuller shard are played
+                int full = ids.stream().filter(id -> skewed.shardOf(id) == 0).count() >= 10 ? 0 : 1;
+                List<Long> busy = new ArrayList<>();
+                Map<Long, boolean[]> boards = new HashMap<>();
+                for (long id : ids) {
+                    if (skewed.shardOf(id) == full) {
+                        busy.add(id);
+                        boards.put(id, new boolean[81]);
+                        for (int move = 0; move < 12; move++) {
+                            table.play(id, boards.get(id));
+                        }
+                    }
+                }
+
+                skewed.rebalance();
+                long deadline = System.currentTimeMillis() + 10_000;
+                while (skewed.getMigrations() == 0 && System.currentTimeMillis() < deadline) {
+                    Thread.sleep(10);
+                }
+                assertThat(skewed.getMigrations()).isPositive();
+                List<Long> moved = busy.stream().filter(id -> skewed.shardOf(id) == 1 - full).toList();
+                assertThat(moved.size()).isEqualTo((int) skewed.getMigrations());
+                // About half the load goes
+                assertThat((long) moved.size()).isLessThan((long) busy.size());
+
+                // A migrated game carries on where it was
+                Protocol.Delta next = table.play(moved.get(0), boards.get(moved.get(0)));
+                assertThat(next.actions()).isEqualTo(13);
+                assertThat(skewed.getActiveGames()).isEqualTo(20);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should answer moves sent while their game migrates between shards")
+    void shouldAnswerMovesDuringMigration() throws Exception {
+        try (GameServer skewed = new GameServer(0)) {
+            skewed.setShards(2);
+            skewed.setRebalanceInterval(0);
+            skewed.start();
+            try (Table table = new Table(skewed.getPort())) {
+                List<Long> ids = table.open(9, 40);
+                // Each round plays the games of one shard, so that shard is the busier one and
+                // migrates some of them, the other way each round, while a burst of moves comes in:
+                // a move that reaches a game on its way between shards must still find it
+                Map<Long, Integer> next = new HashMap<>();
+                Set<Long> ended = new HashSet<>();
+                for (int round = 0; round < 10; round++) {
+                    int busy = round % 2;
+                    List<Long> games = ids.stream()
+                            .filter(id -> !ended.contains(id) && skewed.shardOf(id) == busy).toList();
+                    for (int burst = 0; burst < 6; burst++) {
+                        if (burst == 4) {
+                            skewed.rebalance();
+                        }
+                        Map<Long, Integer> cells = new HashMap<>();
+                        for (long id : games) {
+                            int cell = next.merge(id, 1, Integer::sum) - 1;
+                            if (cell < 81) {
+                                cells.put(id, cell);
+                            }
+                        }
+                        for (Protocol.Message reply : table.moves(cells)) {
+                            expectAnswered(reply, ended);
+                        }
+                    }
+                }
+                assertThat(skewed.getMigrations()).isPositive();
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should stop every shard and the listener when a move log commit fails")
+    void shouldCrashWhenLogFails() throws Exception {
+        GameServer failing = new GameServer(0);
+        failing.setShards(3);
+        failing.setMoveLog(logDirectory);
+        failing.start();
+        // One connection on each shard; the first two play a game
+        try (Table table = new Table(failing.getPort()); RawClient third = new RawClient(failing.getPort())) {
+            long id = table.open(5, 1).get(0);
+
+            failing.log().close();
+            table.mover(id).send(out -> Protocol.writeMove(out, id, 0));
+            // Cut off without hearing of the move, like the others
+            assertThatThrownBy(table.first::read).isInstanceOf(EOFException.class);
+            assertThatThrownBy(table.second::read).isInstanceOf(EOFException.class);
+            assertThatThrownBy(third::read).isInstanceOf(EOFException.class);
+            assertThat(failing.isRunning()).isFalse();
+            // The listener goes with shard 0, which may stop a moment after the others
+            boolean refused = false;
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (!refused && System.currentTimeMillis() < deadline) {
+                try (Socket late = new Socket(InetAddress.getLoopbackAddress(), failing.getPort())) {
+                    Thread.sleep(10);
+                } catch (ConnectException e) {
+                    refused = true;
+                }
+            }
+            assertThat(refused).isTrue();
+        } finally {
+            failing.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Should recover the games in progress from the move log after a crash and give the seats back")
+    void shouldRecoverFromMoveLog() throws Exception {
+        Map<Long, Protocol.Start[]> seats = new HashMap<>();
+        Map<Long, boolean[]> boards = new HashMap<>();
+        List<Long> ids = new ArrayList<>();
+        Protocol.Delta last = null;
+        GameServer crashing = new GameServer(0);
+        crashing.setShards(2);
+        crashing.setMoveLog(logDirectory);
+        // Small enough that the log compacts while the games are played, some of them idle
+        crashing.setCheckpointBytes(256);
+        crashing.setPassivation(logDirectory.resolve("idle"), 30);
+        crashing.start();
+        try (Table table = new Table(crashing.getPort())) {
+            ids.addAll(table.open(9, 2));
+            for (long id : ids) {
+                seats.put(id, table.starts(id));
+                boards.put(id, new boolean[81]);
+            }
+            // Black's first stone only: the pie rule is still open after the restart
+            table.play(ids.get(1), boards.get(ids.get(1)));
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (crashing.getIdleGames() < 2 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            for (int move = 0; move < 20; move++) {
+                last = table.play(ids.get(0), boards.get(ids.get(0)));
+            }
+
+            // A game that was over before the crash stays over
+            try (Table leaving = new Table(crashing.getPort())) {
+                leaving.open(5, 1);
+            }
+            deadline = System.currentTimeMillis() + 10_000;
+            while (crashing.getActiveGames() > 2 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertThat(crashing.getActiveGames()).isEqualTo(2);
+            assertThat(crashing.getLogSyncs()).isPositive();
+            // Dies with its clients still connected: nothing tells the log the games ended
+            crashing.close();
+        }
+
+        try (GameServer restarted = new GameServer(0)) {
+            restarted.setShards(3);
+            restarted.setMoveLog(logDirectory);
+            restarted.start();
+            assertThat(restarted.getRecoveredGames()).isEqualTo(2);
+            assertThat(restarted.getActiveGames()).isEqualTo(2);
+            long played = ids.get(0);
+            long pieOpen = ids.get(1);
+            try (RawClient client = new RawClient(restarted.getPort()); RawClient other = new RawClient(restarted.getPort())) {
+                client.send(out -> Protocol.writeResume(out, played, seats.get(played)[0].seat() ^ 1));
+                assertThat(client.read()).isEqualTo(new Protocol.Error(played, "No such seat"));
+
+                for (Protocol.Start seat : seats.get(played)) {
+                    client.send(out -> Protocol.writeResume(out, played, seat.seat()));
+                    assertThat(client.read()).isEqualTo(seat);
+                    Protocol.Snapshot snapshot = (Protocol.Snapshot) client.read();
+                    assertThat(snapshot.actions()).isEqualTo(20);
+                    assertThat(snapshot.hash()).isEqualTo(last.hash());
+                }
+                other.send(out -> Protocol.writeResume(out, played, seats.get(played)[1].seat()));
+                assertThat(other.read()).isEqualTo(new Protocol.Error(played, "The seat is taken"));
+                // Carries on where it was
+                assertThat(play(client, played, boards.get(played)).actions()).isEqualTo(21);
+
+                // The swap needs Black's first stone, which the checkpoint kept
+                other.send(out -> Protocol.writeResume(out, pieOpen, seats.get(pieOpen)[1].seat()));
+                other.read();
+                other.read();
+                other.send(out -> Protocol.writeSwap(out, pieOpen));
+                Protocol.Delta swapped = (Protocol.Delta) other.read();
+                assertThat(swapped.change()).isEqualTo(Protocol.Change.SWAP);
+                assertThat(swapped.actions()).isEqualTo(2);
+
+                // New games do not reuse the ids from before the crash
+                client.send(out -> Protocol.writePlay(out, 9));
+                other.send(out -> Protocol.writePlay(out, 9));
+                assertThat(((Protocol.Start) client.read()).game()).isGreaterThan(Math.max(played, pieOpen) + 1);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should keep idle games on disk and bring them back on their next command")
+    void shouldPassivateIdleGames() throws Exception {
+        try (GameServer passivating = new GameServer(0)) {
+            passivating.setShards(2);
+            passivating.setPassivation(logDirectory, 30);
+            passivating.start();
+            try (Table table = new Table(passivating.getPort()); RawClient spectator = new RawClient(passivating.getPort())) {
+                List<Long> ids = table.open(9, 3);
+                long played = ids.get(0);
+                long pieOpen = ids.get(1);
+                boolean[] taken = new boolean[81];
+                for (int move = 0; move < 10; move++) {
+                    table.play(played, taken);
+                }
+                table.play(pieOpen, new boolean[81]);
+                table.first.send(out -> Protocol.writeResync(out, played));
+                Protocol.Snapshot before = (Protocol.Snapshot) table.first.read();
+
+                long deadline = System.currentTimeMillis() + 10_000;
+                while (passivating.getIdleGames() < 3 && System.currentTimeMillis() < deadline) {
+                    Thread.sleep(10);
+                }
+                assertThat(passivating.getIdleGames()).isEqualTo(3);
+                assertThat(passivating.getActiveGames()).isEqualTo(3);
+
+                // Any command brings the game back as it was
+                spectator.send(out -> Protocol.writeWatch(out, played));
+                Protocol.Snapshot after = (Protocol.Snapshot) spectator.read();
+                assertThat(after.hash()).isEqualTo(before.hash());
+                assertThat(after.actions()).isEqualTo(10);
+                assertThat(Arrays.asList(after.cells())).isEqualTo(Arrays.asList(before.cells()));
+                assertThat(table.play(played, taken).actions()).isEqualTo(11);
+
+                Protocol.Delta swapped = (Protocol.Delta) table.act(pieOpen, out -> Protocol.writeSwap(out, pieOpen));
+                assertThat(swapped.change()).isEqualTo(Protocol.Change.SWAP);
+                assertThat(swapped.actions()).isEqualTo(2);
+                assertThat(passivating.getReactivations()).isEqualTo(2);
+                assertThat(passivating.getActiveGames()).isEqualTo(3);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should end only the idle game whose position cannot be read back")
+    void shouldLoseOnlyTheUnreadableGame() throws Exception {
+        try (GameServer passivating = new GameServer(0)) {
+            passivating.setShards(1);
+            passivating.setPassivation(logDirectory, 30);
+            passivating.start();
+            try (Table table = new Table(passivating.getPort())) {
+                long id = table.open(9, 1).get(0);
+                long deadline = System.currentTimeMillis() + 10_000;
+                while (passivating.getIdleGames() < 1 && System.currentTimeMillis() < deadline) {
+                    Thread.sleep(10);
+                }
+                assertThat(passivating.getIdleGames()).isEqualTo(1);
+
+                // Its slot is gone from the store file
+                Files.write(logDirectory.resolve("idle-0.bin"), new byte[0]);
+                table.mover(id).send(out -> Protocol.writeMove(out, id, 0));
+                // Both players hear of it
+                for (RawClient seat : List.of(table.first, table.second)) {
+                    assertThat(seat.read()).isEqualTo(new Protocol.Error(id, "Game lost by the server"));
+                }
+                assertThat(passivating.getLostGames()).isEqualTo(1L);
+                assertThat(passivating.getActiveGames()).isZero();
+                assertThat(passivating.getIdleGames()).isZero();
+
+                // The rest of the server plays on
+                assertThat(passivating.isRunning()).isTrue();
+                long next = table.open(9, 1).get(0);
+                assertThat(table.play(next, new boolean[81]).actions()).isEqualTo(1);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should end the game when the clock of the player to move runs out")
+    void shouldFlagThePlayerOutOfTime() throws Exception {
+        try (GameServer timed = new GameServer(0)) {
+            timed.setShards(2);
+            timed.setTimeControl(TimeControl.fischer(300, 100));
+            timed.start();
+            try (Table table = new Table(timed.getPort())) {
+                List<Long> ids = table.open(9, 2);
+                // Black moves in time in the second game; White never does
+                long moved = System.nanoTime();
+                assertThat(table.play(ids.get(1), new boolean[81]).status()).isEqualTo(GameEnd.IN_PROGRESS);
+
+                Map<Long, Protocol.Delta> ends = new HashMap<>();
+                Map<Long, Long> endedAt = new HashMap<>();
+                while (ends.size() < 2) {
+                    Protocol.Delta delta = (Protocol.Delta) table.first.read();
+                    ends.put(delta.game(), delta);
+                    endedAt.put(delta.game(), System.nanoTime());
+                }
+                // Nobody acted in the first game: aborted, not lost
+                assertThat(ends.get(ids.get(0)).status()).isEqualTo(GameEnd.ABORTED);
+                assertThat(ends.get(ids.get(1)).status()).isEqualTo(GameEnd.BLACK_WON);
+                assertThat(ends.get(ids.get(1)).change()).isEqualTo(Protocol.Change.STATUS);
+                // White's clock started once the move was in, after it was sent
+                assertThat(endedAt.get(ids.get(1)) - moved).isGreaterThanOrEqualTo(300_000_000L);
+                assertThat(timed.getFlagFalls()).isEqualTo(2);
+                assertThat(timed.getActiveGames()).isZero();
+
+                table.first.send(out -> Protocol.writeMove(out, ids.get(1), 40));
+                assertThat(table.first.read()).isInstanceOf(Protocol.Error.class);
+            }
+        }
+    }
+
+    // Moves may be refused on cells that are taken, but not for a game the server lost
+    private static void expectAnswered(Protocol.Message reply, Set<Long> ended) {
+        if (reply instanceof Protocol.Delta delta && delta.status() != GameEnd.IN_PROGRESS) {
+            ended.add(delta.game());
+        }
+        if (reply instanceof Protocol.Error error && !ended.contains(error.game())) {
+            assertThat(error.message()).isNotEqualTo("No such game");
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package brique.server;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+class HashRingTest {
+
+    private static final int GAMES = 100_000;
+    private static final List<String> NODES = List.of("10.0.0.1:7777", "10.0.0.2:7777", "10.0.0.3:7777", "10.0.0.4:7777");
+
+    @Test
+    @DisplayName("Should spread consecutive game ids evenly over the nodes")
+    void shouldBalanceGames() {
+        HashRing ring = new HashRing(NODES);
+        Map<String, Integer> counts = new HashMap<>();
+        for (long game = 1; game <= GAMES; game++) {
+            counts.merge(ring.owner(game), 1, Integer::sum);
+        }
+        assertThat(counts.keySet().containsAll(NODES)).isTrue();
+        assertThat(counts.size()).isEqualTo(NODES.size());
+        for (int count : counts.values()) {
+            assertThat(count).isBetween(GAMES / NODES.size() * 85 / 100, GAMES / NODES.size() * 115 / 100);
+        }
+    }
+
+    @Test
+    @DisplayName("Should give a joining node about 1/n of the games, all taken from the others")
+    void shouldMoveOnlyToJoiningNode() {
+        HashRing before = new HashRing(NODES.subList(0, 3));
+        HashRing after = before.with(NODES.get(3));
+        int moved = 0;
+        for (long game = 1; game <= GAMES; game++) {
+            String owner = after.owner(game);
+            if (!owner.equals(before.owner(game))) {
+                assertThat(owner).isEqualTo(NODES.get(3));
+                moved++;
+            }
+        }
+        assertThat(moved).isBetween(GAMES * 15 / 100, GAMES * 35 / 100);
+        assertThat(after.nodes()).isEqualTo(NODES);
+    }
+
+    @Test
+    @DisplayName("Should move only the games of a leaving node")
+    void shouldMoveOnlyFromLeavingNode() {
+        HashRing before = new HashRing(NODES);
+        HashRing after = before.without(NODES.get(1));
+        for (long game = 1; game <= GAMES; game++) {
+            String owner = before.owner(game);
+            if (owner.equals(NODES.get(1))) {
+                assertThat(after.owner(game)).isNotEqualTo(NODES.get(1));
+            } else {
+                assertThat(after.owner(game)).isEqualTo(owner);
+            }
+        }
+        assertThat(after.contains(NODES.get(1))).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should place games the same way whatever order the nodes are given in, and nowhere on an empty ring")
+    void shouldBeDeterministic() {
+        HashRing ring = new HashRing(NODES);
+        HashRing reversed = new HashRing(NODES.reversed());
+        for (long game = 1; game <= 1000; game++) {
+            assertThat(reversed.owner(game)).isEqualTo(ring.owner(game));
+        }
+        assertThat(new HashRing(List.of()).owner(1)).isNull();
+        assertThatThrownBy(() -> new HashRing(NODES, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
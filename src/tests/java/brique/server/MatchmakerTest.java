@@ -0,0 +1,131 @@
+package brique.server;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.*;
+
+class MatchmakerTest {
+
+    private record Pair(String black, String white, int size) { }
+
+    @Test
+    @DisplayName("Should pair close ratings at once and far ones only after their windows widened")
+    void shouldWidenTheRatingWindowWithTheWait() throws Exception {
+        ConcurrentLinkedQueue<Pair> pairs = new ConcurrentLinkedQueue<>();
+        Set<String> gone = ConcurrentHashMap.newKeySet();
+        try (Matchmaker<String> matchmaker = new Matchmaker<>(25, 4000, 2, gone::contains,
+                                                              (black, white, size) -> pairs.add(new Pair(black, white, size)))) {
+            matchmaker.join("far", 9, 1000);
+            Thread.sleep(20);
+            matchmaker.join("left", 9, 1500);
+            matchmaker.join("close", 9, 1560);
+            // Same rating, other board size
+            matchmaker.join("small", 5, 1000);
+            waitUntil(() -> pairs.size() == 1, 5_000);
+            assertThat(pairs.poll()).isEqualTo(new Pair("left", "close", 9));
+
+            // 250 points apart, in the next band: (250 - 100) / 50 = 3 seconds of waiting
+            matchmaker.join("late", 9, 1250);
+            Thread.sleep(500);
+            assertThat(pairs).isEmpty();
+            assertThat(matchmaker.getWaiting()).isEqualTo(3);
+
+            // Left before anyone else came for that size
+            gone.add("small");
+            long passes = matchmaker.getPasses();
+            matchmaker.join("fresh", 5, 1000);
+            waitUntil(() -> matchmaker.getPasses() > passes, 5_000);
+            assertThat(pairs).isEmpty();
+            assertThat(matchmaker.getWaiting()).isEqualTo(3);
+            // The far player waited longer: Black
+            waitUntil(() -> pairs.size() == 1, 10_000);
+            assertThat(pairs.poll()).isEqualTo(new Pair("far", "late", 9));
+            // Counted once the pass is over, after the pairs were handed out
+            waitUntil(() -> matchmaker.getPairings() == 2, 5_000);
+        }
+    }
+
+    @Test
+    @DisplayName("Should pair every player exactly once when many threads join at once")
+    void shouldPairConcurrentJoinsOnce() throws Exception {
+        ConcurrentLinkedQueue<Pair> pairs = new ConcurrentLinkedQueue<>();
+        int perThread = 5_000;
+        try (Matchmaker<String> matchmaker = new Matchmaker<>(25, 4000, 3, player -> false,
+                                                              (black, white, size) -> pairs.add(new Pair(black, white, size)))) {
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int thread = t;
+                threads.add(Thread.ofPlatform().start(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        int size = 5 + i % 3 * 4;
+                        matchmaker.join(thread + "-" + i, size, 1500 + (i % 7) * 10);
+                    }
+                }));
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            waitUntil(() -> pairs.size() == 4 * perThread / 2, 10_000);
+            assertThat(matchmaker.getWaiting()).isZero();
+        }
+        Set<String> seen = ConcurrentHashMap.newKeySet();
+        for (Pair pair : pairs) {
+            assertThat(seen.add(pair.black())).isTrue();
+            assertThat(seen.add(pair.white())).isTrue();
+            int black = Integer.parseInt(pair.black().split("-")[1]);
+            int white = Integer.parseInt(pair.white().split("-")[1]);
+            assertThat(5 + black % 3 * 4).isEqualTo(pair.size()).isEqualTo(5 + white % 3 * 4);
+        }
+        assertThat(seen).hasSize(4 * perThread);
+    }
+
+    @Test
+    @DisplayName("Should never pair a player with itself, and give its other requests to the next players")
+    void shouldNotPairAPlayerWithItself() throws Exception {
+        ConcurrentLinkedQueue<Pair> pairs = new ConcurrentLinkedQueue<>();
+        try (Matchmaker<String> matchmaker = new Matchmaker<>(25, 4000, 1, player -> false,
+                                                              (black, white, size) -> pairs.add(new Pair(black, white, size)))) {
+            String twice = "twice";
+            for (int i = 0; i < 3; i++) {
+                matchmaker.join(twice, 9, 1500);
+            }
+            waitUntil(() -> matchmaker.getPasses() > 0 && matchmaker.getWaiting() == 3, 5_000);
+            Thread.sleep(50);
+            assertThat(pairs).isEmpty();
+
+            matchmaker.join("first", 9, 1500);
+            matchmaker.join("second", 9, 1500);
+            waitUntil(() -> pairs.size() == 2, 5_000);
+            assertThat(pairs).containsExactly(new Pair(twice, "first", 9), new Pair(twice, "second", 9));
+            waitUntil(() -> matchmaker.getWaiting() == 1, 5_000);
+        }
+    }
+
+    @Test
+    @DisplayName("Should refuse sizes and ratings out of range")
+    void shouldRefuseOutOfRange() {
+        try (Matchmaker<String> matchmaker = new Matchmaker<>(25, 4000, 1, player -> false, (black, white, size) -> { })) {
+            assertThatThrownBy(() -> matchmaker.join("a", 26, 1500)).isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> matchmaker.join("a", 9, 4001)).isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> matchmaker.join("a", 9, -1)).isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    private static void waitUntil(BooleanSupplier condition, long millis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + millis;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Timed out");
+            }
+            Thread.sleep(5);
+        }
+    }
+}
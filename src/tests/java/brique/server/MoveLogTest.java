@@ -0,0 +1,247 @@
+package brique.server;
+
+import brique.core.GameState;
+import brique.core.Move;
+import brique.core.MoveExecutor;
+import brique.core.Position;
+import brique.core.Stone;
+import brique.core.ZobristHash;
+import brique.rules.GameRules;
+import brique.rules.RuleType;
+import brique.rules.RulesFactory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.*;
+
+class MoveLogTest {
+
+    private final GameRules rules = RulesFactory.createRules(RuleType.STANDARD);
+    private final Random random = new Random(11);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("Should recover the games in progress from their last checkpoint and the actions after it")
+    void shouldRecoverGamesInProgress() throws Exception {
+        HostedGame played = game(1, 9);
+        HostedGame ended = game(2, 5);
+        HostedGame swapped = game(3, 7);
+        HostedGame pieOpen = game(4, 7);
+        try (MoveLog log = MoveLog.open(dir, MoveLog.DEFAULT_CHECKPOINT_BYTES)) {
+            MoveLog.Batch batch = log.newBatch();
+            for (HostedGame game : List.of(played, ended, swapped, pieOpen)) {
+                batch.started(game);
+            }
+            Move last = null;
+            for (int i = 0; i < 12; i++) {
+                last = play(played, batch);
+            }
+            batch.checkpoint(played);
+            // The move before the checkpoint again, as a shard a game migrated from may log it late
+            MoveLog.Batch late = log.newBatch();
+            late.moved(played, last);
+            for (int i = 0; i < 5; i++) {
+                play(played, batch);
+            }
+            log.commit(batch);
+            log.commit(late);
+
+            play(ended, batch);
+            ended.state.abort();
+            batch.ended(ended);
+            play(swapped, batch);
+            swapped.state.applyPieRule();
+            swapped.swapped();
+            swapped.actions++;
+            batch.swapped(swapped);
+            play(swapped, batch);
+            play(pieOpen, batch);
+            batch.checkpoint(pieOpen);
+            log.commit(batch);
+            assertThat(log.syncs).isEqualTo(3 + 1);
+        }
+
+        try (MoveLog log = MoveLog.open(dir, MoveLog.DEFAULT_CHECKPOINT_BYTES)) {
+            Map<Long, HostedGame> recovered = byId(log.recovered());
+            assertThat(recovered.keySet()).containsExactlyInAnyOrder(1L, 3L, 4L);
+            assertSame(recovered.get(1L), played);
+            assertSame(recovered.get(3L), swapped);
+            assertSame(recovered.get(4L), pieOpen);
+            assertThat(log.lastGame()).isEqualTo(4);
+            // Restored from a checkpoint taken with the pie rule open, the swap still works
+            HostedGame open = recovered.get(4L);
+            open.state.applyPieRule();
+            open.swapped();
+            pieOpen.state.applyPieRule();
+            pieOpen.swapped();
+            assertThat(open.hash()).isEqualTo(pieOpen.hash());
+        }
+        // Only the fresh segment with the checkpoints is left
+        assertThat(segments()).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Should ignore a torn record at the end of the log but refuse damage before it")
+    void shouldRecoverFromTornTail() throws Exception {
+        HostedGame game = game(1, 9);
+        try (MoveLog log = MoveLog.open(dir, MoveLog.DEFAULT_CHECKPOINT_BYTES)) {
+            MoveLog.Batch batch = log.newBatch();
+            batch.started(game);
+            for (int i = 0; i < 6; i++) {
+                play(game, batch);
+            }
+            log.commit(batch);
+        }
+        Path segment = segments().get(0);
+        byte[] bytes = Files.readAllBytes(segment);
+        // The last record, a move, was only half written
+        Files.write(segment, Arrays.copyOf(bytes, bytes.length - 3));
+        HostedGame expected = new HostedGame(1, new GameState(9), 0, game.blackSeat, game.whiteSeat);
+        while (expected.actions < 5) {
+            Move move = MoveExecutor.play(expected.state, rules, game.state.getMoveHistory().get(expected.actions).getPosition());
+            expected.moved(move);
+            expected.actions++;
+        }
+
+        try (MoveLog log = MoveLog.open(dir, MoveLog.DEFAULT_CHECKPOINT_BYTES)) {
+            assertSame(log.recovered().get(0), expected);
+        }
+
+        // A damaged segment followed by another is not a torn tail
+        Path first = segments().get(0);
+        Files.copy(first, dir.resolve(first.getFileName().toString().replace(".log", "").replaceAll("\\d$", "9") + ".log"));
+        bytes = Files.readAllBytes(first);
+        bytes[bytes.length - 10] ^= 0x40;
+        Files.write(first, bytes);
+        assertThatThrownBy(() -> MoveLog.open(dir, MoveLog.DEFAULT_CHECKPOINT_BYTES))
+            .isInstanceOf(IOException.class)
+            .hasMessageContaining("damaged");
+    }
+
+    @Test
+    @DisplayName("Should start a new segment past the checkpoint size and delete the old ones once the shards checkpointed")
+    void shouldCompactIntoCheckpoints() throws Exception {
+        HostedGame game = game(1, 25);
+        HostedGame finished = game(2, 25);
+        int[] requests = {0};
+        try (MoveLog log = MoveLog.open(dir, 300)) {
+            log.setCheckpoints(2, () -> requests[0]++);
+            MoveLog.Batch batch = log.newBatch();
+            batch.started(game);
+            batch.started(finished);
+            batch.ended(finished);
+            log.commit(batch);
+            while (requests[0] == 0) {
+                play(game, batch);
+                log.commit(batch);
+            }
+            assertThat(segments()).hasSize(2);
+            // Past the size again, but no new request until the shards answered this one
+            for (int i = 0; i < 40; i++) {
+                play(game, batch);
+                log.commit(batch);
+            }
+            assertThat(requests[0]).isEqualTo(1);
+
+            // Two shards: one with the game, one with none
+            batch.checkpoint(game);
+            log.commit(batch);
+            log.checkpointed();
+            assertThat(segments()).hasSize(2);
+            log.checkpointed();
+            assertThat(segments()).hasSize(1);
+            play(game, batch);
+            log.commit(batch);
+        }
+        try (MoveLog log = MoveLog.open(dir, 300)) {
+            assertThat(log.recovered()).hasSize(1);
+            assertSame(log.recovered().get(0), game);
+            assertThat(log.lastGame()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    @DisplayName("Should rebuild a game handed over from another node from its checkpoint and tail")
+    void shouldReplayHandedOverGame() {
+        HostedGame played = game(7, 9);
+        MoveLog.Batch checkpoint = MoveLog.records(64);
+        for (int i = 0; i < 6; i++) {
+            play(played, MoveLog.records(64));
+        }
+        checkpoint.checkpoint(played);
+        MoveLog.Batch tail = MoveLog.records(64);
+        for (int i = 0; i < 3; i++) {
+            play(played, tail);
+        }
+        ByteBuffer records = ByteBuffer.allocate(checkpoint.bytes() + tail.bytes()).put(checkpoint.contents()).put(tail.contents()).flip();
+        HostedGame replayed = MoveLog.replay(7, records, rules);
+        assertSame(replayed, played);
+        assertThat(replayed.actions).isEqualTo(9);
+
+        assertThatThrownBy(() -> MoveLog.replay(8, records, rules)).isInstanceOf(IllegalArgumentException.class);
+        ByteBuffer damaged = ByteBuffer.allocate(records.remaining()).put(records.duplicate()).flip();
+        damaged.put(damaged.limit() - 1, (byte) (damaged.get(damaged.limit() - 1) ^ 1));
+        assertThatThrownBy(() -> MoveLog.replay(7, damaged, rules)).isInstanceOf(IllegalArgumentException.class);
+        MoveLog.Batch ended = MoveLog.records(64);
+        ended.started(game(9, 5));
+        ended.ended(game(9, 5));
+        assertThatThrownBy(() -> MoveLog.replay(9, ended.contents(), rules)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private HostedGame game(long id, int size) {
+        return new HostedGame(id, new GameState(size), 0, random.nextLong(), random.nextLong());
+    }
+
+    // Plays a random empty cell on the game and logs it
+    private Move play(HostedGame game, MoveLog.Batch batch) {
+        int size = game.state.getBoard().getSize();
+        while (true) {
+            Position position = Position.of(random.nextInt(size), random.nextInt(size));
+            if (game.state.getBoard().getStone(position) != Stone.EMPTY) {
+                continue;
+            }
+            Move move = MoveExecutor.play(game.state, rules, position);
+            if (move != null) {
+                game.moved(move);
+                game.actions++;
+                batch.moved(game, move);
+                return move;
+            }
+        }
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.sorted().toList();
+        }
+    }
+
+    private static Map<Long, HostedGame> byId(List<HostedGame> games) {
+        return games.stream().collect(Collectors.toMap(game -> game.id, game -> game));
+    }
+
+    private static void assertSame(HostedGame recovered, HostedGame expected) {
+        assertThat(recovered.actions).isEqualTo(expected.actions);
+        assertThat(recovered.blackSeat).isEqualTo(expected.blackSeat);
+        assertThat(recovered.whiteSeat).isEqualTo(expected.whiteSeat);
+        assertThat(recovered.hash()).isEqualTo(expected.hash());
+        assertThat(ZobristHash.of(recovered.state)).isEqualTo(ZobristHash.of(expected.state));
+        assertThat(recovered.state.getStatus()).isEqualTo(expected.state.getStatus());
+        assertThat(recovered.black).isNull();
+        assertThat(recovered.white).isNull();
+    }
+}
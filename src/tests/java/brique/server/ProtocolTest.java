@@ -0,0 +1,195 @@
+package brique.server;
+
+import brique.core.GameEnd;
+import brique.core.GameState;
+import brique.core.Move;
+import brique.core.MoveExecutor;
+import brique.core.OnlineGameEngine;
+import brique.core.Position;
+import brique.core.Stone;
+import brique.core.ZobristHash;
+import brique.rules.RuleType;
+import brique.rules.RulesFactory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ProtocolTest {
+
+    @Test
+    @DisplayName("Should encode moves as varints and round-trip every message")
+    void shouldRoundTrip() {
+        ByteBuffer out = ByteBuffer.allocate(Protocol.MAX_FRAME_BYTES);
+        Protocol.writeMove(out, 5, 300);
+        // Length, type, game, two-byte cell
+        assertThat(out.position()).isEqualTo(5);
+        assertThat(Protocol.read(out.flip())).isEqualTo(new Protocol.Place(5, 300));
+
+        assertThat(roundTrip(out, o -> Protocol.writePlay(o, 9))).isEqualTo(new Protocol.Play(9));
+        assertThat(roundTrip(out, o -> Protocol.writePlay(o, 9))).isEqualTo(new Protocol.Play(9, Protocol.DEFAULT_RATING));
+        assertThat(roundTrip(out, o -> Protocol.writePlay(o, 13, 2250))).isEqualTo(new Protocol.Play(13, 2250));
+        assertThat(roundTrip(out, o -> Protocol.writeSwap(o, Long.MAX_VALUE))).isEqualTo(new Protocol.Swap(Long.MAX_VALUE));
+        assertThat(roundTrip(out, o -> Protocol.writeResync(o, 0))).isEqualTo(new Protocol.Resync(0));
+        assertThat(roundTrip(out, o -> Protocol.writeStart(o, 77, Stone.WHITE, 25, -2))).isEqualTo(new Protocol.Start(77, Stone.WHITE, 25, -2));
+        assertThat(roundTrip(out, o -> Protocol.writeResume(o, 77, Long.MIN_VALUE))).isEqualTo(new Protocol.Resume(77, Long.MIN_VALUE));
+        assertThat(roundTrip(out, o -> Protocol.writeError(o, 3, "Illegal move 12"))).isEqualTo(new Protocol.Error(3, "Illegal move 12"));
+
+        // What a router and its nodes say to each other
+        assertThat(roundTrip(out, o -> Protocol.writeExport(o, -7, 77))).isEqualTo(new Protocol.Export(-7, 77));
+        assertThat(roundTrip(out, o -> Protocol.writeHandoff(o, Long.MAX_VALUE, 77))).isEqualTo(new Protocol.Handoff(Long.MAX_VALUE, 77));
+        assertThat(roundTrip(out, o -> Protocol.writeImported(o, 77, 300))).isEqualTo(new Protocol.Imported(77, 300));
+        byte[] records = {1, 2, 3, 4};
+        Protocol.Import imported = (Protocol.Import) roundTrip(out, o -> Protocol.writeImport(o, 5, 77, ByteBuffer.wrap(records)));
+        assertThat(imported.key()).isEqualTo(5L);
+        assertThat(Arrays.equals(imported.records(), records)).isTrue();
+        Protocol.Exported exported = (Protocol.Exported) roundTrip(out, o -> Protocol.writeExported(o, 77, ByteBuffer.wrap(records)));
+        assertThat(Arrays.equals(exported.records(), records)).isTrue();
+        // A tail with nothing played since the checkpoint
+        exported = (Protocol.Exported) roundTrip(out, o -> Protocol.writeExported(o, 77, ByteBuffer.allocate(0)));
+        assertThat(exported.records().length).isZero();
+        Protocol.Moved moved = (Protocol.Moved) roundTrip(out, o -> Protocol.writeMoved(o, 77, new Protocol.Place(77, 300)));
+        assertThat(Protocol.read(ByteBuffer.wrap(moved.command()))).isEqualTo(new Protocol.Place(77, 300));
+        assertThat(Protocol.gameOf(out.duplicate().position(1))).isEqualTo(77L);
+        assertThat(Protocol.reportsEnd(out.duplicate().position(1))).isFalse();
+
+        // A move whose escort fills a cell, then the swap
+        GameState state = new GameState(9);
+        var rules = RulesFactory.createRules(RuleType.STANDARD);
+        state.getBoard().setStone(Position.of(4, 5), Stone.BLACK);
+        Move move = MoveExecutor.play(state, rules, Position.of(5, 4));
+        assertThat(move.getFilledPositions()).hasSize(1);
+        Protocol.Delta delta = (Protocol.Delta) roundTrip(out, o ->
+            Protocol.writeDelta(o, 8, 1, state, Protocol.Change.MOVE, move, ZobristHash.of(state)));
+        assertThat(delta.placed()).isEqualTo(Protocol.cell(Position.of(5, 4), 9));
+        assertThat(delta.filled().length).isEqualTo(1);
+        assertThat(delta.filled()[0]).isEqualTo(Protocol.cell(move.getFilledPositions().get(0), 9));
+        assertThat(delta.captured().length).isZero();
+        assertThat(delta.toMove()).isEqualTo(Stone.WHITE);
+        assertThat(delta.pieOpen()).isTrue();
+        assertThat(delta.hash()).isEqualTo(ZobristHash.of(state));
+        // The delta of a move is a few bytes where a snapshot of the 9x9 board takes 35
+        assertThat(out.limit()).isLessThan(20);
+
+        state.applyPieRule();
+        Protocol.Snapshot snapshot = (Protocol.Snapshot) roundTrip(out, o -> Protocol.writeSnapshot(o, 8, 2, state, ZobristHash.of(state)));
+        assertThat(out.limit()).isEqualTo(1 + 1 + 1 + 1 + 1 + 1 + 21 + 8);
+        assertThat(snapshot.size()).isEqualTo(9);
+        assertThat(snapshot.toMove()).isEqualTo(Stone.BLACK);
+        assertThat(snapshot.status()).isEqualTo(GameEnd.IN_PROGRESS);
+        assertThat(snapshot.pieOpen()).isFalse();
+        for (int cell = 0; cell < 81; cell++) {
+            assertThat(snapshot.cells()[cell]).isEqualTo(state.getBoard().getStone(Protocol.position(cell, 9)));
+        }
+
+        // What a spectator gets: the same snapshot from a copy of the board, and a patch
+        ByteBuffer copy = ByteBuffer.allocate(Protocol.MAX_FRAME_BYTES);
+        Protocol.writeSnapshot(copy, snapshot);
+        assertThat(copy.flip()).isEqualTo(out.duplicate().rewind());
+        assertThat(roundTrip(out, o -> Protocol.writeWatch(o, 12))).isEqualTo(new Protocol.Watch(12));
+        Protocol.Patch patch = (Protocol.Patch) roundTrip(out, o -> Protocol.writePatch(o,
+            new Protocol.Patch(8, 40, Stone.WHITE, GameEnd.BLACK_WON, false, new int[] {0, 624}, new int[] {80}, -1L)));
+        assertThat(patch.actions()).isEqualTo(40);
+        assertThat(patch.toMove()).isEqualTo(Stone.WHITE);
+        assertThat(patch.status()).isEqualTo(GameEnd.BLACK_WON);
+        assertThat(patch.black()).containsExactly(0, 624);
+        assertThat(patch.white()).containsExactly(80);
+        assertThat(patch.hash()).isEqualTo(-1L);
+        assertThat(Protocol.reportsEnd(out.duplicate().position(1))).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should wait for the rest of a split frame and reject malformed ones")
+    void shouldRejectMalformedFrames() {
+        ByteBuffer out = ByteBuffer.allocate(Protocol.MAX_FRAME_BYTES);
+        Protocol.writeMove(out, 5, 300);
+        out.flip().limit(3);
+        assertThat(Protocol.read(out)).isNull();
+        assertThat(out.position()).isZero();
+
+        assertThatThrownBy(() -> Protocol.read(ByteBuffer.wrap(new byte[] {0}))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Protocol.read(ByteBuffer.wrap(new byte[] {(byte) 0x81, 0x40})))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Protocol.read(ByteBuffer.wrap(new byte[] {1, 0x7F}))).isInstanceOf(IllegalArgumentException.class);
+        // PLAY 9 with a rating above MAX_RATING
+        assertThatThrownBy(() -> Protocol.read(ByteBuffer.wrap(new byte[] {4, 0x01, 9, (byte) 0xA1, 0x1F})))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Protocol.read(ByteBuffer.wrap(new byte[] {4, Protocol.MOVE, 5, 1, 9})))
+            .isInstanceOf(IllegalArgumentException.class);
+        byte[] overlong = {12, Protocol.SWAP, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 1};
+        assertThatThrownBy(() -> Protocol.read(ByteBuffer.wrap(overlong))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Protocol.read(ByteBuffer.wrap(new byte[] {3, Protocol.START, 1, 3})))
+            .isInstanceOf(IllegalArgumentException.class);
+        // An import without records, and a moved command about another game
+        ByteBuffer bad = ByteBuffer.allocate(Protocol.MAX_FRAME_BYTES);
+        Protocol.writeImport(bad, 5, 77, ByteBuffer.allocate(0));
+        assertThatThrownBy(() -> Protocol.read(bad.flip())).isInstanceOf(IllegalArgumentException.class);
+        Protocol.writeMoved(bad.clear(), 77, new Protocol.Swap(78));
+        assertThatThrownBy(() -> Protocol.read(bad.flip())).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Protocol.writeMoved(bad.clear(), 77, new Protocol.Play(9))).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("Should survive fuzzed frames in the decoder and on a live server")
+    void shouldSurviveFuzzing() throws Exception {
+        ProtocolFuzzer fuzzer = new ProtocolFuzzer(42);
+        ProtocolFuzzer.Report report = fuzzer.run(200_000);
+        assertThat(report.failures()).hasSize(0);
+        assertThat(report.decoded()).isPositive();
+        assertThat(report.incomplete()).isPositive();
+        assertThat(report.rejected()).isPositive();
+
+        try (GameServer server = new GameServer(0)) {
+            server.start();
+            for (int client = 0; client < 50; client++) {
+                try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+                    OutputStream out = socket.getOutputStream();
+                    for (int frame = 0; frame < 20; frame++) {
+                        out.write(fuzzer.next());
+                    }
+                    out.flush();
+                } catch (java.io.IOException e) {
+                    // Dropped by the server already
+                }
+            }
+            // Still serving: two engines play a game to the end
+            InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort());
+            CompletableFuture<Boolean> first = CompletableFuture.supplyAsync(() -> finish(new OnlineGameEngine(3, address)));
+            CompletableFuture<Boolean> second = CompletableFuture.supplyAsync(() -> finish(new OnlineGameEngine(3, address)));
+            assertThat(first.get(30, TimeUnit.SECONDS)).isTrue();
+            assertThat(second.get(30, TimeUnit.SECONDS)).isTrue();
+        }
+    }
+
+    private static Protocol.Message roundTrip(ByteBuffer out, java.util.function.Consumer<ByteBuffer> writer) {
+        writer.accept(out.clear());
+        out.flip();
+        Protocol.Message message = Protocol.read(out.duplicate());
+        assertThat(message).isNotNull();
+        return message;
+    }
+
+    // Plays the first empty cell on every turn
+    private static boolean finish(OnlineGameEngine engine) {
+        engine.awaitStart();
+        int size = engine.getState().getBoard().getSize();
+        while (!engine.isGameOver()) {
+            for (int cell = 0; cell < size * size; cell++) {
+                if (engine.getState().getBoard().getStone(Protocol.position(cell, size)) == Stone.EMPTY) {
+                    engine.playMove(Protocol.position(cell, size));
+                    break;
+                }
+            }
+        }
+        return engine.getState().getStatus() != GameEnd.IN_PROGRESS;
+    }
+}
@@ -0,0 +1,246 @@
+package brique.server;
+
+import brique.core.OnlineGameEngine;
+import brique.core.Position;
+import brique.core.Stone;
+
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.*;
+
+// Clients shared by the server and cluster tests
+final class TestClients {
+
+    private TestClients() {
+    }
+
+    // Plays the first free cell of a game whose both seats the client holds; cells the server
+    // refuses are marked taken, the snapshots of its seats on a new node are passed over
+    static Protocol.Delta play(RawClient client, long id, boolean[] taken) throws Exception {
+        for (int cell = 0; cell < taken.length; cell++) {
+            if (taken[cell]) {
+                continue;
+            }
+            int chosen = cell;
+            client.send(out -> Protocol.writeMove(out, id, chosen));
+            Protocol.Message reply = client.read();
+            while (reply instanceof Protocol.Snapshot) {
+                reply = client.read();
+            }
+            if (reply instanceof Protocol.Delta delta) {
+                taken[delta.placed()] = true;
+                for (int filled : delta.filled()) {
+                    taken[filled] = true;
+                }
+                return delta;
+            }
+            taken[cell] = true;
+        }
+        throw new AssertionError("No legal move in game " + id);
+    }
+
+    static OnlineGameEngine paired(int size, InetSocketAddress server) {
+        OnlineGameEngine engine = new OnlineGameEngine(size, server);
+        engine.awaitStart();
+        return engine;
+    }
+
+    // Plays random empty cells on this engine's turns until the game ends
+    static Stone[][] playRandomly(OnlineGameEngine engine, long seed) {
+        Random random = new Random(seed);
+        int size = engine.getState().getBoard().getSize();
+        while (!engine.isGameOver()) {
+            Position position = Position.of(random.nextInt(size), random.nextInt(size));
+            if (engine.getState().getBoard().getStone(position) == Stone.EMPTY) {
+                assertThat(engine.playMove(position)).isTrue();
+            }
+        }
+        Stone[][] cells = new Stone[size][size];
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                cells[row][col] = engine.getState().getBoard().getStone(Position.of(row, col));
+            }
+        }
+        return cells;
+    }
+
+    static InetSocketAddress address(GameServer server) {
+        return new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort());
+    }
+
+    // Two connections that ask for the same games, so each game has a seat on both. Moves go on
+    // the connection to move and the copy the other seat hears of is read off too
+    static final class Table implements AutoCloseable {
+
+        final RawClient first;
+        final RawClient second;
+        // Black's Start, then White's
+        private final Map<Long, Protocol.Start[]> starts = new HashMap<>();
+        private final Map<Long, RawClient[]> seats = new HashMap<>();
+        private final Map<Long, Stone> toMove = new HashMap<>();
+
+        Table(int port) throws Exception {
+            this.first = new RawClient(port);
+            this.second = new RawClient(port);
+        }
+
+        // Their ids in order
+        List<Long> open(int size, int games) throws Exception {
+            for (int i = 0; i < games; i++) {
+                first.send(out -> Protocol.writePlay(out, size));
+                second.send(out -> Protocol.writePlay(out, size));
+            }
+            List<Long> ids = new ArrayList<>();
+            for (RawClient client : List.of(first, second)) {
+                for (int read = 0; read < 2 * games; read++) {
+                    if (client.read() instanceof Protocol.Start start) {
+                        int seat = start.colour() == Stone.BLACK ? 0 : 1;
+                        starts.computeIfAbsent(start.game(), id -> new Protocol.Start[2])[seat] = start;
+                        seats.computeIfAbsent(start.game(), id -> new RawClient[2])[seat] = client;
+                        if (toMove.put(start.game(), Stone.BLACK) == null) {
+                            ids.add(start.game());
+                        }
+                    }
+                }
+            }
+            ids.sort(null);
+            return ids;
+        }
+
+        Protocol.Start[] starts(long id) {
+            return starts.get(id);
+        }
+
+        RawClient mover(long id) {
+            return seats.get(id)[toMove.get(id) == Stone.BLACK ? 0 : 1];
+        }
+
+        // Sends a command on the connection to move and returns its answer
+        Protocol.Message act(long id, Consumer<ByteBuffer> command) throws Exception {
+            RawClient mover = mover(id);
+            RawClient other = mover == seats.get(id)[0] ? seats.get(id)[1] : seats.get(id)[0];
+            mover.send(command);
+            Protocol.Message reply = next(mover);
+            if (reply instanceof Protocol.Delta delta) {
+                Protocol.Delta copy = (Protocol.Delta) next(other);
+                assertThat(copy.game()).isEqualTo(id);
+                assertThat(copy.actions()).isEqualTo(delta.actions());
+                toMove.put(id, delta.toMove());
+            }
+            return reply;
+        }
+
+        // The first free cell, as TestClients.play
+        Protocol.Delta play(long id, boolean[] taken) throws Exception {
+            for (int cell = 0; cell < taken.length; cell++) {
+                if (taken[cell]) {
+                    continue;
+                }
+                int chosen = cell;
+                if (act(id, out -> Protocol.writeMove(out, id, chosen)) instanceof Protocol.Delta delta) {
+                    taken[delta.placed()] = true;
+                    for (int filled : delta.filled()) {
+                        taken[filled] = true;
+                    }
+                    return delta;
+                }
+                taken[cell] = true;
+            }
+            throw new AssertionError("No legal move in game " + id);
+        }
+
+        // One move in each game, all sent before any answer is read; the answers of the
+        // connections to move
+        List<Protocol.Message> moves(Map<Long, Integer> cells) throws Exception {
+            Map<RawClient, Set<Long>> asked = new HashMap<>();
+            for (Map.Entry<Long, Integer> move : cells.entrySet()) {
+                long id = move.getKey();
+                int cell = move.getValue();
+                mover(id).send(out -> Protocol.writeMove(out, id, cell));
+                asked.computeIfAbsent(mover(id), client -> new HashSet<>()).add(id);
+            }
+            // Each connection hears once of each game: its answer, or the other seat's move
+            Map<Long, Protocol.Message> answers = new HashMap<>();
+            Map<RawClient, Set<Long>> heard = Map.of(first, new HashSet<>(), second, new HashSet<>());
+            for (RawClient client : List.of(first, second, first)) {
+                Set<Long> waiting = new HashSet<>(asked.getOrDefault(client, Set.of()));
+                for (Map.Entry<Long, Protocol.Message> answer : answers.entrySet()) {
+                    if (answer.getValue() instanceof Protocol.Delta && mover(answer.getKey()) != client) {
+                        waiting.add(answer.getKey());
+                    }
+                }
+                waiting.removeAll(heard.get(client));
+                while (!waiting.isEmpty()) {
+                    Protocol.Message message = next(client);
+                    long id = message instanceof Protocol.Delta delta ? delta.game() : ((Protocol.Error) message).game();
+                    if (mover(id) == client) {
+                        answers.put(id, message);
+                    }
+                    heard.get(client).add(id);
+                    waiting.remove(id);
+                }
+            }
+            for (Map.Entry<Long, Protocol.Message> answer : answers.entrySet()) {
+                if (answer.getValue() instanceof Protocol.Delta delta) {
+                    toMove.put(answer.getKey(), delta.toMove());
+                }
+            }
+            return new ArrayList<>(answers.values());
+        }
+
+        // Seats of games that moved to another node are sent their snapshots
+        private static Protocol.Message next(RawClient client) throws Exception {
+            Protocol.Message message = client.read();
+            while (message instanceof Protocol.Snapshot) {
+                message = client.read();
+            }
+            return message;
+        }
+
+        @Override
+        public void close() throws Exception {
+            first.close();
+            second.close();
+        }
+    }
+
+    // Speaks the protocol frame by frame
+    static final class RawClient implements AutoCloseable {
+
+        private final Socket socket;
+        private final InputStream in;
+        private final ByteBuffer frame = ByteBuffer.allocate(Protocol.MAX_FRAME_BYTES);
+
+        RawClient(int port) throws Exception {
+            this.socket = new Socket(InetAddress.getLoopbackAddress(), port);
+            this.in = socket.getInputStream();
+        }
+
+        void send(Consumer<ByteBuffer> writer) throws Exception {
+            writer.accept(frame.clear());
+            frame.flip();
+            socket.getOutputStream().write(frame.array(), 0, frame.limit());
+        }
+
+        Protocol.Message read() throws Exception {
+            return Protocol.read(in);
+        }
+
+        @Override
+        public void close() throws Exception {
+            socket.close();
+        }
+    }
+}
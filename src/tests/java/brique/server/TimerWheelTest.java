@@ -0,0 +1,80 @@
+package brique.server;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+class TimerWheelTest {
+
+    @Test
+    @DisplayName("Should fire each timer on the first tick at or after its deadline, far ones included")
+    void shouldFireOnTheFirstTickAfterTheDeadline() {
+        TimerWheel<Long> wheel = new TimerWheel<>(10, 16, 1_000);
+        Random random = new Random(5);
+        List<TimerWheel.Timer<Long>> timers = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            // Up to six turns of the wheel away
+            long deadline = 1_000 + random.nextInt(1_000);
+            TimerWheel.Timer<Long> timer = new TimerWheel.Timer<>(deadline);
+            wheel.arm(timer, deadline);
+            timers.add(timer);
+        }
+        assertThat(wheel.size()).isEqualTo(1_000);
+
+        List<long[]> fired = new ArrayList<>();
+        for (long now = 1_000; now <= 2_010; now += 10) {
+            long at = now;
+            wheel.advance(now, deadline -> fired.add(new long[] {deadline, at}));
+        }
+        assertThat(fired).hasSize(1_000);
+        for (long[] firing : fired) {
+            assertThat(firing[1]).isBetween(firing[0], firing[0] + 10);
+        }
+        assertThat(wheel.size()).isZero();
+        assertThat(wheel.nextTick()).isEqualTo(Long.MAX_VALUE);
+        assertThat(timers).noneMatch(TimerWheel.Timer::isArmed);
+    }
+
+    @Test
+    @DisplayName("Should not fire cancelled timers and let a callback re-arm itself or cancel others")
+    void shouldCancelAndRearm() {
+        TimerWheel<String> wheel = new TimerWheel<>(10, 8, 0);
+        TimerWheel.Timer<String> cancelled = new TimerWheel.Timer<>("cancelled");
+        TimerWheel.Timer<String> moved = new TimerWheel.Timer<>("moved");
+        TimerWheel.Timer<String> repeating = new TimerWheel.Timer<>("repeating");
+        TimerWheel.Timer<String> victim = new TimerWheel.Timer<>("victim");
+        wheel.arm(cancelled, 50);
+        wheel.arm(moved, 50);
+        wheel.arm(moved, 500);
+        wheel.arm(repeating, 30);
+        wheel.arm(victim, 50);
+        wheel.cancel(cancelled);
+        wheel.cancel(cancelled);
+
+        List<String> fired = new ArrayList<>();
+        int count = wheel.advance(100, name -> {
+            fired.add(name);
+            wheel.arm(repeating, 200);
+            // Due in this same advance, but cancelled before its turn
+            wheel.cancel(victim);
+        });
+        assertThat(count).isEqualTo(1);
+        assertThat(fired).containsExactly("repeating");
+        assertThat(repeating.isArmed()).isTrue();
+        fired.clear();
+
+        // Far behind: every slot is looked at once
+        assertThat(wheel.advance(10_000, fired::add)).isEqualTo(2);
+        assertThat(fired).containsExactlyInAnyOrder("repeating", "moved");
+        assertThat(wheel.size()).isZero();
+
+        TimerWheel<String> other = new TimerWheel<>(10, 8, 0);
+        other.arm(moved, 20_000);
+        assertThatThrownBy(() -> wheel.cancel(moved)).isInstanceOf(IllegalStateException.class);
+    }
+}
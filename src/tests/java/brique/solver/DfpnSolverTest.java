@@ -0,0 +1,177 @@
+package brique.solver;
+
+import brique.bot.BotAction;
+import brique.core.GameState;
+import brique.core.MoveExecutor;
+import brique.core.Position;
+import brique.core.Stone;
+import brique.core.ZobristHash;
+import brique.rules.GameRules;
+import brique.rules.RuleType;
+import brique.rules.RulesFactory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+
+class DfpnSolverTest {
+
+    private final GameRules rules = RulesFactory.createRules(RuleType.STANDARD);
+
+    private GameState play(int size, int... cells) {
+        GameState state = new GameState(size);
+        for (int cell : cells) {
+            assertThat(MoveExecutor.play(state, rules, Position.of(cell / size, cell % size))).isNotNull();
+        }
+        return state;
+    }
+
+    @Nested
+    @DisplayName("Proofs")
+    class Proofs {
+
+        @Test
+        @DisplayName("Should prove the 3x3 opening lost for Black because of the pie rule")
+        void shouldProveSmallOpeningLost() {
+            SolverResult result = new DfpnSolver(4).solve(new GameState(3));
+
+            assertThat(result.outcome()).isEqualTo(SolverResult.Outcome.LOSS);
+            assertThat(result.isProven()).isTrue();
+            assertThat(result.winningMove()).isNull();
+            assertThat(result.nodes()).isPositive();
+        }
+
+        @Test
+        @DisplayName("Should return a move that completes the connection")
+        void shouldReturnImmediateWin() {
+            // Black holds (0,0) and (1,0); White holds (1,2) and (2,2)
+            GameState state = play(3, 0, 5, 3, 8);
+            SolverResult result = new DfpnSolver(4).solve(state);
+
+            assertThat(result.outcome()).isEqualTo(SolverResult.Outcome.WIN);
+            MoveExecutor.play(state, rules, result.winningMove().position());
+            assertThat(state.getWinner()).isEqualTo(Stone.BLACK);
+        }
+
+        @Test
+        @DisplayName("Should prove a 4x4 reply position lost for White")
+        void shouldProveReplyPositionLost() {
+            // Black opened at (2,3): neither swapping nor any reply saves White
+            SolverResult result = new DfpnSolver(16).solve(play(4, 2 * 4 + 3));
+
+            assertThat(result.outcome()).isEqualTo(SolverResult.Outcome.LOSS);
+        }
+
+        @Test
+        @DisplayName("Should return a legal winning action in pie-rule positions")
+        void shouldReturnLegalActionWithPieRule() {
+            GameState state = play(3, 4);
+            SolverResult result = new DfpnSolver(4).solve(state);
+
+            assertThat(result.outcome()).isEqualTo(SolverResult.Outcome.WIN);
+            BotAction action = result.winningMove();
+            if (action.isSwap()) {
+                state.applyPieRule();
+            } else {
+                assertThat(MoveExecutor.play(state, rules, action.position())).isNotNull();
+            }
+            // After the winning action the opponent must be proven lost
+            if (state.isInProgress()) {
+                assertThat(new DfpnSolver(4).solve(state).outcome()).isEqualTo(SolverResult.Outcome.LOSS);
+            }
+        }
+
+        @Test
+        @DisplayName("Should not modify the position it solves")
+        void shouldNotModifyPosition() {
+            GameState state = play(3, 4);
+            new DfpnSolver(4).solve(state);
+
+            assertThat(state.getMoveHistory()).hasSize(1);
+            assertThat(state.getCurrentPlayer()).isEqualTo(Stone.WHITE);
+            assertThat(state.isPieRuleAvailable()).isTrue();
+        }
+
+        @Test
+        @DisplayName("Should reject finished games")
+        void shouldRejectFinishedGames() {
+            GameState state = new GameState(3);
+            state.abort();
+
+            assertThatThrownBy(() -> new DfpnSolver(4).solve(state))
+                .isInstanceOf(IllegalStateException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("Control")
+    class Control {
+
+        @Test
+        @DisplayName("Should stop at the node limit with an unknown result")
+        void shouldStopAtNodeLimit() {
+            DfpnSolver solver = new DfpnSolver(4);
+            solver.setNodeLimit(50);
+            SolverResult result = solver.solve(new GameState(5));
+
+            assertThat(result.outcome()).isEqualTo(SolverResult.Outcome.UNKNOWN);
+            assertThat(result.nodes()).isLessThan(200L);
+            assertThat(result.describe(Stone.BLACK)).contains("No forced result");
+        }
+
+        @Test
+        @DisplayName("Should report no result when proving an evicted winning child again runs out of nodes")
+        void shouldNotReportWinWithoutMove() {
+            GameState state = play(4, 5, 10);
+            // One bucket, three entries too expensive to replace: the root's own entry takes
+            // the only free slot from the child that proved it
+            ProofTable table = ProofTable.ofBuckets(1);
+            for (long key = 1; key <= 3; key++) {
+                table.store(key, 1, 1, Long.MAX_VALUE);
+            }
+            GameState child = state.copy();
+            MoveExecutor.play(child, rules, Position.of(0, 0));
+            table.store(ZobristHash.of(child), DfpnSolver.INF, 0, 1);
+
+            DfpnSolver solver = new DfpnSolver(table, rules);
+            solver.setNodeLimit(20);
+            SolverResult result = solver.solve(state);
+
+            assertThat(solver.getRootProof()).isZero();
+            assertThat(result.outcome()).isEqualTo(SolverResult.Outcome.UNKNOWN);
+            assertThat(result.winningMove()).isNull();
+            assertThat(result.describe(Stone.BLACK)).contains("No forced result");
+        }
+
+        @Test
+        @DisplayName("Should stop when interrupted from the progress callback")
+        void shouldStopWhenInterrupted() {
+            DfpnSolver solver = new DfpnSolver(4);
+            solver.setProgress((nodes, proof, disproof) -> solver.interrupt(), 100);
+            SolverResult result = solver.solve(new GameState(6));
+
+            assertThat(result.outcome()).isEqualTo(SolverResult.Outcome.UNKNOWN);
+            assertThat(result.nodes()).isLessThan(1_000L);
+        }
+
+        @Test
+        @DisplayName("Should report progress with proof and disproof numbers")
+        void shouldReportProgress() {
+            AtomicLong calls = new AtomicLong();
+            AtomicLong lastNodes = new AtomicLong();
+            DfpnSolver solver = new DfpnSolver(4);
+            solver.setProgress((nodes, proof, disproof) -> {
+                calls.incrementAndGet();
+                lastNodes.set(nodes);
+            }, 100);
+            SolverResult result = solver.solve(new GameState(3));
+
+            assertThat(calls.get()).isGreaterThan(1L);
+            assertThat(lastNodes.get()).isEqualTo(result.nodes());
+            assertThat(solver.getRootDisproof()).isZero();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package brique.solver;
+
+import brique.core.GameState;
+import brique.core.MoveExecutor;
+import brique.core.Position;
+import brique.core.Stone;
+import brique.rules.GameRules;
+import brique.rules.RuleType;
+import brique.rules.RulesFactory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+class PerftTest {
+
+    private final GameRules rules = RulesFactory.createRules(RuleType.STANDARD);
+
+    @Test
+    @DisplayName("Should match the reference counts from the empty board")
+    void shouldMatchReferenceCounts() {
+        Perft perft = new Perft();
+        long[] threeByThree = {1, 9, 81, 576, 3_480, 17_376, 62_584};
+        for (int depth = 0; depth < threeByThree.length; depth++) {
+            assertThat(perft.perft(new GameState(3), depth)).isEqualTo(threeByThree[depth]);
+        }
+        long[] fourByFour = {1, 16, 256, 3_600, 46_806, 559_182};
+        for (int depth = 0; depth < fourByFour.length; depth++) {
+            assertThat(perft.perft(new GameState(4), depth)).isEqualTo(fourByFour[depth]);
+        }
+        assertThat(perft.perft(new GameState(5), 4)).isEqualTo(316_696L);
+    }
+
+    @Test
+    @DisplayName("Should agree with a copy-per-move enumeration, including the pie rule")
+    void shouldAgreeWithCopyingEnumeration() {
+        GameState start = new GameState(4);
+        MoveExecutor.play(start, rules, Position.of(1, 2));
+        Perft perft = new Perft();
+        for (int depth = 1; depth <= 4; depth++) {
+            assertThat(perft.perft(start, depth)).isEqualTo(countByCopying(start, depth));
+        }
+        // The start position is left as it was
+        assertThat(start.getMoveHistory()).hasSize(1);
+        assertThat(start.isPieRuleAvailable()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should count the same with threads and the transposition table")
+    void shouldCountSameInParallelWithTable() {
+        Perft plain = new Perft();
+        plain.setThreads(1);
+        long expected = plain.perft(new GameState(4), 5);
+
+        Perft hashed = new Perft();
+        hashed.setThreads(4);
+        hashed.setSplitDepth(3);
+        hashed.setTableSizeMb(4);
+        assertThat(hashed.perft(new GameState(4), 5)).isEqualTo(expected);
+        assertThat(hashed.getTableHits()).isPositive();
+        assertThat(hashed.getNodes()).isLessThan(plain.getNodes());
+    }
+
+    private long countByCopying(GameState state, int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        if (!state.isInProgress()) {
+            return 0;
+        }
+        long count = 0;
+        int size = state.getBoard().getSize();
+        for (int cell = 0; cell < size * size; cell++) {
+            GameState child = state.copy();
+            if (MoveExecutor.play(child, rules, Position.of(cell / size, cell % size)) != null) {
+                count += countByCopying(child, depth - 1);
+            }
+        }
+        if (state.isPieRuleAvailable() && state.getCurrentPlayer() == Stone.WHITE) {
+            GameState child = state.copy();
+            child.applyPieRule();
+            count += countByCopying(child, depth - 1);
+        }
+        return count;
+    }
+}
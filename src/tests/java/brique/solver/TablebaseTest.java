@@ -0,0 +1,253 @@
+package brique.solver;
+
+import brique.bot.BotAction;
+import brique.bot.TablebaseBot;
+import brique.core.GameState;
+import brique.core.MoveExecutor;
+import brique.core.Position;
+import brique.core.Stone;
+import brique.rules.GameRules;
+import brique.rules.StandardBriqueRules;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.*;
+
+class TablebaseTest {
+
+    private final GameRules rules = new StandardBriqueRules();
+
+    @TempDir
+    Path dir;
+
+    private Tablebase generate(int size) throws Exception {
+        Path file = dir.resolve("tb" + size + ".bin");
+        new TablebaseGenerator(size).generate(file);
+        return Tablebase.open(file);
+    }
+
+    // Positions along random games, each with at least one empty cell left
+    private List<GameState> randomPositions(int size, int games, long seed) {
+        Random random = new Random(seed);
+        List<GameState> positions = new ArrayList<>();
+        for (int g = 0; g < games; g++) {
+            GameState state = new GameState(size);
+            while (state.isInProgress()) {
+                positions.add(state.copy());
+                if (state.isPieRuleAvailable() && state.getCurrentPlayer() == Stone.WHITE && random.nextInt(3) == 0) {
+                    state.applyPieRule();
+                    continue;
+                }
+                Position pos = Position.of(random.nextInt(size), random.nextInt(size));
+                if (state.getBoard().getStone(pos) == Stone.EMPTY) {
+                    MoveExecutor.play(state, rules, pos);
+                } else if (isFull(state)) {
+                    break;
+                }
+            }
+        }
+        return positions;
+    }
+
+    private static boolean isFull(GameState state) {
+        int size = state.getBoard().getSize();
+        for (int cell = 0; cell < size * size; cell++) {
+            if (state.getBoard().getStone(Position.of(cell / size, cell % size)) == Stone.EMPTY) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Nested
+    @DisplayName("Index")
+    class Index {
+
+        @Test
+        @DisplayName("Should rank closed 3x3 boards densely and reject the others")
+        void shouldRankClosedBoardsDensely() {
+            TablebaseIndex index = new TablebaseIndex(3);
+            Set<Long> ranks = new HashSet<>();
+            int rejected = 0;
+            for (int code = 0; code < 19683; code++) {
+                int black = 0;
+                int white = 0;
+                for (int cell = 0, rest = code; cell < 9; cell++, rest /= 3) {
+                    if (rest % 3 == 1) black |= 1 << cell;
+                    if (rest % 3 == 2) white |= 1 << cell;
+                }
+                long rank = index.rank(black, white);
+                if (rank < 0) {
+                    rejected++;
+                } else {
+                    assertThat(rank).isLessThan(index.count());
+                    ranks.add(rank);
+                }
+            }
+
+            assertThat((long) ranks.size()).isEqualTo(index.count());
+            assertThat(ranks.size() + rejected).isEqualTo(19683);
+            assertThat(rejected).isPositive();
+        }
+
+        @Test
+        @DisplayName("Should transpose boards as an involution")
+        void shouldTransposeBoards() {
+            TablebaseIndex index = new TablebaseIndex(4);
+            int cornerRow = 0b1111;          // top row
+            int firstColumn = 0x1111;        // left column
+
+            assertThat(index.transpose(cornerRow)).isEqualTo(firstColumn);
+            assertThat(index.transpose(index.transpose(0xA5C3))).isEqualTo(0xA5C3);
+        }
+
+        @Test
+        @DisplayName("Should keep every board reached in play closed, as the index requires")
+        void shouldKeepPlayedBoardsClosed() {
+            TablebaseIndex index = new TablebaseIndex(5);
+            for (GameState state : randomPositions(5, 40, 7)) {
+                assertThat(index.rank(mask(state, Stone.BLACK), mask(state, Stone.WHITE))).isGreaterThanOrEqualTo(0L);
+            }
+        }
+
+        @Test
+        @DisplayName("Should reject board sizes above 5x5")
+        void shouldRejectLargeBoards() {
+            assertThatThrownBy(() -> new TablebaseIndex(6)).isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Test
+    @DisplayName("Should play moves on bitboards exactly like the standard rules")
+    void shouldMatchStandardRules() {
+        BitboardRules bitboard = new BitboardRules(5, rules);
+        Random random = new Random(11);
+        for (int game = 0; game < 50; game++) {
+            GameState state = new GameState(5);
+            while (state.isInProgress() && !isFull(state)) {
+                Position pos = Position.of(random.nextInt(5), random.nextInt(5));
+                if (state.getBoard().getStone(pos) != Stone.EMPTY) {
+                    continue;
+                }
+                Stone mover = state.getCurrentPlayer();
+                int own = mask(state, mover) | 1 << (pos.row() * 5 + pos.col());
+                int fill = bitboard.fills(own);
+
+                MoveExecutor.play(state, rules, pos);
+
+                assertThat(mask(state, mover)).isEqualTo(own | fill);
+                if (mover == Stone.BLACK) {
+                    assertThat(bitboard.connectsTopBottom(own | fill)).isEqualTo(!state.isInProgress());
+                }
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Generation")
+    class Generation {
+
+        @Test
+        @DisplayName("Should agree with the proof-number solver on 3x3 positions")
+        void shouldAgreeWithSolver() throws Exception {
+            Tablebase tablebase = generate(3);
+
+            assertThat(tablebase.isComplete()).isTrue();
+            assertThat(tablebase.probe(new GameState(3))).isEqualTo(SolverResult.Outcome.LOSS);
+            for (GameState state : randomPositions(3, 30, 3)) {
+                SolverResult.Outcome expected = new DfpnSolver(1).solve(state).outcome();
+                SolverResult.Outcome actual = tablebase.probe(state);
+                if (actual != SolverResult.Outcome.DRAW) {
+                    assertThat(actual).isEqualTo(expected);
+                }
+            }
+        }
+
+        @Test
+        @DisplayName("Should resume an interrupted 4x4 generation and prove the opening won")
+        void shouldResumeInterruptedGeneration() throws Exception {
+            Path file = dir.resolve("tb4.bin");
+            TablebaseGenerator generator = new TablebaseGenerator(4);
+            generator.setThreads(2);
+            generator.setProgress((positions, done, total) -> generator.interrupt(), 1);
+
+            assertThatThrownBy(() -> generator.generate(file)).isInstanceOf(InterruptedException.class);
+            assertThat(Tablebase.open(file).isComplete()).isFalse();
+
+            TablebaseGenerator resumed = new TablebaseGenerator(4);
+            assertThat(resumed.generate(file)).isEqualTo(SolverResult.Outcome.WIN);
+
+            Tablebase tablebase = Tablebase.open(file);
+            assertThat(tablebase.isComplete()).isTrue();
+            // Same fixture as the solver test: Black opening at (2,3) cannot be answered
+            GameState state = new GameState(4);
+            MoveExecutor.play(state, rules, Position.of(2, 3));
+            assertThat(tablebase.probe(state)).isEqualTo(SolverResult.Outcome.LOSS);
+        }
+
+        @Test
+        @DisplayName("Should refuse a file that holds another board size")
+        void shouldRefuseMismatchedFile() throws Exception {
+            Path file = dir.resolve("tb.bin");
+            new TablebaseGenerator(2).generate(file);
+
+            assertThatThrownBy(() -> new TablebaseGenerator(3).generate(file)).isInstanceOf(IOException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("Play")
+    class Play {
+
+        @Test
+        @DisplayName("Should pick an action that leaves the opponent lost")
+        void shouldPickWinningAction() throws Exception {
+            Tablebase tablebase = generate(3);
+            GameState state = new GameState(3);
+            MoveExecutor.play(state, rules, Position.of(1, 1));
+
+            assertThat(tablebase.probe(state)).isEqualTo(SolverResult.Outcome.WIN);
+            BotAction action = tablebase.bestAction(state);
+            if (action.isSwap()) {
+                state.applyPieRule();
+            } else {
+                MoveExecutor.play(state, rules, action.position());
+            }
+            assertThat(!state.isInProgress() || tablebase.probe(state) == SolverResult.Outcome.LOSS).isTrue();
+        }
+
+        @Test
+        @DisplayName("Should fall back to the other bot off the table")
+        void shouldFallBackOffTable() throws Exception {
+            Tablebase tablebase = generate(3);
+            BotAction fallbackAction = BotAction.place(Position.of(0, 0));
+            TablebaseBot bot = new TablebaseBot(tablebase, state -> fallbackAction);
+
+            assertThat(bot.chooseAction(new GameState(4))).isSameAs(fallbackAction);
+            assertThat(bot.chooseAction(new GameState(3))).isNotSameAs(fallbackAction);
+            assertThatThrownBy(() -> tablebase.probe(new GameState(4)))
+                .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    private static int mask(GameState state, Stone stone) {
+        int size = state.getBoard().getSize();
+        int mask = 0;
+        for (int cell = 0; cell < size * size; cell++) {
+            if (state.getBoard().getStone(Position.of(cell / size, cell % size)) == stone) {
+                mask |= 1 << cell;
+            }
+        }
+        return mask;
+    }
+}
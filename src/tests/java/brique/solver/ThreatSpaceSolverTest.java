@@ -0,0 +1,122 @@
+package brique.solver;
+
+import brique.core.GameState;
+import brique.core.MoveExecutor;
+import brique.core.Position;
+import brique.core.Stone;
+import brique.rules.GameRules;
+import brique.rules.RuleType;
+import brique.rules.RulesFactory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ThreatSpaceSolverTest {
+
+    private final GameRules rules = RulesFactory.createRules(RuleType.STANDARD);
+
+    @Test
+    @DisplayName("Should find the connecting move without threats")
+    void shouldFindImmediateWin() {
+        GameState state = new GameState(5);
+        for (int row = 0; row < 4; row++) {
+            state.getBoard().setStone(Position.of(row, 2), Stone.BLACK);
+        }
+        ThreatSpaceSolver solver = new ThreatSpaceSolver();
+        SolverResult result = solver.solve(state);
+
+        assertThat(result.outcome()).isEqualTo(SolverResult.Outcome.WIN);
+        assertThat(solver.getProofThreats()).isZero();
+        // (4,1) connects too, by filling (4,2)
+        MoveExecutor.play(state, rules, result.winningMove().position());
+        assertThat(state.getWinner()).isEqualTo(Stone.BLACK);
+    }
+
+    @Test
+    @DisplayName("Should report a loss against two connections no move can stop")
+    void shouldSeeUnstoppableDoubleThreat() {
+        GameState state = new GameState(5);
+        for (int row = 0; row < 4; row++) {
+            state.getBoard().setStone(Position.of(row, 0), Stone.BLACK);
+            state.getBoard().setStone(Position.of(row, 4), Stone.BLACK);
+        }
+        state.switchPlayer();
+
+        SolverResult result = new ThreatSpaceSolver().solve(state);
+
+        assertThat(result.outcome()).isEqualTo(SolverResult.Outcome.LOSS);
+        assertThat(result.winningMove()).isNull();
+    }
+
+    @Test
+    @DisplayName("Should agree with df-pn and play moves that keep the win")
+    void shouldAgreeWithDfpn() {
+        ThreatSpaceSolver solver = new ThreatSpaceSolver();
+        DfpnSolver dfpn = new DfpnSolver(16);
+        int proven = 0;
+        int threatened = 0;
+        for (GameState position : randomPositions(5, 20, new Random(7))) {
+            SolverResult result = solver.solve(position);
+            if (!result.isProven()) {
+                continue;
+            }
+            proven++;
+            assertThat(dfpn.solve(position).outcome()).isEqualTo(result.outcome());
+            if (result.outcome() != SolverResult.Outcome.WIN) {
+                continue;
+            }
+            threatened += solver.getProofThreats() > 0 ? 1 : 0;
+            MoveExecutor.play(position, rules, result.winningMove().position());
+            if (position.isInProgress()) {
+                assertThat(dfpn.solve(position).outcome()).isEqualTo(SolverResult.Outcome.LOSS);
+            }
+        }
+        assertThat(proven).isGreaterThan(10);
+        assertThat(threatened).isPositive();
+    }
+
+    @Test
+    @DisplayName("Should give up without a proof when the node budget runs out")
+    void shouldRespectNodeLimit() {
+        ThreatSpaceSolver solver = new ThreatSpaceSolver();
+        for (GameState position : randomPositions(7, 10, new Random(3))) {
+            if (solver.solve(position).outcome() == SolverResult.Outcome.WIN && solver.getProofThreats() > 0) {
+                solver.setNodeLimit(1);
+                SolverResult limited = solver.solve(position);
+
+                assertThat(limited.outcome()).isEqualTo(SolverResult.Outcome.UNKNOWN);
+                assertThat(limited.nodes()).isLessThanOrEqualTo(2L);
+                return;
+            }
+        }
+        fail("No position needing threats was generated");
+    }
+
+    // Every unfinished position of a few random games
+    private List<GameState> randomPositions(int size, int games, Random random) {
+        List<GameState> positions = new ArrayList<>();
+        for (int game = 0; game < games; game++) {
+            GameState state = new GameState(size);
+            while (state.isInProgress()) {
+                List<Position> empty = new ArrayList<>();
+                for (int cell = 0; cell < size * size; cell++) {
+                    Position pos = Position.of(cell / size, cell % size);
+                    if (state.getBoard().getStone(pos) == Stone.EMPTY) {
+                        empty.add(pos);
+                    }
+                }
+                if (empty.isEmpty()) {
+                    break;
+                }
+                positions.add(state.copy());
+                MoveExecutor.play(state, rules, empty.get(random.nextInt(empty.size())));
+            }
+        }
+        return positions;
+    }
+}
@@ -0,0 +1,70 @@
+package brique.tools;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+class RunLoadTestTest {
+
+    @Test
+    @DisplayName("Should parse the three think distributions and their means")
+    void shouldParseThinkTimes() {
+        RunLoadTest.Think exp = RunLoadTest.Think.parse("exp:100");
+        assertThat(exp.meanMillis()).isEqualTo(100.0);
+        assertThat(exp.toString()).isEqualTo("exp:100 ms");
+
+        RunLoadTest.Think fixed = RunLoadTest.Think.parse("fixed:5");
+        assertThat(fixed.meanMillis()).isEqualTo(5.0);
+        assertThat(fixed.sampleNanos(new Random(1))).isEqualTo(5_000_000L);
+
+        RunLoadTest.Think uniform = RunLoadTest.Think.parse("uniform:10-30");
+        assertThat(uniform.meanMillis()).isEqualTo(20.0);
+        assertThat(uniform.toString()).isEqualTo("uniform:10-30 ms");
+        Random random = new Random(2);
+        for (int i = 0; i < 1_000; i++) {
+            assertThat(uniform.sampleNanos(random)).isBetween(10_000_000L, 30_000_000L);
+        }
+    }
+
+    @Test
+    @DisplayName("Should refuse unknown, malformed and negative think times")
+    void shouldRefuseBadThinkTimes() {
+        for (String text : new String[] {"exp", "gauss:10", "uniform:30-10", "exp:-1", "fixed:soon", "exp:1:2"}) {
+            assertThatThrownBy(() -> RunLoadTest.Think.parse(text)).isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Test
+    @DisplayName("Should give percentiles as bucket upper bounds within 4% of the recorded times")
+    void shouldReadPercentiles() {
+        RunLoadTest.Histogram histogram = new RunLoadTest.Histogram();
+        assertThat(histogram.percentile(0.5)).isNaN();
+
+        for (int i = 0; i < 98; i++) {
+            histogram.record(1_000_000);
+        }
+        histogram.record(100_000_000);
+        histogram.record(100_000_000);
+        assertThat(histogram.percentile(0.50)).isBetween(1.0, 1.04);
+        assertThat(histogram.percentile(0.98)).isBetween(1.0, 1.04);
+        assertThat(histogram.percentile(0.99)).isBetween(100.0, 104.0);
+        assertThat(histogram.percentile(1.0)).isBetween(100.0, 104.0);
+
+        // Linear below 32 units of 1.024 us
+        RunLoadTest.Histogram fine = new RunLoadTest.Histogram();
+        fine.record(10 * 1_024);
+        assertThat(fine.percentile(1.0)).isCloseTo(11 * 1.024 / 1e3, within(1e-9));
+    }
+
+    @Test
+    @DisplayName("Should bound the move rate by half the players over think time plus round trip")
+    void shouldBoundTheMoveRate() {
+        assertThat(RunLoadTest.bound(1_000, 99, 1)).isEqualTo(5_000.0);
+        // An odd player counts for half a game
+        assertThat(RunLoadTest.bound(3, 100, 0)).isEqualTo(15.0);
+        assertThat(RunLoadTest.bound(1, 2_000, 0)).isEqualTo(0.25);
+    }
+}
@@ -0,0 +1,77 @@
+package brique.tournament;
+
+import brique.bot.BotConfig;
+import brique.bot.SearchLimits;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class TournamentTest {
+
+    private final Sprt sprt = new Sprt(0, 50, 0.05, 0.05);
+
+    @Test
+    @DisplayName("Should accept H1 for a clearly stronger engine and H0 for an equal one")
+    void shouldDecideSprt() {
+        assertThat(sprt.upperBound()).isCloseTo(Math.log(19), within(1e-9));
+        assertThat(sprt.lowerBound()).isCloseTo(-Math.log(19), within(1e-9));
+
+        // Two pairs prove nothing, however they went
+        assertThat(sprt.decide(new long[] {0, 0, 0, 0, 2})).isEqualTo(Sprt.Decision.CONTINUE);
+        assertThat(sprt.decide(new long[] {0, 0, 0, 0, 40})).isEqualTo(Sprt.Decision.ACCEPT_H1);
+        assertThat(sprt.decide(new long[] {0, 0, 0, 5, 20})).isEqualTo(Sprt.Decision.ACCEPT_H1);
+        assertThat(sprt.decide(new long[] {20, 40, 80, 40, 20})).isEqualTo(Sprt.Decision.ACCEPT_H0);
+        assertThat(sprt.decide(new long[] {1, 2, 4, 2, 1})).isEqualTo(Sprt.Decision.CONTINUE);
+    }
+
+    @Test
+    @DisplayName("Should play every pairing to the full length without SPRT")
+    void shouldPlayRoundRobinAndGauntlet() throws Exception {
+        List<Entrant> entrants = List.of(mcts("a", 40), mcts("b", 20), mcts("c", 10));
+
+        Tournament roundRobin = new Tournament(4, entrants, Tournament.Format.ROUND_ROBIN);
+        roundRobin.setMaxPairs(3);
+        roundRobin.setThreads(2);
+        TournamentReport report = roundRobin.run();
+
+        assertThat(report.matches()).hasSize(3);
+        assertThat(report.games()).isEqualTo(18);
+        for (MatchResult match : report.matches()) {
+            assertThat(match.games()).isEqualTo(6);
+            assertThat(match.pairCount()).isEqualTo(3L);
+            assertThat(match.decision()).isNull();
+        }
+
+        Tournament gauntlet = new Tournament(4, entrants, Tournament.Format.GAUNTLET);
+        gauntlet.setMaxPairs(1);
+        assertThat(gauntlet.run().matches()).allMatch(match -> match.first().equals("a"));
+    }
+
+    @Test
+    @DisplayName("Should stop a lopsided match early and report it as JSON")
+    void shouldStopEarly() throws Exception {
+        Tournament tournament = new Tournament(5, List.of(mcts("strong", 300), mcts("weak", 1)), Tournament.Format.GAUNTLET);
+        tournament.setMaxPairs(100);
+        tournament.setSprt(sprt);
+        TournamentReport report = tournament.run();
+        MatchResult match = report.matches().get(0);
+
+        assertThat(match.decision()).isEqualTo(Sprt.Decision.ACCEPT_H1);
+        assertThat(match.games()).isLessThan(200);
+        assertThat(match.score()).isGreaterThan(0.5);
+
+        String json = report.toJson();
+        assertThat(json.contains("\"first\": \"strong\"")).isTrue();
+        assertThat(json.contains("\"decision\": \"ACCEPT_H1\"")).isTrue();
+        assertThat(json.contains("Infinity") || json.contains("NaN")).isFalse();
+    }
+
+    private static Entrant mcts(String name, long playouts) {
+        BotConfig config = new BotConfig();
+        config.set(BotConfig.BOT, BotConfig.MCTS);
+        return new Entrant(name, config, new SearchLimits(0, 0, playouts));
+    }
+}
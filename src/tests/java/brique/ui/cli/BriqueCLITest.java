@@ -44,6 +44,16 @@ class BriqueCLITest {
         assertThat(renderer.renderCount).isGreaterThanOrEqualTo(2);
     }
 
+    @Test
+    void shouldReportSolverResult() {
+        FakeIO io = new FakeIO("solve", "quit");
+        GameEngine engine = new LocalGameEngine(3);
+
+        new BriqueCLI(engine, io, new RecordingRenderer()).start();
+
+        assertThat(io.writes).anyMatch(s -> s.contains("BLACK loses against best play"));
+    }
+
     private static final class FakeIO extends ConsoleIO {
         private final Deque<String> inputs = new ArrayDeque<>();
         final List<String> writes = new ArrayList<>();